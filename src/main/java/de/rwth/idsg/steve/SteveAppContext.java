@@ -110,18 +110,21 @@ public class SteveAppContext {
         ServletHolder web = new ServletHolder("spring-dispatcher", new DispatcherServlet(springContext));
         ServletHolder cxf = new ServletHolder("cxf", new CXFServlet());
 
+        // Forwarded calls of the cluster are answered asynchronously
+        web.setAsyncSupported(true);
+
         ctx.addEventListener(new ContextLoaderListener(springContext));
         ctx.addServlet(web, CONFIG.getSpringMapping());
         ctx.addServlet(cxf, CONFIG.getCxfMapping() + "/*");
 
         if (CONFIG.getProfile().isProd()) {
             // If PROD, add security filter
-            ctx.addFilter(
-                // The bean name is not arbitrary, but is as expected by Spring
-                new FilterHolder(new DelegatingFilterProxy(AbstractSecurityWebApplicationInitializer.DEFAULT_FILTER_NAME)),
-                CONFIG.getSpringMapping() + "*",
-                EnumSet.allOf(DispatcherType.class)
-            );
+            // The bean name is not arbitrary, but is as expected by Spring
+            String beanName = AbstractSecurityWebApplicationInitializer.DEFAULT_FILTER_NAME;
+            FilterHolder security = new FilterHolder(new DelegatingFilterProxy(beanName));
+            security.setAsyncSupported(true);
+
+            ctx.addFilter(security, CONFIG.getSpringMapping() + "*", EnumSet.allOf(DispatcherType.class));
         }
 
         initJSP(ctx);
@@ -18,14 +18,25 @@
  */
 package de.rwth.idsg.steve;
 
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import de.rwth.idsg.steve.ocpp.ws.custom.OutboundOverflowStrategy;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategy;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategyEnum;
+import de.rwth.idsg.steve.repository.impl.MeterValueIngestQueue;
 import de.rwth.idsg.steve.utils.PropertiesFileLoader;
 import lombok.Builder;
 import lombok.Getter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNullElse;
+
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 19.08.2014
@@ -60,6 +71,7 @@ public enum SteveConfiguration {
     private final WebApi webApi;
     private final DB db;
     private final Jetty jetty;
+    private final Cluster cluster;
 
     SteveConfiguration() {
         PropertiesFileLoader p = new PropertiesFileLoader("main.properties");
@@ -87,6 +99,17 @@ public enum SteveConfiguration {
                .userName(p.getString("db.user"))
                .password(p.getString("db.password"))
                .sqlLogging(p.getBoolean("db.sql.logging"))
+               .poolSize(requireNonNullElse(p.getOptionalInt("db.pool.size"), 10))
+               .webPoolSize(requireNonNullElse(p.getOptionalInt("db.web.pool.size"), 5))
+               .reportingPoolSize(requireNonNullElse(p.getOptionalInt("db.reporting.pool.size"), 3))
+               .replicaIp(p.getOptionalString("db.replica.ip"))
+               .replicaPort(requireNonNullElse(p.getOptionalInt("db.replica.port"), p.getInt("db.port")))
+               .replicaUserName(requireNonNullElse(p.getOptionalString("db.replica.user"), p.getString("db.user")))
+               .replicaPassword(
+                       requireNonNullElse(p.getOptionalString("db.replica.password"), p.getString("db.password")))
+               .replicaMaxLagSeconds(requireNonNullElse(p.getOptionalInt("db.replica.max.lag.seconds"), 30))
+               .slowQueryThresholdMillis(requireNonNullElse(p.getOptionalInt("db.slow.query.threshold.ms"), 1000))
+               .slowQueryLogBindValues(p.getOptionalBoolean("db.slow.query.log.bind.values"))
                .build();
 
         PasswordEncoder encoder = new BCryptPasswordEncoder();
@@ -97,6 +120,13 @@ public enum SteveConfiguration {
                    .encodedPassword(encoder.encode(p.getString("auth.password")))
                    .build();
 
+        cluster = Cluster.builder()
+                         .enabled(p.getOptionalBoolean("cluster.enabled"))
+                         .nodeUrl(p.getOptionalString("cluster.node.url"))
+                         .settingsPollSeconds(
+                                 requireNonNullElse(p.getOptionalInt("cluster.settings.poll.seconds"), 0))
+                         .build();
+
         webApi = WebApi.builder()
                        .headerKey(p.getOptionalString("webapi.key"))
                        .headerValue(p.getOptionalString("webapi.value"))
@@ -106,6 +136,51 @@ public enum SteveConfiguration {
                    .autoRegisterUnknownStations(p.getOptionalBoolean("auto.register.unknown.stations"))
                    .wsSessionSelectStrategy(
                            WsSessionSelectStrategyEnum.fromName(p.getString("ws.session.select.strategy")))
+                   .wsMailboxEnabled(p.getOptionalBoolean("ws.mailbox.enabled"))
+                   .wsMailboxThreads(requireNonNullElse(p.getOptionalInt("ws.mailbox.threads"), 16))
+                   .payloadLoggingEnabled(Boolean.parseBoolean(
+                           requireNonNullElse(p.getOptionalString("ocpp.payload.logging.enabled"), "true")))
+                   .journalEnabled(p.getOptionalBoolean("ocpp.journal.enabled"))
+                   .journalDirectory(requireNonNullElse(p.getOptionalString("ocpp.journal.dir"),
+                           Paths.get(System.getProperty("user.home"), ".steve", "journal").toString()))
+                   .journalSegmentSizeMb(requireNonNullElse(p.getOptionalInt("ocpp.journal.segment.size.mb"), 64))
+                   .journalRetentionDays(requireNonNullElse(p.getOptionalInt("ocpp.journal.retention.days"), 14))
+                   .journalMaxSizeMb(requireNonNullElse(p.getOptionalInt("ocpp.journal.max.size.mb"), 10240))
+                   .callTimeoutSeconds(requireNonNullElse(p.getOptionalInt("ocpp.call.timeout.seconds"), 120))
+                   .callTimeoutOverrides(parseCallTimeoutOverrides(p.getStringList("ocpp.call.timeout.overrides")))
+                   .maxPendingCallsPerSession(
+                           requireNonNullElse(p.getOptionalInt("ocpp.call.max.pending.per.session"), 100))
+                   .fanoutParallelism(requireNonNullElse(p.getOptionalInt("ocpp.fanout.parallelism"), 8))
+                   .fanoutThreads(requireNonNullElse(p.getOptionalInt("ocpp.fanout.threads"), 32))
+                   .fanoutDispatchTimeoutSeconds(
+                           requireNonNullElse(p.getOptionalInt("ocpp.fanout.dispatch.timeout.seconds"), 30))
+                   .wsHandshakeMaxConcurrent(requireNonNullElse(p.getOptionalInt("ws.handshake.max.concurrent"), 32))
+                   .wsHandshakeRatePerSecond(requireNonNullElse(p.getOptionalInt("ws.handshake.rate"), 50))
+                   .wsHandshakeBurst(requireNonNullElse(p.getOptionalInt("ws.handshake.burst"), 100))
+                   .wsHandshakeQueueTimeoutMillis(
+                           requireNonNullElse(p.getOptionalInt("ws.handshake.queue.timeout.ms"), 2000))
+                   .wsHandshakeRetryAfterSeconds(
+                           requireNonNullElse(p.getOptionalInt("ws.handshake.retry.after.seconds"), 30))
+                   .wsHandshakeRegistrationCacheSeconds(
+                           requireNonNullElse(p.getOptionalInt("ws.handshake.registration.cache.seconds"), 300))
+                   .wsOutboundBufferInitialKb(requireNonNullElse(p.getOptionalInt("ws.outbound.buffer.initial.kb"), 64))
+                   .wsOutboundBufferMaxKb(requireNonNullElse(p.getOptionalInt("ws.outbound.buffer.max.kb"), 40960))
+                   .wsOutboundBufferTotalMb(requireNonNullElse(p.getOptionalInt("ws.outbound.buffer.total.mb"), 512))
+                   .wsOutboundOverflowStrategy(OutboundOverflowStrategy.valueOf(
+                           requireNonNullElse(p.getOptionalString("ws.outbound.overflow.strategy"), "CLOSE")))
+                   .heartbeatFlushSeconds(requireNonNullElse(p.getOptionalInt("ocpp.heartbeat.flush.seconds"), 10))
+                   .meterValueIngestMode(MeterValueIngestQueue.Mode.valueOf(
+                           requireNonNullElse(p.getOptionalString("ocpp.metervalues.ingest.mode"), "COMMIT")))
+                   .meterValueIngestGroupSize(
+                           requireNonNullElse(p.getOptionalInt("ocpp.metervalues.ingest.group.size"), 1000))
+                   .meterValueIngestMaxDelayMillis(
+                           requireNonNullElse(p.getOptionalInt("ocpp.metervalues.ingest.max.delay.ms"), 20))
+                   .meterValueIngestQueueCapacity(
+                           requireNonNullElse(p.getOptionalInt("ocpp.metervalues.ingest.queue.capacity"), 10000))
+                   .authCacheSeconds(requireNonNullElse(p.getOptionalInt("ocpp.auth.cache.seconds"), 60))
+                   .authCacheMaxSize(requireNonNullElse(p.getOptionalInt("ocpp.auth.cache.max.size"), 100000))
+                   .activeTransactionCheckHours(
+                           requireNonNullElse(p.getOptionalInt("ocpp.active.transaction.check.hours"), 24))
                    .build();
 
         validate();
@@ -148,6 +223,119 @@ public enum SteveConfiguration {
             throw new IllegalArgumentException(
                     "HTTP and HTTPS are both disabled. Well, how do you want to access the server, then?");
         }
+
+        if (cluster.enabled) {
+            if (Strings.isNullOrEmpty(cluster.nodeUrl)) {
+                throw new IllegalArgumentException(
+                        "The property 'cluster.node.url' must be set, if the cluster is enabled");
+            }
+            if (Strings.isNullOrEmpty(webApi.headerKey) || Strings.isNullOrEmpty(webApi.headerValue)) {
+                throw new IllegalArgumentException(
+                        "The properties 'webapi.key' and 'webapi.value' must be set, if the cluster is enabled");
+            }
+        }
+
+        if (db.poolSize < 1 || db.webPoolSize < 1 || db.reportingPoolSize < 1) {
+            throw new IllegalArgumentException(
+                    "The properties 'db.pool.size', 'db.web.pool.size' and 'db.reporting.pool.size' "
+                            + "must be at least 1");
+        }
+
+        if (db.replicaMaxLagSeconds < 0) {
+            throw new IllegalArgumentException("The property 'db.replica.max.lag.seconds' must not be negative");
+        }
+
+        if (db.slowQueryThresholdMillis < 0) {
+            throw new IllegalArgumentException("The property 'db.slow.query.threshold.ms' must not be negative");
+        }
+
+        if (cluster.settingsPollSeconds < 0) {
+            throw new IllegalArgumentException("The property 'cluster.settings.poll.seconds' must not be negative");
+        }
+
+        if (ocpp.wsMailboxThreads < 1) {
+            throw new IllegalArgumentException("The property 'ws.mailbox.threads' must be at least 1");
+        }
+
+        if (ocpp.callTimeoutSeconds < 1 || ocpp.callTimeoutOverrides.values().stream().anyMatch(i -> i < 1)) {
+            throw new IllegalArgumentException("The call timeouts must be at least 1 second");
+        }
+
+        if (ocpp.maxPendingCallsPerSession < 1) {
+            throw new IllegalArgumentException("The property 'ocpp.call.max.pending.per.session' must be at least 1");
+        }
+
+        if (ocpp.fanoutParallelism < 1) {
+            throw new IllegalArgumentException("The property 'ocpp.fanout.parallelism' must be at least 1");
+        }
+
+        // Otherwise, a single operation for many stations would take all threads, and the others would wait for it
+        if (ocpp.fanoutThreads <= ocpp.fanoutParallelism) {
+            throw new IllegalArgumentException(
+                    "The property 'ocpp.fanout.threads' must be greater than 'ocpp.fanout.parallelism'");
+        }
+
+        if (ocpp.fanoutDispatchTimeoutSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "The property 'ocpp.fanout.dispatch.timeout.seconds' must not be negative");
+        }
+
+        if (ocpp.wsHandshakeMaxConcurrent < 1 || ocpp.wsHandshakeRatePerSecond < 1 || ocpp.wsHandshakeBurst < 1) {
+            throw new IllegalArgumentException(
+                    "The properties 'ws.handshake.max.concurrent', 'ws.handshake.rate' and 'ws.handshake.burst' "
+                            + "must be at least 1");
+        }
+
+        if (ocpp.wsHandshakeQueueTimeoutMillis < 0 || ocpp.wsHandshakeRetryAfterSeconds < 1
+                || ocpp.wsHandshakeRegistrationCacheSeconds < 0) {
+            throw new IllegalArgumentException("Invalid 'ws.handshake.*' timeouts");
+        }
+
+        if (ocpp.wsOutboundBufferInitialKb < 1 || ocpp.wsOutboundBufferMaxKb < ocpp.wsOutboundBufferInitialKb
+                || ocpp.wsOutboundBufferMaxKb > 2 * 1024 * 1024 || ocpp.wsOutboundBufferTotalMb < 0) {
+            throw new IllegalArgumentException(
+                    "Invalid 'ws.outbound.buffer.*' sizes. Initial must be at least 1 and at most max (< 2 GB)");
+        }
+
+        if (ocpp.heartbeatFlushSeconds < 0) {
+            throw new IllegalArgumentException("The property 'ocpp.heartbeat.flush.seconds' must not be negative");
+        }
+
+        // Each value has 10 columns, and MySQL allows at most 65535 placeholders per statement
+        if (ocpp.meterValueIngestGroupSize < 1 || ocpp.meterValueIngestGroupSize > 5000
+                || ocpp.meterValueIngestMaxDelayMillis < 0 || ocpp.meterValueIngestQueueCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid 'ocpp.metervalues.ingest.*' values. The group size must be between 1 and 5000");
+        }
+
+        if (ocpp.authCacheSeconds < 0 || ocpp.authCacheMaxSize < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid 'ocpp.auth.cache.*' values. The seconds must not be negative, the size must be positive");
+        }
+
+        if (ocpp.activeTransactionCheckHours < 0) {
+            throw new IllegalArgumentException("'ocpp.active.transaction.check.hours' must not be negative");
+        }
+
+        if (ocpp.journalSegmentSizeMb < 1 || ocpp.journalSegmentSizeMb > 1024) {
+            throw new IllegalArgumentException(
+                    "The property 'ocpp.journal.segment.size.mb' must be between 1 and 1024");
+        }
+    }
+
+    /**
+     * Format: Action=seconds, e.g. "GetDiagnostics=300"
+     */
+    private static Map<String, Integer> parseCallTimeoutOverrides(List<String> list) {
+        Map<String, Integer> map = new HashMap<>();
+        for (String entry : list) {
+            List<String> parts = Splitter.on('=').trimResults().splitToList(entry);
+            if (parts.size() != 2) {
+                throw new IllegalArgumentException("Invalid entry in 'ocpp.call.timeout.overrides': " + entry);
+            }
+            map.put(parts.get(0), Integer.parseInt(parts.get(1)));
+        }
+        return map;
     }
 
     // -------------------------------------------------------------------------
@@ -180,6 +368,25 @@ public enum SteveConfiguration {
         private final String userName;
         private final String password;
         private final boolean sqlLogging;
+        private final int poolSize;
+        // For the requests of the Web interface and the API
+        private final int webPoolSize;
+        // For the replica-safe reads. The replica gets a pool of the same size.
+        private final int reportingPoolSize;
+        // Optional read-only replica. Not used, if the ip is not set.
+        private final String replicaIp;
+        private final int replicaPort;
+        private final String replicaUserName;
+        private final String replicaPassword;
+        private final int replicaMaxLagSeconds;
+        // Statements that take longer are logged. 0 disables the logging.
+        private final int slowQueryThresholdMillis;
+        // Slow statements are logged with their bind values instead of the fingerprint
+        private final boolean slowQueryLogBindValues;
+
+        public boolean isReplicaEnabled() {
+            return replicaIp != null;
+        }
     }
 
     // Credentials for Web interface access
@@ -196,11 +403,56 @@ public enum SteveConfiguration {
         private final String headerValue;
     }
 
+    // Configuration for running multiple nodes behind a load balancer
+    @Builder @Getter
+    public static class Cluster {
+        private final boolean enabled;
+        // The base URL under which the other nodes reach this node. It is also the id of this node.
+        private final String nodeUrl;
+        private final int settingsPollSeconds;
+    }
+
     // OCPP-related configuration
     @Builder @Getter
     public static class Ocpp {
         private final boolean autoRegisterUnknownStations;
         private final WsSessionSelectStrategy wsSessionSelectStrategy;
+        private final boolean wsMailboxEnabled;
+        private final int wsMailboxThreads;
+        private final boolean payloadLoggingEnabled;
+        private final boolean journalEnabled;
+        private final String journalDirectory;
+        private final int journalSegmentSizeMb;
+        private final int journalRetentionDays;
+        private final int journalMaxSizeMb;
+        private final int callTimeoutSeconds;
+        private final Map<String, Integer> callTimeoutOverrides;
+        private final int maxPendingCallsPerSession;
+        private final int fanoutParallelism;
+        private final int fanoutThreads;
+        private final int fanoutDispatchTimeoutSeconds;
+        private final int wsHandshakeMaxConcurrent;
+        private final int wsHandshakeRatePerSecond;
+        private final int wsHandshakeBurst;
+        private final int wsHandshakeQueueTimeoutMillis;
+        private final int wsHandshakeRetryAfterSeconds;
+        private final int wsHandshakeRegistrationCacheSeconds;
+        private final int wsOutboundBufferInitialKb;
+        private final int wsOutboundBufferMaxKb;
+        private final int wsOutboundBufferTotalMb;
+        private final OutboundOverflowStrategy wsOutboundOverflowStrategy;
+        private final int heartbeatFlushSeconds;
+        private final MeterValueIngestQueue.Mode meterValueIngestMode;
+        private final int meterValueIngestGroupSize;
+        private final int meterValueIngestMaxDelayMillis;
+        private final int meterValueIngestQueueCapacity;
+        private final int authCacheSeconds;
+        private final int authCacheMaxSize;
+        private final int activeTransactionCheckHours;
+
+        public int getCallTimeoutSeconds(String action) {
+            return callTimeoutOverrides.getOrDefault(action, callTimeoutSeconds);
+        }
     }
 
 }
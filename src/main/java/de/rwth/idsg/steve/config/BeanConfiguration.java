@@ -26,6 +26,11 @@ import com.mysql.cj.conf.PropertyKey;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.ocpp.ws.cluster.DatabaseStationDirectory;
+import de.rwth.idsg.steve.ocpp.ws.cluster.InMemoryStationDirectory;
+import de.rwth.idsg.steve.ocpp.ws.cluster.StationDirectory;
+import de.rwth.idsg.steve.repository.impl.QueryStatistics;
+import de.rwth.idsg.steve.repository.impl.ReadReplicaRouter;
 import de.rwth.idsg.steve.service.DummyReleaseCheckService;
 import de.rwth.idsg.steve.service.GithubReleaseCheckService;
 import de.rwth.idsg.steve.service.ReleaseCheckService;
@@ -38,6 +43,7 @@ import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
 import org.jooq.impl.DataSourceConnectionProvider;
 import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -51,6 +57,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
@@ -59,13 +66,13 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 
 import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
 import javax.validation.Validator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 
 import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
@@ -82,21 +89,33 @@ import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 @ComponentScan("de.rwth.idsg.steve")
 public class BeanConfiguration implements WebMvcConfigurer {
 
+    private final Bulkheads bulkheads = new Bulkheads();
+    private final QueryStatistics queryStatistics = new QueryStatistics(CONFIG.getDb().getSlowQueryThresholdMillis(),
+                                                                         CONFIG.getDb().isSlowQueryLogBindValues());
+
+    private final WebWorkloadRouting webWorkloadRouting = new WebWorkloadRouting();
+
     private HikariDataSource dataSource;
-    private ScheduledThreadPoolExecutor executor;
+    private HikariDataSource webDataSource;
+    private HikariDataSource reportingDataSource;
+    private HikariDataSource replicaDataSource;
 
     /**
      * https://github.com/brettwooldridge/HikariCP/wiki/MySQL-Configuration
      */
-    private void initDataSource() {
+    private HikariDataSource createDataSource(String poolName, int poolSize, String ip, int port, String userName,
+                                              String password, boolean readOnly) {
         SteveConfiguration.DB dbConfig = CONFIG.getDb();
 
         HikariConfig hc = new HikariConfig();
 
         // set standard params
-        hc.setJdbcUrl("jdbc:mysql://" + dbConfig.getIp() + ":" + dbConfig.getPort() + "/" + dbConfig.getSchema());
-        hc.setUsername(dbConfig.getUserName());
-        hc.setPassword(dbConfig.getPassword());
+        hc.setPoolName(poolName);
+        hc.setMaximumPoolSize(poolSize);
+        hc.setJdbcUrl("jdbc:mysql://" + ip + ":" + port + "/" + dbConfig.getSchema());
+        hc.setUsername(userName);
+        hc.setPassword(password);
+        hc.setReadOnly(readOnly);
 
         // set non-standard params
         hc.addDataSourceProperty(PropertyKey.cachePrepStmts.getKeyName(), true);
@@ -110,7 +129,29 @@ public class BeanConfiguration implements WebMvcConfigurer {
         // https://github.com/steve-community/steve/issues/736
         hc.setMaxLifetime(580_000);
 
-        dataSource = new HikariDataSource(hc);
+        HikariDataSource ds = new HikariDataSource(hc);
+        bulkheads.register(poolName, ds);
+        return ds;
+    }
+
+    private DSLContext createDslContext(DataSource dataSource) {
+        Settings settings = new Settings()
+                // Normally, the records are "attached" to the Configuration that created (i.e. fetch/insert) them.
+                // This means that they hold an internal reference to the same database connection that was used.
+                // The idea behind this is to make CRUD easier for potential subsequent store/refresh/delete
+                // operations. We do not use or need that.
+                .withAttachRecords(false)
+                // To log or not to log the sql queries, that is the question
+                .withExecuteLogging(CONFIG.getDb().isSqlLogging());
+
+        // Configuration for JOOQ
+        org.jooq.Configuration conf = new DefaultConfiguration()
+                .set(SQLDialect.MYSQL)
+                .set(new DataSourceConnectionProvider(dataSource))
+                .set(new DefaultExecuteListenerProvider(queryStatistics))
+                .set(settings);
+
+        return DSL.using(conf);
     }
 
     /**
@@ -124,27 +165,46 @@ public class BeanConfiguration implements WebMvcConfigurer {
      * - http://jooq-user.narkive.com/2fvuLodn/dslcontext-and-threads
      * - https://groups.google.com/forum/#!topic/jooq-user/VK7KQcjj3Co
      * - http://stackoverflow.com/questions/32848865/jooq-dslcontext-correct-autowiring-with-spring
+     *
+     * The requests of the Web interface and the API get the connections of a pool of their own, see
+     * {@link WebWorkloadRouting}.
      */
     @Bean
     public DSLContext dslContext() {
-        initDataSource();
+        SteveConfiguration.DB dbConfig = CONFIG.getDb();
 
-        Settings settings = new Settings()
-                // Normally, the records are "attached" to the Configuration that created (i.e. fetch/insert) them.
-                // This means that they hold an internal reference to the same database connection that was used.
-                // The idea behind this is to make CRUD easier for potential subsequent store/refresh/delete
-                // operations. We do not use or need that.
-                .withAttachRecords(false)
-                // To log or not to log the sql queries, that is the question
-                .withExecuteLogging(CONFIG.getDb().isSqlLogging());
+        dataSource = createDataSource("primary", dbConfig.getPoolSize(), dbConfig.getIp(), dbConfig.getPort(),
+                dbConfig.getUserName(), dbConfig.getPassword(), false);
 
-        // Configuration for JOOQ
-        org.jooq.Configuration conf = new DefaultConfiguration()
-                .set(SQLDialect.MYSQL)
-                .set(new DataSourceConnectionProvider(dataSource))
-                .set(settings);
+        webDataSource = createDataSource("web", dbConfig.getWebPoolSize(), dbConfig.getIp(), dbConfig.getPort(),
+                dbConfig.getUserName(), dbConfig.getPassword(), false);
 
-        return DSL.using(conf);
+        return createDslContext(webWorkloadRouting.route(dataSource, webDataSource));
+    }
+
+    /**
+     * The replica-safe reads (reports, overview pages) get their own pool and DSLContext for the primary database,
+     * so that they cannot take away the connections the OCPP messages need. The replica gets another one.
+     * Repositories ask the router for the context of these reads.
+     */
+    @Bean
+    public ReadReplicaRouter readReplicaRouter(ScheduledExecutorService executor) {
+        SteveConfiguration.DB dbConfig = CONFIG.getDb();
+
+        reportingDataSource = createDataSource("reporting", dbConfig.getReportingPoolSize(), dbConfig.getIp(),
+                dbConfig.getPort(), dbConfig.getUserName(), dbConfig.getPassword(), true);
+
+        DSLContext reportingContext = createDslContext(reportingDataSource);
+
+        if (!dbConfig.isReplicaEnabled()) {
+            return new ReadReplicaRouter(reportingContext);
+        }
+
+        replicaDataSource = createDataSource("replica", dbConfig.getReportingPoolSize(), dbConfig.getReplicaIp(),
+                dbConfig.getReplicaPort(), dbConfig.getReplicaUserName(), dbConfig.getReplicaPassword(), true);
+
+        return new ReadReplicaRouter(reportingContext, createDslContext(replicaDataSource),
+                dbConfig.getReplicaMaxLagSeconds(), executor);
     }
 
     @Bean
@@ -152,10 +212,68 @@ public class BeanConfiguration implements WebMvcConfigurer {
         ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("SteVe-Executor-%d")
                                                                 .build();
 
-        executor = new ScheduledThreadPoolExecutor(5, threadFactory);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(5, threadFactory);
+        bulkheads.register("scheduler", executor);
         return executor;
     }
 
+    /**
+     * Runs the expired timers of the WebSocket sessions (keep-alive pings, call timeouts). Call timeouts must not be
+     * lost, therefore the timer thread runs them itself, when the queue is full.
+     */
+    @Bean(name = "timerExecutor")
+    public ExecutorService timerExecutor() {
+        return bulkheads.newExecutor("timer", 4, 10_000, Bulkheads.Rejection.CALLER_RUNS);
+    }
+
+    /**
+     * Sends the operations for multiple stations that are triggered via Web interface/API to the stations. When it is
+     * full, the user gets an error instead of the operation piling up. An operation takes up to so many threads as the
+     * parallelism, which is less than the threads of the pool, see
+     * {@link de.rwth.idsg.steve.service.BackgroundService}.
+     */
+    @Bean(name = "fanoutExecutor")
+    public ExecutorService fanoutExecutor() {
+        return bulkheads.newExecutor("fanout", CONFIG.getOcpp().getFanoutThreads(), 1_000,
+                Bulkheads.Rejection.ABORT);
+    }
+
+    /**
+     * Operations for a single station (e.g. RemoteStartTransaction). Separate from the fanout, so that they do not
+     * wait for operations for many stations.
+     */
+    @Bean(name = "singleOperationExecutor")
+    public ExecutorService singleOperationExecutor() {
+        return bulkheads.newExecutor("single-operation", 4, 1_000, Bulkheads.Rejection.ABORT);
+    }
+
+    /**
+     * Notification mails. A slow or unreachable mail server blocks only this single thread.
+     */
+    @Bean(name = "mailExecutor")
+    public ExecutorService mailExecutor() {
+        return bulkheads.newExecutor("mail", 1, 100, Bulkheads.Rejection.DISCARD);
+    }
+
+    /**
+     * Endpoint address updates of SOAP stations. Every message of a station triggers one, so a dropped one is
+     * repeated soon.
+     */
+    @Bean(name = "endpointUpdateExecutor")
+    public ExecutorService endpointUpdateExecutor() {
+        return bulkheads.newExecutor("endpointUpdate", 2, 1_000, Bulkheads.Rejection.DISCARD);
+    }
+
+    @Bean
+    public Bulkheads bulkheads() {
+        return bulkheads;
+    }
+
+    @Bean
+    public QueryStatistics queryStatistics() {
+        return queryStatistics;
+    }
+
     @Bean
     public Validator validator() {
         return new LocalValidatorFactoryBean();
@@ -176,6 +294,18 @@ public class BeanConfiguration implements WebMvcConfigurer {
         }
     }
 
+    /**
+     * A single node does not need to share the directory with anyone. Keep it in memory and do not bother the database.
+     */
+    @Bean
+    public StationDirectory stationDirectory(DSLContext ctx) {
+        if (CONFIG.getCluster().isEnabled()) {
+            return new DatabaseStationDirectory(ctx, CONFIG.getCluster().getNodeUrl());
+        } else {
+            return new InMemoryStationDirectory("local");
+        }
+    }
+
     @EventListener
     public void afterStart(ContextRefreshedEvent event) {
         DateTimeUtils.checkJavaAndMySQLOffsets(dslContext());
@@ -183,28 +313,22 @@ public class BeanConfiguration implements WebMvcConfigurer {
 
     @PreDestroy
     public void shutDown() {
+        bulkheads.shutDown();
+
         if (dataSource != null) {
             dataSource.close();
         }
 
-        if (executor != null) {
-            gracefulShutDown(executor);
+        if (webDataSource != null) {
+            webDataSource.close();
         }
-    }
-
-    private void gracefulShutDown(ExecutorService executor) {
-        try {
-            executor.shutdown();
-            executor.awaitTermination(30, TimeUnit.SECONDS);
 
-        } catch (InterruptedException e) {
-            log.error("Termination interrupted", e);
+        if (reportingDataSource != null) {
+            reportingDataSource.close();
+        }
 
-        } finally {
-            if (!executor.isTerminated()) {
-                log.warn("Killing non-finished tasks");
-            }
-            executor.shutdownNow();
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
         }
     }
 
@@ -232,6 +356,11 @@ public class BeanConfiguration implements WebMvcConfigurer {
         registry.addResourceHandler("/static/**").addResourceLocations("static/");
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(webWorkloadRouting).addPathPatterns("/manager/**", "/api/**");
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/manager/signin").setViewName("signin");
@@ -0,0 +1,232 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The threads and database connections are split by workload into bulkheads, each with its own bounded pool and
+ * queue. A workload that gets stuck (e.g. the mail server is down) or floods its bulkhead (e.g. an operation for
+ * thousands of stations) can only exhaust its own bulkhead, but not the ones that process the OCPP messages.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+public class Bulkheads implements MetricsSource {
+
+    public enum Rejection {
+        // The submitter gets a RejectedExecutionException
+        ABORT,
+        // The task is dropped. For tasks that are repeated anyway.
+        DISCARD,
+        // The submitter runs the task itself and is slowed down by it. For tasks that must not be lost.
+        CALLER_RUNS
+    }
+
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, CountingRejectionHandler> rejectionHandlers = new ConcurrentHashMap<>();
+    private final Map<String, HikariDataSource> pools = new ConcurrentHashMap<>();
+
+    public ExecutorService newExecutor(String name, int threads, int queueCapacity, Rejection rejection) {
+        CountingRejectionHandler handler = new CountingRejectionHandler(name, rejection);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("SteVe-" + name + "-%d").build(),
+                handler
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        register(name, executor);
+        rejectionHandlers.put(name, handler);
+        return executor;
+    }
+
+    public void register(String name, ThreadPoolExecutor executor) {
+        executors.put(name, executor);
+    }
+
+    public void register(String name, HikariDataSource pool) {
+        pools.put(name, pool);
+    }
+
+    public void shutDown() {
+        executors.values().forEach(ExecutorService::shutdown);
+
+        for (Map.Entry<String, ThreadPoolExecutor> entry : executors.entrySet()) {
+            try {
+                entry.getValue().awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                log.error("Termination interrupted", e);
+                Thread.currentThread().interrupt();
+            } finally {
+                if (!entry.getValue().isTerminated()) {
+                    log.warn("Killing non-finished tasks of the bulkhead '{}'", entry.getKey());
+                }
+                entry.getValue().shutdownNow();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "bulkheads";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        Map<String, ExecutorStats> executorStats = new TreeMap<>();
+        executors.forEach((name, executor) -> executorStats.put(name, ExecutorStats.of(executor,
+                rejectionHandlers.get(name))));
+
+        Map<String, PoolStats> poolStats = new TreeMap<>();
+        pools.forEach((name, pool) -> {
+            PoolStats stats = PoolStats.of(pool);
+            if (stats != null) {
+                poolStats.put(name, stats);
+            }
+        });
+
+        return Stats.builder()
+                    .executors(executorStats)
+                    .pools(poolStats)
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final Map<String, ExecutorStats> executors;
+        private final Map<String, PoolStats> pools;
+    }
+
+    @Getter
+    @Builder
+    public static class ExecutorStats {
+        private final int threads;
+        private final int active;
+        private final int queued;
+        // Unbounded, if null
+        private final Integer queueCapacity;
+        private final long completed;
+        private final Rejection rejection;
+        private final long rejected;
+
+        private static ExecutorStats of(ThreadPoolExecutor executor, CountingRejectionHandler handler) {
+            int queued = executor.getQueue().size();
+            int remaining = executor.getQueue().remainingCapacity();
+
+            return ExecutorStats.builder()
+                                .threads(executor.getMaximumPoolSize())
+                                .active(executor.getActiveCount())
+                                .queued(queued)
+                                .queueCapacity(remaining == Integer.MAX_VALUE ? null : queued + remaining)
+                                .completed(executor.getCompletedTaskCount())
+                                .rejection(handler == null ? null : handler.rejection)
+                                .rejected(handler == null ? 0 : handler.count.get())
+                                .build();
+        }
+    }
+
+    @Getter
+    @Builder
+    public static class PoolStats {
+        private final int maxSize;
+        private final int active;
+        private final int idle;
+        private final int total;
+        private final int threadsAwaitingConnection;
+
+        private static PoolStats of(HikariDataSource pool) {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            if (bean == null) {
+                return null;
+            }
+            return PoolStats.builder()
+                            .maxSize(pool.getMaximumPoolSize())
+                            .active(bean.getActiveConnections())
+                            .idle(bean.getIdleConnections())
+                            .total(bean.getTotalConnections())
+                            .threadsAwaitingConnection(bean.getThreadsAwaitingConnection())
+                            .build();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    @RequiredArgsConstructor
+    private static class CountingRejectionHandler implements RejectedExecutionHandler {
+        private final String name;
+        private final Rejection rejection;
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            long rejectedSoFar = count.incrementAndGet();
+
+            switch (rejection) {
+                case ABORT:
+                    throw new RejectedExecutionException("The bulkhead '" + name + "' is full");
+
+                case DISCARD:
+                    // Do not flood the log, while the bulkhead is stuck
+                    if (rejectedSoFar == 1 || rejectedSoFar % 1000 == 0) {
+                        log.warn("The bulkhead '{}' is full. Dropped {} tasks so far", name, rejectedSoFar);
+                    }
+                    break;
+
+                case CALLER_RUNS:
+                    if (!executor.isShutdown()) {
+                        task.run();
+                    }
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unexpected rejection: " + rejection);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * The requests of the Web interface and the API (e.g. charge point details, data management, the OCPP tag API) use
+ * the same repositories as the OCPP messages. To keep them from taking away the connections the OCPP messages need,
+ * the threads of these requests are marked by this interceptor, and the routed data source hands them the
+ * connections of the web pool.
+ *
+ * A thread is marked only while the handler runs. The filters before (e.g. the authentication of Spring Security)
+ * and the work the handler passes to other threads (e.g. the operations sent to the stations) use the OCPP pool.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class WebWorkloadRouting implements AsyncHandlerInterceptor {
+
+    private final ThreadLocal<Boolean> webRequest = new ThreadLocal<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        webRequest.set(Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        webRequest.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        webRequest.remove();
+    }
+
+    public boolean isWebRequest() {
+        return webRequest.get() != null;
+    }
+
+    /**
+     * @return the data source that gives the connections of the web pool to the marked threads, and the ones of the
+     * OCPP pool to all others
+     */
+    public DataSource route(DataSource ocppPool, DataSource webPool) {
+        return new RoutedDataSource(ocppPool, webPool);
+    }
+
+    @RequiredArgsConstructor
+    private class RoutedDataSource implements DataSource {
+        private final DataSource ocppPool;
+        private final DataSource webPool;
+
+        private DataSource current() {
+            return isWebRequest() ? webPool : ocppPool;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return current().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return current().getConnection(username, password);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return ocppPool.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            ocppPool.setLogWriter(out);
+            webPool.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            ocppPool.setLoginTimeout(seconds);
+            webPool.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return ocppPool.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return ocppPool.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return iface.cast(this);
+            }
+            return current().unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || current().isWrapperFor(iface);
+        }
+    }
+}
@@ -63,6 +63,9 @@ public abstract class CommunicationTask<S extends ChargePointSelection, RESPONSE
     private final AtomicInteger errorCount = new AtomicInteger(0);
     private final AtomicInteger responseCount = new AtomicInteger(0);
 
+    // Progress of sending the requests. The responses come later.
+    private final AtomicInteger dispatchedCount = new AtomicInteger(0);
+
     @Getter(AccessLevel.NONE) // disable getter generation
     private final Object lockObject = new Object();
 
@@ -104,10 +107,19 @@ public abstract class CommunicationTask<S extends ChargePointSelection, RESPONSE
         }
     }
 
+    /**
+     * Only the first result of a charge point counts. A response, that arrives after the dispatch of the request
+     * was given up on (see {@link #dispatchFailed(String, Exception)}), is ignored.
+     */
     public void addNewResponse(String chargeBoxId, String response) {
-        resultMap.get(chargeBoxId).setResponse(response);
-
         synchronized (lockObject) {
+            RequestResult result = resultMap.get(chargeBoxId);
+            if (hasResult(result)) {
+                log.debug("Ignoring the response of '{}', since it already has a result", chargeBoxId);
+                return;
+            }
+            result.setResponse(response);
+
             if (resultSize == (errorCount.get() + responseCount.incrementAndGet())) {
                 endTimestamp = DateTime.now();
             }
@@ -115,15 +127,32 @@ public abstract class CommunicationTask<S extends ChargePointSelection, RESPONSE
     }
 
     public void addNewError(String chargeBoxId, String errorMessage) {
-        resultMap.get(chargeBoxId).setErrorMessage(errorMessage);
-
         synchronized (lockObject) {
+            RequestResult result = resultMap.get(chargeBoxId);
+            if (hasResult(result)) {
+                log.debug("Ignoring the error of '{}', since it already has a result", chargeBoxId);
+                return;
+            }
+            result.setErrorMessage(errorMessage);
+
             if (resultSize == (errorCount.incrementAndGet() + responseCount.get())) {
                 endTimestamp = DateTime.now();
             }
         }
     }
 
+    public void addDispatched() {
+        dispatchedCount.incrementAndGet();
+    }
+
+    /**
+     * The request could not be sent to the charge point (in time). Notifies the callbacks as if the call failed.
+     */
+    public void dispatchFailed(String chargeBoxId, Exception exception) {
+        dispatchedCount.incrementAndGet();
+        failed(chargeBoxId, exception);
+    }
+
     protected void success(String chargeBoxId, RESPONSE response) {
         for (OcppCallback<RESPONSE> c : callbackList) {
             try {
@@ -144,6 +173,10 @@ public abstract class CommunicationTask<S extends ChargePointSelection, RESPONSE
         }
     }
 
+    private static boolean hasResult(RequestResult result) {
+        return result.getResponse() != null || result.getErrorMessage() != null;
+    }
+
     public RequestType getRequest() {
         switch (ocppVersion) {
             case V_12: return getOcpp12Request();
@@ -0,0 +1,46 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.journal;
+
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One raw OCPP message as it was received from or sent to a station.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Getter
+@Builder
+@ToString
+public class JournalRecord {
+    private final long timestamp;
+    private final Direction direction;
+    private final OcppTransport transport;
+    private final String chargeBoxId;
+    private final String sessionId;
+    private final String payload;
+
+    public enum Direction {
+        IN, OUT
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.journal;
+
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.journal.JournalRecord.Direction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Entry point for the code paths that see raw OCPP messages (WebSocket logger, SOAP logging feature) to put them
+ * into the {@link TrafficJournal}, if it is enabled.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+public enum OcppTrafficRecorder {
+    INSTANCE;
+
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final TrafficJournal journal;
+
+    OcppTrafficRecorder() {
+        journal = createJournal(CONFIG.getOcpp());
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    public void received(OcppTransport transport, String chargeBoxId, String sessionId, String payload) {
+        if (journal != null) {
+            journal.append(Direction.IN, transport, chargeBoxId, sessionId, payload);
+        }
+    }
+
+    public void sent(OcppTransport transport, String chargeBoxId, String sessionId, String payload) {
+        if (journal != null) {
+            journal.append(Direction.OUT, transport, chargeBoxId, sessionId, payload);
+        }
+    }
+
+    public TrafficJournal.Stats getStats() {
+        return journal == null ? null : journal.getStats();
+    }
+
+    void deleteExpiredSegments() {
+        if (journal == null) {
+            return;
+        }
+
+        SteveConfiguration.Ocpp config = CONFIG.getOcpp();
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(config.getJournalRetentionDays());
+        try {
+            journal.deleteExpiredSegments(cutoff, config.getJournalMaxSizeMb() * BYTES_PER_MB);
+        } catch (IOException e) {
+            log.error("Could not apply the retention policy to the traffic journal", e);
+        }
+    }
+
+    void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private static TrafficJournal createJournal(SteveConfiguration.Ocpp config) {
+        if (!config.isJournalEnabled()) {
+            return null;
+        }
+
+        try {
+            TrafficJournal journal = new TrafficJournal(
+                Paths.get(config.getJournalDirectory()),
+                (int) (config.getJournalSegmentSizeMb() * BYTES_PER_MB)
+            );
+            log.info("Writing the OCPP traffic journal into {}", config.getJournalDirectory());
+            return journal;
+        } catch (IOException e) {
+            log.error("Could not create the OCPP traffic journal. It will be disabled", e);
+            return null;
+        }
+    }
+}
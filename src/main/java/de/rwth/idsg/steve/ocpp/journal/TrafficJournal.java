@@ -0,0 +1,307 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.journal;
+
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.journal.JournalRecord.Direction;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of raw OCPP messages, written into memory-mapped segment files.
+ *
+ * A segment is named after the time of its first record and starts with a header (magic, version, start time).
+ * It is followed by records of the form
+ *
+ * <pre>
+ * int length | int crc32 | long timestamp | byte direction | byte transport
+ *            | short len + chargeBoxId | short len + sessionId | int len + payload
+ * </pre>
+ *
+ * where length and crc32 cover everything after the crc field, and all strings are UTF-8. The unused tail of a
+ * segment is zero-filled, so a length of 0 marks the end. The length is written last, so that a reader never
+ * sees a half-written record.
+ *
+ * A new segment is started when the current one is full or older than {@link #ROTATION_INTERVAL_MILLIS}.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+public class TrafficJournal implements Closeable {
+
+    static final int MAGIC = 0x5354564A; // "STVJ"
+    static final short VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final long ROTATION_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final LongSupplier clock;
+    private final CRC32 crc = new CRC32();
+
+    private MappedByteBuffer current;
+    private Path currentPath;
+    private long currentStart;
+    private boolean closed;
+
+    private long recordCount;
+    private long byteCount;
+    private long failedCount;
+    private long segmentCount;
+
+    public TrafficJournal(Path directory, int segmentSize) throws IOException {
+        this(directory, segmentSize, System::currentTimeMillis);
+    }
+
+    TrafficJournal(Path directory, int segmentSize, LongSupplier clock) throws IOException {
+        if (segmentSize <= SEGMENT_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.clock = clock;
+
+        Files.createDirectories(directory);
+    }
+
+    public void append(Direction direction, OcppTransport transport,
+                       String chargeBoxId, String sessionId, String payload) {
+        byte[] chargeBoxIdBytes = toBytes(chargeBoxId, MAX_STRING_LENGTH);
+        byte[] sessionIdBytes = toBytes(sessionId, MAX_STRING_LENGTH);
+        byte[] payloadBytes = toBytes(payload, Integer.MAX_VALUE);
+
+        int bodyLength = 8 + 1 + 1
+                + 2 + chargeBoxIdBytes.length
+                + 2 + sessionIdBytes.length
+                + 4 + payloadBytes.length;
+
+        synchronized (this) {
+            // Taken under the lock, so that the records of a segment are ordered by time
+            long timestamp = clock.getAsLong();
+            if (closed) {
+                failedCount++;
+                return;
+            }
+
+            try {
+                ensureCapacity(timestamp, RECORD_HEADER_SIZE + bodyLength);
+            } catch (IOException e) {
+                failedCount++;
+                log.error("Could not start a new journal segment in {}", directory, e);
+                return;
+            }
+
+            int start = current.position();
+            ByteBuffer body = current.duplicate();
+            body.position(start + RECORD_HEADER_SIZE);
+            body.putLong(timestamp)
+                .put((byte) direction.ordinal())
+                .put((byte) transport.ordinal())
+                .putShort((short) chargeBoxIdBytes.length).put(chargeBoxIdBytes)
+                .putShort((short) sessionIdBytes.length).put(sessionIdBytes)
+                .putInt(payloadBytes.length).put(payloadBytes);
+
+            body.flip();
+            body.position(start + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(body);
+
+            current.putInt(start + 4, (int) crc.getValue());
+            current.putInt(start, bodyLength);
+            current.position(start + RECORD_HEADER_SIZE + bodyLength);
+
+            recordCount++;
+            byteCount += RECORD_HEADER_SIZE + bodyLength;
+        }
+    }
+
+    /**
+     * Deletes the segments that contain only records older than the cutoff, and then the oldest ones as long as
+     * the journal is larger than maxTotalBytes. The segment that is currently written is never deleted.
+     */
+    public synchronized void deleteExpiredSegments(long cutoffTimestamp, long maxTotalBytes) throws IOException {
+        List<Path> segments = listSegments(directory);
+        segments.remove(currentPath);
+
+        long totalBytes = currentPath == null ? 0 : Files.size(currentPath);
+        for (Path p : segments) {
+            totalBytes += Files.size(p);
+        }
+
+        for (int i = 0; i < segments.size(); i++) {
+            Path p = segments.get(i);
+
+            // A segment ends where the next one starts
+            long end;
+            if (i + 1 < segments.size()) {
+                end = getSegmentStart(segments.get(i + 1));
+            } else if (currentPath != null) {
+                end = currentStart;
+            } else {
+                end = Files.getLastModifiedTime(p).toMillis();
+            }
+            boolean expired = end < cutoffTimestamp;
+
+            if (expired || totalBytes > maxTotalBytes) {
+                long size = Files.size(p);
+                if (Files.deleteIfExists(p)) {
+                    totalBytes -= size;
+                    log.debug("Deleted journal segment {}", p);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        releaseCurrent();
+    }
+
+    public synchronized Stats getStats() {
+        return Stats.builder()
+                    .directory(directory.toAbsolutePath().toString())
+                    .currentSegment(currentPath == null ? null : currentPath.getFileName().toString())
+                    .segmentsCreated(segmentCount)
+                    .recordCount(recordCount)
+                    .byteCount(byteCount)
+                    .failedCount(failedCount)
+                    .build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers shared with the reader
+    // -------------------------------------------------------------------------
+
+    /**
+     * Segments of the directory, sorted by their start time
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                         .sorted((p1, p2) -> Long.compare(getSegmentStart(p1), getSegmentStart(p2)))
+                         .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    static long getSegmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void ensureCapacity(long timestamp, int recordSize) throws IOException {
+        boolean rotate = current == null
+                || current.remaining() < recordSize
+                || timestamp - currentStart >= ROTATION_INTERVAL_MILLIS;
+
+        if (rotate) {
+            releaseCurrent();
+            openSegment(timestamp, Math.max(segmentSize, SEGMENT_HEADER_SIZE + recordSize));
+        }
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            current.force();
+            current = null;
+            currentPath = null;
+        }
+    }
+
+    private void openSegment(long timestamp, int size) throws IOException {
+        // Two segments must not share a name, even if they are started within the same millisecond
+        long start = Math.max(timestamp, currentStart + 1);
+
+        Path path = directory.resolve(start + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            current = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        current.putInt(MAGIC)
+               .putShort(VERSION)
+               .putShort((short) 0)
+               .putLong(start);
+
+        currentPath = path;
+        currentStart = start;
+        segmentCount++;
+    }
+
+    private static byte[] toBytes(String str, int maxLength) {
+        if (str == null) {
+            return new byte[0];
+        }
+
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxLength) {
+            byte[] truncated = new byte[maxLength];
+            System.arraycopy(bytes, 0, truncated, 0, maxLength);
+            return truncated;
+        }
+        return bytes;
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final String directory;
+        private final String currentSegment;
+        private final long segmentsCreated;
+        private final long recordCount;
+        private final long byteCount;
+        private final long failedCount;
+    }
+}
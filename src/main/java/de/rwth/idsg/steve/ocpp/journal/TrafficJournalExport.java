@@ -0,0 +1,129 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.journal;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.joda.time.DateTime;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line tool to export the records of a traffic journal directory, filtered by station and time range.
+ *
+ * <pre>
+ * java -cp steve.jar de.rwth.idsg.steve.ocpp.journal.TrafficJournalExport \
+ *      --dir=/path/to/journal [--chargeBoxId=CP1] [--from=2026-10-01T00:00] [--to=2026-10-02T00:00] [--format=ndjson]
+ * </pre>
+ *
+ * The time bounds are ISO 8601 date-times in the default time zone unless an offset is given. The default format
+ * is "text", which resembles the log output of WebSocketLogger.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public final class TrafficJournalExport {
+
+    private TrafficJournalExport() { }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+
+        String dir = options.get("dir");
+        if (dir == null) {
+            System.err.println("Usage: TrafficJournalExport --dir=<journal directory> [--chargeBoxId=<id>] "
+                    + "[--from=<ISO date-time>] [--to=<ISO date-time>] [--format=text|ndjson]");
+            System.exit(1);
+        }
+
+        String chargeBoxId = options.get("chargeBoxId");
+        long from = parseTime(options.get("from"), Long.MIN_VALUE);
+        long to = parseTime(options.get("to"), Long.MAX_VALUE);
+        boolean ndjson = "ndjson".equalsIgnoreCase(options.get("format"));
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            export(new TrafficJournalReader(Paths.get(dir)), chargeBoxId, from, to, ndjson, out);
+        }
+    }
+
+    static void export(TrafficJournalReader reader, String chargeBoxId, long from, long to,
+                       boolean ndjson, Writer out) throws IOException {
+        JsonFactory jsonFactory = new JsonFactory();
+        try {
+            reader.read(chargeBoxId, from, to, record -> {
+                try {
+                    if (ndjson) {
+                        writeJson(jsonFactory, record, out);
+                    } else {
+                        writeText(record, out);
+                    }
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeText(JournalRecord record, Writer out) throws IOException {
+        out.write(new DateTime(record.getTimestamp()).toString());
+        out.write(" [chargeBoxId=" + record.getChargeBoxId() + ", sessionId=" + record.getSessionId() + "] ");
+        out.write(record.getTransport().name());
+        out.write(record.getDirection() == JournalRecord.Direction.IN ? " Received: " : " Sending: ");
+        out.write(record.getPayload());
+    }
+
+    private static void writeJson(JsonFactory jsonFactory, JournalRecord record, Writer out) throws IOException {
+        JsonGenerator gen = jsonFactory.createGenerator(out);
+        gen.writeStartObject();
+        gen.writeStringField("timestamp", new DateTime(record.getTimestamp()).toString());
+        gen.writeStringField("direction", record.getDirection().name());
+        gen.writeStringField("transport", record.getTransport().name());
+        gen.writeStringField("chargeBoxId", record.getChargeBoxId());
+        gen.writeStringField("sessionId", record.getSessionId());
+        gen.writeStringField("payload", record.getPayload());
+        gen.writeEndObject();
+        gen.flush();
+    }
+
+    private static long parseTime(String value, long defaultValue) {
+        return value == null ? defaultValue : DateTime.parse(value).getMillis();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int index = arg.indexOf('=');
+                options.put(arg.substring(2, index), arg.substring(index + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.journal;
+
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.journal.JournalRecord.Direction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static de.rwth.idsg.steve.ocpp.journal.TrafficJournal.MAGIC;
+import static de.rwth.idsg.steve.ocpp.journal.TrafficJournal.RECORD_HEADER_SIZE;
+import static de.rwth.idsg.steve.ocpp.journal.TrafficJournal.SEGMENT_HEADER_SIZE;
+
+/**
+ * Reads the records of a {@link TrafficJournal} directory in chronological order. It is safe to read the journal
+ * while it is being written: the reader stops at the last complete record.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TrafficJournalReader {
+
+    private final Path directory;
+
+    /**
+     * @param chargeBoxId if null, the records of all stations are returned. Otherwise, also the records without
+     *                    a chargeBoxId that belong to a session of the station (e.g. SOAP responses, which do not
+     *                    carry the chargeBoxIdentity header) are returned.
+     * @param from        inclusive, in epoch millis
+     * @param to          inclusive, in epoch millis
+     */
+    public void read(String chargeBoxId, long from, long to, Consumer<JournalRecord> consumer) throws IOException {
+        List<Path> segments = TrafficJournal.listSegments(directory);
+        Set<String> sessionIds = new HashSet<>();
+
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+
+            if (TrafficJournal.getSegmentStart(segment) > to) {
+                break;
+            }
+
+            boolean hasNext = i + 1 < segments.size();
+            if (hasNext && TrafficJournal.getSegmentStart(segments.get(i + 1)) < from) {
+                continue;
+            }
+
+            readSegment(segment, record -> {
+                if (record.getTimestamp() < from || record.getTimestamp() > to) {
+                    return;
+                }
+                if (chargeBoxId == null) {
+                    consumer.accept(record);
+                } else if (chargeBoxId.equals(record.getChargeBoxId())) {
+                    sessionIds.add(record.getSessionId());
+                    consumer.accept(record);
+                } else if (record.getChargeBoxId().isEmpty() && sessionIds.contains(record.getSessionId())) {
+                    consumer.accept(record);
+                }
+            });
+        }
+    }
+
+    private static void readSegment(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            log.warn("Skipping {}, since it is not a journal segment", segment);
+            return;
+        }
+        buffer.position(SEGMENT_HEADER_SIZE);
+
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length <= 0 || length > buffer.remaining() - RECORD_HEADER_SIZE) {
+                break;
+            }
+
+            ByteBuffer body = buffer.duplicate();
+            body.position(start + RECORD_HEADER_SIZE);
+            body.limit(start + RECORD_HEADER_SIZE + length);
+
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                log.warn("Checksum mismatch in {} at position {}. Skipping the rest of the segment", segment, start);
+                break;
+            }
+
+            consumer.accept(readRecord(body));
+            buffer.position(start + RECORD_HEADER_SIZE + length);
+        }
+    }
+
+    private static JournalRecord readRecord(ByteBuffer body) {
+        return JournalRecord.builder()
+                            .timestamp(body.getLong())
+                            .direction(Direction.values()[body.get()])
+                            .transport(OcppTransport.values()[body.get()])
+                            .chargeBoxId(readString(body, Short.toUnsignedInt(body.getShort())))
+                            .sessionId(readString(body, Short.toUnsignedInt(body.getShort())))
+                            .payload(readString(body, body.getInt()))
+                            .build();
+    }
+
+    private static String readString(ByteBuffer body, int length) {
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
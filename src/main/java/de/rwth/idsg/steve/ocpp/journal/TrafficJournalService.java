@@ -0,0 +1,65 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.journal;
+
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the retention policy of the traffic journal periodically and closes it on shutdown.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Component
+@RequiredArgsConstructor
+public class TrafficJournalService implements MetricsSource {
+
+    private final ScheduledExecutorService executorService;
+
+    @PostConstruct
+    public void init() {
+        if (OcppTrafficRecorder.INSTANCE.isEnabled()) {
+            executorService.scheduleWithFixedDelay(
+                OcppTrafficRecorder.INSTANCE::deleteExpiredSegments, 1, 60, TimeUnit.MINUTES
+            );
+        }
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        OcppTrafficRecorder.INSTANCE.close();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "trafficJournal";
+    }
+
+    @Override
+    public Object getMetrics() {
+        return OcppTrafficRecorder.INSTANCE.getStats();
+    }
+}
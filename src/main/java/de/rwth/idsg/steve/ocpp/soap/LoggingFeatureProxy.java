@@ -18,15 +18,23 @@
  */
 package de.rwth.idsg.steve.ocpp.soap;
 
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.journal.OcppTrafficRecorder;
 import org.apache.cxf.ext.logging.LoggingFeature;
+import org.apache.cxf.ext.logging.event.EventType;
 import org.apache.cxf.ext.logging.event.LogEvent;
 import org.apache.cxf.ext.logging.slf4j.Slf4jEventSender;
 import org.apache.cxf.ext.logging.slf4j.Slf4jVerboseEventSender;
 
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
 /**
  * Since {@link Slf4jEventSender} logs only the message and {@link Slf4jVerboseEventSender} logs everything, this
  * logging feature proxy finds a middle ground by logging the exchange id and the message (the most interesting parts).
  *
+ * The messages are also put into the traffic journal, if it is enabled. Since the journal sees only what the logging
+ * feature sees, payloads beyond the limit of the feature are truncated there as well.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 03.04.2018
  */
@@ -45,6 +53,58 @@ public enum LoggingFeatureProxy {
     }
 
     private static class CustomSlf4jEventSender extends Slf4jEventSender {
+
+        private static final String CHARGE_BOX_IDENTITY = "chargeBoxIdentity";
+
+        private final boolean payloadLoggingEnabled = CONFIG.getOcpp().isPayloadLoggingEnabled();
+
+        @Override
+        public void send(LogEvent event) {
+            if (OcppTrafficRecorder.INSTANCE.isEnabled()) {
+                record(event);
+            }
+            if (payloadLoggingEnabled) {
+                super.send(event);
+            }
+        }
+
+        private static void record(LogEvent event) {
+            String payload = event.getPayload();
+            String chargeBoxId = extractChargeBoxIdentity(payload);
+
+            if (isIncoming(event.getType())) {
+                OcppTrafficRecorder.INSTANCE.received(OcppTransport.SOAP, chargeBoxId, event.getExchangeId(), payload);
+            } else {
+                OcppTrafficRecorder.INSTANCE.sent(OcppTransport.SOAP, chargeBoxId, event.getExchangeId(), payload);
+            }
+        }
+
+        private static boolean isIncoming(EventType type) {
+            return type == EventType.REQ_IN || type == EventType.RESP_IN || type == EventType.FAULT_IN;
+        }
+
+        /**
+         * Requests carry the chargeBoxIdentity header, responses usually not. For the latter, the journal can still
+         * associate them with the station through the exchange id.
+         */
+        private static String extractChargeBoxIdentity(String payload) {
+            if (payload == null) {
+                return null;
+            }
+
+            int index = payload.indexOf(CHARGE_BOX_IDENTITY);
+            if (index == -1) {
+                return null;
+            }
+
+            int start = payload.indexOf('>', index);
+            int end = payload.indexOf('<', start);
+            if (start == -1 || end == -1 || payload.charAt(start - 1) == '/') {
+                return null;
+            }
+            return payload.substring(start + 1, end).trim();
+        }
+
         @Override
         protected String getLogMessage(LogEvent event) {
             StringBuilder b = new StringBuilder();
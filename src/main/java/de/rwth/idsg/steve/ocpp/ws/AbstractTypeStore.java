@@ -18,6 +18,8 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.ClassPath;
@@ -40,6 +42,11 @@ public abstract class AbstractTypeStore implements TypeStore {
 
     private final Map<String, Class<? extends RequestType>> requestClassMap = new HashMap<>();
     private final Map<Class<? extends RequestType>, ActionResponsePair> actionResponseMap = new HashMap<>();
+    private final Map<String, Class<? extends ResponseType>> responseClassMap = new HashMap<>();
+
+    // Resolving the deserializers of a type is costly. Therefore, we create the readers only once.
+    private final Map<String, ObjectReader> requestReaderMap = new HashMap<>();
+    private final Map<Class<? extends ResponseType>, ObjectReader> responseReaderMap = new HashMap<>();
 
     public AbstractTypeStore(String packageForRequestClassMap,
                              String packageForActionResponseMap) {
@@ -52,6 +59,21 @@ public abstract class AbstractTypeStore implements TypeStore {
         return requestClassMap.get(action);
     }
 
+    @Override
+    public ObjectReader findRequestReader(String action) {
+        return requestReaderMap.get(action);
+    }
+
+    @Override
+    public ObjectReader findResponseReader(Class<? extends ResponseType> responseClass) {
+        return responseReaderMap.get(responseClass);
+    }
+
+    @Override
+    public Class<? extends ResponseType> findResponseClass(String action) {
+        return responseClassMap.get(action);
+    }
+
     @Override
     public <T extends RequestType> ActionResponsePair findActionResponse(T requestPayload) {
         return actionResponseMap.get(requestPayload.getClass());
@@ -62,15 +84,20 @@ public abstract class AbstractTypeStore implements TypeStore {
     // -------------------------------------------------------------------------
 
     private void populateRequestClassMap(String packageName) {
+        ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+
         Map<String, Class<RequestType>> classes = getClassesWithInterface(packageName, RequestType.class);
         for (Class<RequestType> clazz : classes.values()) {
             String action = getAction(clazz);
             Preconditions.checkNotNull(action);
             requestClassMap.put(action, clazz);
+            requestReaderMap.put(action, mapper.readerFor(clazz));
         }
     }
 
     private void populateActionResponseMap(String packageName) {
+        ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+
         Map<String, Class<RequestType>> requestClasses = getClassesWithInterface(packageName, RequestType.class);
         Map<String, Class<ResponseType>> responseClasses = getClassesWithInterface(packageName, ResponseType.class);
 
@@ -83,6 +110,8 @@ public abstract class AbstractTypeStore implements TypeStore {
             Preconditions.checkNotNull(responseClass);
 
             actionResponseMap.put(requestClass, new ActionResponsePair(action, responseClass));
+            responseClassMap.put(action, responseClass);
+            responseReaderMap.put(responseClass, mapper.readerFor(responseClass));
         }
     }
 
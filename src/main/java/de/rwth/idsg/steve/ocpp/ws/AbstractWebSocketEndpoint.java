@@ -22,12 +22,13 @@ import com.google.common.base.Strings;
 import de.rwth.idsg.steve.config.WebSocketConfiguration;
 import de.rwth.idsg.steve.ocpp.OcppTransport;
 import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.cluster.StationDirectory;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
-import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
 import de.rwth.idsg.steve.ocpp.ws.pipeline.IncomingPipeline;
 import de.rwth.idsg.steve.repository.OcppServerRepository;
 import de.rwth.idsg.steve.service.notification.OcppStationWebSocketConnected;
 import de.rwth.idsg.steve.service.notification.OcppStationWebSocketDisconnected;
+import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
@@ -39,13 +40,11 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -53,19 +52,21 @@ import java.util.function.Consumer;
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 17.03.2015
  */
+@Slf4j
 public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandler implements SubProtocolCapable {
 
-    @Autowired private ScheduledExecutorService service;
+    @Autowired private HashedWheelTimer timer;
     @Autowired private OcppServerRepository ocppServerRepository;
     @Autowired private FutureResponseContextStore futureResponseContextStore;
     @Autowired private ApplicationEventPublisher applicationEventPublisher;
+    @Autowired private StationMailboxExecutor mailboxExecutor;
+    @Autowired private StationDirectory stationDirectory;
 
     public static final String CHARGEBOX_ID_KEY = "CHARGEBOX_ID_KEY";
 
     private final SessionContextStore sessionContextStore = new SessionContextStore();
     private final List<Consumer<String>> connectedCallbackList = new ArrayList<>();
     private final List<Consumer<String>> disconnectedCallbackList = new ArrayList<>();
-    private final Object sessionContextLock = new Object();
 
     private IncomingPipeline pipeline;
 
@@ -114,7 +115,28 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         CommunicationContext context = new CommunicationContext(session, chargeBoxId);
         context.setIncomingString(incomingString);
 
-        pipeline.accept(context);
+        if (mailboxExecutor.isEnabled()) {
+            mailboxExecutor.execute(chargeBoxId, () -> processInMailbox(context));
+        } else {
+            pipeline.accept(context);
+        }
+    }
+
+    /**
+     * When processed on the I/O thread, an exception bubbles up to Spring which closes the connection. We are not in
+     * that call chain anymore, so we have to do the same.
+     */
+    private void processInMailbox(CommunicationContext context) {
+        try {
+            pipeline.accept(context);
+        } catch (Exception e) {
+            WebSocketLogger.processingError(context.getChargeBoxId(), context.getSession(), e);
+            try {
+                context.getSession().close(CloseStatus.SERVER_ERROR);
+            } catch (IOException ioe) {
+                log.warn("Failed to close the session after processing error", ioe);
+            }
+        }
     }
 
     private void handlePongMessage(WebSocketSession session) {
@@ -131,24 +153,23 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
 
         // Just to keep the connection alive, such that the servers do not close
         // the connection because of a idle timeout, we ping-pong at fixed intervals.
-        ScheduledFuture pingSchedule = service.scheduleAtFixedRate(
+        // The first ping is at a random point in the second half of the interval, so that the sessions that are
+        // opened at the same time (e.g. reconnects after a restart) do not ping in bursts.
+        long pingIntervalMillis = TimeUnit.MINUTES.toMillis(WebSocketConfiguration.PING_INTERVAL);
+        HashedWheelTimer.Timeout pingSchedule = timer.scheduleAtFixedRate(
                 new PingTask(chargeBoxId, session),
-                WebSocketConfiguration.PING_INTERVAL,
-                WebSocketConfiguration.PING_INTERVAL,
-                TimeUnit.MINUTES);
+                ThreadLocalRandom.current().nextLong(pingIntervalMillis / 2, pingIntervalMillis + 1),
+                pingIntervalMillis,
+                TimeUnit.MILLISECONDS);
 
         futureResponseContextStore.addSession(session);
 
-        int sizeBeforeAdd;
-
-        synchronized (sessionContextLock) {
-            sizeBeforeAdd = sessionContextStore.getSize(chargeBoxId);
-            sessionContextStore.add(chargeBoxId, session, pingSchedule);
-        }
+        int sizeBeforeAdd = sessionContextStore.add(chargeBoxId, session, pingSchedule);
 
         // Take into account that there might be multiple connections to a charging station.
         // Send notification only for the change 0 -> 1.
         if (sizeBeforeAdd == 0) {
+            registerInDirectory(chargeBoxId);
             connectedCallbackList.forEach(consumer -> consumer.accept(chargeBoxId));
         }
     }
@@ -161,16 +182,13 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
 
         futureResponseContextStore.removeSession(session);
 
-        int sizeAfterRemove;
-
-        synchronized (sessionContextLock) {
-            sessionContextStore.remove(chargeBoxId, session);
-            sizeAfterRemove = sessionContextStore.getSize(chargeBoxId);
-        }
+        int sizeAfterRemove = sessionContextStore.remove(chargeBoxId, session);
 
         // Take into account that there might be multiple connections to a charging station.
         // Send notification only for the change 1 -> 0.
         if (sizeAfterRemove == 0) {
+            mailboxExecutor.removeIfIdle(chargeBoxId);
+            unregisterFromDirectory(chargeBoxId);
             disconnectedCallbackList.forEach(consumer -> consumer.accept(chargeBoxId));
         }
     }
@@ -193,6 +211,25 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         return (String) session.getAttributes().get(CHARGEBOX_ID_KEY);
     }
 
+    /**
+     * The station is reachable over this node nevertheless. Therefore, a failing directory must not break the session.
+     */
+    private void registerInDirectory(String chargeBoxId) {
+        try {
+            stationDirectory.register(chargeBoxId, getVersion());
+        } catch (Exception e) {
+            log.error("Could not register chargeBoxId '{}' in the station directory", chargeBoxId, e);
+        }
+    }
+
+    private void unregisterFromDirectory(String chargeBoxId) {
+        try {
+            stationDirectory.unregister(chargeBoxId);
+        } catch (Exception e) {
+            log.error("Could not unregister chargeBoxId '{}' from the station directory", chargeBoxId, e);
+        }
+    }
+
     protected void registerConnectedCallback(Consumer<String> consumer) {
         connectedCallbackList.add(consumer);
     }
@@ -209,8 +246,12 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         return sessionContextStore.getNumberOfChargeBoxes();
     }
 
-    public Map<String, Deque<SessionContext>> getACopy() {
-        return sessionContextStore.getACopy();
+    public SessionContextStore.Snapshot getSnapshot() {
+        return sessionContextStore.getSnapshot();
+    }
+
+    public boolean isConnected(String chargeBoxId) {
+        return sessionContextStore.getSize(chargeBoxId) > 0;
     }
 
     public WebSocketSession getSession(String chargeBoxId) {
@@ -0,0 +1,156 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.custom.OutboundOverflowStrategy;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+
+/**
+ * Extends the buffer limit of {@link ConcurrentWebSocketSessionDecorator} to be adaptive: It starts with the initial
+ * limit of the {@link OutboundBufferBudget}, and grows on demand (by doubling) up to the maximum limit, as long as the
+ * budget has room for it. The limit is reset to the initial one as soon as the buffer is drained.
+ *
+ * The overflow handling itself (drop oldest or close) is left to the parent class, which calls
+ * {@link #getBufferSizeLimit()} when checking the limit.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class BudgetedWebSocketSessionDecorator extends ConcurrentWebSocketSessionDecorator {
+
+    private final OutboundBufferBudget budget;
+
+    // Guarded by "this" for updates
+    private volatile int limit;
+    private volatile boolean released;
+
+    public BudgetedWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit,
+                                             OutboundBufferBudget budget) {
+        super(delegate, sendTimeLimit, budget.getMaxSessionLimit(), budget.getOverflowStrategy().toSpringStrategy());
+        this.budget = budget;
+        this.limit = budget.getInitialSessionLimit();
+        budget.register(this);
+    }
+
+    @Override
+    public int getBufferSizeLimit() {
+        return limit;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        ensureCapacity(message.getPayloadLength());
+        try {
+            super.sendMessage(message);
+        } catch (SessionLimitExceededException e) {
+            budget.onLimitExceeded();
+            throw e;
+        } finally {
+            shrinkIfDrained();
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        try {
+            super.close(status);
+        } finally {
+            releaseBudget();
+        }
+    }
+
+    /**
+     * With {@link OutboundOverflowStrategy#REJECT_CALLS}, outgoing calls should not be sent when the buffer cannot
+     * take them anymore. They are rejected before being buffered, so that their sender can fail them right away.
+     */
+    public boolean rejectsCall(int payloadLength) {
+        if (budget.getOverflowStrategy() != OutboundOverflowStrategy.REJECT_CALLS || ensureCapacity(payloadLength)) {
+            return false;
+        }
+        budget.onRejectedCall();
+        return true;
+    }
+
+    /**
+     * Called when the connection is closed. Idempotent.
+     */
+    void releaseBudget() {
+        synchronized (this) {
+            released = true;
+            budget.release(limit - budget.getInitialSessionLimit());
+            limit = budget.getInitialSessionLimit();
+        }
+        budget.unregister(this);
+    }
+
+    String getChargeBoxId() {
+        return (String) getAttributes().get(AbstractWebSocketEndpoint.CHARGEBOX_ID_KEY);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return true if the buffer can take the given number of bytes more
+     */
+    private synchronized boolean ensureCapacity(int payloadLength) {
+        // Nothing is buffered and nothing is being sent: the message will be sent directly
+        if (released || getBufferSize() == 0 && getTimeSinceSendStarted() == 0) {
+            return true;
+        }
+
+        long needed = (long) getBufferSize() + payloadLength;
+        if (needed <= limit) {
+            return true;
+        }
+
+        int max = budget.getMaxSessionLimit();
+        if (limit >= max) {
+            return false;
+        }
+
+        int newLimit = (int) Math.min(max, Math.max(needed, 2L * limit));
+        if (!budget.tryReserve(newLimit - limit)) {
+            return false;
+        }
+
+        limit = newLimit;
+        return true;
+    }
+
+    private void shrinkIfDrained() {
+        if (limit == budget.getInitialSessionLimit() || getBufferSize() != 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!released && getBufferSize() == 0) {
+                budget.release(limit - budget.getInitialSessionLimit());
+                limit = budget.getInitialSessionLimit();
+            }
+        }
+    }
+}
@@ -18,18 +18,29 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.rwth.idsg.ocpp.jaxb.RequestType;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.ocpp.ws.cluster.CallForwarder;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCall;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCallResult;
+import de.rwth.idsg.steve.ocpp.ws.cluster.StationDirectory;
 import de.rwth.idsg.steve.ocpp.ws.data.ActionResponsePair;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.ErrorCode;
 import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import de.rwth.idsg.steve.ocpp.ws.data.ResponseSink;
+import de.rwth.idsg.steve.ocpp.ws.data.TaskResponseSink;
 import de.rwth.idsg.steve.ocpp.ws.pipeline.OutgoingCallPipeline;
+import de.rwth.idsg.steve.ocpp.ws.pipeline.Serializer;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -43,6 +54,8 @@ public class ChargePointServiceInvoker {
     private final OutgoingCallPipeline outgoingCallPipeline;
     private final AbstractWebSocketEndpoint endpoint;
     private final TypeStore typeStore;
+    private final StationDirectory stationDirectory;
+    private final CallForwarder callForwarder;
 
     /**
      * Just a wrapper to make try-catch block and exception handling stand out
@@ -69,17 +82,76 @@ public class ChargePointServiceInvoker {
             throw new SteveException("Action name is not found");
         }
 
+        // The station might be connected to another node of the cluster
+        if (!endpoint.isConnected(chargeBoxId)) {
+            Optional<String> nodeId = stationDirectory.findNodeId(chargeBoxId);
+            if (nodeId.isPresent() && stationDirectory.isRemote(nodeId.get())) {
+                forward(nodeId.get(), chargeBoxId, task, request, pair);
+                return;
+            }
+        }
+
         OcppJsonCall call = new OcppJsonCall();
         call.setMessageId(UUID.randomUUID().toString());
         call.setPayload(request);
         call.setAction(pair.getAction());
 
-        FutureResponseContext frc = new FutureResponseContext(task, pair.getResponseClass());
+        FutureResponseContext frc = new FutureResponseContext(
+                new TaskResponseSink(task), pair.getResponseClass(), chargeBoxId, pair.getAction());
 
         CommunicationContext context = new CommunicationContext(endpoint.getSession(chargeBoxId), chargeBoxId);
         context.setOutgoingMessage(call);
         context.setFutureResponseContext(frc);
 
-        outgoingCallPipeline.accept(context);
+        // The request is the same for all stations of a task. No need to serialize it again for each one.
+        if (task.getResultSize() > 1) {
+            outgoingCallPipeline.acceptFanOut(task, context);
+        } else {
+            outgoingCallPipeline.accept(context);
+        }
+    }
+
+    private void forward(String nodeId, String chargeBoxId, CommunicationTask task, RequestType request,
+                         ActionResponsePair pair) {
+        ForwardedCall forwardedCall = new ForwardedCall();
+        forwardedCall.setChargeBoxId(chargeBoxId);
+        forwardedCall.setVersion(task.getOcppVersion());
+        forwardedCall.setAction(pair.getAction());
+        forwardedCall.setPayload(Serializer.INSTANCE.serializePayload(request));
+
+        callForwarder.forward(nodeId, forwardedCall)
+                     .thenAccept(result -> handleForwardedResult(chargeBoxId, task, pair, result));
+    }
+
+    /**
+     * Hand the result over to the task, as if the response was received over a session of this node
+     */
+    private void handleForwardedResult(String chargeBoxId, CommunicationTask task, ActionResponsePair pair,
+                                       ForwardedCallResult result) {
+        ResponseSink sink = new TaskResponseSink(task);
+        try {
+            if (result.getFailure() != null) {
+                throw new SteveException(result.getFailure());
+
+            } else if (result.getErrorCode() != null) {
+                OcppJsonError error = new OcppJsonError();
+                error.setErrorCode(ErrorCode.fromValue(result.getErrorCode()));
+                error.setErrorDescription(result.getErrorDescription());
+                error.setErrorDetails(result.getErrorDetails());
+
+                sink.onError(chargeBoxId, error);
+
+            } else {
+                ObjectReader reader = typeStore.findResponseReader(pair.getResponseClass());
+                if (reader == null) {
+                    throw new SteveException("No reader is found for %s", pair.getResponseClass().getName());
+                }
+
+                sink.onResult(chargeBoxId, reader.readValue(result.getPayload()));
+            }
+        } catch (Exception e) {
+            log.error("Exception occurred", e);
+            sink.onFailure(chargeBoxId, e);
+        }
     }
 }
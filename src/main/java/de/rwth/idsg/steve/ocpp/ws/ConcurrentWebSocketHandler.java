@@ -18,12 +18,11 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
-import de.rwth.idsg.steve.config.WebSocketConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -36,9 +35,10 @@ import java.util.concurrent.TimeUnit;
 public abstract class ConcurrentWebSocketHandler implements WebSocketHandler {
 
     private static final int sendTimeLimit = (int) TimeUnit.SECONDS.toMillis(10);
-    private static final int bufferSizeLimit = 5 * WebSocketConfiguration.MAX_MSG_SIZE;
 
-    private final Map<String, ConcurrentWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+    @Autowired private OutboundBufferBudget outboundBufferBudget;
+
+    private final Map<String, BudgetedWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
@@ -57,11 +57,19 @@ public abstract class ConcurrentWebSocketHandler implements WebSocketHandler {
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
-        this.onClose(sessions.remove(session.getId()), closeStatus);
+        BudgetedWebSocketSessionDecorator decorated = sessions.remove(session.getId());
+        try {
+            this.onClose(decorated, closeStatus);
+        } finally {
+            if (decorated != null) {
+                decorated.releaseBudget();
+            }
+        }
     }
 
-    private ConcurrentWebSocketSessionDecorator internalGet(WebSocketSession session) {
-        return sessions.computeIfAbsent(session.getId(), s -> new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, bufferSizeLimit));
+    private BudgetedWebSocketSessionDecorator internalGet(WebSocketSession session) {
+        return sessions.computeIfAbsent(session.getId(),
+                s -> new BudgetedWebSocketSessionDecorator(session, sendTimeLimit, outboundBufferBudget));
     }
 
     // -------------------------------------------------------------------------
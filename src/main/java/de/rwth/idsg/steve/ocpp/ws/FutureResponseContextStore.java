@@ -18,31 +18,80 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
-import lombok.AccessLevel;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiFunction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
  * Presumption: The responses must be sent using the same connection as the requests!
  *
+ * A pending call is removed when its response arrives, when its timeout expires, or when the session is closed.
+ * In the latter two cases, the task of the call is completed with an error, since no response will ever arrive.
+ *
+ * A slow station might still answer after the timeout. The messageIds of the expired calls are therefore kept for a
+ * few timeout intervals, so that such a late response can be recognized and dropped, instead of being treated as a
+ * response to a call that was never sent (which closes the connection).
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 21.03.2015
  */
 @Slf4j
 @Service
-public class FutureResponseContextStore {
+public class FutureResponseContextStore implements MetricsSource {
+
+    private final HashedWheelTimer timer;
+    private final SteveConfiguration.Ocpp config;
 
     // We store for each chargeBox connection, multiple pairs of (messageId, context)
     // (session, (messageId, context))
-    private final Map<WebSocketSession, Map<String, FutureResponseContext>> lookupTable = new ConcurrentHashMap<>();
+    private final Map<WebSocketSession, Map<String, PendingCall>> lookupTable = new ConcurrentHashMap<>();
+
+    private final AtomicLong timedOutCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong abandonedCount = new AtomicLong();
+    private final AtomicLong lateResponseCount = new AtomicLong();
+
+    // (sessionId + messageId) of the expired calls
+    private final Cache<String, Boolean> expiredCalls;
+
+    @Autowired
+    public FutureResponseContextStore(HashedWheelTimer timer) {
+        this(timer, CONFIG.getOcpp());
+    }
+
+    FutureResponseContextStore(HashedWheelTimer timer, SteveConfiguration.Ocpp config) {
+        this.timer = timer;
+        this.config = config;
+
+        int maxTimeoutSeconds = config.getCallTimeoutOverrides()
+                                      .values()
+                                      .stream()
+                                      .reduce(config.getCallTimeoutSeconds(), Math::max);
+
+        this.expiredCalls = CacheBuilder.newBuilder()
+                                        .expireAfterWrite(3L * maxTimeoutSeconds, TimeUnit.SECONDS)
+                                        .maximumSize(100_000)
+                                        .build();
+    }
 
     public void addSession(WebSocketSession session) {
         addIfAbsent(session);
@@ -50,42 +99,162 @@ public class FutureResponseContextStore {
 
     public void removeSession(WebSocketSession session) {
         log.debug("Deleting the store for sessionId '{}'", session.getId());
-        lookupTable.remove(session);
+        Map<String, PendingCall> map = lookupTable.remove(session);
+        if (map == null) {
+            return;
+        }
+
+        for (PendingCall call : map.values()) {
+            call.timeout.cancel();
+            abandonedCount.incrementAndGet();
+            fail(call.context, "The connection was closed before a response was received");
+        }
     }
 
+    /**
+     * @throws SteveException if the session already has the maximum number of pending calls
+     */
     public void add(WebSocketSession session, String messageId, FutureResponseContext context) {
-        Map<String, FutureResponseContext> map = addIfAbsent(session);
-        map.put(messageId, context);
+        Map<String, PendingCall> map = addIfAbsent(session);
+
+        // The check is not atomic with the insert below. Concurrent adds can exceed the limit by a few, which is fine.
+        if (map.size() >= config.getMaxPendingCallsPerSession()) {
+            rejectedCount.incrementAndGet();
+            throw new SteveException("Too many pending calls (%s) for sessionId '%s'", map.size(), session.getId());
+        }
+
+        int timeoutSeconds = config.getCallTimeoutSeconds(context.getAction());
+        HashedWheelTimer.Timeout timeout = timer.schedule(
+                () -> expire(session, messageId, timeoutSeconds), timeoutSeconds, TimeUnit.SECONDS
+        );
+
+        map.put(messageId, new PendingCall(context, timeout));
         log.debug("Store size for sessionId '{}': {}", session.getId(), map.size());
     }
 
     @Nullable
     public FutureResponseContext get(WebSocketSession session, String messageId) {
-        RemoveFunction removeFunction = new RemoveFunction(messageId);
-        lookupTable.computeIfPresent(session, removeFunction);
-        return removeFunction.removedContext;
+        PendingCall call = remove(session, messageId);
+        if (call == null) {
+            return null;
+        }
+
+        call.timeout.cancel();
+        return call.context;
+    }
+
+    /**
+     * @return true, if the call with this messageId timed out recently. Its late response should be dropped.
+     */
+    public boolean removeExpired(WebSocketSession session, String messageId) {
+        String key = expiredKey(session, messageId);
+        if (expiredCalls.getIfPresent(key) == null) {
+            return false;
+        }
+
+        expiredCalls.invalidate(key);
+        lateResponseCount.incrementAndGet();
+        return true;
     }
 
-    private Map<String, FutureResponseContext> addIfAbsent(WebSocketSession session) {
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "wsPendingCalls";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        Map<String, Integer> byChargeBoxId = new TreeMap<>();
+        Map<String, Integer> byAction = new TreeMap<>();
+        int total = 0;
+
+        for (Map<String, PendingCall> map : lookupTable.values()) {
+            for (PendingCall call : map.values()) {
+                byChargeBoxId.merge(call.context.getChargeBoxId(), 1, Integer::sum);
+                byAction.merge(call.context.getAction(), 1, Integer::sum);
+                total++;
+            }
+        }
+
+        return Stats.builder()
+                    .pendingCount(total)
+                    .pendingByChargeBoxId(byChargeBoxId)
+                    .pendingByAction(byAction)
+                    .timedOutCount(timedOutCount.get())
+                    .rejectedCount(rejectedCount.get())
+                    .abandonedCount(abandonedCount.get())
+                    .lateResponseCount(lateResponseCount.get())
+                    .build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private Map<String, PendingCall> addIfAbsent(WebSocketSession session) {
         return lookupTable.computeIfAbsent(session, innerSession -> {
             log.debug("Creating new store for sessionId '{}'", innerSession.getId());
             return new ConcurrentHashMap<>();
         });
     }
 
-    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-    private static class RemoveFunction implements
-            BiFunction<WebSocketSession, Map<String, FutureResponseContext>, Map<String, FutureResponseContext>> {
+    @Nullable
+    private PendingCall remove(WebSocketSession session, String messageId) {
+        Map<String, PendingCall> map = lookupTable.get(session);
+        if (map == null) {
+            return null;
+        }
+
+        PendingCall call = map.remove(messageId);
+        log.debug("Store size for sessionId '{}': {}", session.getId(), map.size());
+        return call;
+    }
+
+    private void expire(WebSocketSession session, String messageId, int timeoutSeconds) {
+        PendingCall call = remove(session, messageId);
+        if (call == null) {
+            return; // the response arrived in the meantime
+        }
+
+        timedOutCount.incrementAndGet();
+        expiredCalls.put(expiredKey(session, messageId), Boolean.TRUE);
+        log.warn("[chargeBoxId={}, sessionId={}] No response to the call '{}' with messageId '{}' within {} seconds",
+                call.context.getChargeBoxId(), session.getId(), call.context.getAction(), messageId, timeoutSeconds);
+
+        fail(call.context, "No response received within " + timeoutSeconds + " seconds");
+    }
 
-        private final String messageId;
-        @Nullable private FutureResponseContext removedContext;
+    private static String expiredKey(WebSocketSession session, String messageId) {
+        return session.getId() + "/" + messageId;
+    }
 
-        @Override
-        public Map<String, FutureResponseContext> apply(WebSocketSession session,
-                                                        Map<String, FutureResponseContext> map) {
-            removedContext = map.remove(messageId);
-            log.debug("Store size for sessionId '{}': {}", session.getId(), map.size());
-            return map;
+    private static void fail(FutureResponseContext context, String message) {
+        try {
+            context.getSink().onFailure(context.getChargeBoxId(), new SteveException(message));
+        } catch (Exception e) {
+            log.error("Exception occurred", e);
         }
     }
+
+    @RequiredArgsConstructor
+    private static class PendingCall {
+        private final FutureResponseContext context;
+        private final HashedWheelTimer.Timeout timeout;
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final int pendingCount;
+        private final Map<String, Integer> pendingByChargeBoxId;
+        private final Map<String, Integer> pendingByAction;
+        private final long timedOutCount;
+        private final long rejectedCount;
+        private final long abandonedCount;
+        private final long lateResponseCount;
+    }
 }
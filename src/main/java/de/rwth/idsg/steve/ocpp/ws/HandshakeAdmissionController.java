@@ -0,0 +1,260 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.service.ChargePointHelperService;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ocpp.cs._2015._10.RegistrationStatus;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Protects the database from reconnect storms, e.g. when all stations reconnect at once after a restart.
+ *
+ * A handshake must first take a token from a token bucket (rate limit) and then one of the slots for concurrent
+ * handshakes (concurrency limit). If all slots are taken, the handshake waits for a free one up to the queue timeout.
+ * Handshakes that are not admitted should be answered with 503 and {@link #getRetryAfterSeconds()}.
+ *
+ * The registration status of known stations is cached, so that the handshakes of reconnecting stations do not
+ * need a database lookup. Unknown stations are not cached, since they are tracked and might be auto-registered by
+ * {@link ChargePointHelperService#getRegistrationStatus(String)}.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class HandshakeAdmissionController implements MetricsSource {
+
+    private final ChargePointHelperService chargePointHelperService;
+    private final LongSupplier nanoClock;
+
+    private final int maxConcurrent;
+    private final Semaphore slots;
+    private final long queueTimeoutMillis;
+    private final int retryAfterSeconds;
+
+    private final int burst;
+    private final double tokensPerNano;
+
+    // Token bucket state, guarded by "this"
+    private double tokens;
+    private long lastRefillNanos;
+
+    @Nullable
+    private final Cache<String, RegistrationStatus> registrationStatuses;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong rejectedByRateCount = new AtomicLong();
+    private final AtomicLong rejectedByConcurrencyCount = new AtomicLong();
+
+    @Autowired
+    public HandshakeAdmissionController(ChargePointHelperService chargePointHelperService) {
+        this(chargePointHelperService, CONFIG.getOcpp(), System::nanoTime);
+    }
+
+    HandshakeAdmissionController(ChargePointHelperService chargePointHelperService, SteveConfiguration.Ocpp config,
+                                 LongSupplier nanoClock) {
+        this.chargePointHelperService = chargePointHelperService;
+        this.nanoClock = nanoClock;
+
+        this.maxConcurrent = config.getWsHandshakeMaxConcurrent();
+        this.slots = new Semaphore(maxConcurrent);
+        this.queueTimeoutMillis = config.getWsHandshakeQueueTimeoutMillis();
+        this.retryAfterSeconds = config.getWsHandshakeRetryAfterSeconds();
+
+        this.burst = config.getWsHandshakeBurst();
+        this.tokensPerNano = config.getWsHandshakeRatePerSecond() / (double) TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.lastRefillNanos = nanoClock.getAsLong();
+
+        int cacheSeconds = config.getWsHandshakeRegistrationCacheSeconds();
+        if (cacheSeconds > 0) {
+            this.registrationStatuses = CacheBuilder.newBuilder()
+                                                    .expireAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+                                                    .recordStats()
+                                                    .build();
+        } else {
+            this.registrationStatuses = null;
+        }
+    }
+
+    /**
+     * @return the permit that must be closed when the handshake is done, or null if the handshake is not admitted
+     */
+    @Nullable
+    public Permit tryAcquire() {
+        if (!tryTakeToken()) {
+            rejectedByRateCount.incrementAndGet();
+            return null;
+        }
+
+        if (!slots.tryAcquire()) {
+            queuedCount.incrementAndGet();
+            waiting.incrementAndGet();
+            boolean acquired;
+            try {
+                acquired = slots.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+
+            if (!acquired) {
+                rejectedByConcurrencyCount.incrementAndGet();
+                return null;
+            }
+        }
+
+        admittedCount.incrementAndGet();
+        return new Permit();
+    }
+
+    /**
+     * The configured value plus a random jitter of up to the same amount, so that the rejected stations do not all
+     * come back at the same time.
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds + ThreadLocalRandom.current().nextInt(retryAfterSeconds + 1);
+    }
+
+    public Optional<RegistrationStatus> getRegistrationStatus(String chargeBoxId) {
+        if (registrationStatuses == null) {
+            return chargePointHelperService.getRegistrationStatus(chargeBoxId);
+        }
+
+        RegistrationStatus cached = registrationStatuses.getIfPresent(chargeBoxId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<RegistrationStatus> status = chargePointHelperService.getRegistrationStatus(chargeBoxId);
+        status.ifPresent(s -> registrationStatuses.put(chargeBoxId, s));
+        return status;
+    }
+
+    public void invalidateRegistrationStatus(String chargeBoxId) {
+        if (registrationStatuses != null) {
+            registrationStatuses.invalidate(chargeBoxId);
+        }
+    }
+
+    public void invalidateRegistrationStatuses() {
+        if (registrationStatuses != null) {
+            registrationStatuses.invalidateAll();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "wsHandshake";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        CacheStats cacheStats = registrationStatuses == null
+                ? new CacheStats(0, 0, 0, 0, 0, 0)
+                : registrationStatuses.stats();
+
+        return Stats.builder()
+                    .maxConcurrent(maxConcurrent)
+                    .inFlight(maxConcurrent - slots.availablePermits())
+                    .waiting(waiting.get())
+                    .admittedCount(admittedCount.get())
+                    .queuedCount(queuedCount.get())
+                    .rejectedByRateCount(rejectedByRateCount.get())
+                    .rejectedByConcurrencyCount(rejectedByConcurrencyCount.get())
+                    .registrationCacheSize(registrationStatuses == null ? 0 : registrationStatuses.size())
+                    .registrationCacheHitCount(cacheStats.hitCount())
+                    .registrationCacheMissCount(cacheStats.missCount())
+                    .build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private synchronized boolean tryTakeToken() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() { }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final int maxConcurrent;
+        private final int inFlight;
+        private final int waiting;
+        private final long admittedCount;
+        private final long queuedCount;
+        private final long rejectedByRateCount;
+        private final long rejectedByConcurrencyCount;
+        private final long registrationCacheSize;
+        private final long registrationCacheHitCount;
+        private final long registrationCacheMissCount;
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel for the timers of WebSocket sessions (keep-alive pings, call timeouts). Scheduling and
+ * cancelling a timer are O(1) and do not touch a shared priority queue, which makes a difference with tens of
+ * thousands of sessions and frequent reconnects.
+ *
+ * A single thread advances the wheel every tick and hands the expired tasks to an executor, so that a slow task
+ * does not delay the others. Timers fire with the precision of a tick. The ticks that are processed later than one
+ * tick duration after their deadline are counted as late (e.g. because of GC pauses or CPU starvation).
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class HashedWheelTimer implements MetricsSource {
+
+    private static final long DEFAULT_TICK_MILLIS = 100;
+    private static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    private final Executor taskExecutor;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos;
+
+    private final Queue<Timeout> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // only accessed by the worker thread
+    private long tick;
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong tickCount = new AtomicLong();
+    private final AtomicLong lateTickCount = new AtomicLong();
+    private final AtomicLong maxLatenessNanos = new AtomicLong();
+    private final AtomicLong totalLatenessNanos = new AtomicLong();
+
+    @Autowired
+    public HashedWheelTimer(@Qualifier("timerExecutor") Executor taskExecutor) {
+        this(taskExecutor, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    HashedWheelTimer(Executor taskExecutor, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("The wheel size must be a power of two");
+        }
+
+        this.taskExecutor = taskExecutor;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[wheelSize];
+        this.mask = wheelSize - 1;
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket();
+        }
+
+        this.startNanos = System.nanoTime();
+        this.worker = new ThreadFactoryBuilder().setNameFormat("SteVe-Timer-%d")
+                                                .setDaemon(true)
+                                                .build()
+                                                .newThread(this::runWorker);
+        worker.start();
+    }
+
+    /**
+     * Runs the task once after the delay
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(new Timeout(task, System.nanoTime() + unit.toNanos(delay), 0));
+    }
+
+    /**
+     * Runs the task periodically after the initial delay, until the timeout is cancelled. Like
+     * {@link ScheduledExecutorService#scheduleAtFixedRate}, the deadlines do not drift when a run is late.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("The period must be positive");
+        }
+        return add(new Timeout(task, System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "wsTimer";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        long ticks = tickCount.get();
+        return Stats.builder()
+                    .tickMillis(TimeUnit.NANOSECONDS.toMillis(tickNanos))
+                    .wheelSize(wheel.length)
+                    .pendingCount(pendingCount.get())
+                    .firedCount(firedCount.get())
+                    .cancelledCount(cancelledCount.get())
+                    .tickCount(ticks)
+                    .lateTickCount(lateTickCount.get())
+                    .avgLatenessMillis(ticks == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatenessNanos.get() / ticks))
+                    .maxLatenessMillis(TimeUnit.NANOSECONDS.toMillis(maxLatenessNanos.get()))
+                    .build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Worker
+    // -------------------------------------------------------------------------
+
+    private Timeout add(Timeout timeout) {
+        if (!running) {
+            throw new IllegalStateException("The timer is stopped");
+        }
+        pendingCount.incrementAndGet();
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    private void runWorker() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            if (!waitUntil(deadline)) {
+                break;
+            }
+
+            recordLateness(System.nanoTime() - deadline);
+
+            processCancels();
+            transferAdds();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * @return false, if interrupted by shutdown
+     */
+    private boolean waitUntil(long deadline) {
+        long sleepNanos;
+        while ((sleepNanos = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, sleepNanos);
+            if (!running) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recordLateness(long latenessNanos) {
+        tickCount.incrementAndGet();
+        totalLatenessNanos.addAndGet(latenessNanos);
+        if (latenessNanos > tickNanos) {
+            lateTickCount.incrementAndGet();
+        }
+        if (latenessNanos > maxLatenessNanos.get()) {
+            maxLatenessNanos.set(latenessNanos);
+        }
+    }
+
+    private void processCancels() {
+        Timeout timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferAdds() {
+        Timeout timeout;
+        while ((timeout = pendingAdds.poll()) != null) {
+            if (timeout.state.get() == Timeout.PENDING) {
+                insert(timeout);
+            }
+        }
+    }
+
+    private void insert(Timeout timeout) {
+        long deadlineTick = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+
+        timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+        wheel[(int) (deadlineTick & mask)].add(timeout);
+    }
+
+    /**
+     * The bucket is detached first, so that a periodic timeout that is rescheduled into the same bucket is not
+     * visited twice in one tick.
+     */
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.detachAll();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+
+            if (timeout.remainingRounds <= 0) {
+                fire(timeout);
+            } else {
+                timeout.remainingRounds--;
+                bucket.add(timeout);
+            }
+
+            timeout = next;
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        if (timeout.isCancelled()) {
+            return;
+        }
+
+        if (timeout.periodNanos > 0) {
+            // Reschedule before running, so that a concurrent cancel finds it in the wheel
+            timeout.deadlineNanos += timeout.periodNanos;
+            insert(timeout);
+        } else if (!timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+            return;
+        } else {
+            pendingCount.decrementAndGet();
+        }
+
+        firedCount.incrementAndGet();
+        try {
+            taskExecutor.execute(timeout::run);
+        } catch (RejectedExecutionException e) {
+            log.warn("Timer task is rejected by the executor", e);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Classes
+    // -------------------------------------------------------------------------
+
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long periodNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // only accessed by the worker thread
+        private long deadlineNanos;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos, long periodNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * @return false, if the timeout already expired (one-shot) or was cancelled before
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            pendingCount.decrementAndGet();
+            cancelledCount.incrementAndGet();
+            pendingCancels.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private void run() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Exception occurred in timer task", e);
+            }
+        }
+    }
+
+    /**
+     * Doubly-linked list of timeouts. Only accessed by the worker thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private Timeout detachAll() {
+            Timeout first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final long tickMillis;
+        private final int wheelSize;
+        private final int pendingCount;
+        private final long firedCount;
+        private final long cancelledCount;
+        private final long tickCount;
+        private final long lateTickCount;
+        private final long avgLatenessMillis;
+        private final long maxLatenessMillis;
+    }
+}
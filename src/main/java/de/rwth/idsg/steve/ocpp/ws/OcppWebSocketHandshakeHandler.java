@@ -19,10 +19,10 @@
 package de.rwth.idsg.steve.ocpp.ws;
 
 import de.rwth.idsg.steve.config.WebSocketConfiguration;
-import de.rwth.idsg.steve.service.ChargePointHelperService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ocpp.cs._2015._10.RegistrationStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
@@ -50,7 +50,7 @@ public class OcppWebSocketHandshakeHandler implements HandshakeHandler {
 
     private final DefaultHandshakeHandler delegate;
     private final List<AbstractWebSocketEndpoint> endpoints;
-    private final ChargePointHelperService chargePointHelperService;
+    private final HandshakeAdmissionController admissionController;
 
     /**
      * We need some WebSocketHandler just for Spring to register it for the path. We will not use it for the actual
@@ -65,12 +65,37 @@ public class OcppWebSocketHandshakeHandler implements HandshakeHandler {
     public boolean doHandshake(ServerHttpRequest request, ServerHttpResponse response,
                                WebSocketHandler wsHandler, Map<String, Object> attributes) throws HandshakeFailureException {
 
+        // -------------------------------------------------------------------------
+        // 0. Admission control, in order not to overwhelm the database with reconnect storms
+        // -------------------------------------------------------------------------
+
+        HandshakeAdmissionController.Permit permit = admissionController.tryAcquire();
+
+        if (permit == null) {
+            int retryAfter = admissionController.getRetryAfterSeconds();
+            log.warn("Too many handshakes. Rejecting '{}', retry after {} seconds",
+                    request.getURI().getPath(), retryAfter);
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            return false;
+        }
+
+        try {
+            return doHandshakeInternal(request, response, attributes);
+        } finally {
+            permit.close();
+        }
+    }
+
+    private boolean doHandshakeInternal(ServerHttpRequest request, ServerHttpResponse response,
+                                        Map<String, Object> attributes) throws HandshakeFailureException {
+
         // -------------------------------------------------------------------------
         // 1. Check the chargeBoxId
         // -------------------------------------------------------------------------
 
         String chargeBoxId = getLastBitFromUrl(request.getURI().getPath());
-        Optional<RegistrationStatus> status = chargePointHelperService.getRegistrationStatus(chargeBoxId);
+        Optional<RegistrationStatus> status = admissionController.getRegistrationStatus(chargeBoxId);
 
         // Allow connections, if station is in db (registration_status field from db does not matter)
         boolean allowConnection = status.isPresent();
@@ -0,0 +1,156 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.ocpp.ws.custom.OutboundOverflowStrategy;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Node-wide budget for the outbound buffers of the WebSocket connections.
+ *
+ * Every connection may buffer up to the initial limit without asking. Beyond that, the connection has to reserve the
+ * additional bytes from this budget, and returns them when its buffer is drained or the connection is closed. This
+ * way, the memory that slow stations can pin is bounded by (connections * initial limit + total budget).
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class OutboundBufferBudget implements MetricsSource {
+
+    @Getter private final int initialSessionLimit;
+    @Getter private final int maxSessionLimit;
+    @Getter private final OutboundOverflowStrategy overflowStrategy;
+    private final long totalBytes;
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final Set<BudgetedWebSocketSessionDecorator> sessions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong deniedCount = new AtomicLong();
+    private final AtomicLong rejectedCallCount = new AtomicLong();
+    private final AtomicLong limitExceededCount = new AtomicLong();
+
+    public OutboundBufferBudget() {
+        this(CONFIG.getOcpp());
+    }
+
+    OutboundBufferBudget(SteveConfiguration.Ocpp config) {
+        this.initialSessionLimit = config.getWsOutboundBufferInitialKb() * 1024;
+        this.maxSessionLimit = config.getWsOutboundBufferMaxKb() * 1024;
+        this.overflowStrategy = config.getWsOutboundOverflowStrategy();
+        this.totalBytes = config.getWsOutboundBufferTotalMb() * 1024L * 1024L;
+    }
+
+    /**
+     * @return true if the bytes are reserved, false if the budget is exhausted
+     */
+    boolean tryReserve(long bytes) {
+        while (true) {
+            long current = reservedBytes.get();
+            if (current + bytes > totalBytes) {
+                deniedCount.incrementAndGet();
+                return false;
+            }
+            if (reservedBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long bytes) {
+        reservedBytes.addAndGet(-bytes);
+    }
+
+    void register(BudgetedWebSocketSessionDecorator session) {
+        sessions.add(session);
+    }
+
+    void unregister(BudgetedWebSocketSessionDecorator session) {
+        sessions.remove(session);
+    }
+
+    void onRejectedCall() {
+        rejectedCallCount.incrementAndGet();
+    }
+
+    void onLimitExceeded() {
+        limitExceededCount.incrementAndGet();
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "wsOutboundBuffer";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        Map<String, Integer> bufferedByChargeBoxId = new TreeMap<>();
+        long buffered = 0;
+
+        for (BudgetedWebSocketSessionDecorator session : sessions) {
+            int size = session.getBufferSize();
+            if (size > 0) {
+                bufferedByChargeBoxId.merge(session.getChargeBoxId(), size, Integer::sum);
+                buffered += size;
+            }
+        }
+
+        return Stats.builder()
+                    .sessionCount(sessions.size())
+                    .bufferedBytes(buffered)
+                    .bufferedBytesByChargeBoxId(bufferedByChargeBoxId)
+                    .reservedBytes(reservedBytes.get())
+                    .totalBytes(totalBytes)
+                    .deniedCount(deniedCount.get())
+                    .rejectedCallCount(rejectedCallCount.get())
+                    .limitExceededCount(limitExceededCount.get())
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final int sessionCount;
+        private final long bufferedBytes;
+        private final Map<String, Integer> bufferedBytesByChargeBoxId;
+        private final long reservedBytes;
+        private final long totalBytes;
+        private final long deniedCount;
+        private final long rejectedCallCount;
+        private final long limitExceededCount;
+    }
+}
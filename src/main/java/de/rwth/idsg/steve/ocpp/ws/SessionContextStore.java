@@ -18,28 +18,35 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.Striped;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategy;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
+ * Registry of the open WebSocket sessions of one OCPP version.
+ *
+ * The session list of a station is an immutable list, which is replaced as a whole when a session is added or
+ * removed. Writes therefore only touch the entry of one station and readers (e.g. selecting the session for an
+ * outgoing call) never need a lock. For the status pages, {@link #getSnapshot()} returns an immutable view of the
+ * whole registry, which is only rebuilt when something has changed since the last snapshot.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 17.03.2015
  */
@@ -47,94 +54,90 @@ import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 public class SessionContextStore {
 
     /**
-     * Key   (String)                = chargeBoxId
-     * Value (Deque<SessionContext>) = WebSocket session contexts
+     * Key   (String)               = chargeBoxId
+     * Value (List<SessionContext>) = WebSocket session contexts, immutable, in the order they were opened
      */
-    private final ConcurrentHashMap<String, Deque<SessionContext>> lookupTable = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<SessionContext>> lookupTable = new ConcurrentHashMap<>();
 
-    private final Striped<Lock> locks = Striped.lock(16);
+    /**
+     * Incremented with every change of the lookup table. A snapshot is stale if its version is behind this.
+     */
+    private final AtomicLong modCount = new AtomicLong();
 
-    private final WsSessionSelectStrategy wsSessionSelectStrategy = CONFIG.getOcpp().getWsSessionSelectStrategy();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
 
-    public void add(String chargeBoxId, WebSocketSession session, ScheduledFuture pingSchedule) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            SessionContext context = new SessionContext(session, pingSchedule, DateTime.now());
+    private final WsSessionSelectStrategy wsSessionSelectStrategy;
 
-            Deque<SessionContext> endpointDeque = lookupTable.computeIfAbsent(chargeBoxId, str -> new ArrayDeque<>());
-            endpointDeque.addLast(context); // Adding at the end
+    public SessionContextStore() {
+        this(CONFIG.getOcpp().getWsSessionSelectStrategy());
+    }
 
-            log.debug("A new SessionContext is stored for chargeBoxId '{}'. Store size: {}",
-                    chargeBoxId, endpointDeque.size());
-        } finally {
-            l.unlock();
-        }
+    SessionContextStore(WsSessionSelectStrategy wsSessionSelectStrategy) {
+        this.wsSessionSelectStrategy = wsSessionSelectStrategy;
     }
 
-    public void remove(String chargeBoxId, WebSocketSession session) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-            if (endpointDeque == null) {
-                log.debug("No session context to remove for chargeBoxId '{}'", chargeBoxId);
-                return;
-            }
+    /**
+     * @return the number of sessions of the station before this one was added
+     */
+    public int add(String chargeBoxId, WebSocketSession session, HashedWheelTimer.Timeout pingSchedule) {
+        SessionContext context = new SessionContext(chargeBoxId, session, pingSchedule, DateTime.now());
 
-            // Prevent "java.util.ConcurrentModificationException: null"
-            // Reason: Cannot modify the set (remove the item) we are iterating
-            // Solution: Iterate the set, find the item, remove the item after the for-loop
-            //
-            SessionContext toRemove = null;
-            for (SessionContext context : endpointDeque) {
-                if (context.getSession().getId().equals(session.getId())) {
-                    toRemove = context;
-                    break;
-                }
-            }
+        List<SessionContext> updated = lookupTable.merge(chargeBoxId, List.of(context), SessionContextStore::append);
+        modCount.incrementAndGet();
 
-            if (toRemove != null) {
-                // 1. Cancel the ping task
-                toRemove.getPingSchedule().cancel(true);
-                // 2. Delete from collection
-                if (endpointDeque.remove(toRemove)) {
-                    log.debug("A SessionContext is removed for chargeBoxId '{}'. Store size: {}",
-                            chargeBoxId, endpointDeque.size());
-                }
-                // 3. Delete empty collection from lookup table in order to correctly calculate
-                // the number of connected chargeboxes with getNumberOfChargeBoxes()
-                if (endpointDeque.size() == 0) {
-                    lookupTable.remove(chargeBoxId);
+        log.debug("A new SessionContext is stored for chargeBoxId '{}'. Store size: {}", chargeBoxId, updated.size());
+        return updated.size() - 1;
+    }
+
+    /**
+     * @return the number of sessions of the station after this one was removed
+     */
+    public int remove(String chargeBoxId, WebSocketSession session) {
+        SessionContext[] removed = new SessionContext[1];
+
+        // Returning null from the remapping function deletes the entry, which is needed in order to correctly
+        // calculate the number of connected chargeboxes with getNumberOfChargeBoxes()
+        List<SessionContext> updated = lookupTable.computeIfPresent(chargeBoxId, (id, contexts) -> {
+            List<SessionContext> remaining = new ArrayList<>(contexts.size());
+            for (SessionContext context : contexts) {
+                if (removed[0] == null && context.getSession().getId().equals(session.getId())) {
+                    removed[0] = context;
+                } else {
+                    remaining.add(context);
                 }
             }
-        } finally {
-            l.unlock();
+            if (removed[0] == null) {
+                return contexts;
+            }
+            return remaining.isEmpty() ? null : Collections.unmodifiableList(remaining);
+        });
+
+        if (removed[0] == null) {
+            log.debug("No session context to remove for chargeBoxId '{}'", chargeBoxId);
+        } else {
+            modCount.incrementAndGet();
+            removed[0].getPingSchedule().cancel();
+            log.debug("A SessionContext is removed for chargeBoxId '{}'. Store size: {}",
+                    chargeBoxId, updated == null ? 0 : updated.size());
         }
+
+        return updated == null ? 0 : updated.size();
     }
 
     public WebSocketSession getSession(String chargeBoxId) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-            if (endpointDeque == null) {
-                throw new NoSuchElementException();
-            }
-            return wsSessionSelectStrategy.getSession(endpointDeque);
-        } catch (NoSuchElementException e) {
-            throw new SteveException("No session context for chargeBoxId '%s'", chargeBoxId, e);
-        } finally {
-            l.unlock();
+        List<SessionContext> contexts = lookupTable.get(chargeBoxId);
+        if (contexts == null) {
+            throw new SteveException("No session context for chargeBoxId '%s'", chargeBoxId);
         }
+        return wsSessionSelectStrategy.getSession(contexts);
     }
 
     public int getSize(String chargeBoxId) {
-        Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-        if (endpointDeque == null) {
+        List<SessionContext> contexts = lookupTable.get(chargeBoxId);
+        if (contexts == null) {
             return 0;
         } else {
-            return endpointDeque.size();
+            return contexts.size();
         }
     }
 
@@ -146,7 +149,64 @@ public class SessionContextStore {
         return Collections.list(lookupTable.keys());
     }
 
-    public Map<String, Deque<SessionContext>> getACopy() {
-        return ImmutableMap.copyOf(lookupTable);
+    /**
+     * Returns the current immutable view of the registry. As long as nothing changes, all callers share the same
+     * instance. Otherwise, a new one is built once and published for the following callers.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        long version = modCount.get();
+        if (current.getVersion() == version) {
+            return current;
+        }
+
+        // The version is read before the table is walked: if there are writes in the meantime, the snapshot
+        // might already contain them, but it is still marked as stale and will be rebuilt by the next caller.
+        Snapshot fresh = Snapshot.of(version, lookupTable);
+        return snapshot.accumulateAndGet(fresh, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static List<SessionContext> append(List<SessionContext> contexts, List<SessionContext> toAdd) {
+        List<SessionContext> list = new ArrayList<>(contexts.size() + toAdd.size());
+        list.addAll(contexts);
+        list.addAll(toAdd); // Adding at the end
+        return Collections.unmodifiableList(list);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(0, ImmutableMap.of(), ImmutableList.of());
+
+        private final long version;
+
+        /**
+         * Key = chargeBoxId, Value = the session contexts of the station in the order they were opened
+         */
+        private final ImmutableMap<String, List<SessionContext>> byChargeBoxId;
+
+        /**
+         * All session contexts, ordered by the time they were opened (oldest first)
+         */
+        private final ImmutableList<SessionContext> byOpenSince;
+
+        public List<String> getChargeBoxIds() {
+            return byChargeBoxId.keySet().asList();
+        }
+
+        private static Snapshot of(long version, ConcurrentHashMap<String, List<SessionContext>> table) {
+            ImmutableMap<String, List<SessionContext>> byChargeBoxId = ImmutableMap.copyOf(table);
+
+            List<SessionContext> all = new ArrayList<>();
+            byChargeBoxId.values().forEach(all::addAll);
+            all.sort(Comparator.comparing(SessionContext::getOpenSince));
+
+            return new Snapshot(version, byChargeBoxId, ImmutableList.copyOf(all));
+        }
     }
 }
@@ -0,0 +1,277 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Executes tasks in a mailbox per chargeBoxId: The tasks of one station are executed strictly in the order they were
+ * submitted and never concurrently, whereas the tasks of different stations are executed in parallel by a shared
+ * worker pool.
+ *
+ * A mailbox is scheduled on the pool only when it has pending tasks, and it yields the worker after a batch of
+ * {@link #BATCH_SIZE} tasks. Therefore, a chatty station cannot starve the others.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class StationMailboxExecutor implements MetricsSource {
+
+    private static final int BATCH_SIZE = 32;
+
+    private final boolean enabled;
+    private final int threads;
+
+    /**
+     * Key   (String)  = chargeBoxId
+     * Value (Mailbox) = pending tasks of the station
+     */
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor workers;
+
+    public StationMailboxExecutor() {
+        this(CONFIG.getOcpp().isWsMailboxEnabled(), CONFIG.getOcpp().getWsMailboxThreads());
+    }
+
+    StationMailboxExecutor(boolean enabled, int threads) {
+        this.enabled = enabled;
+        this.threads = threads;
+
+        if (enabled) {
+            workers = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("SteVe-Mailbox-%d").build()
+            );
+            log.info("Incoming WebSocket messages will be processed by mailboxes with {} worker threads", threads);
+        } else {
+            workers = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void execute(String chargeBoxId, Runnable task) {
+        if (!enabled) {
+            task.run();
+            return;
+        }
+
+        // Enqueue within the map operation. Otherwise, removeIfIdle could drop the mailbox in between, and the next
+        // task would get a new mailbox that runs concurrently with this one.
+        Mailbox mailbox = mailboxes.compute(chargeBoxId, (id, existing) -> {
+            Mailbox m = (existing == null) ? new Mailbox(id, workers) : existing;
+            m.enqueue(task);
+            return m;
+        });
+        mailbox.scheduleIfIdle();
+    }
+
+    /**
+     * Drops the mailbox of a disconnected station, but only if there is nothing left to process. Otherwise, the
+     * mailbox stays so that the ordering guarantee holds if the station reconnects before the pending tasks are done.
+     */
+    public void removeIfIdle(String chargeBoxId) {
+        mailboxes.computeIfPresent(chargeBoxId, (id, mailbox) -> mailbox.isIdle() ? null : mailbox);
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (workers != null) {
+            gracefulShutDown(workers);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "wsMailbox";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        List<MailboxStats> list = new ArrayList<>(mailboxes.size());
+        for (Mailbox mailbox : mailboxes.values()) {
+            list.add(mailbox.getStats());
+        }
+
+        return Stats.builder()
+                    .enabled(enabled)
+                    .workerThreads(threads)
+                    .activeWorkers(workers == null ? 0 : workers.getActiveCount())
+                    .scheduledMailboxes(workers == null ? 0 : workers.getQueue().size())
+                    .mailboxes(list)
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final boolean enabled;
+        private final int workerThreads;
+        private final int activeWorkers;
+        private final int scheduledMailboxes;
+        private final List<MailboxStats> mailboxes;
+    }
+
+    @Getter
+    @Builder
+    public static class MailboxStats {
+        private final String chargeBoxId;
+        private final int queueDepth;
+        private final long processedCount;
+        private final long avgWaitTimeMillis;
+        private final long maxWaitTimeMillis;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static void gracefulShutDown(ExecutorService executor) {
+        try {
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        } catch (InterruptedException e) {
+            log.error("Termination interrupted", e);
+
+        } finally {
+            if (!executor.isTerminated()) {
+                log.warn("Killing non-finished tasks");
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Envelope {
+        private final Runnable task;
+        private final long enqueuedAt = System.nanoTime();
+    }
+
+    @RequiredArgsConstructor
+    private static class Mailbox implements Runnable {
+        private final String chargeBoxId;
+        private final ExecutorService executor;
+
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicLong processedCount = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void enqueue(Runnable task) {
+            queue.add(new Envelope(task));
+            queueDepth.incrementAndGet();
+        }
+
+        private void scheduleIfIdle() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        private boolean isIdle() {
+            return !scheduled.get() && queue.isEmpty();
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    Envelope envelope = queue.poll();
+                    if (envelope == null) {
+                        break;
+                    }
+                    queueDepth.decrementAndGet();
+                    recordWait(System.nanoTime() - envelope.enqueuedAt);
+                    runSafely(envelope.task);
+                }
+            } finally {
+                scheduled.set(false);
+                // A task might have been enqueued after our last poll, but before the flag was cleared. In that case
+                // its submitter could not schedule us, and we have to do it ourselves.
+                if (!queue.isEmpty()) {
+                    scheduleIfIdle();
+                }
+            }
+        }
+
+        private void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("Exception occurred in mailbox of chargeBoxId '{}'", chargeBoxId, t);
+            }
+        }
+
+        private void recordWait(long waitNanos) {
+            processedCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        private MailboxStats getStats() {
+            long processed = processedCount.get();
+            long avgWaitNanos = processed == 0 ? 0 : totalWaitNanos.get() / processed;
+
+            return MailboxStats.builder()
+                               .chargeBoxId(chargeBoxId)
+                               .queueDepth(queueDepth.get())
+                               .processedCount(processed)
+                               .avgWaitTimeMillis(TimeUnit.NANOSECONDS.toMillis(avgWaitNanos))
+                               .maxWaitTimeMillis(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()))
+                               .build();
+        }
+    }
+}
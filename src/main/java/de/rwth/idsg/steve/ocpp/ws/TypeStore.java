@@ -18,7 +18,9 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
 import de.rwth.idsg.steve.ocpp.ws.data.ActionResponsePair;
 
 /**
@@ -34,6 +36,27 @@ public interface TypeStore {
      */
     Class<? extends RequestType> findRequestClass(String action);
 
+    /**
+     * For incoming requests
+     *
+     * Action field --> Reader that binds the payload to the request JAXB class
+     */
+    ObjectReader findRequestReader(String action);
+
+    /**
+     * For incoming responses to outgoing requests
+     *
+     * Response JAXB class --> Reader that binds the payload to the response JAXB class
+     */
+    ObjectReader findResponseReader(Class<? extends ResponseType> responseClass);
+
+    /**
+     * For incoming responses to outgoing requests
+     *
+     * Action field --> Response JAXB class
+     */
+    Class<? extends ResponseType> findResponseClass(String action);
+
     /**
      * For outgoing requests
      *
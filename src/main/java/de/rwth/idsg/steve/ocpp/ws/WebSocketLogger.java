@@ -18,10 +18,14 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.journal.OcppTrafficRecorder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 10.05.2018
@@ -29,6 +33,8 @@ import org.springframework.web.socket.WebSocketSession;
 @Slf4j
 public final class WebSocketLogger {
 
+    private static final boolean PAYLOAD_LOGGING_ENABLED = CONFIG.getOcpp().isPayloadLoggingEnabled();
+
     private WebSocketLogger() { }
 
     public static void connected(String chargeBoxId, WebSocketSession session) {
@@ -40,7 +46,10 @@ public final class WebSocketLogger {
     }
 
     public static void sending(String chargeBoxId, WebSocketSession session, String msg) {
-        log.info("[chargeBoxId={}, sessionId={}] Sending: {}", chargeBoxId, session.getId(), msg);
+        OcppTrafficRecorder.INSTANCE.sent(OcppTransport.JSON, chargeBoxId, session.getId(), msg);
+        if (PAYLOAD_LOGGING_ENABLED) {
+            log.info("[chargeBoxId={}, sessionId={}] Sending: {}", chargeBoxId, session.getId(), msg);
+        }
     }
 
     public static void sendingPing(String chargeBoxId, WebSocketSession session) {
@@ -52,7 +61,10 @@ public final class WebSocketLogger {
     }
 
     public static void receivedText(String chargeBoxId, WebSocketSession session, String msg) {
-        log.info("[chargeBoxId={}, sessionId={}] Received: {}", chargeBoxId, session.getId(), msg);
+        OcppTrafficRecorder.INSTANCE.received(OcppTransport.JSON, chargeBoxId, session.getId(), msg);
+        if (PAYLOAD_LOGGING_ENABLED) {
+            log.info("[chargeBoxId={}, sessionId={}] Received: {}", chargeBoxId, session.getId(), msg);
+        }
     }
 
     public static void receivedEmptyText(String chargeBoxId, WebSocketSession session) {
@@ -65,6 +77,12 @@ public final class WebSocketLogger {
         }
     }
 
+    public static void processingError(String chargeBoxId, WebSocketSession session, Throwable t) {
+        if (log.isErrorEnabled()) {
+            log.error("[chargeBoxId=" + chargeBoxId + ", sessionId=" + session.getId() + "] Processing error", t);
+        }
+    }
+
     public static void transportError(String chargeBoxId, WebSocketSession session, Throwable t) {
         if (log.isErrorEnabled()) {
             log.error("[chargeBoxId=" + chargeBoxId + ", sessionId=" + session.getId() + "] Transport error", t);
@@ -0,0 +1,138 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Sends a call for a station, which is connected to another node, to that node. The other node sends the call over
+ * its own session and responds with the result of it.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class CallForwarder {
+
+    public static final String PATH = "/v1/cluster/calls";
+
+    // The other node waits for the response of the station. Give it some time on top to respond to us.
+    private static final Duration RESPONSE_GRACE = Duration.ofSeconds(10);
+
+    private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+                                                    .connectTimeout(Duration.ofSeconds(5))
+                                                    .build();
+
+    private final SteveConfiguration.Ocpp ocppConfig;
+    private final SteveConfiguration.WebApi webApiConfig;
+
+    public CallForwarder() {
+        this(CONFIG.getOcpp(), CONFIG.getWebApi());
+    }
+
+    CallForwarder(SteveConfiguration.Ocpp ocppConfig, SteveConfiguration.WebApi webApiConfig) {
+        this.ocppConfig = ocppConfig;
+        this.webApiConfig = webApiConfig;
+    }
+
+    /**
+     * The returned future never completes exceptionally. Technical problems are reported as a failure in the result.
+     */
+    public CompletableFuture<ForwardedCallResult> forward(String nodeId, ForwardedCall call) {
+        Duration timeout;
+        HttpRequest request;
+        try {
+            timeout = Duration.ofSeconds(ocppConfig.getCallTimeoutSeconds(call.getAction()))
+                              .plus(RESPONSE_GRACE);
+
+            request = HttpRequest.newBuilder(URI.create(nodeId + CONFIG.getApiMapping() + PATH))
+                                 .timeout(timeout)
+                                 .header("Content-Type", "application/json")
+                                 .header(webApiConfig.getHeaderKey(), webApiConfig.getHeaderValue())
+                                 .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(call)))
+                                 .build();
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ForwardedCallResult.ofFailure(e.getMessage()));
+        }
+
+        log.debug("Forwarding {} to node '{}'", call, nodeId);
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                         .handle((response, e) -> {
+                             if (e != null) {
+                                 log.warn("Forwarding the call to node '{}' failed", nodeId, e);
+                                 return ForwardedCallResult.ofFailure(toFailure(nodeId, timeout, e));
+                             }
+                             return toResult(nodeId, response);
+                         });
+    }
+
+    /**
+     * Only if the connection could not be established, we know that the call was not delivered
+     */
+    static String toFailure(String nodeId, Duration timeout, Throwable e) {
+        Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+
+        if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+            return "Node '" + nodeId + "' is not reachable";
+
+        } else if (cause instanceof HttpTimeoutException) {
+            return "Node '" + nodeId + "' did not answer within " + timeout.toSeconds() + " seconds. "
+                    + "The call may have been delivered to the station";
+
+        } else {
+            return "Forwarding to node '" + nodeId + "' failed (" + cause.getMessage() + "). "
+                    + "The call may have been delivered to the station";
+        }
+    }
+
+    private ForwardedCallResult toResult(String nodeId, HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            log.warn("Node '{}' answered the forwarded call with status {}", nodeId, response.statusCode());
+            return ForwardedCallResult.ofFailure("Node '" + nodeId + "' answered " + response.statusCode());
+        }
+        try {
+            return mapper.readValue(response.body(), ForwardedCallResult.class);
+        } catch (IOException e) {
+            log.warn("Deserialization of the forwarded call result of node '{}' failed", nodeId, e);
+            return ForwardedCallResult.ofFailure("Node '" + nodeId + "' answered with an invalid result");
+        }
+    }
+}
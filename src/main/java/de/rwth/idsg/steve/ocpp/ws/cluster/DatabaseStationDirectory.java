@@ -0,0 +1,101 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Optional;
+
+import static jooq.steve.db.tables.StationDirectory.STATION_DIRECTORY;
+
+/**
+ * Directory in the table station_directory, shared by all nodes of the cluster.
+ *
+ * The entries of a node that crashed are left behind until the node is started again, and calls for these stations
+ * fail until the stations reconnect (to any node) and overwrite the entries.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DatabaseStationDirectory implements StationDirectory {
+
+    private final DSLContext ctx;
+    @Getter private final String nodeId;
+
+    @PostConstruct
+    @PreDestroy
+    public void removeOwnEntries() {
+        int count = ctx.deleteFrom(STATION_DIRECTORY)
+                       .where(STATION_DIRECTORY.NODE_ID.eq(nodeId))
+                       .execute();
+        if (count > 0) {
+            log.info("Removed {} station directory entries of node '{}'", count, nodeId);
+        }
+    }
+
+    @Override
+    public void register(String chargeBoxId, OcppVersion version) {
+        DateTime now = DateTime.now();
+
+        ctx.insertInto(STATION_DIRECTORY)
+           .set(STATION_DIRECTORY.CHARGE_BOX_ID, chargeBoxId)
+           .set(STATION_DIRECTORY.NODE_ID, nodeId)
+           .set(STATION_DIRECTORY.OCPP_VERSION, version.getValue())
+           .set(STATION_DIRECTORY.CONNECTED_AT, now)
+           .onDuplicateKeyUpdate()
+           .set(STATION_DIRECTORY.NODE_ID, nodeId)
+           .set(STATION_DIRECTORY.OCPP_VERSION, version.getValue())
+           .set(STATION_DIRECTORY.CONNECTED_AT, now)
+           .execute();
+    }
+
+    @Override
+    public void unregister(String chargeBoxId) {
+        ctx.deleteFrom(STATION_DIRECTORY)
+           .where(STATION_DIRECTORY.CHARGE_BOX_ID.eq(chargeBoxId))
+           .and(STATION_DIRECTORY.NODE_ID.eq(nodeId))
+           .execute();
+    }
+
+    @Override
+    public Optional<String> findNodeId(String chargeBoxId) {
+        return ctx.select(STATION_DIRECTORY.NODE_ID)
+                  .from(STATION_DIRECTORY)
+                  .where(STATION_DIRECTORY.CHARGE_BOX_ID.eq(chargeBoxId))
+                  .fetchOptional(STATION_DIRECTORY.NODE_ID);
+    }
+
+    @Override
+    public List<String> getChargeBoxIds(OcppVersion version) {
+        return ctx.select(STATION_DIRECTORY.CHARGE_BOX_ID)
+                  .from(STATION_DIRECTORY)
+                  .where(STATION_DIRECTORY.OCPP_VERSION.eq(version.getValue()))
+                  .fetch(STATION_DIRECTORY.CHARGE_BOX_ID);
+    }
+}
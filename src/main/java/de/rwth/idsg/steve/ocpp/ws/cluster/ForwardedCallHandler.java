@@ -0,0 +1,133 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.AbstractWebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12WebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15WebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16WebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.pipeline.OutgoingCallPipeline;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Sends a call, which another node forwarded to us, to the station over our own session. The returned future is
+ * completed with the result, when the station responds or the call fails.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ForwardedCallHandler {
+
+    // The pending call times out on its own. This is just a safety net, so that the future is completed in any case.
+    private static final long WAIT_GRACE_SECONDS = 5;
+
+    private final OutgoingCallPipeline outgoingCallPipeline;
+    private final Ocpp12WebSocketEndpoint ocpp12WebSocketEndpoint;
+    private final Ocpp15WebSocketEndpoint ocpp15WebSocketEndpoint;
+    private final Ocpp16WebSocketEndpoint ocpp16WebSocketEndpoint;
+
+    public CompletableFuture<ForwardedCallResult> handle(ForwardedCall forwardedCall) {
+        String chargeBoxId = forwardedCall.getChargeBoxId();
+        String action = forwardedCall.getAction();
+        OcppVersion version = forwardedCall.getVersion();
+
+        if (version == null) {
+            return failed("The OCPP version is missing");
+        }
+
+        AbstractWebSocketEndpoint endpoint = getEndpoint(version);
+        if (!endpoint.isConnected(chargeBoxId)) {
+            return failed("The station '" + chargeBoxId + "' is not connected to this node");
+        }
+
+        // Only the actions that we can send to a station are accepted, the response type is derived from them
+        Class<? extends ResponseType> responseClass = getTypeStore(version).findResponseClass(action);
+        if (responseClass == null) {
+            return failed("The action '" + action + "' is unknown for " + version.getValue());
+        }
+
+        CompletableFuture<ForwardedCallResult> future = new CompletableFuture<>();
+        try {
+            OcppJsonCall call = new OcppJsonCall();
+            call.setMessageId(UUID.randomUUID().toString());
+            call.setAction(action);
+
+            FutureResponseContext frc =
+                    new FutureResponseContext(new ForwardedCallSink(future), responseClass, chargeBoxId, action);
+
+            CommunicationContext context = new CommunicationContext(endpoint.getSession(chargeBoxId), chargeBoxId);
+            context.setOutgoingMessage(call);
+            context.setFutureResponseContext(frc);
+
+            outgoingCallPipeline.acceptSerialized(context, forwardedCall.getPayload());
+        } catch (Exception e) {
+            log.error("Exception occurred", e);
+            return failed(e.getMessage());
+        }
+
+        long waitSeconds = CONFIG.getOcpp().getCallTimeoutSeconds(action) + WAIT_GRACE_SECONDS;
+        return future.completeOnTimeout(
+                ForwardedCallResult.ofFailure("No response from the station '" + chargeBoxId + "'"),
+                waitSeconds, TimeUnit.SECONDS
+        );
+    }
+
+    private static CompletableFuture<ForwardedCallResult> failed(String failure) {
+        return CompletableFuture.completedFuture(ForwardedCallResult.ofFailure(failure));
+    }
+
+    private AbstractWebSocketEndpoint getEndpoint(OcppVersion version) {
+        switch (version) {
+            case V_12: return ocpp12WebSocketEndpoint;
+            case V_15: return ocpp15WebSocketEndpoint;
+            case V_16: return ocpp16WebSocketEndpoint;
+            default: throw new SteveException("Unknown OCPP version: %s", version);
+        }
+    }
+
+    private static TypeStore getTypeStore(OcppVersion version) {
+        switch (version) {
+            case V_12: return Ocpp12TypeStore.INSTANCE;
+            case V_15: return Ocpp15TypeStore.INSTANCE;
+            case V_16: return Ocpp16TypeStore.INSTANCE;
+            default: throw new SteveException("Unknown OCPP version: %s", version);
+        }
+    }
+}
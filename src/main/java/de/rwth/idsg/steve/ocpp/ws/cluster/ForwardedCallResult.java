@@ -0,0 +1,67 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Outcome of a {@link ForwardedCall}. Exactly one of these is set:
+ * - payload: the station responded with CALLRESULT
+ * - errorCode (with optional description and details): the station responded with CALLERROR
+ * - failure: the call could not be completed (e.g. the station is not connected anymore, or did not respond in time)
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Getter
+@Setter
+@ToString
+public class ForwardedCallResult {
+    @ToString.Exclude
+    private String payload;
+
+    private String errorCode;
+    private String errorDescription;
+    private String errorDetails;
+
+    private String failure;
+
+    public static ForwardedCallResult ofPayload(String payload) {
+        ForwardedCallResult result = new ForwardedCallResult();
+        result.setPayload(payload);
+        return result;
+    }
+
+    public static ForwardedCallResult ofError(OcppJsonError error) {
+        ForwardedCallResult result = new ForwardedCallResult();
+        result.setErrorCode(error.getErrorCode().name());
+        result.setErrorDescription(error.getErrorDescription());
+        result.setErrorDetails(error.getErrorDetails());
+        return result;
+    }
+
+    public static ForwardedCallResult ofFailure(String failure) {
+        ForwardedCallResult result = new ForwardedCallResult();
+        result.setFailure(failure);
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import de.rwth.idsg.steve.ocpp.ws.data.ResponseSink;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Used on the node that sends a forwarded call to the station. Instead of processing the response, it hands the
+ * serialized response over to the future, which is sent back to the originating node.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@RequiredArgsConstructor
+class ForwardedCallSink implements ResponseSink {
+
+    private final CompletableFuture<ForwardedCallResult> future;
+
+    @Override
+    public void onResult(String chargeBoxId, ResponseType response) {
+        try {
+            future.complete(ForwardedCallResult.ofPayload(JsonObjectMapper.INSTANCE.getMapper()
+                                                                                   .writeValueAsString(response)));
+        } catch (Exception e) {
+            onFailure(chargeBoxId, e);
+        }
+    }
+
+    @Override
+    public void onError(String chargeBoxId, OcppJsonError error) {
+        future.complete(ForwardedCallResult.ofError(error));
+    }
+
+    @Override
+    public void onFailure(String chargeBoxId, Exception e) {
+        future.complete(ForwardedCallResult.ofFailure(e.getMessage()));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Directory in memory of this JVM. Used when SteVe runs as a single node. Multiple instances can share the same map
+ * to stand in for the nodes of a cluster (e.g. in tests).
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class InMemoryStationDirectory implements StationDirectory {
+
+    @Getter private final String nodeId;
+    private final ConcurrentMap<String, Entry> entries;
+
+    public InMemoryStationDirectory(String nodeId) {
+        this(nodeId, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void register(String chargeBoxId, OcppVersion version) {
+        entries.put(chargeBoxId, new Entry(nodeId, version));
+    }
+
+    @Override
+    public void unregister(String chargeBoxId) {
+        entries.computeIfPresent(chargeBoxId, (id, entry) -> entry.nodeId.equals(nodeId) ? null : entry);
+    }
+
+    @Override
+    public Optional<String> findNodeId(String chargeBoxId) {
+        return Optional.ofNullable(entries.get(chargeBoxId)).map(entry -> entry.nodeId);
+    }
+
+    @Override
+    public List<String> getChargeBoxIds(OcppVersion version) {
+        return entries.entrySet()
+                      .stream()
+                      .filter(e -> e.getValue().version == version)
+                      .map(Map.Entry::getKey)
+                      .collect(Collectors.toList());
+    }
+
+    @RequiredArgsConstructor
+    static final class Entry {
+        private final String nodeId;
+        private final OcppVersion version;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Records which node holds the WebSocket connection of a station. With multiple nodes behind a load balancer, this
+ * is how a node finds out where to forward an outgoing call for a station that is not connected to itself.
+ *
+ * A station is registered when its first connection to a node is opened, and unregistered when the last one is
+ * closed. If a station connects to another node in the meantime, the newer registration wins.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public interface StationDirectory {
+
+    /**
+     * Id of this node
+     */
+    String getNodeId();
+
+    void register(String chargeBoxId, OcppVersion version);
+
+    /**
+     * Removes the entry only if it belongs to this node
+     */
+    void unregister(String chargeBoxId);
+
+    /**
+     * @return the id of the node that the station is connected to
+     */
+    Optional<String> findNodeId(String chargeBoxId);
+
+    /**
+     * @return the stations that are connected to any node with the given version
+     */
+    List<String> getChargeBoxIds(OcppVersion version);
+
+    default boolean isRemote(String nodeId) {
+        return !getNodeId().equals(nodeId);
+    }
+}
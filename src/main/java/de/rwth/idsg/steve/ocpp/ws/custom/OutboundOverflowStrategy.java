@@ -0,0 +1,59 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.custom;
+
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+/**
+ * What to do when the outbound buffer of a WebSocket connection is full.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public enum OutboundOverflowStrategy {
+
+    /**
+     * Drop the oldest buffered messages
+     */
+    DROP_OLDEST(OverflowStrategy.DROP),
+
+    /**
+     * Close the connection
+     */
+    CLOSE(OverflowStrategy.TERMINATE),
+
+    /**
+     * Fail new outgoing calls before they are buffered, but still buffer the responses to the calls of the station.
+     * If the limit is exceeded nevertheless, close the connection.
+     */
+    REJECT_CALLS(OverflowStrategy.TERMINATE);
+
+    private final OverflowStrategy springStrategy;
+
+    OutboundOverflowStrategy(OverflowStrategy springStrategy) {
+        this.springStrategy = springStrategy;
+    }
+
+    /**
+     * The strategy of the underlying Spring decorator, which applies when the buffer limit is exceeded
+     */
+    public OverflowStrategy toSpringStrategy() {
+        return springStrategy;
+    }
+}
@@ -21,16 +21,19 @@ package de.rwth.idsg.steve.ocpp.ws.custom;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.Deque;
+import java.util.List;
 
 /**
  * We want to support multiple connections to a charge point. For sending messages we need a
  * mechanism to select one WebSocketSession. Implementations of this interface should use
  * different mechanisms to realize that.
  *
+ * The list of session contexts is immutable and shared with concurrent callers, i.e. implementations must not
+ * modify it and must be thread-safe.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 30.04.2015
  */
 public interface WsSessionSelectStrategy {
-    WebSocketSession getSession(Deque<SessionContext> sessionContexts);
+    WebSocketSession getSession(List<SessionContext> sessionContexts);
 }
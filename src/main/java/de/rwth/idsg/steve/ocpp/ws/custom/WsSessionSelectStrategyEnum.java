@@ -22,7 +22,8 @@ import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
 import lombok.Getter;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -36,22 +37,23 @@ public enum WsSessionSelectStrategyEnum implements WsSessionSelectStrategy {
          * Always use the last opened session/connection.
          */
         @Override
-        public WebSocketSession getSession(Deque<SessionContext> sessionContexts) {
-            return sessionContexts.getLast().getSession();
+        public WebSocketSession getSession(List<SessionContext> sessionContexts) {
+            return sessionContexts.get(sessionContexts.size() - 1).getSession();
         }
     },
 
     ROUND_ROBIN {
+        private final AtomicInteger counter = new AtomicInteger();
+
         /**
          * The sessions/connections are chosen in a round robin fashion.
          * This would allow to distribute load to different connections.
          */
         @Override
-        public WebSocketSession getSession(Deque<SessionContext> sessionContexts) {
-            // Remove the first item, and add at the end
-            SessionContext s = sessionContexts.removeFirst();
-            sessionContexts.addLast(s);
-            return s.getSession();
+        public WebSocketSession getSession(List<SessionContext> sessionContexts) {
+            // The list is shared and must not be modified. Rotate over it with a counter instead.
+            int index = Math.floorMod(counter.getAndIncrement(), sessionContexts.size());
+            return sessionContexts.get(index).getSession();
         }
     };
 
@@ -18,17 +18,11 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.data;
 
-import de.rwth.idsg.ocpp.jaxb.ResponseType;
-import de.rwth.idsg.steve.ocpp.CommunicationTask;
-import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.springframework.web.socket.WebSocketSession;
 
-import javax.xml.ws.Response;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -60,51 +54,11 @@ public class CommunicationContext {
         return (outgoingMessage != null) && (outgoingMessage instanceof OcppJsonError);
     }
 
-    @SuppressWarnings("unchecked")
-    public void createResultHandler(CommunicationTask task) {
-        // TODO: not so sure about this
-        resultHandler = result -> task.getHandler(chargeBoxId)
-                                      .handleResponse(new DummyResponse(result.getPayload()));
+    public void createResultHandler(ResponseSink sink) {
+        resultHandler = result -> sink.onResult(chargeBoxId, result.getPayload());
     }
 
-    public void createErrorHandler(CommunicationTask task) {
-        // TODO: not so sure about this
-        errorHandler = result -> task.defaultCallback()
-                                     .success(chargeBoxId, result);
-    }
-
-    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-    private static class DummyResponse implements Response<ResponseType> {
-        private final ResponseType payload;
-
-        @Override
-        public Map<String, Object> getContext() {
-            return null;
-        }
-
-        @Override
-        public boolean cancel(boolean mayInterruptIfRunning) {
-            return false;
-        }
-
-        @Override
-        public boolean isCancelled() {
-            return false;
-        }
-
-        @Override
-        public boolean isDone() {
-            return true;
-        }
-
-        @Override
-        public ResponseType get() {
-            return payload;
-        }
-
-        @Override
-        public ResponseType get(long timeout, TimeUnit unit) {
-            return payload;
-        }
+    public void createErrorHandler(ResponseSink sink) {
+        errorHandler = error -> sink.onError(chargeBoxId, error);
     }
 }
@@ -19,7 +19,6 @@
 package de.rwth.idsg.steve.ocpp.ws.data;
 
 import de.rwth.idsg.ocpp.jaxb.ResponseType;
-import de.rwth.idsg.steve.ocpp.CommunicationTask;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -32,6 +31,8 @@ import lombok.Setter;
 @Setter
 @RequiredArgsConstructor
 public class FutureResponseContext {
-    private final CommunicationTask task;
+    private final ResponseSink sink;
     private final Class<? extends ResponseType> responseClass;
+    private final String chargeBoxId;
+    private final String action;
 }
@@ -20,11 +20,10 @@ package de.rwth.idsg.steve.ocpp.ws.data;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import de.rwth.idsg.steve.ocpp.ws.HashedWheelTimer;
 import org.joda.time.DateTime;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.concurrent.ScheduledFuture;
-
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 25.03.2015
@@ -32,7 +31,8 @@ import java.util.concurrent.ScheduledFuture;
 @Getter
 @RequiredArgsConstructor
 public class SessionContext {
+    private final String chargeBoxId;
     private final WebSocketSession session;
-    private final ScheduledFuture pingSchedule;
+    private final HashedWheelTimer.Timeout pingSchedule;
     private final DateTime openSince;
 }
@@ -0,0 +1,93 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.data;
+
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import javax.xml.ws.Response;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the outcome of a call over to the handlers and callbacks of the task, which the call belongs to.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@RequiredArgsConstructor
+public class TaskResponseSink implements ResponseSink {
+
+    private final CommunicationTask task;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onResult(String chargeBoxId, ResponseType response) {
+        // TODO: not so sure about this
+        task.getHandler(chargeBoxId).handleResponse(new DummyResponse(response));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onError(String chargeBoxId, OcppJsonError error) {
+        task.defaultCallback().success(chargeBoxId, error);
+    }
+
+    @Override
+    public void onFailure(String chargeBoxId, Exception e) {
+        task.defaultCallback().failed(chargeBoxId, e);
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class DummyResponse implements Response<ResponseType> {
+        private final ResponseType payload;
+
+        @Override
+        public Map<String, Object> getContext() {
+            return null;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public ResponseType get() {
+            return payload;
+        }
+
+        @Override
+        public ResponseType get(long timeout, TimeUnit unit) {
+            return payload;
+        }
+    }
+}
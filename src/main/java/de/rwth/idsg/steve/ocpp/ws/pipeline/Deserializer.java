@@ -19,12 +19,10 @@
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.TreeNode;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import com.fasterxml.jackson.databind.node.NullNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.rwth.idsg.ocpp.jaxb.RequestType;
 import de.rwth.idsg.ocpp.jaxb.ResponseType;
 import de.rwth.idsg.steve.SteveException;
@@ -55,6 +53,8 @@ import java.util.function.Consumer;
 @RequiredArgsConstructor
 public class Deserializer implements Consumer<CommunicationContext> {
 
+    private static final String EMPTY_PAYLOAD = "{}";
+
     private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
 
     private final FutureResponseContextStore futureResponseContextStore;
@@ -116,25 +116,24 @@ public class Deserializer implements Consumer<CommunicationContext> {
             return;
         }
 
-        // find action class
-        Class<? extends RequestType> clazz = typeStore.findRequestClass(action);
-        if (clazz == null) {
+        // find the reader of action class
+        ObjectReader reader = typeStore.findRequestReader(action);
+        if (reader == null) {
             context.setOutgoingMessage(ErrorFactory.actionNotFound(messageId, action));
             return;
         }
 
-        // parse request payload
+        // parse request payload. bind it directly from the stream without building a tree in between.
         RequestType req;
         try {
             parser.nextToken();
-            JsonNode requestPayload = parser.readValueAsTree();
 
             // https://github.com/steve-community/steve/issues/1109
-            if (requestPayload instanceof NullNode) {
-                requestPayload = new ObjectNode(JsonNodeFactory.instance);
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                req = reader.readValue(EMPTY_PAYLOAD);
+            } else {
+                req = reader.readValue(parser);
             }
-
-            req = mapper.treeToValue(requestPayload, clazz);
         } catch (IOException e) {
             log.error("Exception occurred", e);
             context.setOutgoingMessage(ErrorFactory.payloadDeserializeError(messageId, e.getMessage()));
@@ -156,17 +155,24 @@ public class Deserializer implements Consumer<CommunicationContext> {
     private void handleResult(CommunicationContext context, String messageId, JsonParser parser) {
         FutureResponseContext responseContext = futureResponseContextStore.get(context.getSession(), messageId);
         if (responseContext == null) {
+            if (isLateResponse(context, messageId)) {
+                return;
+            }
             throw new SteveException(
                     "A result message was received as response to a not-sent call. The message was: %s",
                     context.getIncomingString()
             );
         }
 
+        ObjectReader reader = typeStore.findResponseReader(responseContext.getResponseClass());
+        if (reader == null) {
+            throw new SteveException("No reader is found for %s", responseContext.getResponseClass().getName());
+        }
+
         ResponseType res;
         try {
             parser.nextToken();
-            JsonNode responsePayload = parser.readValueAsTree();
-            res = mapper.treeToValue(responsePayload, responseContext.getResponseClass());
+            res = reader.readValue(parser);
         } catch (IOException e) {
             throw new SteveException("Deserialization of incoming response payload failed", e);
         }
@@ -176,7 +182,7 @@ public class Deserializer implements Consumer<CommunicationContext> {
         result.setPayload(res);
 
         context.setIncomingMessage(result);
-        context.createResultHandler(responseContext.getTask());
+        context.createResultHandler(responseContext.getSink());
     }
 
     /**
@@ -186,6 +192,9 @@ public class Deserializer implements Consumer<CommunicationContext> {
     private void handleError(CommunicationContext context, String messageId, JsonParser parser) {
         FutureResponseContext responseContext = futureResponseContextStore.get(context.getSession(), messageId);
         if (responseContext == null) {
+            if (isLateResponse(context, messageId)) {
+                return;
+            }
             throw new SteveException(
                     "An error message was received as response to a not-sent call. The message was: %s",
                     context.getIncomingString()
@@ -228,7 +237,22 @@ public class Deserializer implements Consumer<CommunicationContext> {
         error.setErrorDetails(details);
 
         context.setIncomingMessage(error);
-        context.createErrorHandler(responseContext.getTask());
+        context.createErrorHandler(responseContext.getSink());
+    }
+
+    /**
+     * The call timed out and its task was already completed with an error. Without an incoming message, the pipeline
+     * does nothing with it, and the connection stays open.
+     */
+    private boolean isLateResponse(CommunicationContext context, String messageId) {
+        if (!futureResponseContextStore.removeExpired(context.getSession(), messageId)) {
+            return false;
+        }
+
+        log.warn("[chargeBoxId={}, sessionId={}] Dropping the response with messageId '{}', since the call already "
+                + "timed out. The message was: {}", context.getChargeBoxId(), context.getSession().getId(), messageId,
+                context.getIncomingString());
+        return true;
     }
 
 }
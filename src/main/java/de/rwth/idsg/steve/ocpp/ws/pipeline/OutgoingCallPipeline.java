@@ -18,17 +18,29 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
 import de.rwth.idsg.steve.ocpp.ws.FutureResponseContextStore;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * For outgoing CALLs, triggered by the user.
  *
+ * A task that is executed for multiple stations sends the identical request to all of them. For such tasks
+ * {@link #acceptFanOut(CommunicationTask, CommunicationContext)} serializes the payload only once, and the frame of
+ * every station is built by splicing in its own messageId.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 27.03.2015
  */
@@ -37,12 +49,25 @@ import java.util.function.Consumer;
 public class OutgoingCallPipeline implements Consumer<CommunicationContext> {
 
     private final Consumer<CommunicationContext> chainedConsumers;
+    private final Consumer<CommunicationContext> fanOutConsumers;
+
+    /**
+     * Weak keys, because the entry should not outlive the task. The expiry is just a safety net for tasks that
+     * are kept around in TaskStore for a long time.
+     */
+    private final Cache<CommunicationTask, String> sharedPayloads = CacheBuilder.newBuilder()
+                                                                                .weakKeys()
+                                                                                .expireAfterAccess(10, TimeUnit.MINUTES)
+                                                                                .build();
 
     @Autowired
     public OutgoingCallPipeline(FutureResponseContextStore store) {
         chainedConsumers = OutgoingCallPipeline.start(Serializer.INSTANCE)
-                                               .andThen(Sender.INSTANCE)
-                                               .andThen(saveInStore(store));
+                                               .andThen(saveInStore(store))
+                                               .andThen(send(store));
+
+        fanOutConsumers = OutgoingCallPipeline.start(saveInStore(store))
+                                              .andThen(send(store));
     }
 
     @Override
@@ -50,12 +75,58 @@ public class OutgoingCallPipeline implements Consumer<CommunicationContext> {
         chainedConsumers.accept(ctx);
     }
 
+    /**
+     * Same as {@link #accept(CommunicationContext)}, but the serialized payload of the call is shared between all
+     * stations of the task.
+     */
+    public void acceptFanOut(CommunicationTask task, CommunicationContext ctx) {
+        OcppJsonCall call = (OcppJsonCall) ctx.getOutgoingMessage();
+        String payload = getSharedPayload(task, call);
+
+        ctx.setOutgoingString(Serializer.INSTANCE.serializeCall(call, payload));
+        fanOutConsumers.accept(ctx);
+    }
+
+    /**
+     * Same as {@link #accept(CommunicationContext)}, but for a call whose payload is already serialized, e.g. a call
+     * that is forwarded from another node.
+     */
+    public void acceptSerialized(CommunicationContext ctx, String serializedPayload) {
+        OcppJsonCall call = (OcppJsonCall) ctx.getOutgoingMessage();
+
+        ctx.setOutgoingString(Serializer.INSTANCE.serializeCall(call, serializedPayload));
+        fanOutConsumers.accept(ctx);
+    }
+
+    private String getSharedPayload(CommunicationTask task, OcppJsonCall call) {
+        try {
+            return sharedPayloads.get(task, () -> Serializer.INSTANCE.serializePayload(call.getPayload()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // Unwrap to surface the SteveException of the serializer
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * The response context is stored before the call is sent. Otherwise, a quick response could arrive before its
+     * context is stored, and the store can reject the call before anything goes out.
+     */
     private static Consumer<CommunicationContext> saveInStore(FutureResponseContextStore store) {
+        return context -> store.add(context.getSession(),
+                                    context.getOutgoingMessage().getMessageId(),
+                                    context.getFutureResponseContext());
+    }
+
+    private static Consumer<CommunicationContext> send(FutureResponseContextStore store) {
         return context -> {
-            // All went well, and the call is sent. Store the response context for later lookup.
-            store.add(context.getSession(),
-                      context.getOutgoingMessage().getMessageId(),
-                      context.getFutureResponseContext());
+            try {
+                Sender.INSTANCE.accept(context);
+            } catch (RuntimeException e) {
+                // The call did not go out. No response will arrive for it.
+                store.get(context.getSession(), context.getOutgoingMessage().getMessageId());
+                throw e;
+            }
         };
     }
 
@@ -19,6 +19,7 @@
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
 import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.ws.BudgetedWebSocketSessionDecorator;
 import de.rwth.idsg.steve.ocpp.ws.WebSocketLogger;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
@@ -45,9 +46,16 @@ public enum Sender implements Consumer<CommunicationContext> {
         String chargeBoxId = context.getChargeBoxId();
         WebSocketSession session = context.getSession();
 
+        TextMessage out = new TextMessage(outgoingString);
+
+        if (context.getOutgoingMessage() instanceof OcppJsonCall
+                && session instanceof BudgetedWebSocketSessionDecorator
+                && ((BudgetedWebSocketSessionDecorator) session).rejectsCall(out.getPayloadLength())) {
+            throw new SteveException("The outbound buffer of chargeBoxId '%s' is full", chargeBoxId);
+        }
+
         WebSocketLogger.sending(chargeBoxId, session, outgoingString);
 
-        TextMessage out = new TextMessage(outgoingString);
         try {
             session.sendMessage(out);
         } catch (IOException e) {
@@ -18,10 +18,9 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.ws.ErrorFactory;
 import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
@@ -34,12 +33,17 @@ import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
  * Outgoing OcppJsonMessage --> String.
  *
- * This class should remain stateless.
+ * The frames are written with the streaming API directly into a buffer, which is reused by all messages serialized
+ * by the same thread. No intermediate JsonNode trees are built. Apart from these buffers and the cached writers per
+ * payload class, this class should remain stateless.
  *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 17.03.2015
@@ -48,13 +52,21 @@ import java.util.function.Consumer;
 public enum Serializer implements Consumer<CommunicationContext> {
     INSTANCE;
 
+    /**
+     * Buffers that grew larger than this (e.g. because of a SendLocalList with a big list) are not kept around
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
     private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
 
+    private final Map<Class<?>, ObjectWriter> writerCache = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringWriter> buffers = ThreadLocal.withInitial(() -> new StringWriter(1024));
+
     @Override
     public void accept(CommunicationContext context) {
         OcppJsonMessage message = context.getOutgoingMessage();
 
-        ArrayNode str;
+        String str;
         MessageType messageType = message.getMessageType();
         switch (messageType) {
             case CALL:
@@ -73,11 +85,22 @@ public enum Serializer implements Consumer<CommunicationContext> {
                 throw new SteveException("Unknown enum type");
         }
 
+        context.setOutgoingString(str);
+    }
+
+    /**
+     * Builds the frame of an outgoing CALL around an already serialized payload. Used for the fan-out of the
+     * same request to many stations, where only the messageId differs from frame to frame.
+     */
+    String serializeCall(OcppJsonCall call, String serializedPayload) {
+        return writeCall(call, gen -> gen.writeRawValue(serializedPayload));
+    }
+
+    public String serializePayload(Object payload) {
         try {
-            String result = mapper.writeValueAsString(str);
-            context.setOutgoingString(result);
+            return write(gen -> writePayload(gen, payload));
         } catch (IOException e) {
-            throw new SteveException("The outgoing message could not be serialized", e);
+            throw new SteveException("The payload of the outgoing call could not be converted to JSON", e);
         }
     }
 
@@ -89,43 +112,47 @@ public enum Serializer implements Consumer<CommunicationContext> {
      * Do NOT catch and handle exceptions for outgoing CALLs. Do NOT send the message.
      * Let the processing fail and acknowledge the user.
      */
-    private ArrayNode handleCall(OcppJsonCall call) {
-        JsonNode payloadNode;
+    private String handleCall(OcppJsonCall call) {
+        return writeCall(call, gen -> writePayload(gen, call.getPayload()));
+    }
+
+    private String writeCall(OcppJsonCall call, FrameWriter payloadWriter) {
         try {
-            payloadNode = mapper.valueToTree(call.getPayload());
-        } catch (IllegalArgumentException e) {
+            return write(gen -> {
+                gen.writeStartArray();
+                gen.writeNumber(call.getMessageType().getTypeNr());
+                gen.writeString(call.getMessageId());
+                gen.writeString(call.getAction());
+                payloadWriter.write(gen);
+                gen.writeEndArray();
+            });
+        } catch (IOException e) {
             throw new SteveException("The payload of the outgoing call could not be converted to JSON", e);
         }
-
-        return mapper.createArrayNode()
-                     .add(call.getMessageType().getTypeNr())
-                     .add(call.getMessageId())
-                     .add(call.getAction())
-                     .add(payloadNode);
     }
 
     /**
      * Catch exceptions and wrap them in outgoing ERRORs for outgoing RESPONSEs.
      */
-    private ArrayNode handleResult(OcppJsonResult result) {
-        JsonNode payloadNode;
+    private String handleResult(OcppJsonResult result) {
         try {
-            payloadNode = mapper.valueToTree(result.getPayload());
-        } catch (IllegalArgumentException e) {
+            return write(gen -> {
+                gen.writeStartArray();
+                gen.writeNumber(result.getMessageType().getTypeNr());
+                gen.writeString(result.getMessageId());
+                writePayload(gen, result.getPayload());
+                gen.writeEndArray();
+            });
+        } catch (IOException e) {
             log.error("Exception occurred", e);
             return handleError(ErrorFactory.payloadSerializeError(result.getMessageId(), e.getMessage()));
         }
-
-        return mapper.createArrayNode()
-                     .add(result.getMessageType().getTypeNr())
-                     .add(result.getMessageId())
-                     .add(payloadNode);
     }
 
     /**
-     * No exception to catch during serialization, since the fields of the error are simple Strings.
+     * No exception to expect during serialization, since the fields of the error are simple Strings.
      */
-    private ArrayNode handleError(OcppJsonError error) {
+    private String handleError(OcppJsonError error) {
         // From spec:
         // ErrorDescription - Should be filled in if possible, otherwise a clear empty string "".
         String description;
@@ -135,19 +162,60 @@ public enum Serializer implements Consumer<CommunicationContext> {
             description = "";
         }
 
-        // From spec:
-        // ErrorDetails - This JSON object describes error details in an undefined way.
-        // If there are no error details you should fill in an empty object {}, missing or null is not allowed
-        ObjectNode detailsNode = mapper.createObjectNode();
-        if (error.isSetDetails()) {
-            detailsNode.set("errorMsg", mapper.getNodeFactory().textNode(error.toStringErrorDetails()));
+        try {
+            return write(gen -> {
+                gen.writeStartArray();
+                gen.writeNumber(error.getMessageType().getTypeNr());
+                gen.writeString(error.getMessageId());
+                gen.writeString(error.getErrorCode().name());
+                gen.writeString(description);
+
+                // From spec:
+                // ErrorDetails - This JSON object describes error details in an undefined way.
+                // If there are no error details you should fill in an empty object {}, missing or null is not allowed
+                gen.writeStartObject();
+                if (error.isSetDetails()) {
+                    gen.writeStringField("errorMsg", error.toStringErrorDetails());
+                }
+                gen.writeEndObject();
+
+                gen.writeEndArray();
+            });
+        } catch (IOException e) {
+            throw new SteveException("The outgoing message could not be serialized", e);
+        }
+    }
+
+    private void writePayload(JsonGenerator gen, Object payload) throws IOException {
+        if (payload == null) {
+            gen.writeNull();
+        } else {
+            writerCache.computeIfAbsent(payload.getClass(), mapper::writerFor)
+                       .writeValue(gen, payload);
+        }
+    }
+
+    /**
+     * The buffer is reset before every use. If the writing fails halfway, nothing of the partial output leaks
+     * into the next message.
+     */
+    private String write(FrameWriter frameWriter) throws IOException {
+        StringWriter buffer = buffers.get();
+        buffer.getBuffer().setLength(0);
+
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(buffer)) {
+            frameWriter.write(gen);
+        } finally {
+            if (buffer.getBuffer().capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                buffers.remove();
+            }
         }
 
-        return mapper.createArrayNode()
-                     .add(error.getMessageType().getTypeNr())
-                     .add(error.getMessageId())
-                     .add(error.getErrorCode().name())
-                     .add(description)
-                     .add(detailsNode);
+        return buffer.toString();
+    }
+
+    @FunctionalInterface
+    private interface FrameWriter {
+        void write(JsonGenerator gen) throws IOException;
     }
 }
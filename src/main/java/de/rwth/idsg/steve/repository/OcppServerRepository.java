@@ -47,5 +47,9 @@ public interface OcppServerRepository {
     void insertMeterValues(String chargeBoxIdentity, List<MeterValue> list, int transactionId);
 
     int insertTransaction(InsertTransactionParams params);
-    void updateTransaction(UpdateTransactionParams params);
+
+    /**
+     * @return false, if the stop could not be recorded (it is logged and kept as a failed insert then)
+     */
+    boolean updateTransaction(UpdateTransactionParams params);
 }
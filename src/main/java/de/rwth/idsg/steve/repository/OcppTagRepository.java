@@ -22,6 +22,7 @@ import de.rwth.idsg.steve.repository.dto.OcppTag;
 import de.rwth.idsg.steve.web.dto.OcppTagForm;
 import de.rwth.idsg.steve.web.dto.OcppTagQueryForm;
 import jooq.steve.db.tables.records.OcppTagActivityRecord;
+import jooq.steve.db.tables.records.OcppTagRecord;
 import org.jooq.Result;
 
 import java.util.List;
@@ -39,6 +40,12 @@ public interface OcppTagRepository {
     OcppTagActivityRecord getRecord(String idTag);
     OcppTagActivityRecord getRecord(int ocppTagPk);
 
+    /**
+     * Unlike {@link #getRecord(String)}, does not aggregate the transactions of all tags
+     */
+    OcppTagRecord getTagRecord(String idTag);
+    List<Integer> getActiveTransactionIds(String idTag);
+
     List<String> getIdTags();
     List<String> getActiveIdTags();
 
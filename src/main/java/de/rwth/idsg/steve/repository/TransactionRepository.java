@@ -20,10 +20,13 @@ package de.rwth.idsg.steve.repository;
 
 import de.rwth.idsg.steve.repository.dto.Transaction;
 import de.rwth.idsg.steve.repository.dto.TransactionDetails;
+import de.rwth.idsg.steve.repository.dto.TransactionEnergySummary;
 import de.rwth.idsg.steve.web.dto.TransactionQueryForm;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Writer;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -32,10 +35,23 @@ import java.util.List;
 public interface TransactionRepository {
     List<Transaction> getTransactions(TransactionQueryForm form);
 
+    /**
+     * Streams the rows from the database to the writer, i.e. the result is never held in memory as a whole.
+     */
     void writeTransactionsCSV(TransactionQueryForm form, Writer writer);
 
+    /**
+     * Streaming counterpart of {@link #getTransactions(TransactionQueryForm)}
+     */
+    void forEachTransaction(TransactionQueryForm form, Consumer<Transaction> consumer);
+
     List<Integer> getActiveTransactionIds(String chargeBoxId);
 
+    Transaction getTransaction(int transactionPk);
+
+    @Nullable
+    TransactionEnergySummary getEnergySummary(int transactionPk);
+
     TransactionDetails getDetails(int transactionPk, boolean firstArrivingMeterValueIfMultiple);
 
     default TransactionDetails getDetails(int transactionPk) {
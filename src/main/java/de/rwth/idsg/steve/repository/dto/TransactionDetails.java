@@ -44,6 +44,9 @@ public class TransactionDetails {
     @Nullable
     private final TransactionStartRecord nextTransactionStart;
 
+    @Nullable
+    private final TransactionEnergySummary energySummary;
+
     @Getter
     @Builder
     public static class MeterValues {
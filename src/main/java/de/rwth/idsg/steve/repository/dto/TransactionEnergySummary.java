@@ -0,0 +1,45 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+import org.joda.time.DateTime;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregates of the meter values that were sent with the id of a transaction. Energy values are in Wh, power values
+ * in W. The energy and power fields are null, if no such values were sent.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Getter
+@Builder
+public class TransactionEnergySummary {
+    @Nullable private final BigDecimal firstEnergyValue;
+    @Nullable private final DateTime firstEnergyTimestamp;
+    @Nullable private final BigDecimal lastEnergyValue;
+    @Nullable private final DateTime lastEnergyTimestamp;
+    @Nullable private final BigDecimal maxPowerValue;
+    private final int sampleCount;
+    @Nullable private final DateTime lastValueTimestamp;
+}
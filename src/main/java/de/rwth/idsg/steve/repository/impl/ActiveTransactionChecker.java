@@ -0,0 +1,244 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import de.rwth.idsg.steve.repository.ChangeCounterRepository.Counter;
+import de.rwth.idsg.steve.service.OcppTagAuthorizationCache;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import jooq.steve.db.tables.records.ActiveTransactionRecord;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep3;
+import org.jooq.Record3;
+import org.jooq.Result;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+import static jooq.steve.db.tables.ActiveTransaction.ACTIVE_TRANSACTION;
+import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
+import static jooq.steve.db.tables.TransactionStop.TRANSACTION_STOP;
+
+/**
+ * The table active_transaction is maintained together with transaction_start and transaction_stop in the same
+ * database transactions. It should therefore always contain exactly the transactions without a stop event. This
+ * checker verifies it (some minutes after startup and then every so many hours) and repairs the differences, e.g.
+ * after the tables were changed manually.
+ *
+ * The differences are first looked up without locks. Then, the transaction_start rows of the candidates are locked
+ * and their stop events are read again, before anything is changed. A stop inserts into transaction_stop, whose
+ * foreign key check waits for this lock. Therefore, a concurrent stop is either committed before the second read and
+ * seen there, or it runs after the repair and deletes the row of the active transaction itself.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class ActiveTransactionChecker implements MetricsSource {
+
+    // Not together with the load of the startup (e.g. all stations reconnecting)
+    private static final long INITIAL_DELAY_MINUTES = 10;
+
+    // To keep the statements and the number of locks at a reasonable size
+    private static final int MAX_TRANSACTIONS_PER_REPAIR = 500;
+
+    private final DSLContext ctx;
+    private final OcppTagAuthorizationCache authorizationCache;
+    private final int checkHours;
+
+    private final AtomicLong checkCount = new AtomicLong();
+    private final AtomicLong insertedCount = new AtomicLong();
+    private final AtomicLong deletedCount = new AtomicLong();
+    private volatile DateTime lastCheck;
+
+    @Autowired
+    public ActiveTransactionChecker(DSLContext ctx, OcppTagAuthorizationCache authorizationCache,
+                                    ScheduledExecutorService executor) {
+        this(ctx, authorizationCache, executor, CONFIG.getOcpp().getActiveTransactionCheckHours());
+    }
+
+    /**
+     * The executor is not used, if the check interval is 0
+     */
+    public ActiveTransactionChecker(DSLContext ctx, OcppTagAuthorizationCache authorizationCache,
+                                    ScheduledExecutorService executor, int checkHours) {
+        this.ctx = ctx;
+        this.authorizationCache = authorizationCache;
+        this.checkHours = checkHours;
+
+        if (checkHours > 0) {
+            executor.scheduleWithFixedDelay(this::checkQuietly, INITIAL_DELAY_MINUTES,
+                                            TimeUnit.HOURS.toMinutes(checkHours), TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * @return the number of rows that had to be inserted or deleted
+     */
+    public int check() {
+        Set<Integer> stopped = ctx.select(ACTIVE_TRANSACTION.TRANSACTION_PK)
+                                  .from(ACTIVE_TRANSACTION)
+                                  .whereExists(DSL.selectOne()
+                                                  .from(TRANSACTION_STOP)
+                                                  .where(TRANSACTION_STOP.TRANSACTION_PK
+                                                          .eq(ACTIVE_TRANSACTION.TRANSACTION_PK)))
+                                  .fetchSet(ACTIVE_TRANSACTION.TRANSACTION_PK);
+
+        Set<Integer> missing = ctx.select(TRANSACTION_START.TRANSACTION_PK)
+                                  .from(TRANSACTION_START)
+                                  .whereNotExists(DSL.selectOne()
+                                                     .from(TRANSACTION_STOP)
+                                                     .where(TRANSACTION_STOP.TRANSACTION_PK
+                                                             .eq(TRANSACTION_START.TRANSACTION_PK)))
+                                  .andNotExists(DSL.selectOne()
+                                                   .from(ACTIVE_TRANSACTION)
+                                                   .where(ACTIVE_TRANSACTION.TRANSACTION_PK
+                                                           .eq(TRANSACTION_START.TRANSACTION_PK)))
+                                  .fetchSet(TRANSACTION_START.TRANSACTION_PK);
+
+        int inserted = 0;
+        int deleted = 0;
+        Set<String> idTags = new HashSet<>();
+
+        for (List<Integer> chunk : Iterables.partition(Sets.union(stopped, missing), MAX_TRANSACTIONS_PER_REPAIR)) {
+            int[] counts = ctx.transactionResult(configuration -> repair(DSL.using(configuration), chunk, idTags));
+            inserted += counts[0];
+            deleted += counts[1];
+        }
+
+        checkCount.incrementAndGet();
+        insertedCount.addAndGet(inserted);
+        deletedCount.addAndGet(deleted);
+        lastCheck = DateTime.now();
+
+        if (inserted > 0 || deleted > 0) {
+            log.warn("The table active_transaction was out of sync: {} missing transactions inserted, {} stopped "
+                    + "transactions deleted", inserted, deleted);
+
+            ChangeCounterRepositoryImpl.increment(ctx, Counter.TRANSACTION);
+            authorizationCache.invalidate(idTags);
+        }
+        return inserted + deleted;
+    }
+
+    /**
+     * @return the number of inserted and deleted rows. The idTags of the changed transactions are added to the set.
+     */
+    private static int[] repair(DSLContext ctx, List<Integer> transactionPks, Set<String> idTags) {
+        Result<Record3<Integer, Integer, String>> starts =
+                ctx.select(TRANSACTION_START.TRANSACTION_PK, TRANSACTION_START.CONNECTOR_PK, TRANSACTION_START.ID_TAG)
+                   .from(TRANSACTION_START)
+                   .where(TRANSACTION_START.TRANSACTION_PK.in(transactionPks))
+                   .forUpdate()
+                   .fetch();
+
+        // A locking read sees the latest committed rows, not the snapshot of the transaction
+        Set<Integer> stopped = ctx.selectDistinct(TRANSACTION_STOP.TRANSACTION_PK)
+                                  .from(TRANSACTION_STOP)
+                                  .where(TRANSACTION_STOP.TRANSACTION_PK.in(transactionPks))
+                                  .forUpdate()
+                                  .fetchSet(TRANSACTION_STOP.TRANSACTION_PK);
+
+        List<Record3<Integer, Integer, String>> active = new ArrayList<>();
+        for (Record3<Integer, Integer, String> start : starts) {
+            if (!stopped.contains(start.value1())) {
+                active.add(start);
+            }
+        }
+
+        int deleted = stopped.isEmpty() ? 0 : ctx.delete(ACTIVE_TRANSACTION)
+                                                 .where(ACTIVE_TRANSACTION.TRANSACTION_PK.in(stopped))
+                                                 .execute();
+
+        int inserted = 0;
+        if (!active.isEmpty()) {
+            InsertValuesStep3<ActiveTransactionRecord, Integer, Integer, String> insert =
+                    ctx.insertInto(ACTIVE_TRANSACTION,
+                                   ACTIVE_TRANSACTION.TRANSACTION_PK,
+                                   ACTIVE_TRANSACTION.CONNECTOR_PK,
+                                   ACTIVE_TRANSACTION.ID_TAG);
+            for (Record3<Integer, Integer, String> start : active) {
+                insert = insert.values(start.value1(), start.value2(), start.value3());
+            }
+            inserted = insert.onDuplicateKeyIgnore().execute();
+        }
+
+        if (deleted > 0 || inserted > 0) {
+            starts.forEach(start -> idTags.add(start.value3()));
+        }
+        return new int[] {inserted, deleted};
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "activeTransactionChecker";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        return Stats.builder()
+                    .checkHours(checkHours)
+                    .checks(checkCount.get())
+                    .inserted(insertedCount.get())
+                    .deleted(deletedCount.get())
+                    .lastCheck(lastCheck)
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final int checkHours;
+        private final long checks;
+        private final long inserted;
+        private final long deleted;
+        private final DateTime lastCheck;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void checkQuietly() {
+        try {
+            check();
+        } catch (Exception e) {
+            log.error("Failed to check the table active_transaction", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.repository.ChangeCounterRepository;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static jooq.steve.db.tables.ChangeCounter.CHANGE_COUNTER;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Repository
+public class ChangeCounterRepositoryImpl implements ChangeCounterRepository {
+
+    private final ReadReplicaRouter readReplicaRouter;
+
+    @Autowired
+    public ChangeCounterRepositoryImpl(ReadReplicaRouter readReplicaRouter) {
+        this.readReplicaRouter = readReplicaRouter;
+    }
+
+    /**
+     * Replica-safe. Reading the versions from the same place as the data (and before it) makes sure that an ETag never
+     * claims newer data than the response contains. Therefore, the callers pin the read context for both reads (see
+     * {@link ReadReplicaRouter#withPinnedReadContext}).
+     */
+    @Override
+    public Map<Counter, Long> getVersions() {
+        DSLContext ctx = readReplicaRouter.getReadContext();
+        Map<String, Long> versions = ctx.select(CHANGE_COUNTER.TABLE_NAME, CHANGE_COUNTER.VERSION)
+                                        .from(CHANGE_COUNTER)
+                                        .fetchMap(CHANGE_COUNTER.TABLE_NAME, CHANGE_COUNTER.VERSION);
+
+        Map<Counter, Long> result = new EnumMap<>(Counter.class);
+        for (Counter counter : Counter.values()) {
+            result.put(counter, versions.getOrDefault(counter.getTableName(), 0L));
+        }
+        return result;
+    }
+
+    /**
+     * To be called after the (database) transaction that makes the change is committed, not within it. Otherwise,
+     * the row would stay locked until its end, and all writers of a table (e.g. every StartTransaction and
+     * StopTransaction) would be serialized on it. Now, the row is locked only for this single statement.
+     *
+     * Since the version is bumped after the data is visible, a reader might get the new data with the old version for
+     * a moment. The client just asks once more. The opposite, an old response with a new version, would be cached by
+     * the client for good. If the process dies between the commit and the increment, the change is only reflected
+     * with the next one.
+     */
+    static void increment(DSLContext ctx, Counter... counters) {
+        for (Counter counter : counters) {
+            ctx.update(CHANGE_COUNTER)
+               .set(CHANGE_COUNTER.VERSION, CHANGE_COUNTER.VERSION.plus(1))
+               .where(CHANGE_COUNTER.TABLE_NAME.eq(counter.getTableName()))
+               .execute();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.collect.Iterables;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.jooq.CaseValueStep;
+import org.jooq.CaseWhenStep;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
+
+/**
+ * Heartbeats and WebSocket pongs are the most frequent writes. Instead of updating the row of the station every time,
+ * we keep the latest timestamp per station in memory and write the pending ones periodically with a single statement.
+ *
+ * Reads that display the timestamp should go through {@link #getLatest(String, DateTime)}, so that they are not behind
+ * by up to one flush interval.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class ChargeBoxHeartbeatStore implements MetricsSource {
+
+    // To keep the statements at a reasonable size
+    private static final int MAX_STATIONS_PER_STATEMENT = 500;
+
+    private final DSLContext ctx;
+    private final int flushSeconds;
+
+    /**
+     * Key   (String)   = chargeBoxId
+     * Value (DateTime) = latest heartbeat timestamp, that is not written to the database yet
+     */
+    private final Map<String, DateTime> pending = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+    private final ScheduledFuture<?> flushSchedule;
+
+    private final AtomicLong updateCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong statementCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private volatile long lastFlushDurationMillis;
+
+    @Autowired
+    public ChargeBoxHeartbeatStore(DSLContext ctx, ScheduledExecutorService executor) {
+        this(ctx, executor, CONFIG.getOcpp().getHeartbeatFlushSeconds());
+    }
+
+    /**
+     * The executor is not used, if the flush interval is 0
+     */
+    public ChargeBoxHeartbeatStore(DSLContext ctx, ScheduledExecutorService executor, int flushSeconds) {
+        this.ctx = ctx;
+        this.flushSeconds = flushSeconds;
+
+        if (flushSeconds > 0) {
+            flushSchedule = executor.scheduleWithFixedDelay(this::flushQuietly, flushSeconds, flushSeconds,
+                                                            TimeUnit.SECONDS);
+        } else {
+            flushSchedule = null;
+        }
+    }
+
+    public void update(String chargeBoxId, DateTime timestamp) {
+        updateCount.incrementAndGet();
+
+        if (flushSchedule == null) {
+            write(Map.of(chargeBoxId, timestamp));
+        } else {
+            pending.merge(chargeBoxId, timestamp, ChargeBoxHeartbeatStore::latest);
+        }
+    }
+
+    /**
+     * @return the later one of the pending timestamp of the station and the given one read from the database
+     */
+    public DateTime getLatest(String chargeBoxId, DateTime fromDatabase) {
+        DateTime fromMemory = pending.get(chargeBoxId);
+        if (fromMemory == null) {
+            return fromDatabase;
+        } else if (fromDatabase == null) {
+            return fromMemory;
+        } else {
+            return latest(fromDatabase, fromMemory);
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            Map<String, DateTime> batch = new HashMap<>(pending);
+
+            write(batch);
+
+            // An entry that was updated in the meantime stays pending for the next flush
+            batch.forEach(pending::remove);
+            lastFlushDurationMillis = System.currentTimeMillis() - start;
+        }
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (flushSchedule != null) {
+            flushSchedule.cancel(false);
+        }
+        flush();
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "heartbeatWriteBehind";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        return Stats.builder()
+                    .flushSeconds(flushSeconds)
+                    .pending(pending.size())
+                    .updates(updateCount.get())
+                    .written(writtenCount.get())
+                    .statements(statementCount.get())
+                    .failedFlushes(failedFlushCount.get())
+                    .lastFlushDurationMillis(lastFlushDurationMillis)
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final int flushSeconds;
+        private final int pending;
+        private final long updates;
+        private final long written;
+        private final long statements;
+        private final long failedFlushes;
+        private final long lastFlushDurationMillis;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // The entries are still pending. Retry with the next flush.
+            failedFlushCount.incrementAndGet();
+            log.error("Failed to write the heartbeat timestamps of {} stations", pending.size(), e);
+        }
+    }
+
+    /**
+     * UPDATE charge_box
+     * SET last_heartbeat_timestamp = CASE charge_box_id WHEN 'a' THEN ts1 WHEN 'b' THEN ts2 ... END
+     * WHERE charge_box_id IN ('a', 'b', ...)
+     */
+    private void write(Map<String, DateTime> timestamps) {
+        List<Map.Entry<String, DateTime>> entries = new ArrayList<>(timestamps.entrySet());
+
+        for (List<Map.Entry<String, DateTime>> chunk : Iterables.partition(entries, MAX_STATIONS_PER_STATEMENT)) {
+            CaseValueStep<String> choose = DSL.choose(CHARGE_BOX.CHARGE_BOX_ID);
+            CaseWhenStep<String, DateTime> cases = null;
+            List<String> chargeBoxIds = new ArrayList<>(chunk.size());
+
+            for (Map.Entry<String, DateTime> entry : chunk) {
+                var when = DSL.val(entry.getKey());
+                var then = DSL.val(entry.getValue(), CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP);
+                cases = (cases == null) ? choose.when(when, then) : cases.when(when, then);
+                chargeBoxIds.add(entry.getKey());
+            }
+
+            ctx.update(CHARGE_BOX)
+               .set(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP, cases.otherwise(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP))
+               .where(CHARGE_BOX.CHARGE_BOX_ID.in(chargeBoxIds))
+               .execute();
+
+            statementCount.incrementAndGet();
+            writtenCount.addAndGet(chunk.size());
+        }
+    }
+
+    private static DateTime latest(DateTime a, DateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
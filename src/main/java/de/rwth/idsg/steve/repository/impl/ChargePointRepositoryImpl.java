@@ -21,6 +21,7 @@ package de.rwth.idsg.steve.repository.impl;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.repository.AddressRepository;
+import de.rwth.idsg.steve.repository.ChangeCounterRepository.Counter;
 import de.rwth.idsg.steve.repository.ChargePointRepository;
 import de.rwth.idsg.steve.repository.dto.ChargePoint;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
@@ -36,13 +37,11 @@ import ocpp.cs._2015._10.RegistrationStatus;
 import org.joda.time.DateTime;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Field;
 import org.jooq.Record1;
 import org.jooq.Record5;
 import org.jooq.Result;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectQuery;
-import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -58,7 +57,7 @@ import static de.rwth.idsg.steve.utils.CustomDSL.date;
 import static de.rwth.idsg.steve.utils.CustomDSL.includes;
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
 import static jooq.steve.db.tables.Connector.CONNECTOR;
-import static jooq.steve.db.tables.ConnectorStatus.CONNECTOR_STATUS;
+import static jooq.steve.db.tables.ConnectorStatusLatest.CONNECTOR_STATUS_LATEST;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -70,11 +69,19 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
 
     private final DSLContext ctx;
     private final AddressRepository addressRepository;
+    private final ChargeBoxHeartbeatStore heartbeatStore;
+    private final ConnectorPkCache connectorPkCache;
+    private final ReadReplicaRouter readReplicaRouter;
 
     @Autowired
-    public ChargePointRepositoryImpl(DSLContext ctx, AddressRepository addressRepository) {
+    public ChargePointRepositoryImpl(DSLContext ctx, AddressRepository addressRepository,
+                                     ChargeBoxHeartbeatStore heartbeatStore, ConnectorPkCache connectorPkCache,
+                                     ReadReplicaRouter readReplicaRouter) {
         this.ctx = ctx;
         this.addressRepository = addressRepository;
+        this.heartbeatStore = heartbeatStore;
+        this.connectorPkCache = connectorPkCache;
+        this.readReplicaRouter = readReplicaRouter;
     }
 
     @Override
@@ -118,22 +125,28 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
                   .fetchMap(CHARGE_BOX.CHARGE_BOX_ID, CHARGE_BOX.CHARGE_BOX_PK);
     }
 
+    /**
+     * Replica-safe
+     */
     @Override
     public List<ChargePoint.Overview> getOverview(ChargePointQueryForm form) {
-        return getOverviewInternal(form)
-                .map(r -> ChargePoint.Overview.builder()
-                                              .chargeBoxPk(r.value1())
-                                              .chargeBoxId(r.value2())
-                                              .description(r.value3())
-                                              .ocppProtocol(r.value4())
-                                              .lastHeartbeatTimestampDT(r.value5())
-                                              .lastHeartbeatTimestamp(DateTimeUtils.humanize(r.value5()))
-                                              .build()
-                );
+        return getOverviewInternal(readReplicaRouter.getReadContext(), form)
+                .map(r -> {
+                    DateTime lastHeartbeat = heartbeatStore.getLatest(r.value2(), r.value5());
+                    return ChargePoint.Overview.builder()
+                                               .chargeBoxPk(r.value1())
+                                               .chargeBoxId(r.value2())
+                                               .description(r.value3())
+                                               .ocppProtocol(r.value4())
+                                               .lastHeartbeatTimestampDT(lastHeartbeat)
+                                               .lastHeartbeatTimestamp(DateTimeUtils.humanize(lastHeartbeat))
+                                               .build();
+                });
     }
 
     @SuppressWarnings("unchecked")
-    private Result<Record5<Integer, String, String, String, DateTime>> getOverviewInternal(ChargePointQueryForm form) {
+    private Result<Record5<Integer, String, String, String, DateTime>> getOverviewInternal(DSLContext ctx,
+                                                                                          ChargePointQueryForm form) {
         SelectQuery selectQuery = ctx.selectQuery();
         selectQuery.addFrom(CHARGE_BOX);
         selectQuery.addSelect(
@@ -200,6 +213,8 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
             throw new SteveException("Charge point not found");
         }
 
+        cbr.setLastHeartbeatTimestamp(heartbeatStore.getLatest(cbr.getChargeBoxId(), cbr.getLastHeartbeatTimestamp()));
+
         AddressRecord ar = addressRepository.get(ctx, cbr.getAddressPk());
 
         return new ChargePoint.Details(cbr, ar);
@@ -207,26 +222,6 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
 
     @Override
     public List<ConnectorStatus> getChargePointConnectorStatus(ConnectorStatusForm form) {
-        // find out the latest timestamp for each connector
-        Field<Integer> t1Pk = CONNECTOR_STATUS.CONNECTOR_PK.as("t1_pk");
-        Field<DateTime> t1TsMax = DSL.max(CONNECTOR_STATUS.STATUS_TIMESTAMP).as("t1_ts_max");
-        Table<?> t1 = ctx.select(t1Pk, t1TsMax)
-                         .from(CONNECTOR_STATUS)
-                         .groupBy(CONNECTOR_STATUS.CONNECTOR_PK)
-                         .asTable("t1");
-
-        // get the status table with latest timestamps only
-        Field<Integer> t2Pk = CONNECTOR_STATUS.CONNECTOR_PK.as("t2_pk");
-        Field<DateTime> t2Ts = CONNECTOR_STATUS.STATUS_TIMESTAMP.as("t2_ts");
-        Field<String> t2Status = CONNECTOR_STATUS.STATUS.as("t2_status");
-        Field<String> t2Error = CONNECTOR_STATUS.ERROR_CODE.as("t2_error");
-        Table<?> t2 = ctx.selectDistinct(t2Pk, t2Ts, t2Status, t2Error)
-                         .from(CONNECTOR_STATUS)
-                         .join(t1)
-                            .on(CONNECTOR_STATUS.CONNECTOR_PK.equal(t1.field(t1Pk)))
-                            .and(CONNECTOR_STATUS.STATUS_TIMESTAMP.equal(t1.field(t1TsMax)))
-                         .asTable("t2");
-
         // https://github.com/steve-community/steve/issues/691
         Condition chargeBoxCondition = CHARGE_BOX.REGISTRATION_STATUS.eq(RegistrationStatus.ACCEPTED.value());
 
@@ -238,24 +233,25 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
         if (form == null || form.getStatus() == null) {
             statusCondition = DSL.noCondition();
         } else {
-            statusCondition = t2.field(t2Status).eq(form.getStatus());
+            statusCondition = CONNECTOR_STATUS_LATEST.STATUS.eq(form.getStatus());
         }
 
+        // the latest status of each connector is maintained on write
         return ctx.select(
                         CHARGE_BOX.CHARGE_BOX_PK,
                         CONNECTOR.CHARGE_BOX_ID,
                         CONNECTOR.CONNECTOR_ID,
-                        t2.field(t2Ts),
-                        t2.field(t2Status),
-                        t2.field(t2Error),
+                        CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP,
+                        CONNECTOR_STATUS_LATEST.STATUS,
+                        CONNECTOR_STATUS_LATEST.ERROR_CODE,
                         CHARGE_BOX.OCPP_PROTOCOL)
-                  .from(t2)
+                  .from(CONNECTOR_STATUS_LATEST)
                   .join(CONNECTOR)
-                        .on(CONNECTOR.CONNECTOR_PK.eq(t2.field(t2Pk)))
+                        .on(CONNECTOR.CONNECTOR_PK.eq(CONNECTOR_STATUS_LATEST.CONNECTOR_PK))
                   .join(CHARGE_BOX)
                         .on(CHARGE_BOX.CHARGE_BOX_ID.eq(CONNECTOR.CHARGE_BOX_ID))
                   .where(chargeBoxCondition, statusCondition)
-                  .orderBy(t2.field(t2Ts).desc())
+                  .orderBy(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.desc())
                   .fetch()
                   .map(r -> ConnectorStatus.builder()
                                            .chargeBoxPk(r.value1())
@@ -322,16 +318,30 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
 
     @Override
     public void deleteChargePoint(int chargeBoxPk) {
-        ctx.transaction(configuration -> {
+        String chargeBoxId = ctx.transactionResult(configuration -> {
             DSLContext ctx = DSL.using(configuration);
             try {
+                String id = ctx.select(CHARGE_BOX.CHARGE_BOX_ID)
+                               .from(CHARGE_BOX)
+                               .where(CHARGE_BOX.CHARGE_BOX_PK.equal(chargeBoxPk))
+                               .fetchOne(CHARGE_BOX.CHARGE_BOX_ID);
+
                 addressRepository.delete(ctx, selectAddressId(chargeBoxPk));
                 deleteChargePointInternal(ctx, chargeBoxPk);
+                return id;
 
             } catch (DataAccessException e) {
                 throw new SteveException("Failed to delete the charge point", e);
             }
         });
+
+        // The transactions of its connectors are deleted as well (on delete cascade)
+        ChangeCounterRepositoryImpl.increment(ctx, Counter.TRANSACTION);
+
+        // The connectors are deleted as well (on delete cascade)
+        if (chargeBoxId != null) {
+            connectorPkCache.invalidate(chargeBoxId);
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -0,0 +1,222 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.exception.DataAccessException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static jooq.steve.db.tables.Connector.CONNECTOR;
+
+/**
+ * (chargeBoxId, connectorId) --> connectorPk
+ *
+ * The mapping of a connector never changes once it is inserted, until the charge point (and with it, its connectors)
+ * is deleted. Therefore, the OCPP write path can skip the INSERT IGNORE and the lookup for known connectors.
+ *
+ * Only connectors that are found in the database are cached, never the ones that we just inserted ourselves: If the
+ * surrounding transaction is rolled back, the cache would point to a row that does not exist.
+ *
+ * In a cluster, another node might delete a charge point and add it again. Its connectors get new primary keys, and
+ * the ones cached here become stale. We do not learn about this, until a write with a stale connectorPk violates the
+ * foreign key. Then, the charge point is invalidated and the write is retried once (see
+ * {@link #withConnectorPk(DSLContext, String, int, IntFunction)}).
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class ConnectorPkCache implements MetricsSource {
+
+    private final DSLContext ctx;
+
+    /**
+     * Key   (String)                = chargeBoxId
+     * Value (Map<Integer, Integer>) = connectorId --> connectorPk
+     */
+    private final Map<String, Map<Integer, Integer>> lookupTable = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    @Autowired
+    public ConnectorPkCache(DSLContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        ctx.select(CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID, CONNECTOR.CONNECTOR_PK)
+           .from(CONNECTOR)
+           .fetch()
+           .forEach(r -> put(r.value1(), r.value2(), r.value3()));
+
+        log.info("Loaded {} connectors into the cache", getSize());
+    }
+
+    /**
+     * Runs the write, which references the connector, with its connectorPk. Inserts the connector, if it is new to us.
+     *
+     * If the write violates an integrity constraint and the connectorPk was taken from the cache, the connectorPk is
+     * looked up in the database again and the write is retried once.
+     */
+    public <T> T withConnectorPk(DSLContext ctx, String chargeBoxId, int connectorId, IntFunction<T> write) {
+        Integer cachedPk = getIfPresent(chargeBoxId, connectorId);
+        if (cachedPk == null) {
+            return write.apply(getConnectorPk(ctx, chargeBoxId, connectorId));
+        }
+
+        try {
+            return write.apply(cachedPk);
+        } catch (DataAccessException e) {
+            if (!isIntegrityViolation(e)) {
+                throw e;
+            }
+            log.warn("The write with the cached connectorPk {} of the connector {}/{} failed. It might have been "
+                    + "deleted and added again by another node. Retrying with the connectorPk from the database.",
+                    cachedPk, chargeBoxId, connectorId, e);
+            invalidate(chargeBoxId);
+            return write.apply(getConnectorPk(ctx, chargeBoxId, connectorId));
+        }
+    }
+
+    /**
+     * Counts as a hit or miss. On a miss, the caller is expected to look it up and {@link #put(String, int, int)} it.
+     */
+    public Integer getIfPresent(String chargeBoxId, int connectorId) {
+        Map<Integer, Integer> connectors = lookupTable.get(chargeBoxId);
+        Integer connectorPk = connectors == null ? null : connectors.get(connectorId);
+
+        if (connectorPk == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return connectorPk;
+    }
+
+    /**
+     * Only for connectors that were read from the database, i.e. that are committed
+     */
+    public void put(String chargeBoxId, int connectorId, int connectorPk) {
+        lookupTable.computeIfAbsent(chargeBoxId, id -> new ConcurrentHashMap<>())
+                   .put(connectorId, connectorPk);
+    }
+
+    public void invalidate(String chargeBoxId) {
+        lookupTable.remove(chargeBoxId);
+        invalidationCount.incrementAndGet();
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "connectorPkCache";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        return Stats.builder()
+                    .chargeBoxes(lookupTable.size())
+                    .connectors(getSize())
+                    .hits(hitCount.get())
+                    .misses(missCount.get())
+                    .invalidations(invalidationCount.get())
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final int chargeBoxes;
+        private final int connectors;
+        private final long hits;
+        private final long misses;
+        private final long invalidations;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    static boolean isIntegrityViolation(Exception e) {
+        return e instanceof DataAccessException && e.getCause() instanceof SQLIntegrityConstraintViolationException;
+    }
+
+    private int getSize() {
+        return lookupTable.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Inserts the connector, if it is new to us.
+     */
+    private int getConnectorPk(DSLContext ctx, String chargeBoxId, int connectorId) {
+        Integer connectorPk = select(ctx, chargeBoxId, connectorId);
+        if (connectorPk != null) {
+            put(chargeBoxId, connectorId, connectorPk);
+            return connectorPk;
+        }
+
+        insertIgnore(ctx, chargeBoxId, connectorId);
+        return select(ctx, chargeBoxId, connectorId);
+    }
+
+    private static Integer select(DSLContext ctx, String chargeBoxId, int connectorId) {
+        Record1<Integer> r = ctx.select(CONNECTOR.CONNECTOR_PK)
+                                .from(CONNECTOR)
+                                .where(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxId))
+                                .and(CONNECTOR.CONNECTOR_ID.equal(connectorId))
+                                .fetchOne();
+
+        return r == null ? null : r.value1();
+    }
+
+    /**
+     * If the connector information was not received before, insert it. Otherwise, ignore.
+     */
+    private static void insertIgnore(DSLContext ctx, String chargeBoxId, int connectorId) {
+        int count = ctx.insertInto(CONNECTOR,
+                            CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID)
+                       .values(chargeBoxId, connectorId)
+                       .onDuplicateKeyIgnore() // Important detail
+                       .execute();
+
+        if (count == 1) {
+            log.info("The connector {}/{} is NEW, and inserted into DB.", chargeBoxId, connectorId);
+        }
+    }
+}
@@ -34,7 +34,7 @@ import org.springframework.stereotype.Repository;
 
 import static de.rwth.idsg.steve.utils.CustomDSL.date;
 import static jooq.steve.db.Tables.RESERVATION;
-import static jooq.steve.db.Tables.TRANSACTION;
+import static jooq.steve.db.tables.ActiveTransaction.ACTIVE_TRANSACTION;
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.SchemaVersion.SCHEMA_VERSION;
@@ -51,9 +51,14 @@ import static org.jooq.impl.DSL.select;
 public class GenericRepositoryImpl implements GenericRepository {
 
     @Autowired private DSLContext ctx;
+    @Autowired private ReadReplicaRouter readReplicaRouter;
 
+    /**
+     * Replica-safe
+     */
     @Override
     public Statistics getStats() {
+        DSLContext ctx = readReplicaRouter.getReadContext();
         DateTime now = DateTime.now();
         DateTime yesterdaysNow = now.minusDays(1);
 
@@ -81,8 +86,7 @@ public class GenericRepositoryImpl implements GenericRepository {
 
         Field<Integer> numTransactions =
                 ctx.selectCount()
-                   .from(TRANSACTION)
-                   .where(TRANSACTION.STOP_TIMESTAMP.isNull())
+                   .from(ACTIVE_TRANSACTION)
                    .asField("num_transactions");
 
         Field<Integer> heartbeatsToday =
@@ -0,0 +1,522 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.collect.Lists;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
+import jooq.steve.db.tables.records.ConnectorRecord;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ocpp.cs._2015._10.MeterValue;
+import org.jooq.DSLContext;
+import org.jooq.InsertSetMoreStep;
+import org.jooq.InsertSetStep;
+import org.jooq.InsertValuesStep2;
+import org.jooq.Record2;
+import org.jooq.Row2;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+import static jooq.steve.db.tables.Connector.CONNECTOR;
+import static jooq.steve.db.tables.ConnectorMeterValue.CONNECTOR_METER_VALUE;
+import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
+
+/**
+ * Writes the sampled values of MeterValues (and of the transaction data of StopTransaction) to the database.
+ *
+ * Instead of one transaction per message, a single writer thread collects the messages of all stations and writes
+ * them in groups: one transaction with a multi-row INSERT per group. A group is written when the next message would
+ * take it over {@link #maxGroupSize} sampled values (the message then starts the next group) or when its first
+ * message waited for {@link #maxDelayNanos}, whichever comes first. A single message with more values is inserted
+ * in chunks of that size, so that no INSERT exceeds the placeholder limit of MySQL. If a group fails, its messages
+ * are written one by one, so that one bad message does not take the others down with it. The energy summaries of
+ * the affected transactions are updated in the same database transaction.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class MeterValueIngestQueue implements MetricsSource {
+
+    public enum Mode {
+        // Every message is written in its own transaction by the calling thread. No queue.
+        DIRECT,
+        // The caller waits until the group with its message is committed
+        COMMIT,
+        // The caller returns as soon as its message is queued. Queued messages are lost if the process crashes.
+        ENQUEUE
+    }
+
+    private final DSLContext ctx;
+    private final ConnectorPkCache connectorPkCache;
+    private final Mode mode;
+    private final int maxGroupSize;
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<Entry> queue;
+    private final Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong messageCount = new AtomicLong();
+    private final AtomicLong groupCount = new AtomicLong();
+    private final AtomicLong rowCount = new AtomicLong();
+    private final AtomicLong splitGroupCount = new AtomicLong();
+    private final AtomicLong failedMessageCount = new AtomicLong();
+    private volatile int lastGroupMessages;
+    private volatile long lastGroupDurationMillis;
+
+    @Autowired
+    public MeterValueIngestQueue(DSLContext ctx, ConnectorPkCache connectorPkCache) {
+        this(ctx,
+             connectorPkCache,
+             CONFIG.getOcpp().getMeterValueIngestMode(),
+             CONFIG.getOcpp().getMeterValueIngestGroupSize(),
+             CONFIG.getOcpp().getMeterValueIngestMaxDelayMillis(),
+             CONFIG.getOcpp().getMeterValueIngestQueueCapacity());
+    }
+
+    public MeterValueIngestQueue(DSLContext ctx, ConnectorPkCache connectorPkCache,
+                                 Mode mode, int maxGroupSize, int maxDelayMillis, int queueCapacity) {
+        this.ctx = ctx;
+        this.connectorPkCache = connectorPkCache;
+        this.mode = mode;
+        this.maxGroupSize = maxGroupSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+
+        if (mode == Mode.DIRECT) {
+            queue = null;
+            writer = null;
+            running = false;
+        } else {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            running = true;
+            writer = new Thread(this::runWriter, "SteVe-MeterValues");
+            writer.start();
+            log.info("Meter values will be written in groups of up to {} values (mode: {})", maxGroupSize, mode);
+        }
+    }
+
+    public void insert(String chargeBoxId, List<MeterValue> list, int connectorId, Integer transactionId) {
+        submit(new Entry(chargeBoxId, connectorId, transactionId, list));
+    }
+
+    public void insert(String chargeBoxId, List<MeterValue> list, int transactionId) {
+        submit(new Entry(chargeBoxId, null, transactionId, list));
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            log.error("Termination interrupted", e);
+            Thread.currentThread().interrupt();
+        }
+
+        if (!queue.isEmpty()) {
+            log.warn("{} queued MeterValues messages could not be written before shutdown", queue.size());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "meterValueIngest";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        long groups = groupCount.get();
+        return Stats.builder()
+                    .mode(mode)
+                    .maxGroupSize(maxGroupSize)
+                    .queued(queue == null ? 0 : queue.size())
+                    .messages(messageCount.get())
+                    .groups(groups)
+                    .rows(rowCount.get())
+                    .avgMessagesPerGroup(groups == 0 ? 0 : messageCount.get() / groups)
+                    .splitGroups(splitGroupCount.get())
+                    .failedMessages(failedMessageCount.get())
+                    .lastGroupMessages(lastGroupMessages)
+                    .lastGroupDurationMillis(lastGroupDurationMillis)
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final Mode mode;
+        private final int maxGroupSize;
+        private final int queued;
+        private final long messages;
+        private final long groups;
+        private final long rows;
+        private final long avgMessagesPerGroup;
+        private final long splitGroups;
+        private final long failedMessages;
+        private final int lastGroupMessages;
+        private final long lastGroupDurationMillis;
+    }
+
+    // -------------------------------------------------------------------------
+    // Queueing
+    // -------------------------------------------------------------------------
+
+    private void submit(Entry entry) {
+        if (!running) {
+            write(Collections.singletonList(entry));
+            return;
+        }
+
+        try {
+            // Blocks if the queue is full. Slows down the stations instead of piling up messages in memory.
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write(Collections.singletonList(entry));
+            return;
+        }
+
+        // The writer might have stopped between our check and put. Then, nobody else will take it from the queue.
+        if (!running && queue.remove(entry)) {
+            write(Collections.singletonList(entry));
+            return;
+        }
+
+        if (mode == Mode.COMMIT) {
+            entry.done.join();
+        }
+    }
+
+    private void runWriter() {
+        List<Entry> group = new ArrayList<>();
+        // Taken from the queue, but did not fit into the last group anymore
+        Entry carried = null;
+
+        while (running || !queue.isEmpty() || carried != null) {
+            try {
+                Entry first = (carried != null) ? carried : queue.poll(100, TimeUnit.MILLISECONDS);
+                carried = null;
+                if (first == null) {
+                    continue;
+                }
+
+                group.add(first);
+                int size = first.size();
+                long deadline = System.nanoTime() + maxDelayNanos;
+
+                while (size < maxGroupSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Entry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (size + next.size() > maxGroupSize) {
+                        carried = next;
+                        break;
+                    }
+                    group.add(next);
+                    size += next.size();
+                }
+
+                write(group);
+
+            } catch (InterruptedException e) {
+                // From now on, the callers write themselves. Do not lose what is already queued.
+                running = false;
+                if (carried != null) {
+                    group.add(carried);
+                }
+                queue.drainTo(group);
+                write(group);
+                Thread.currentThread().interrupt();
+                return;
+
+            } catch (Throwable t) {
+                // Also errors: If the writer stopped, the callers would wait for their entries forever
+                log.error("Exception occurred", t);
+
+            } finally {
+                // The ones that are not completed yet were not written, because of an unexpected error
+                group.forEach(entry -> entry.done.complete(null));
+                group.clear();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Writing
+    // -------------------------------------------------------------------------
+
+    /**
+     * Completes the entries in any case. As before, a failing message is logged, but not reported to the station.
+     */
+    private void write(List<Entry> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+
+        try {
+            writeInTransaction(group);
+
+        } catch (Exception e) {
+            if (ConnectorPkCache.isIntegrityViolation(e) && retryWithFreshConnectorPks(group)) {
+                return;
+            }
+
+            if (group.size() == 1) {
+                failedMessageCount.incrementAndGet();
+                log.error("Failed to insert the meter values of '{}'", group.get(0).chargeBoxId, e);
+                group.get(0).done.complete(null);
+            } else {
+                splitGroupCount.incrementAndGet();
+                log.warn("Failed to insert a group of {} messages. Inserting them one by one.", group.size(), e);
+                for (Entry entry : group) {
+                    write(Collections.singletonList(entry));
+                }
+            }
+        }
+    }
+
+    private void writeInTransaction(List<Entry> group) {
+        long start = System.currentTimeMillis();
+        int rows = ctx.transactionResult(configuration -> writeGroup(DSL.using(configuration), group));
+
+        groupCount.incrementAndGet();
+        messageCount.addAndGet(group.size());
+        rowCount.addAndGet(rows);
+        lastGroupMessages = group.size();
+        lastGroupDurationMillis = System.currentTimeMillis() - start;
+
+        group.forEach(entry -> entry.done.complete(null));
+    }
+
+    /**
+     * The cached connectorPks might be stale, if another node deleted and added a charge point again (see
+     * {@link ConnectorPkCache}). Looks them up in the database again, and retries once.
+     */
+    private boolean retryWithFreshConnectorPks(List<Entry> group) {
+        group.forEach(entry -> connectorPkCache.invalidate(entry.chargeBoxId));
+        try {
+            writeInTransaction(group);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of inserted rows
+     */
+    private int writeGroup(DSLContext ctx, List<Entry> group) {
+        Map<ConnectorKey, Integer> connectorPks = getConnectorPks(ctx, group);
+        Map<Integer, Integer> transactionConnectorPks = getTransactionConnectorPks(ctx, group);
+
+        List<ConnectorMeterValueRecord> records = new ArrayList<>();
+        for (Entry entry : group) {
+            Integer connectorPk = entry.connectorId == null
+                    ? transactionConnectorPks.get(entry.transactionId)
+                    : connectorPks.get(entry.getConnectorKey());
+
+            if (connectorPk == null) {
+                log.error("The connector of the meter values of '{}' (connectorId: {}, transactionId: {}) is not found",
+                        entry.chargeBoxId, entry.connectorId, entry.transactionId);
+                continue;
+            }
+
+            records.addAll(toRecords(entry.list, connectorPk, entry.transactionId));
+        }
+
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        int count = 0;
+        for (List<ConnectorMeterValueRecord> chunk : Lists.partition(records, maxGroupSize)) {
+            InsertSetStep<ConnectorMeterValueRecord> insert = ctx.insertInto(CONNECTOR_METER_VALUE);
+            InsertSetMoreStep<ConnectorMeterValueRecord> rows = null;
+            for (ConnectorMeterValueRecord record : chunk) {
+                rows = (rows == null) ? insert.set(record) : rows.newRecord().set(record);
+            }
+            count += rows.execute();
+        }
+
+        TransactionEnergySummaryUpdater.update(ctx, records);
+        return count;
+    }
+
+    /**
+     * Inserts the connectors that are new to us, and returns the primary keys of all. The known ones are taken from
+     * the cache.
+     */
+    private Map<ConnectorKey, Integer> getConnectorPks(DSLContext ctx, List<Entry> group) {
+        Map<ConnectorKey, Integer> pks = new HashMap<>();
+        Set<ConnectorKey> misses = new LinkedHashSet<>();
+
+        for (Entry entry : group) {
+            if (entry.connectorId == null) {
+                continue;
+            }
+            ConnectorKey key = entry.getConnectorKey();
+            if (pks.containsKey(key) || misses.contains(key)) {
+                continue;
+            }
+            Integer connectorPk = connectorPkCache.getIfPresent(key.chargeBoxId, key.connectorId);
+            if (connectorPk == null) {
+                misses.add(key);
+            } else {
+                pks.put(key, connectorPk);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return pks;
+        }
+
+        // Committed already, can be cached
+        Map<ConnectorKey, Integer> existing = selectConnectorPks(ctx, misses);
+        existing.forEach((key, connectorPk) -> connectorPkCache.put(key.chargeBoxId, key.connectorId, connectorPk));
+        pks.putAll(existing);
+        misses.removeAll(existing.keySet());
+
+        if (misses.isEmpty()) {
+            return pks;
+        }
+
+        InsertValuesStep2<ConnectorRecord, String, Integer> insert =
+                ctx.insertInto(CONNECTOR, CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID);
+        for (ConnectorKey key : misses) {
+            insert = insert.values(key.chargeBoxId, key.connectorId);
+        }
+
+        int count = insert.onDuplicateKeyIgnore().execute();
+        if (count > 0) {
+            log.info("{} NEW connectors are inserted into DB.", count);
+        }
+
+        // Not cached, because our transaction might still be rolled back
+        pks.putAll(selectConnectorPks(ctx, misses));
+        return pks;
+    }
+
+    private static Map<ConnectorKey, Integer> selectConnectorPks(DSLContext ctx, Set<ConnectorKey> keys) {
+        List<Row2<String, Integer>> rows = keys.stream()
+                                               .map(key -> DSL.row(key.chargeBoxId, key.connectorId))
+                                               .collect(Collectors.toList());
+
+        Map<ConnectorKey, Integer> pks = new HashMap<>();
+        ctx.select(CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID, CONNECTOR.CONNECTOR_PK)
+           .from(CONNECTOR)
+           .where(DSL.row(CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID).in(rows))
+           .fetch()
+           .forEach(r -> pks.put(new ConnectorKey(r.value1(), r.value2()), r.value3()));
+        return pks;
+    }
+
+    private static Map<Integer, Integer> getTransactionConnectorPks(DSLContext ctx, List<Entry> group) {
+        Set<Integer> transactionIds = group.stream()
+                                           .filter(entry -> entry.connectorId == null)
+                                           .map(entry -> entry.transactionId)
+                                           .collect(Collectors.toSet());
+
+        if (transactionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return ctx.select(TRANSACTION_START.TRANSACTION_PK, TRANSACTION_START.CONNECTOR_PK)
+                  .from(TRANSACTION_START)
+                  .where(TRANSACTION_START.TRANSACTION_PK.in(transactionIds))
+                  .fetchMap(Record2::value1, Record2::value2);
+    }
+
+    private static List<ConnectorMeterValueRecord> toRecords(List<MeterValue> list, int connectorPk,
+                                                             Integer transactionId) {
+        return list.stream()
+                   .flatMap(t -> t.getSampledValue()
+                                  .stream()
+                                  .map(k -> new ConnectorMeterValueRecord()
+                                                .setConnectorPk(connectorPk)
+                                                .setTransactionPk(transactionId)
+                                                .setValueTimestamp(t.getTimestamp())
+                                                .setValue(k.getValue())
+                                                // The following are optional fields!
+                                                .setReadingContext(k.isSetContext() ? k.getContext().value() : null)
+                                                .setFormat(k.isSetFormat() ? k.getFormat().value() : null)
+                                                .setMeasurand(k.isSetMeasurand() ? k.getMeasurand().value() : null)
+                                                .setLocation(k.isSetLocation() ? k.getLocation().value() : null)
+                                                .setUnit(k.isSetUnit() ? k.getUnit().value() : null)
+                                                .setPhase(k.isSetPhase() ? k.getPhase().value() : null)))
+                   .collect(Collectors.toList());
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final String chargeBoxId;
+        private final Integer connectorId;
+        private final Integer transactionId;
+        private final List<MeterValue> list;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private int size() {
+            return list.stream().mapToInt(t -> t.getSampledValue().size()).sum();
+        }
+
+        private ConnectorKey getConnectorKey() {
+            return new ConnectorKey(chargeBoxId, connectorId);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class ConnectorKey {
+        private final String chargeBoxId;
+        private final int connectorId;
+    }
+}
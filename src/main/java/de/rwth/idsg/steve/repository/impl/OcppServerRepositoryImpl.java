@@ -22,6 +22,7 @@ import com.google.common.base.Throwables;
 import com.google.common.util.concurrent.Striped;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.OcppProtocol;
+import de.rwth.idsg.steve.repository.ChangeCounterRepository.Counter;
 import de.rwth.idsg.steve.repository.OcppServerRepository;
 import de.rwth.idsg.steve.repository.ReservationRepository;
 import de.rwth.idsg.steve.repository.dto.InsertConnectorStatusParams;
@@ -31,13 +32,14 @@ import de.rwth.idsg.steve.repository.dto.UpdateChargeboxParams;
 import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
 import jooq.steve.db.enums.TransactionStopEventActor;
 import jooq.steve.db.enums.TransactionStopFailedEventActor;
-import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
+import jooq.steve.db.tables.records.ConnectorStatusLatestRecord;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ocpp.cs._2015._10.MeterValue;
 import org.joda.time.DateTime;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record1;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
@@ -47,12 +49,11 @@ import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 import java.util.concurrent.locks.Lock;
-import java.util.stream.Collectors;
 
+import static jooq.steve.db.tables.ActiveTransaction.ACTIVE_TRANSACTION;
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
-import static jooq.steve.db.tables.Connector.CONNECTOR;
-import static jooq.steve.db.tables.ConnectorMeterValue.CONNECTOR_METER_VALUE;
 import static jooq.steve.db.tables.ConnectorStatus.CONNECTOR_STATUS;
+import static jooq.steve.db.tables.ConnectorStatusLatest.CONNECTOR_STATUS_LATEST;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 import static jooq.steve.db.tables.TransactionStop.TRANSACTION_STOP;
@@ -72,6 +73,9 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
 
     @Autowired private DSLContext ctx;
     @Autowired private ReservationRepository reservationRepository;
+    @Autowired private ChargeBoxHeartbeatStore heartbeatStore;
+    @Autowired private MeterValueIngestQueue meterValueIngestQueue;
+    @Autowired private ConnectorPkCache connectorPkCache;
 
     private final Striped<Lock> transactionTableLocks = Striped.lock(16);
 
@@ -129,10 +133,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
 
     @Override
     public void updateChargeboxHeartbeat(String chargeBoxIdentity, DateTime ts) {
-        ctx.update(CHARGE_BOX)
-           .set(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP, ts)
-           .where(CHARGE_BOX.CHARGE_BOX_ID.equal(chargeBoxIdentity))
-           .execute();
+        heartbeatStore.update(chargeBoxIdentity, ts);
     }
 
     @Override
@@ -140,26 +141,37 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         ctx.transaction(configuration -> {
             DSLContext ctx = DSL.using(configuration);
 
-            // Step 1
-            insertIgnoreConnector(ctx, p.getChargeBoxId(), p.getConnectorId());
-
             // -------------------------------------------------------------------------
+            // Step 1: Insert connector, if it is new to us
             // Step 2: We store a log of connector statuses
             // -------------------------------------------------------------------------
 
-            ctx.insertInto(CONNECTOR_STATUS)
-               .set(CONNECTOR_STATUS.CONNECTOR_PK, DSL.select(CONNECTOR.CONNECTOR_PK)
-                                                      .from(CONNECTOR)
-                                                      .where(CONNECTOR.CHARGE_BOX_ID.equal(p.getChargeBoxId()))
-                                                      .and(CONNECTOR.CONNECTOR_ID.equal(p.getConnectorId()))
-               )
-               .set(CONNECTOR_STATUS.STATUS_TIMESTAMP, p.getTimestamp())
-               .set(CONNECTOR_STATUS.STATUS, p.getStatus())
-               .set(CONNECTOR_STATUS.ERROR_CODE, p.getErrorCode())
-               .set(CONNECTOR_STATUS.ERROR_INFO, p.getErrorInfo())
-               .set(CONNECTOR_STATUS.VENDOR_ID, p.getVendorId())
-               .set(CONNECTOR_STATUS.VENDOR_ERROR_CODE, p.getVendorErrorCode())
-               .execute();
+            int connectorPk = connectorPkCache.withConnectorPk(ctx, p.getChargeBoxId(), p.getConnectorId(), pk -> {
+                ctx.insertInto(CONNECTOR_STATUS)
+                   .set(CONNECTOR_STATUS.CONNECTOR_PK, pk)
+                   .set(CONNECTOR_STATUS.STATUS_TIMESTAMP, p.getTimestamp())
+                   .set(CONNECTOR_STATUS.STATUS, p.getStatus())
+                   .set(CONNECTOR_STATUS.ERROR_CODE, p.getErrorCode())
+                   .set(CONNECTOR_STATUS.ERROR_INFO, p.getErrorInfo())
+                   .set(CONNECTOR_STATUS.VENDOR_ID, p.getVendorId())
+                   .set(CONNECTOR_STATUS.VENDOR_ERROR_CODE, p.getVendorErrorCode())
+                   .execute();
+                return pk;
+            });
+
+            // -------------------------------------------------------------------------
+            // Step 3: And keep the latest one of them at hand
+            // -------------------------------------------------------------------------
+
+            ConnectorStatusLatestRecord latest = ctx.newRecord(CONNECTOR_STATUS_LATEST)
+                                                    .setStatusTimestamp(p.getTimestamp())
+                                                    .setStatus(p.getStatus())
+                                                    .setErrorCode(p.getErrorCode())
+                                                    .setErrorInfo(p.getErrorInfo())
+                                                    .setVendorId(p.getVendorId())
+                                                    .setVendorErrorCode(p.getVendorErrorCode());
+
+            updateLatestConnectorStatus(ctx, DSL.val(connectorPk), latest);
 
             log.debug("Stored a new connector status for {}/{}.", p.getChargeBoxId(), p.getConnectorId());
         });
@@ -171,17 +183,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
             return;
         }
 
-        ctx.transaction(configuration -> {
-            try {
-                DSLContext ctx = DSL.using(configuration);
-
-                insertIgnoreConnector(ctx, chargeBoxIdentity, connectorId);
-                int connectorPk = getConnectorPkFromConnector(ctx, chargeBoxIdentity, connectorId);
-                batchInsertMeterValues(ctx, list, connectorPk, transactionId);
-            } catch (Exception e) {
-                log.error("Exception occurred", e);
-            }
-        });
+        meterValueIngestQueue.insert(chargeBoxIdentity, list, connectorId, transactionId);
     }
 
     @Override
@@ -190,53 +192,37 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
             return;
         }
 
-        ctx.transaction(configuration -> {
-            try {
-                DSLContext ctx = DSL.using(configuration);
-
-                // First, get connector primary key from transaction table
-                int connectorPk = ctx.select(TRANSACTION_START.CONNECTOR_PK)
-                                     .from(TRANSACTION_START)
-                                     .where(TRANSACTION_START.TRANSACTION_PK.equal(transactionId))
-                                     .fetchOne()
-                                     .value1();
-
-                batchInsertMeterValues(ctx, list, connectorPk, transactionId);
-            } catch (Exception e) {
-                log.error("Exception occurred", e);
-            }
-        });
+        meterValueIngestQueue.insert(chargeBoxIdentity, list, transactionId);
     }
 
     @Override
     public int insertTransaction(InsertTransactionParams p) {
 
-        SelectConditionStep<Record1<Integer>> connectorPkQuery =
-                DSL.select(CONNECTOR.CONNECTOR_PK)
-                   .from(CONNECTOR)
-                   .where(CONNECTOR.CHARGE_BOX_ID.equal(p.getChargeBoxId()))
-                   .and(CONNECTOR.CONNECTOR_ID.equal(p.getConnectorId()));
-
         // -------------------------------------------------------------------------
         // Step 1: Insert connector and idTag, if they are new to us
         // -------------------------------------------------------------------------
 
-        insertIgnoreConnector(ctx, p.getChargeBoxId(), p.getConnectorId());
-
         // it is important to insert idTag before transaction, since the transaction table references it
         boolean unknownTagInserted = insertIgnoreIdTag(ctx, p);
+        if (unknownTagInserted) {
+            ChangeCounterRepositoryImpl.increment(ctx, Counter.OCPP_TAG);
+        }
 
         // -------------------------------------------------------------------------
         // Step 2: Insert transaction if it does not exist already
         // -------------------------------------------------------------------------
 
-        TransactionDataHolder data = insertIgnoreTransaction(p, connectorPkQuery);
+        TransactionDataHolder data = connectorPkCache.withConnectorPk(ctx, p.getChargeBoxId(), p.getConnectorId(),
+                connectorPk -> insertIgnoreTransaction(p, connectorPk));
         int transactionId = data.transactionId;
+        int connectorPk = data.connectorPk;
 
         if (data.existsAlready) {
             return transactionId;
         }
 
+        ChangeCounterRepositoryImpl.increment(ctx, Counter.TRANSACTION);
+
         if (unknownTagInserted) {
             log.warn("The transaction '{}' contains an unknown idTag '{}' which was inserted into DB "
                     + "to prevent information loss and has been blocked", transactionId, p.getIdTag());
@@ -247,7 +233,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (p.isSetReservationId()) {
-            reservationRepository.used(connectorPkQuery, p.getIdTag(), p.getReservationId(), transactionId);
+            reservationRepository.used(connectorPk, p.getIdTag(), p.getReservationId(), transactionId);
         }
 
         // -------------------------------------------------------------------------
@@ -255,32 +241,47 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (shouldInsertConnectorStatusAfterTransactionMsg(p.getChargeBoxId())) {
-            insertConnectorStatus(ctx, connectorPkQuery, p.getStartTimestamp(), p.getStatusUpdate());
+            insertConnectorStatus(ctx, DSL.val(connectorPk), p.getStartTimestamp(), p.getStatusUpdate());
         }
 
         return transactionId;
     }
 
     @Override
-    public void updateTransaction(UpdateTransactionParams p) {
+    public boolean updateTransaction(UpdateTransactionParams p) {
 
         // -------------------------------------------------------------------------
         // Step 1: insert transaction stop data
         // -------------------------------------------------------------------------
 
         // JOOQ will throw an exception, if something goes wrong
+        boolean stopped;
         try {
-            ctx.insertInto(TRANSACTION_STOP)
-               .set(TRANSACTION_STOP.TRANSACTION_PK, p.getTransactionId())
-               .set(TRANSACTION_STOP.EVENT_TIMESTAMP, p.getEventTimestamp())
-               .set(TRANSACTION_STOP.EVENT_ACTOR, p.getEventActor())
-               .set(TRANSACTION_STOP.STOP_TIMESTAMP, p.getStopTimestamp())
-               .set(TRANSACTION_STOP.STOP_VALUE, p.getStopMeterValue())
-               .set(TRANSACTION_STOP.STOP_REASON, p.getStopReason())
-               .execute();
+            ctx.transaction(configuration -> {
+                DSLContext ctx = DSL.using(configuration);
+
+                ctx.insertInto(TRANSACTION_STOP)
+                   .set(TRANSACTION_STOP.TRANSACTION_PK, p.getTransactionId())
+                   .set(TRANSACTION_STOP.EVENT_TIMESTAMP, p.getEventTimestamp())
+                   .set(TRANSACTION_STOP.EVENT_ACTOR, p.getEventActor())
+                   .set(TRANSACTION_STOP.STOP_TIMESTAMP, p.getStopTimestamp())
+                   .set(TRANSACTION_STOP.STOP_VALUE, p.getStopMeterValue())
+                   .set(TRANSACTION_STOP.STOP_REASON, p.getStopReason())
+                   .execute();
+
+                ctx.delete(ACTIVE_TRANSACTION)
+                   .where(ACTIVE_TRANSACTION.TRANSACTION_PK.eq(p.getTransactionId()))
+                   .execute();
+            });
+            stopped = true;
         } catch (Exception e) {
             log.error("Exception occurred", e);
             tryInsertingFailed(p, e);
+            stopped = false;
+        }
+
+        if (stopped) {
+            ChangeCounterRepositoryImpl.increment(ctx, Counter.TRANSACTION);
         }
 
         // -------------------------------------------------------------------------
@@ -294,8 +295,10 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
                        .from(TRANSACTION_START)
                        .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()));
 
-            insertConnectorStatus(ctx, connectorPkQuery, p.getStopTimestamp(), p.getStatusUpdate());
+            insertConnectorStatus(ctx, DSL.field(connectorPkQuery), p.getStopTimestamp(), p.getStatusUpdate());
         }
+
+        return stopped;
     }
 
     // -------------------------------------------------------------------------
@@ -306,6 +309,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
     private static final class TransactionDataHolder {
         final boolean existsAlready;
         final int transactionId;
+        final int connectorPk;
     }
 
     /**
@@ -313,39 +317,50 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
      * problems the response of StartTransaction could not be delivered and station tries again later), we do not want
      * to insert this into database multiple times.
      */
-    private TransactionDataHolder insertIgnoreTransaction(InsertTransactionParams p,
-                                                          SelectConditionStep<Record1<Integer>> connectorPkQuery) {
+    private TransactionDataHolder insertIgnoreTransaction(InsertTransactionParams p, int connectorPk) {
         Lock l = transactionTableLocks.get(p.getChargeBoxId());
         l.lock();
         try {
             Record1<Integer> r = ctx.select(TRANSACTION_START.TRANSACTION_PK)
                                     .from(TRANSACTION_START)
-                                    .where(TRANSACTION_START.CONNECTOR_PK.eq(connectorPkQuery))
+                                    .where(TRANSACTION_START.CONNECTOR_PK.eq(connectorPk))
                                     .and(TRANSACTION_START.ID_TAG.eq(p.getIdTag()))
                                     .and(TRANSACTION_START.START_TIMESTAMP.eq(p.getStartTimestamp()))
                                     .and(TRANSACTION_START.START_VALUE.eq(p.getStartMeterValue()))
                                     .fetchOne();
 
             if (r != null) {
-                return new TransactionDataHolder(true, r.value1());
+                return new TransactionDataHolder(true, r.value1(), connectorPk);
             }
 
-            Integer transactionId = ctx.insertInto(TRANSACTION_START)
-                                       .set(TRANSACTION_START.EVENT_TIMESTAMP, p.getEventTimestamp())
-                                       .set(TRANSACTION_START.CONNECTOR_PK, connectorPkQuery)
-                                       .set(TRANSACTION_START.ID_TAG, p.getIdTag())
-                                       .set(TRANSACTION_START.START_TIMESTAMP, p.getStartTimestamp())
-                                       .set(TRANSACTION_START.START_VALUE, p.getStartMeterValue())
-                                       .returning(TRANSACTION_START.TRANSACTION_PK)
-                                       .fetchOne()
-                                       .getTransactionPk();
-
-            // Actually unnecessary, because JOOQ will throw an exception, if something goes wrong
-            if (transactionId == null) {
-                throw new SteveException("Failed to INSERT transaction into database");
-            }
+            int transactionId = ctx.transactionResult(configuration -> {
+                DSLContext ctx = DSL.using(configuration);
 
-            return new TransactionDataHolder(false, transactionId);
+                Integer id = ctx.insertInto(TRANSACTION_START)
+                                .set(TRANSACTION_START.EVENT_TIMESTAMP, p.getEventTimestamp())
+                                .set(TRANSACTION_START.CONNECTOR_PK, connectorPk)
+                                .set(TRANSACTION_START.ID_TAG, p.getIdTag())
+                                .set(TRANSACTION_START.START_TIMESTAMP, p.getStartTimestamp())
+                                .set(TRANSACTION_START.START_VALUE, p.getStartMeterValue())
+                                .returning(TRANSACTION_START.TRANSACTION_PK)
+                                .fetchOne()
+                                .getTransactionPk();
+
+                // Actually unnecessary, because JOOQ will throw an exception, if something goes wrong
+                if (id == null) {
+                    throw new SteveException("Failed to INSERT transaction into database");
+                }
+
+                ctx.insertInto(ACTIVE_TRANSACTION)
+                   .set(ACTIVE_TRANSACTION.TRANSACTION_PK, id)
+                   .set(ACTIVE_TRANSACTION.CONNECTOR_PK, connectorPk)
+                   .set(ACTIVE_TRANSACTION.ID_TAG, p.getIdTag())
+                   .execute();
+
+                return id;
+            });
+
+            return new TransactionDataHolder(false, transactionId, connectorPk);
         } finally {
             l.unlock();
         }
@@ -361,34 +376,60 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
      * and we have a "more recent" status, it will still be the current status.
      */
     private void insertConnectorStatus(DSLContext ctx,
-                                       SelectConditionStep<Record1<Integer>> connectorPkQuery,
+                                       Field<Integer> connectorPk,
                                        DateTime timestamp,
                                        TransactionStatusUpdate statusUpdate) {
         try {
             ctx.insertInto(CONNECTOR_STATUS)
-               .set(CONNECTOR_STATUS.CONNECTOR_PK, connectorPkQuery)
+               .set(CONNECTOR_STATUS.CONNECTOR_PK, connectorPk)
                .set(CONNECTOR_STATUS.STATUS_TIMESTAMP, timestamp)
                .set(CONNECTOR_STATUS.STATUS, statusUpdate.getStatus())
                .set(CONNECTOR_STATUS.ERROR_CODE, statusUpdate.getErrorCode())
                .execute();
+
+            ConnectorStatusLatestRecord latest = ctx.newRecord(CONNECTOR_STATUS_LATEST)
+                                                    .setStatusTimestamp(timestamp)
+                                                    .setStatus(statusUpdate.getStatus())
+                                                    .setErrorCode(statusUpdate.getErrorCode());
+
+            updateLatestConnectorStatus(ctx, connectorPk, latest);
         } catch (Exception e) {
             log.error("Exception occurred", e);
         }
     }
 
     /**
-     * If the connector information was not received before, insert it. Otherwise, ignore.
+     * Messages can arrive late (e.g. when a station pushes its buffered messages after being offline). Therefore, the
+     * latest status is only replaced by a status with the same or a more recent timestamp. A status without timestamp
+     * is never the latest, as with the old query over the whole log.
      */
-    private void insertIgnoreConnector(DSLContext ctx, String chargeBoxIdentity, int connectorId) {
-        int count = ctx.insertInto(CONNECTOR,
-                            CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID)
-                       .values(chargeBoxIdentity, connectorId)
-                       .onDuplicateKeyIgnore() // Important detail
+    private static void updateLatestConnectorStatus(DSLContext ctx,
+                                                    Field<Integer> connectorPk,
+                                                    ConnectorStatusLatestRecord latest) {
+        if (latest.getStatusTimestamp() == null) {
+            return;
+        }
+
+        int count = ctx.insertInto(CONNECTOR_STATUS_LATEST)
+                       .set(latest)
+                       .set(CONNECTOR_STATUS_LATEST.CONNECTOR_PK, connectorPk)
+                       .onDuplicateKeyIgnore()
                        .execute();
 
         if (count == 1) {
-            log.info("The connector {}/{} is NEW, and inserted into DB.", chargeBoxIdentity, connectorId);
+            return;
         }
+
+        ctx.update(CONNECTOR_STATUS_LATEST)
+           .set(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP, latest.getStatusTimestamp())
+           .set(CONNECTOR_STATUS_LATEST.STATUS, latest.getStatus())
+           .set(CONNECTOR_STATUS_LATEST.ERROR_CODE, latest.getErrorCode())
+           .set(CONNECTOR_STATUS_LATEST.ERROR_INFO, latest.getErrorInfo())
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ID, latest.getVendorId())
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ERROR_CODE, latest.getVendorErrorCode())
+           .where(CONNECTOR_STATUS_LATEST.CONNECTOR_PK.eq(connectorPk))
+           .and(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.lessOrEqual(latest.getStatusTimestamp()))
+           .execute();
     }
 
     /**
@@ -420,37 +461,6 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         return (r != null) && (r.value1() == 1);
     }
 
-    private int getConnectorPkFromConnector(DSLContext ctx, String chargeBoxIdentity, int connectorId) {
-        return ctx.select(CONNECTOR.CONNECTOR_PK)
-                  .from(CONNECTOR)
-                  .where(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxIdentity))
-                  .and(CONNECTOR.CONNECTOR_ID.equal(connectorId))
-                  .fetchOne()
-                  .value1();
-    }
-
-    private void batchInsertMeterValues(DSLContext ctx, List<MeterValue> list, int connectorPk, Integer transactionId) {
-        List<ConnectorMeterValueRecord> batch =
-                list.stream()
-                    .flatMap(t -> t.getSampledValue()
-                                   .stream()
-                                   .map(k -> ctx.newRecord(CONNECTOR_METER_VALUE)
-                                                .setConnectorPk(connectorPk)
-                                                .setTransactionPk(transactionId)
-                                                .setValueTimestamp(t.getTimestamp())
-                                                .setValue(k.getValue())
-                                                // The following are optional fields!
-                                                .setReadingContext(k.isSetContext() ? k.getContext().value() : null)
-                                                .setFormat(k.isSetFormat() ? k.getFormat().value() : null)
-                                                .setMeasurand(k.isSetMeasurand() ? k.getMeasurand().value() : null)
-                                                .setLocation(k.isSetLocation() ? k.getLocation().value() : null)
-                                                .setUnit(k.isSetUnit() ? k.getUnit().value() : null)
-                                                .setPhase(k.isSetPhase() ? k.getPhase().value() : null)))
-                    .collect(Collectors.toList());
-
-        ctx.batchInsert(batch).execute();
-    }
-
     private void tryInsertingFailed(UpdateTransactionParams p, Exception e) {
         try {
             ctx.insertInto(TRANSACTION_STOP_FAILED)
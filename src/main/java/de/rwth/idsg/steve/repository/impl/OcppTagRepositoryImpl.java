@@ -19,6 +19,7 @@
 package de.rwth.idsg.steve.repository.impl;
 
 import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.repository.ChangeCounterRepository.Counter;
 import de.rwth.idsg.steve.repository.OcppTagRepository;
 import de.rwth.idsg.steve.repository.dto.OcppTag.Overview;
 import de.rwth.idsg.steve.web.dto.OcppTagForm;
@@ -46,6 +47,7 @@ import java.util.stream.Collectors;
 
 import static de.rwth.idsg.steve.utils.DateTimeUtils.humanize;
 import static de.rwth.idsg.steve.utils.DateTimeUtils.toDateTime;
+import static jooq.steve.db.tables.ActiveTransaction.ACTIVE_TRANSACTION;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.OcppTagActivity.OCPP_TAG_ACTIVITY;
 
@@ -120,6 +122,17 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
         processBooleanType(selectQuery, OCPP_TAG_ACTIVITY.IN_TRANSACTION, form.getInTransaction());
         processBooleanType(selectQuery, OCPP_TAG_ACTIVITY.BLOCKED, form.getBlocked());
 
+        // Paging relies on the order
+        selectQuery.addOrderBy(OCPP_TAG_ACTIVITY.OCPP_TAG_PK);
+
+        if (form.isAfterIdSet()) {
+            selectQuery.addConditions(OCPP_TAG_ACTIVITY.OCPP_TAG_PK.gt(form.getAfterId()));
+        }
+
+        if (form.isLimitSet()) {
+            selectQuery.addLimit(form.getLimit());
+        }
+
         return selectQuery.fetch().map(new UserMapper());
     }
 
@@ -150,6 +163,21 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
                   .fetchOne();
     }
 
+    @Override
+    public OcppTagRecord getTagRecord(String idTag) {
+        return ctx.selectFrom(OCPP_TAG)
+                  .where(OCPP_TAG.ID_TAG.equal(idTag))
+                  .fetchOne();
+    }
+
+    @Override
+    public List<Integer> getActiveTransactionIds(String idTag) {
+        return ctx.select(ACTIVE_TRANSACTION.TRANSACTION_PK)
+                  .from(ACTIVE_TRANSACTION)
+                  .where(ACTIVE_TRANSACTION.ID_TAG.equal(idTag))
+                  .fetch(ACTIVE_TRANSACTION.TRANSACTION_PK);
+    }
+
     @Override
     public List<String> getIdTags() {
         return ctx.select(OCPP_TAG.ID_TAG)
@@ -192,20 +220,24 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
                                              .collect(Collectors.toList());
 
         ctx.batchInsert(batch).execute();
+        ChangeCounterRepositoryImpl.increment(ctx, Counter.OCPP_TAG);
     }
 
     @Override
     public int addOcppTag(OcppTagForm u) {
         try {
-            return ctx.insertInto(OCPP_TAG)
-                      .set(OCPP_TAG.ID_TAG, u.getIdTag())
-                      .set(OCPP_TAG.PARENT_ID_TAG, u.getParentIdTag())
-                      .set(OCPP_TAG.EXPIRY_DATE, toDateTime(u.getExpiryDate()))
-                      .set(OCPP_TAG.MAX_ACTIVE_TRANSACTION_COUNT, u.getMaxActiveTransactionCount())
-                      .set(OCPP_TAG.NOTE, u.getNote())
-                      .returning(OCPP_TAG.OCPP_TAG_PK)
-                      .fetchOne()
-                      .getOcppTagPk();
+            int ocppTagPk = ctx.insertInto(OCPP_TAG)
+                               .set(OCPP_TAG.ID_TAG, u.getIdTag())
+                               .set(OCPP_TAG.PARENT_ID_TAG, u.getParentIdTag())
+                               .set(OCPP_TAG.EXPIRY_DATE, toDateTime(u.getExpiryDate()))
+                               .set(OCPP_TAG.MAX_ACTIVE_TRANSACTION_COUNT, u.getMaxActiveTransactionCount())
+                               .set(OCPP_TAG.NOTE, u.getNote())
+                               .returning(OCPP_TAG.OCPP_TAG_PK)
+                               .fetchOne()
+                               .getOcppTagPk();
+
+            ChangeCounterRepositoryImpl.increment(ctx, Counter.OCPP_TAG);
+            return ocppTagPk;
 
         } catch (DataAccessException e) {
             if (e.getCause() instanceof SQLIntegrityConstraintViolationException) {
@@ -226,6 +258,8 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
                .set(OCPP_TAG.NOTE, u.getNote())
                .where(OCPP_TAG.OCPP_TAG_PK.equal(u.getOcppTagPk()))
                .execute();
+
+            ChangeCounterRepositoryImpl.increment(ctx, Counter.OCPP_TAG);
         } catch (DataAccessException e) {
             throw new SteveException("Execution of updateOcppTag for idTag '%s' FAILED.", u.getIdTag(), e);
         }
@@ -237,6 +271,9 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
             ctx.delete(OCPP_TAG)
                .where(OCPP_TAG.OCPP_TAG_PK.equal(ocppTagPk))
                .execute();
+
+            // The transactions are listed only with their OCPP tags
+            ChangeCounterRepositoryImpl.increment(ctx, Counter.OCPP_TAG, Counter.TRANSACTION);
         } catch (DataAccessException e) {
             throw new SteveException("Execution of deleteOcppTag for idTag FAILED.", e);
         }
@@ -0,0 +1,376 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.ExecuteContext;
+import org.jooq.impl.DefaultExecuteListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the execution times of all SQL statements that go through jOOQ, keyed by a fingerprint of the statement
+ * (the SQL with literals and lists of bind values collapsed, so that all executions of the same query end up in the
+ * same histogram). Statements that take longer than the threshold are logged with their fingerprint by default. The
+ * bind values, which are needed to reproduce a slow query, are logged only if enabled, since they contain id tags.
+ * Statements on the settings table are never logged with them, since they contain the mail password.
+ *
+ * The execution time is measured from the start to the end of the statement execution, i.e. without the time that
+ * jOOQ or the caller spend with mapping (or, for lazy fetches, consuming) the fetched records.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+public class QueryStatistics extends DefaultExecuteListener implements MetricsSource {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int TOP_COUNT = 10;
+
+    /**
+     * Upper bounds of the histogram buckets. The last bucket (not listed) takes everything above.
+     */
+    static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+
+    // Upper bound of the memory use, if the application ever builds queries with varying structure
+    private static final int MAX_FINGERPRINTS = 1_000;
+    private static final String OTHER_FINGERPRINT = "(other statements)";
+
+    private static final int MAX_LOGGED_SQL_LENGTH = 4_000;
+
+    private static final String EXECUTION_KEY = QueryStatistics.class.getName() + ".execution";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w`.])-?\\d+(?:\\.\\d+)?(?![\\w`])");
+    private static final Pattern VALUE_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\)(?:\\s*,\\s*\\(\\?\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern SENSITIVE_TABLE = Pattern.compile("`settings`");
+
+    private final long slowThresholdNanos;
+    private final boolean logBindValues;
+
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+    private final LongAdder executionCount = new LongAdder();
+    private final LongAdder slowCount = new LongAdder();
+
+    /**
+     * @param slowThresholdMillis statements that take longer are logged. 0 disables the logging.
+     * @param logBindValues whether slow statements are logged with their bind values instead of the fingerprint
+     */
+    public QueryStatistics(int slowThresholdMillis, boolean logBindValues) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.logBindValues = logBindValues;
+    }
+
+    // -------------------------------------------------------------------------
+    // ExecuteListener
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        ctx.data(EXECUTION_KEY, new Execution(System.nanoTime()));
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        Execution execution = (Execution) ctx.data(EXECUTION_KEY);
+        if (execution != null) {
+            execution.durationNanos = System.nanoTime() - execution.startNanos;
+        }
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        Execution execution = (Execution) ctx.data(EXECUTION_KEY);
+        if (execution != null) {
+            execution.rowsFetched++;
+        }
+    }
+
+    /**
+     * Called after the execution, also if it failed, and after all records are fetched.
+     */
+    @Override
+    public void end(ExecuteContext ctx) {
+        Execution execution = (Execution) ctx.data(EXECUTION_KEY);
+        if (execution == null) {
+            return;
+        }
+
+        String sql = getSql(ctx);
+        if (sql == null) {
+            return;
+        }
+
+        long durationNanos = execution.durationNanos >= 0
+                ? execution.durationNanos
+                : System.nanoTime() - execution.startNanos;
+
+        long rows = Math.max(execution.rowsFetched, getAffectedRows(ctx));
+        boolean slow = slowThresholdNanos > 0 && durationNanos > slowThresholdNanos;
+
+        String fingerprint = fingerprint(sql);
+        record(fingerprint, durationNanos, rows, slow);
+
+        if (slow) {
+            log.warn("Slow query ({} ms, {} rows): {}", TimeUnit.NANOSECONDS.toMillis(durationNanos), rows,
+                    truncate(toLoggedSql(ctx, sql, fingerprint)));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Statistics
+    // -------------------------------------------------------------------------
+
+    /**
+     * The statements with the highest mean execution time
+     */
+    public List<StatementStats> getSlowest(int count) {
+        return statements.entrySet()
+                         .stream()
+                         .map(e -> StatementStats.of(e.getKey(), e.getValue()))
+                         .sorted(Comparator.comparingDouble(StatementStats::getMeanMillis).reversed())
+                         .limit(count)
+                         .collect(Collectors.toList());
+    }
+
+    void record(String fingerprint, long durationNanos, long rows, boolean slow) {
+        String key = fingerprint;
+        if (statements.size() >= MAX_FINGERPRINTS && !statements.containsKey(key)) {
+            key = OTHER_FINGERPRINT;
+        }
+
+        statements.computeIfAbsent(key, k -> new Statement()).add(durationNanos, rows, slow);
+
+        executionCount.increment();
+        if (slow) {
+            slowCount.increment();
+        }
+    }
+
+    /**
+     * Collapses everything that varies between the executions of the same query: literals, lists of bind values
+     * (IN lists, multi-row inserts) and whitespace.
+     */
+    static String fingerprint(String sql) {
+        String s = STRING_LITERAL.matcher(sql).replaceAll("?");
+        s = NUMBER_LITERAL.matcher(s).replaceAll("?");
+        s = VALUE_LIST.matcher(s).replaceAll("(?)");
+        s = ROW_LIST.matcher(s).replaceAll("(?)");
+        return WHITESPACE.matcher(s).replaceAll(" ").trim();
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "queries";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        return Stats.builder()
+                    .slowThresholdMillis(TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos))
+                    .executions(executionCount.sum())
+                    .slowExecutions(slowCount.sum())
+                    .fingerprints(statements.size())
+                    .histogramBoundsMillis(BUCKET_BOUNDS_MILLIS.clone())
+                    .slowest(getSlowest(TOP_COUNT))
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final long slowThresholdMillis;
+        private final long executions;
+        private final long slowExecutions;
+        private final int fingerprints;
+        private final long[] histogramBoundsMillis;
+        private final List<StatementStats> slowest;
+    }
+
+    @Getter
+    @Builder
+    public static class StatementStats {
+        private final String fingerprint;
+        private final long count;
+        private final long slowCount;
+        private final long rows;
+        private final double totalMillis;
+        private final double meanMillis;
+        private final double maxMillis;
+        // Estimations: upper bound of the histogram bucket, in which the percentile falls
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        // Counts per bucket, see histogramBoundsMillis of Stats
+        private final long[] histogram;
+
+        private static StatementStats of(String fingerprint, Statement statement) {
+            long[] histogram = new long[statement.buckets.length()];
+            long count = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = statement.buckets.get(i);
+                count += histogram[i];
+            }
+
+            double totalMillis = toMillis(statement.totalNanos.sum());
+            double maxMillis = toMillis(statement.maxNanos.get());
+
+            return StatementStats.builder()
+                                 .fingerprint(fingerprint)
+                                 .count(count)
+                                 .slowCount(statement.slowCount.sum())
+                                 .rows(statement.rows.sum())
+                                 .totalMillis(totalMillis)
+                                 .meanMillis(count == 0 ? 0 : round(totalMillis / count))
+                                 .maxMillis(maxMillis)
+                                 .p50Millis(percentile(histogram, count, 0.50, maxMillis))
+                                 .p95Millis(percentile(histogram, count, 0.95, maxMillis))
+                                 .p99Millis(percentile(histogram, count, 0.99, maxMillis))
+                                 .histogram(histogram)
+                                 .build();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static String getSql(ExecuteContext ctx) {
+        if (ctx.sql() != null) {
+            return ctx.sql();
+        }
+        String[] batchSql = ctx.batchSQL();
+        return batchSql.length == 0 ? null : batchSql[0];
+    }
+
+    private static long getAffectedRows(ExecuteContext ctx) {
+        int[] batchRows = ctx.batchRows();
+        if (batchRows.length == 0) {
+            return ctx.rows();
+        }
+
+        long sum = 0;
+        for (int rows : batchRows) {
+            if (rows > 0) {
+                sum += rows;
+            }
+        }
+        return sum;
+    }
+
+    String toLoggedSql(ExecuteContext ctx, String sql, String fingerprint) {
+        if (!logBindValues || ctx.query() == null || SENSITIVE_TABLE.matcher(sql).find()) {
+            return fingerprint;
+        }
+
+        try {
+            return ctx.dsl().renderInlined(ctx.query());
+        } catch (RuntimeException e) {
+            return fingerprint;
+        }
+    }
+
+    private static String truncate(String sql) {
+        if (sql.length() > MAX_LOGGED_SQL_LENGTH) {
+            return sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+        }
+        return sql;
+    }
+
+    private static int bucketIndex(long durationNanos) {
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            if (durationNanos <= TimeUnit.MILLISECONDS.toNanos(BUCKET_BOUNDS_MILLIS[i])) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MILLIS.length;
+    }
+
+    private static double percentile(long[] histogram, long count, double percentile, double maxMillis) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * count);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= rank) {
+                return Math.min(BUCKET_BOUNDS_MILLIS[i], maxMillis);
+            }
+        }
+        return maxMillis;
+    }
+
+    private static double toMillis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 10) / 10.0;
+    }
+
+    private static class Execution {
+        private final long startNanos;
+        private long durationNanos = -1;
+        private long rowsFetched;
+
+        private Execution(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static class Statement {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+
+        private void add(long durationNanos, long rowCount, boolean slow) {
+            buckets.incrementAndGet(bucketIndex(durationNanos));
+            totalNanos.add(durationNanos);
+            maxNanos.accumulateAndGet(durationNanos, Math::max);
+            rows.add(rowCount);
+            if (slow) {
+                slowCount.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.exception.DataAccessException;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Decides where the replica-safe reads go. These are the reads of reports and overview pages, which can live with
+ * data that is behind by up to the max lag. Everything else (and especially whatever is read to process OCPP
+ * messages or to answer right after a write) must keep using the primary {@link DSLContext}.
+ *
+ * Without a replica, or while the replica is behind by more than the max lag or its lag is unknown, the replica-safe
+ * reads go to the primary database as well. They still use their own connection pool there, which is the primary
+ * context of this router.
+ *
+ * Reads that must be consistent with each other (e.g. the versions for the ETag and the data of the same response) are
+ * run with {@link #withPinnedReadContext(Supplier)} or {@link #withPrimaryReadContext(Supplier)}, so that a change of
+ * the lag in between cannot send them to different databases.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+public class ReadReplicaRouter implements MetricsSource {
+
+    private static final int LAG_CHECK_SECONDS = 5;
+
+    private final DSLContext primary;
+    @Nullable private final DSLContext replica;
+    private final int maxLagSeconds;
+
+    private volatile boolean replicaUsable;
+    private volatile Long lagSeconds;
+    private volatile DateTime lastLagCheck;
+
+    private final ThreadLocal<DSLContext> pinnedContext = new ThreadLocal<>();
+
+    private final AtomicLong replicaReadCount = new AtomicLong();
+    private final AtomicLong primaryReadCount = new AtomicLong();
+
+    /**
+     * Without a replica
+     */
+    public ReadReplicaRouter(DSLContext primary) {
+        this.primary = primary;
+        this.replica = null;
+        this.maxLagSeconds = 0;
+    }
+
+    /**
+     * The executor is not used, if the max lag is 0. The replica is used unconditionally, then.
+     */
+    public ReadReplicaRouter(DSLContext primary, DSLContext replica, int maxLagSeconds,
+                             ScheduledExecutorService executor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+
+        if (maxLagSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::checkLagQuietly, 0, LAG_CHECK_SECONDS, TimeUnit.SECONDS);
+        } else {
+            replicaUsable = true;
+        }
+    }
+
+    /**
+     * @return the context for a replica-safe read
+     */
+    public DSLContext getReadContext() {
+        DSLContext pinned = pinnedContext.get();
+        if (pinned != null) {
+            return pinned;
+        }
+
+        if (replica != null && replicaUsable) {
+            replicaReadCount.incrementAndGet();
+            return replica;
+        } else {
+            primaryReadCount.incrementAndGet();
+            return primary;
+        }
+    }
+
+    /**
+     * All replica-safe reads of the current thread within the given reads use the same context
+     */
+    public <T> T withPinnedReadContext(Supplier<T> reads) {
+        return withPinned(null, reads);
+    }
+
+    /**
+     * All replica-safe reads of the current thread within the given reads go to the primary. For responses that are
+     * read from the primary anyway (e.g. to include the own writes), but must be consistent with replica-safe reads.
+     */
+    public <T> T withPrimaryReadContext(Supplier<T> reads) {
+        return withPinned(primary, reads);
+    }
+
+    void updateLag(@Nullable Long lagSeconds) {
+        boolean usable = lagSeconds != null && lagSeconds <= maxLagSeconds;
+
+        if (usable != replicaUsable || lastLagCheck == null) {
+            if (usable) {
+                log.info("The replica is in sync (lag: {} s). Replica-safe reads go to the replica", lagSeconds);
+            } else {
+                log.warn("The replica is behind by {} s (max: {} s). Replica-safe reads go to the primary",
+                        lagSeconds == null ? "unknown" : lagSeconds, maxLagSeconds);
+            }
+        }
+
+        this.lagSeconds = lagSeconds;
+        this.lastLagCheck = DateTime.now();
+        this.replicaUsable = usable;
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "database";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        return Stats.builder()
+                    .replicaEnabled(replica != null)
+                    .replicaUsable(replica != null && replicaUsable)
+                    .maxLagSeconds(maxLagSeconds)
+                    .lagSeconds(lagSeconds)
+                    .lastLagCheck(lastLagCheck)
+                    .replicaReads(replicaReadCount.get())
+                    .primaryReads(primaryReadCount.get())
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final boolean replicaEnabled;
+        private final boolean replicaUsable;
+        private final int maxLagSeconds;
+        private final Long lagSeconds;
+        private final DateTime lastLagCheck;
+        // Only the replica-safe reads are counted
+        private final long replicaReads;
+        private final long primaryReads;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private <T> T withPinned(@Nullable DSLContext context, Supplier<T> reads) {
+        if (pinnedContext.get() != null) {
+            return reads.get();
+        }
+
+        pinnedContext.set(context == null ? getReadContext() : context);
+        try {
+            return reads.get();
+        } finally {
+            pinnedContext.remove();
+        }
+    }
+
+    private void checkLagQuietly() {
+        Long lag;
+        try {
+            lag = readLagSeconds();
+        } catch (Exception e) {
+            // Do not flood the log every few seconds, while the replica is down
+            if (replicaUsable || lastLagCheck == null) {
+                log.error("Failed to read the replication lag of the replica", e);
+            } else {
+                log.debug("Failed to read the replication lag of the replica", e);
+            }
+            lag = null;
+        }
+        updateLag(lag);
+    }
+
+    /**
+     * SHOW REPLICA STATUS exists since MySQL 8.0.22, SHOW SLAVE STATUS is gone since MySQL 8.4. The lag is null, if
+     * the replication is not running or the server is not a replica at all.
+     */
+    @Nullable
+    private Long readLagSeconds() {
+        Result<Record> status;
+        try {
+            status = replica.fetch("SHOW REPLICA STATUS");
+        } catch (DataAccessException e) {
+            status = replica.fetch("SHOW SLAVE STATUS");
+        }
+
+        if (status.isEmpty()) {
+            return null;
+        }
+
+        Record record = status.get(0);
+        Field<?> field = record.field("Seconds_Behind_Source");
+        if (field == null) {
+            field = record.field("Seconds_Behind_Master");
+        }
+
+        Object value = field == null ? null : record.get(field);
+        return value == null ? null : Long.valueOf(value.toString());
+    }
+}
@@ -24,25 +24,37 @@ import de.rwth.idsg.steve.repository.SettingsRepository;
 import de.rwth.idsg.steve.repository.dto.MailSettings;
 import de.rwth.idsg.steve.web.dto.SettingsForm;
 import jooq.steve.db.tables.records.SettingsRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.jooq.DSLContext;
 import org.jooq.exception.DataAccessException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 import static de.rwth.idsg.steve.utils.StringUtils.joinByComma;
 import static de.rwth.idsg.steve.utils.StringUtils.splitByComma;
 import static jooq.steve.db.tables.Settings.SETTINGS;
 
 /**
+ * The settings row is read once and kept in memory as an immutable snapshot. It is replaced as a whole after each
+ * update, and when the version in the database changes (e.g. after an update on another node of a cluster). The
+ * version is checked every cluster.settings.poll.seconds, if set, and whenever the settings page is shown. Therefore,
+ * the OCPP operations that need the settings do not have to go to the database.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 06.11.2015
  */
+@Slf4j
 @Repository
 public class SettingsRepositoryImpl implements SettingsRepository {
 
@@ -53,59 +65,62 @@ public class SettingsRepositoryImpl implements SettingsRepository {
             StandardCharsets.UTF_8
     );
 
-    @Autowired private DSLContext ctx;
+    private final DSLContext ctx;
+    private final ScheduledExecutorService executorService;
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public SettingsRepositoryImpl(DSLContext ctx, ScheduledExecutorService executorService) {
+        this.ctx = ctx;
+        this.executorService = executorService;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+
+        int pollSeconds = CONFIG.getCluster().getSettingsPollSeconds();
+        if (pollSeconds > 0) {
+            executorService.scheduleWithFixedDelay(this::poll, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+        }
+    }
 
     @Override
     public SettingsForm getForm() {
-        SettingsRecord r = getInternal();
-
-        List<String> eMails = splitByComma(r.getMailRecipients());
-        List<NotificationFeature> features = splitFeatures(r.getNotificationFeatures());
+        // the web page shows what is in the database
+        Snapshot s = reloadIfChanged();
+        MailSettings mail = s.mailSettings;
 
+        // the form is bound to the request, therefore it gets its own lists
         return SettingsForm.builder()
-                           .heartbeat(toMin(r.getHeartbeatIntervalInSeconds()))
-                           .expiration(r.getHoursToExpire())
-                           .enabled(r.getMailEnabled())
-                           .host(r.getMailHost())
-                           .username(r.getMailUsername())
-                           .password(r.getMailPassword())
-                           .from(r.getMailFrom())
-                           .protocol(r.getMailProtocol())
-                           .port(r.getMailPort())
-                           .recipients(eMails)
-                           .enabledFeatures(features)
+                           .heartbeat(toMin(s.heartbeatIntervalInSeconds))
+                           .expiration(s.hoursToExpire)
+                           .enabled(mail.isEnabled())
+                           .host(mail.getHost())
+                           .username(mail.getUsername())
+                           .password(mail.getPassword())
+                           .from(mail.getFrom())
+                           .protocol(mail.getProtocol())
+                           .port(mail.getPort())
+                           .recipients(new ArrayList<>(mail.getRecipients()))
+                           .enabledFeatures(new ArrayList<>(mail.getEnabledFeatures()))
                            .build();
-
     }
 
     @Override
     public MailSettings getMailSettings() {
-        SettingsRecord r = getInternal();
-
-        List<String> eMails = splitByComma(r.getMailRecipients());
-        List<NotificationFeature> features = splitFeatures(r.getNotificationFeatures());
-
-        return MailSettings.builder()
-                           .enabled(r.getMailEnabled())
-                           .host(r.getMailHost())
-                           .username(r.getMailUsername())
-                           .password(r.getMailPassword())
-                           .from(r.getMailFrom())
-                           .protocol(r.getMailProtocol())
-                           .port(r.getMailPort())
-                           .recipients(eMails)
-                           .enabledFeatures(features)
-                           .build();
+        return getSnapshot().mailSettings;
     }
 
     @Override
     public int getHeartbeatIntervalInSeconds() {
-        return getInternal().getHeartbeatIntervalInSeconds();
+        return getSnapshot().heartbeatIntervalInSeconds;
     }
 
     @Override
     public int getHoursToExpire() {
-        return getInternal().getHoursToExpire();
+        return getSnapshot().hoursToExpire;
     }
 
     @Override
@@ -126,18 +141,81 @@ public class SettingsRepositoryImpl implements SettingsRepository {
                .set(SETTINGS.MAIL_PORT, form.getPort())
                .set(SETTINGS.MAIL_RECIPIENTS, eMails)
                .set(SETTINGS.NOTIFICATION_FEATURES, features)
+               .set(SETTINGS.VERSION, SETTINGS.VERSION.plus(1))
                .where(SETTINGS.APP_ID.eq(APP_ID))
                .execute();
 
         } catch (DataAccessException e) {
             throw new SteveException("FAILED to save the settings", e);
         }
+
+        reload();
     }
 
-    private SettingsRecord getInternal() {
-        return ctx.selectFrom(SETTINGS)
-                  .where(SETTINGS.APP_ID.eq(APP_ID))
-                  .fetchOne();
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private Snapshot getSnapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            // before init(), e.g. when not managed by Spring
+            s = reload();
+        }
+        return s;
+    }
+
+    private synchronized Snapshot reload() {
+        SettingsRecord r = ctx.selectFrom(SETTINGS)
+                              .where(SETTINGS.APP_ID.eq(APP_ID))
+                              .fetchOne();
+
+        snapshot = new Snapshot(r.getVersion(), r.getHeartbeatIntervalInSeconds(), r.getHoursToExpire(),
+                                toMailSettings(r));
+        return snapshot;
+    }
+
+    /**
+     * Reads only the version, and the whole row only if the version changed
+     */
+    private Snapshot reloadIfChanged() {
+        Snapshot s = getSnapshot();
+
+        Integer version = ctx.select(SETTINGS.VERSION)
+                             .from(SETTINGS)
+                             .where(SETTINGS.APP_ID.eq(APP_ID))
+                             .fetchOne(SETTINGS.VERSION);
+
+        if (version != null && !version.equals(s.version)) {
+            log.info("The settings were changed (version {}), reloading", version);
+            s = reload();
+        }
+        return s;
+    }
+
+    void poll() {
+        try {
+            reloadIfChanged();
+        } catch (Exception e) {
+            log.error("Failed to poll the settings", e);
+        }
+    }
+
+    private MailSettings toMailSettings(SettingsRecord r) {
+        List<String> eMails = splitByComma(r.getMailRecipients());
+        List<NotificationFeature> features = splitFeatures(r.getNotificationFeatures());
+
+        return MailSettings.builder()
+                           .enabled(r.getMailEnabled())
+                           .host(r.getMailHost())
+                           .username(r.getMailUsername())
+                           .password(r.getMailPassword())
+                           .from(r.getMailFrom())
+                           .protocol(r.getMailProtocol())
+                           .port(r.getMailPort())
+                           .recipients(List.copyOf(eMails))
+                           .enabledFeatures(List.copyOf(features))
+                           .build();
     }
 
     private static int toMin(int seconds) {
@@ -148,11 +226,17 @@ public class SettingsRepositoryImpl implements SettingsRepository {
         return (int) TimeUnit.MINUTES.toSeconds(minutes);
     }
 
-
-
     private List<NotificationFeature> splitFeatures(String str) {
         return splitByComma(str).stream()
                                 .map(NotificationFeature::fromName)
                                 .collect(Collectors.toList());
     }
+
+    @RequiredArgsConstructor
+    private static final class Snapshot {
+        private final Integer version;
+        private final int heartbeatIntervalInSeconds;
+        private final int hoursToExpire;
+        private final MailSettings mailSettings;
+    }
 }
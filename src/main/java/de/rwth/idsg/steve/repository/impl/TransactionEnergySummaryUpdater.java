@@ -0,0 +1,207 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.repository.dto.TransactionDetails;
+import de.rwth.idsg.steve.utils.TransactionStopServiceHelper;
+import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
+import jooq.steve.db.tables.records.TransactionEnergySummaryRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertOnDuplicateSetMoreStep;
+import org.jooq.impl.DSL;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static jooq.steve.db.tables.TransactionEnergySummary.TRANSACTION_ENERGY_SUMMARY;
+
+/**
+ * Folds freshly written meter values into the rows of transaction_energy_summary, in the transaction that writes
+ * them. The values of a group are first aggregated per transaction, then merged with the stored row in a single
+ * upsert. Meter values without a transaction id are not counted.
+ *
+ * The upsert must not fail for any value, since it would take the insert of the raw meter values down with it. Values
+ * that do not fit into the DECIMAL(20,3) columns are therefore not summarized.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+final class TransactionEnergySummaryUpdater {
+
+    // Exclusive. DECIMAL(20,3) has 17 digits before the decimal point.
+    private static final BigDecimal MAX_ABS_VALUE = BigDecimal.TEN.pow(17);
+
+    private TransactionEnergySummaryUpdater() { }
+
+    static void update(DSLContext ctx, List<ConnectorMeterValueRecord> records) {
+        Map<Integer, Delta> deltas = new LinkedHashMap<>();
+        for (ConnectorMeterValueRecord record : records) {
+            if (record.getTransactionPk() != null) {
+                deltas.computeIfAbsent(record.getTransactionPk(), k -> new Delta()).add(record);
+            }
+        }
+
+        deltas.forEach((transactionPk, delta) -> upsert(ctx, transactionPk, delta));
+    }
+
+    /**
+     * MySQL applies the assignments of ON DUPLICATE KEY UPDATE from left to right, and later ones see the new values
+     * of the earlier ones. Therefore, the energy values are set before the timestamps they are compared with.
+     */
+    private static void upsert(DSLContext ctx, int transactionPk, Delta delta) {
+        InsertOnDuplicateSetMoreStep<TransactionEnergySummaryRecord> query =
+                ctx.insertInto(TRANSACTION_ENERGY_SUMMARY)
+                   .set(TRANSACTION_ENERGY_SUMMARY.TRANSACTION_PK, transactionPk)
+                   .set(TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_VALUE, delta.firstEnergy)
+                   .set(TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_TIMESTAMP, delta.firstEnergyTimestamp)
+                   .set(TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_VALUE, delta.lastEnergy)
+                   .set(TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_TIMESTAMP, delta.lastEnergyTimestamp)
+                   .set(TRANSACTION_ENERGY_SUMMARY.MAX_POWER_VALUE, delta.maxPower)
+                   .set(TRANSACTION_ENERGY_SUMMARY.SAMPLE_COUNT, delta.count)
+                   .set(TRANSACTION_ENERGY_SUMMARY.LAST_VALUE_TIMESTAMP, delta.lastValueTimestamp)
+                   .onDuplicateKeyUpdate()
+                   .set(TRANSACTION_ENERGY_SUMMARY.SAMPLE_COUNT,
+                           TRANSACTION_ENERGY_SUMMARY.SAMPLE_COUNT.plus(delta.count));
+
+        if (delta.lastValueTimestamp != null) {
+            query = query.set(TRANSACTION_ENERGY_SUMMARY.LAST_VALUE_TIMESTAMP,
+                    greatest(TRANSACTION_ENERGY_SUMMARY.LAST_VALUE_TIMESTAMP, delta.lastValueTimestamp));
+        }
+
+        if (delta.maxPower != null) {
+            query = query.set(TRANSACTION_ENERGY_SUMMARY.MAX_POWER_VALUE,
+                    greatest(TRANSACTION_ENERGY_SUMMARY.MAX_POWER_VALUE, delta.maxPower));
+        }
+
+        if (delta.firstEnergyTimestamp != null) {
+            Condition earlier = TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_TIMESTAMP.isNull()
+                    .or(TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_TIMESTAMP.greaterThan(delta.firstEnergyTimestamp));
+
+            Condition later = TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_TIMESTAMP.isNull()
+                    .or(TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_TIMESTAMP.lessOrEqual(delta.lastEnergyTimestamp));
+
+            query = query.set(TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_VALUE,
+                                 replaceIf(earlier, TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_VALUE, delta.firstEnergy))
+                         .set(TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_TIMESTAMP,
+                                 replaceIf(earlier, TRANSACTION_ENERGY_SUMMARY.FIRST_ENERGY_TIMESTAMP,
+                                         delta.firstEnergyTimestamp))
+                         .set(TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_VALUE,
+                                 replaceIf(later, TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_VALUE, delta.lastEnergy))
+                         .set(TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_TIMESTAMP,
+                                 replaceIf(later, TRANSACTION_ENERGY_SUMMARY.LAST_ENERGY_TIMESTAMP,
+                                         delta.lastEnergyTimestamp));
+        }
+
+        query.execute();
+    }
+
+    private static <T> Field<T> greatest(Field<T> field, T value) {
+        Field<T> param = DSL.val(value, field);
+        return DSL.greatest(DSL.coalesce(field, param), param);
+    }
+
+    private static <T> Field<T> replaceIf(Condition condition, Field<T> field, T value) {
+        return DSL.when(condition, DSL.val(value, field)).otherwise(field);
+    }
+
+    /**
+     * The aggregates of the meter values of one transaction within a group
+     */
+    private static class Delta {
+        private BigDecimal firstEnergy;
+        private DateTime firstEnergyTimestamp;
+        private BigDecimal lastEnergy;
+        private DateTime lastEnergyTimestamp;
+        private BigDecimal maxPower;
+        private int count;
+        private DateTime lastValueTimestamp;
+
+        private void add(ConnectorMeterValueRecord record) {
+            count++;
+
+            DateTime timestamp = record.getValueTimestamp();
+            if (timestamp == null) {
+                return;
+            }
+
+            if (lastValueTimestamp == null || timestamp.isAfter(lastValueTimestamp)) {
+                lastValueTimestamp = timestamp;
+            }
+
+            TransactionDetails.MeterValues v = toMeterValues(record);
+            try {
+                if (TransactionStopServiceHelper.isEnergyValue(v)) {
+                    addEnergy(toColumnValue(v), timestamp);
+                } else if (TransactionStopServiceHelper.isPowerValue(v)) {
+                    addPower(toColumnValue(v));
+                }
+            } catch (NumberFormatException e) {
+                // e.g. NaN or 1e30. the value itself is stored anyway.
+                log.debug("Meter value '{}' is not summarized", v.getValue());
+            }
+        }
+
+        private static BigDecimal toColumnValue(TransactionDetails.MeterValues v) {
+            BigDecimal value = TransactionStopServiceHelper.toBaseUnit(v).setScale(3, RoundingMode.HALF_UP);
+            if (value.abs().compareTo(MAX_ABS_VALUE) >= 0) {
+                throw new NumberFormatException("Out of the column range: " + value);
+            }
+            return value;
+        }
+
+        private void addEnergy(BigDecimal value, DateTime timestamp) {
+            if (firstEnergyTimestamp == null || timestamp.isBefore(firstEnergyTimestamp)) {
+                firstEnergy = value;
+                firstEnergyTimestamp = timestamp;
+            }
+            // equal timestamps: the value that arrived later wins, as in the stored row
+            if (lastEnergyTimestamp == null || !timestamp.isBefore(lastEnergyTimestamp)) {
+                lastEnergy = value;
+                lastEnergyTimestamp = timestamp;
+            }
+        }
+
+        private void addPower(BigDecimal value) {
+            if (maxPower == null || value.compareTo(maxPower) > 0) {
+                maxPower = value;
+            }
+        }
+
+        private static TransactionDetails.MeterValues toMeterValues(ConnectorMeterValueRecord r) {
+            return TransactionDetails.MeterValues.builder()
+                                                 .valueTimestamp(r.getValueTimestamp())
+                                                 .value(r.getValue())
+                                                 .readingContext(r.getReadingContext())
+                                                 .format(r.getFormat())
+                                                 .measurand(r.getMeasurand())
+                                                 .location(r.getLocation())
+                                                 .unit(r.getUnit())
+                                                 .phase(r.getPhase())
+                                                 .build();
+        }
+    }
+}
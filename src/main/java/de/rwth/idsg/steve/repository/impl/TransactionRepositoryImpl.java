@@ -22,10 +22,12 @@ import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.repository.TransactionRepository;
 import de.rwth.idsg.steve.repository.dto.Transaction;
 import de.rwth.idsg.steve.repository.dto.TransactionDetails;
+import de.rwth.idsg.steve.repository.dto.TransactionEnergySummary;
 import de.rwth.idsg.steve.utils.DateTimeUtils;
 import de.rwth.idsg.steve.web.dto.TransactionQueryForm;
 import jooq.steve.db.enums.TransactionStopEventActor;
 import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
+import jooq.steve.db.tables.records.TransactionEnergySummaryRecord;
 import jooq.steve.db.tables.records.TransactionStartRecord;
 import org.joda.time.DateTime;
 import org.jooq.Condition;
@@ -42,13 +44,16 @@ import org.springframework.stereotype.Repository;
 
 import java.io.Writer;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static de.rwth.idsg.steve.utils.CustomDSL.date;
+import static jooq.steve.db.tables.ActiveTransaction.ACTIVE_TRANSACTION;
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
 import static jooq.steve.db.tables.Connector.CONNECTOR;
 import static jooq.steve.db.tables.ConnectorMeterValue.CONNECTOR_METER_VALUE;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.Transaction.TRANSACTION;
+import static jooq.steve.db.tables.TransactionEnergySummary.TRANSACTION_ENERGY_SUMMARY;
 import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 
 /**
@@ -58,60 +63,115 @@ import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 @Repository
 public class TransactionRepositoryImpl implements TransactionRepository {
 
+    /**
+     * Tells the MySQL driver to stream the rows of the result set one by one instead of reading all of them into
+     * memory first. The connection cannot be used for other statements while the stream is open.
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
     private final DSLContext ctx;
+    private final ReadReplicaRouter readReplicaRouter;
 
     @Autowired
-    public TransactionRepositoryImpl(DSLContext ctx) {
+    public TransactionRepositoryImpl(DSLContext ctx, ReadReplicaRouter readReplicaRouter) {
         this.ctx = ctx;
+        this.readReplicaRouter = readReplicaRouter;
     }
 
+    /**
+     * Replica-safe
+     */
     @Override
     public List<Transaction> getTransactions(TransactionQueryForm form) {
-        return getInternal(form).fetch()
-                                .map(new TransactionMapper());
+        return getInternal(readReplicaRouter.getReadContext(), form).fetch()
+                                                                    .map(new TransactionMapper());
     }
 
+    /**
+     * Replica-safe
+     */
     @Override
     public void writeTransactionsCSV(TransactionQueryForm form, Writer writer) {
-        getInternalCSV(form).fetch()
-                            .formatCSV(writer);
+        var query = getInternalCSV(readReplicaRouter.getReadContext(), form);
+        try (var cursor = query.fetchSize(STREAMING_FETCH_SIZE).fetchLazy()) {
+            cursor.formatCSV(writer);
+        }
+    }
+
+    /**
+     * Replica-safe
+     */
+    @Override
+    public void forEachTransaction(TransactionQueryForm form, Consumer<Transaction> consumer) {
+        TransactionMapper mapper = new TransactionMapper();
+        var query = getInternal(readReplicaRouter.getReadContext(), form);
+        try (var cursor = query.fetchSize(STREAMING_FETCH_SIZE).fetchLazy()) {
+            for (var record : cursor) {
+                consumer.accept(mapper.map(record));
+            }
+        }
     }
 
     @Override
     public List<Integer> getActiveTransactionIds(String chargeBoxId) {
-        return ctx.select(TRANSACTION.TRANSACTION_PK)
-                  .from(TRANSACTION)
+        return ctx.select(ACTIVE_TRANSACTION.TRANSACTION_PK)
+                  .from(ACTIVE_TRANSACTION)
                   .join(CONNECTOR)
-                    .on(TRANSACTION.CONNECTOR_PK.equal(CONNECTOR.CONNECTOR_PK))
+                    .on(ACTIVE_TRANSACTION.CONNECTOR_PK.equal(CONNECTOR.CONNECTOR_PK))
                     .and(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxId))
-                  .where(TRANSACTION.STOP_TIMESTAMP.isNull())
-                  .fetch(TRANSACTION.TRANSACTION_PK);
+                  .fetch(ACTIVE_TRANSACTION.TRANSACTION_PK);
     }
 
     @Override
-    public TransactionDetails getDetails(int transactionPk, boolean firstArrivingMeterValueIfMultiple) {
-
-        // -------------------------------------------------------------------------
-        // Step 1: Collect general data about transaction
-        // -------------------------------------------------------------------------
-
+    public Transaction getTransaction(int transactionPk) {
         TransactionQueryForm form = new TransactionQueryForm();
         form.setTransactionPk(transactionPk);
         form.setType(TransactionQueryForm.QueryType.ALL);
         form.setPeriodType(TransactionQueryForm.QueryPeriodType.ALL);
 
         Record12<Integer, String, Integer, String, DateTime, String, DateTime, String, String, Integer, Integer, TransactionStopEventActor>
-                transaction = getInternal(form).fetchOne();
+                transaction = getInternal(ctx, form).fetchOne();
 
         if (transaction == null) {
             throw new SteveException("There is no transaction with id '%s'", transactionPk);
         }
+        return new TransactionMapper().map(transaction);
+    }
+
+    @Override
+    public TransactionEnergySummary getEnergySummary(int transactionPk) {
+        TransactionEnergySummaryRecord r = ctx.selectFrom(TRANSACTION_ENERGY_SUMMARY)
+                                              .where(TRANSACTION_ENERGY_SUMMARY.TRANSACTION_PK.eq(transactionPk))
+                                              .fetchOne();
+        if (r == null) {
+            return null;
+        }
 
-        DateTime startTimestamp = transaction.value5();
-        DateTime stopTimestamp = transaction.value7();
-        String stopValue = transaction.value8();
-        String chargeBoxId = transaction.value2();
-        int connectorId = transaction.value3();
+        return TransactionEnergySummary.builder()
+                                       .firstEnergyValue(r.getFirstEnergyValue())
+                                       .firstEnergyTimestamp(r.getFirstEnergyTimestamp())
+                                       .lastEnergyValue(r.getLastEnergyValue())
+                                       .lastEnergyTimestamp(r.getLastEnergyTimestamp())
+                                       .maxPowerValue(r.getMaxPowerValue())
+                                       .sampleCount(r.getSampleCount())
+                                       .lastValueTimestamp(r.getLastValueTimestamp())
+                                       .build();
+    }
+
+    @Override
+    public TransactionDetails getDetails(int transactionPk, boolean firstArrivingMeterValueIfMultiple) {
+
+        // -------------------------------------------------------------------------
+        // Step 1: Collect general data about transaction
+        // -------------------------------------------------------------------------
+
+        Transaction transaction = getTransaction(transactionPk);
+
+        DateTime startTimestamp = transaction.getStartTimestamp();
+        DateTime stopTimestamp = transaction.getStopTimestamp();
+        String stopValue = transaction.getStopValue();
+        String chargeBoxId = transaction.getChargeBoxId();
+        int connectorId = transaction.getConnectorId();
 
         // -------------------------------------------------------------------------
         // Step 2: Collect intermediate meter values
@@ -223,7 +283,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
                                                            .phase(r.value8())
                                                            .build());
 
-        return new TransactionDetails(new TransactionMapper().map(transaction), values, nextTx);
+        return new TransactionDetails(transaction, values, nextTx, getEnergySummary(transactionPk));
     }
 
     // -------------------------------------------------------------------------
@@ -233,7 +293,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     @SuppressWarnings("unchecked")
     private
     SelectQuery<Record9<Integer, String, Integer, String, DateTime, String, DateTime, String, String>>
-    getInternalCSV(TransactionQueryForm form) {
+    getInternalCSV(DSLContext ctx, TransactionQueryForm form) {
 
         SelectQuery selectQuery = ctx.selectQuery();
         selectQuery.addFrom(TRANSACTION);
@@ -260,7 +320,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     @SuppressWarnings("unchecked")
     private
     SelectQuery<Record12<Integer, String, Integer, String, DateTime, String, DateTime, String, String, Integer, Integer, TransactionStopEventActor>>
-    getInternal(TransactionQueryForm form) {
+    getInternal(DSLContext ctx, TransactionQueryForm form) {
 
         SelectQuery selectQuery = ctx.selectQuery();
         selectQuery.addFrom(TRANSACTION);
@@ -299,15 +359,24 @@ public class TransactionRepositoryImpl implements TransactionRepository {
             selectQuery.addConditions(TRANSACTION.ID_TAG.eq(form.getOcppIdTag()));
         }
 
+        // the join restricts the query to the (few) active transactions right away
         if (form.getType() == TransactionQueryForm.QueryType.ACTIVE) {
-            selectQuery.addConditions(TRANSACTION.STOP_TIMESTAMP.isNull());
+            selectQuery.addJoin(ACTIVE_TRANSACTION, ACTIVE_TRANSACTION.TRANSACTION_PK.eq(TRANSACTION.TRANSACTION_PK));
         }
 
         processType(selectQuery, form);
 
-        // Default order
+        // Default order. Paging relies on it.
         selectQuery.addOrderBy(TRANSACTION.TRANSACTION_PK.desc());
 
+        if (form.isAfterIdSet()) {
+            selectQuery.addConditions(TRANSACTION.TRANSACTION_PK.lt(form.getAfterId()));
+        }
+
+        if (form.isLimitSet()) {
+            selectQuery.addLimit(form.getLimit());
+        }
+
         return selectQuery;
     }
 
@@ -18,32 +18,77 @@
  */
 package de.rwth.idsg.steve.service;
 
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
 /**
+ * Sends the requests of a task to its charge points in the background.
+ *
+ * For multiple charge points, up to the parallelism many workers of the task take the next charge point from the
+ * list, as soon as they are done with the previous one. The dispatch of a request (i.e. handing it over to the SOAP
+ * client or the WebSocket session, not waiting for the response) that takes longer than the timeout is given up on:
+ * the charge point gets an error in the task, the stuck thread is interrupted and a new worker takes over the rest of
+ * the list. So, slow or unreachable charge points do not hold up the others.
+ *
+ * The workers of all tasks share the fanout executor, which has more threads than the parallelism of a single task.
+ * A task for a single charge point runs on its own executor, so that it does not wait for the tasks for many.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 08.03.2018
  */
-@RequiredArgsConstructor
+@Slf4j
+@Service
 public class BackgroundService {
     private final ExecutorService executorService;
+    private final ExecutorService singleExecutorService;
+    private final ScheduledExecutorService scheduler;
+    private final int parallelism;
+    private final int dispatchTimeoutSeconds;
 
-    public static BackgroundService with(ExecutorService executorService) {
-        return new BackgroundService(executorService);
+    @Autowired
+    public BackgroundService(@Qualifier("fanoutExecutor") ExecutorService executorService,
+                             @Qualifier("singleOperationExecutor") ExecutorService singleExecutorService,
+                             ScheduledExecutorService scheduler) {
+        this(executorService, singleExecutorService, scheduler, CONFIG.getOcpp().getFanoutParallelism(),
+                CONFIG.getOcpp().getFanoutDispatchTimeoutSeconds());
     }
 
-    public Runner forFirst(List<ChargePointSelect> list) {
-        return new BackgroundSingleRunner(list.get(0));
+    /**
+     * The scheduler is not used, if the dispatch timeout is 0
+     */
+    public BackgroundService(ExecutorService executorService, ExecutorService singleExecutorService,
+                             ScheduledExecutorService scheduler, int parallelism, int dispatchTimeoutSeconds) {
+        this.executorService = executorService;
+        this.singleExecutorService = singleExecutorService;
+        this.scheduler = scheduler;
+        this.parallelism = parallelism;
+        this.dispatchTimeoutSeconds = dispatchTimeoutSeconds;
     }
 
-    public Runner forEach(List<ChargePointSelect> list) {
-        return new BackgroundListRunner(list);
+    public Runner forFirst(CommunicationTask<?, ?> task) {
+        return new BackgroundSingleRunner(task, task.getParams().getChargePointSelectList().get(0));
+    }
+
+    public Runner forEach(CommunicationTask<?, ?> task) {
+        return new BackgroundListRunner(task, task.getParams().getChargePointSelectList());
     }
 
     public interface Runner {
@@ -52,21 +97,175 @@ public class BackgroundService {
 
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private class BackgroundSingleRunner implements Runner {
+        private final CommunicationTask<?, ?> task;
         private final ChargePointSelect cps;
 
         @Override
         public void execute(Consumer<ChargePointSelect> consumer) {
-            executorService.execute(() -> consumer.accept(cps));
+            singleExecutorService.execute(() -> {
+                try {
+                    consumer.accept(cps);
+                    task.addDispatched();
+                } catch (Exception e) {
+                    log.error("Dispatch to '{}' failed", cps.getChargeBoxId(), e);
+                    task.dispatchFailed(cps.getChargeBoxId(), e);
+                }
+            });
         }
     }
 
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private class BackgroundListRunner implements Runner {
+        private final CommunicationTask<?, ?> task;
         private final List<ChargePointSelect> list;
+        private final AtomicInteger nextIndex = new AtomicInteger(0);
+        // Workers that did not exit or time out yet
+        private final AtomicInteger workerCount = new AtomicInteger(0);
 
+        /**
+         * Throws the RejectedExecutionException of the executor only if not a single worker could be started. The
+         * started ones go through the whole list anyway.
+         */
         @Override
         public void execute(Consumer<ChargePointSelect> consumer) {
-            executorService.execute(() -> list.forEach(consumer));
+            int workers = Math.min(parallelism, list.size());
+            for (int i = 0; i < workers; i++) {
+                try {
+                    startWorker(consumer);
+                } catch (RejectedExecutionException e) {
+                    if (i == 0) {
+                        throw e;
+                    }
+                    log.warn("Could start only {} of {} workers for the task", i, workers);
+                    return;
+                }
+            }
+        }
+
+        private void startWorker(Consumer<ChargePointSelect> consumer) {
+            workerCount.incrementAndGet();
+            try {
+                executorService.execute(() -> work(consumer));
+            } catch (RejectedExecutionException e) {
+                workerCount.decrementAndGet();
+                throw e;
+            }
+        }
+
+        private void work(Consumer<ChargePointSelect> consumer) {
+            int index;
+            while ((index = nextIndex.getAndIncrement()) < list.size()) {
+                boolean timedOut = dispatch(list.get(index), consumer);
+                if (timedOut) {
+                    // The watchdog took care of the count and a replacement
+                    return;
+                }
+            }
+            workerCount.decrementAndGet();
+        }
+
+        /**
+         * @return true, if the dispatch timed out
+         */
+        private boolean dispatch(ChargePointSelect cps, Consumer<ChargePointSelect> consumer) {
+            Dispatch dispatch = new Dispatch();
+            ScheduledFuture<?> watchdog = scheduleWatchdog(cps, consumer, dispatch);
+
+            boolean completed;
+            try {
+                consumer.accept(cps);
+                completed = dispatch.complete();
+                if (completed) {
+                    task.addDispatched();
+                }
+            } catch (Exception e) {
+                completed = dispatch.complete();
+                if (completed) {
+                    log.error("Dispatch to '{}' failed", cps.getChargeBoxId(), e);
+                    task.dispatchFailed(cps.getChargeBoxId(), e);
+                }
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+            }
+
+            if (!completed) {
+                // Clear the interrupt of the watchdog
+                Thread.interrupted();
+            }
+            return !completed;
+        }
+
+        private ScheduledFuture<?> scheduleWatchdog(ChargePointSelect cps, Consumer<ChargePointSelect> consumer,
+                                                    Dispatch dispatch) {
+            if (dispatchTimeoutSeconds == 0) {
+                return null;
+            }
+
+            return scheduler.schedule(() -> {
+                boolean timedOut = dispatch.timeOut(() -> {
+                    log.warn("Dispatch to '{}' did not finish within {} seconds. Continuing without it",
+                            cps.getChargeBoxId(), dispatchTimeoutSeconds);
+                    task.dispatchFailed(cps.getChargeBoxId(), new TimeoutException(
+                            "Dispatch did not finish within " + dispatchTimeoutSeconds + " seconds"));
+                });
+
+                if (!timedOut) {
+                    return;
+                }
+
+                workerCount.decrementAndGet();
+                replaceWorker(consumer);
+            }, dispatchTimeoutSeconds, TimeUnit.SECONDS);
+        }
+
+        private void replaceWorker(Consumer<ChargePointSelect> consumer) {
+            try {
+                startWorker(consumer);
+            } catch (RejectedExecutionException e) {
+                if (workerCount.get() > 0) {
+                    // The others go through the rest of the list
+                    return;
+                }
+
+                // No one is left to continue with the list. Fail the rest of it.
+                int index;
+                while ((index = nextIndex.getAndIncrement()) < list.size()) {
+                    task.dispatchFailed(list.get(index).getChargeBoxId(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decides whether the worker or the watchdog finishes a dispatch. The timeout is recorded before the stuck thread
+     * is interrupted, and the interrupt happens within the lock, so that it cannot hit the thread after the worker
+     * moved on.
+     */
+    private static class Dispatch {
+        private final Thread thread = Thread.currentThread();
+        private boolean done;
+
+        private synchronized boolean complete() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+
+        private synchronized boolean timeOut(Runnable onTimeout) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            try {
+                onTimeout.run();
+            } finally {
+                thread.interrupt();
+            }
+            return true;
         }
     }
 }
@@ -188,6 +188,7 @@ public class CentralSystemService16_Service {
                                        .build();
 
         int transactionId = ocppServerRepository.insertTransaction(params);
+        ocppTagService.transactionStarted(params.getIdTag(), transactionId);
 
         applicationEventPublisher.publishEvent(new OcppTransactionStarted(transactionId, params));
 
@@ -218,7 +219,10 @@ public class CentralSystemService16_Service {
                                        .eventActor(TransactionStopEventActor.station)
                                        .build();
 
-        ocppServerRepository.updateTransaction(params);
+        // Otherwise, the transaction is still active in the database and must be counted as such
+        if (ocppServerRepository.updateTransaction(params)) {
+            ocppTagService.transactionStopped(transactionId);
+        }
 
         ocppServerRepository.insertMeterValues(chargeBoxIdentity, parameters.getTransactionData(), transactionId);
 
@@ -23,6 +23,8 @@ import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.ocpp.OcppTransport;
 import de.rwth.idsg.steve.ocpp.OcppVersion;
 import de.rwth.idsg.steve.ocpp.ws.AbstractWebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.SessionContextStore;
+import de.rwth.idsg.steve.ocpp.ws.cluster.StationDirectory;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
 import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12WebSocketEndpoint;
 import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15WebSocketEndpoint;
@@ -48,8 +50,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -80,6 +82,9 @@ public class ChargePointHelperService {
     @Autowired private Ocpp15WebSocketEndpoint ocpp15WebSocketEndpoint;
     @Autowired private Ocpp16WebSocketEndpoint ocpp16WebSocketEndpoint;
 
+    // Stations that are connected to any node of the cluster
+    @Autowired private StationDirectory stationDirectory;
+
     private final UnidentifiedIncomingObjectService unknownChargePointService = new UnidentifiedIncomingObjectService(100);
 
     public Optional<RegistrationStatus> getRegistrationStatus(String chargeBoxId) {
@@ -109,11 +114,14 @@ public class ChargePointHelperService {
     }
 
     public List<ConnectorStatus> getChargePointConnectorStatus(ConnectorStatusForm params) {
-        Map<String, Deque<SessionContext>> ocpp12Map = ocpp12WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp15Map = ocpp15WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp16Map = ocpp16WebSocketEndpoint.getACopy();
+        SessionContextStore.Snapshot ocpp12 = ocpp12WebSocketEndpoint.getSnapshot();
+        SessionContextStore.Snapshot ocpp15 = ocpp15WebSocketEndpoint.getSnapshot();
+        SessionContextStore.Snapshot ocpp16 = ocpp16WebSocketEndpoint.getSnapshot();
 
-        Set<String> connectedJsonChargeBoxIds = new HashSet<>(extractIds(Arrays.asList(ocpp12Map, ocpp15Map, ocpp16Map)));
+        Set<String> connectedJsonChargeBoxIds = new HashSet<>(extractIds(Arrays.asList(ocpp12, ocpp15, ocpp16)));
+        for (OcppVersion version : OcppVersion.values()) {
+            connectedJsonChargeBoxIds.addAll(stationDirectory.getChargeBoxIds(version));
+        }
 
         List<ConnectorStatus> latestList = chargePointRepository.getChargePointConnectorStatus(params);
 
@@ -131,19 +139,19 @@ public class ChargePointHelperService {
     }
 
     public List<OcppJsonStatus> getOcppJsonStatus() {
-        Map<String, Deque<SessionContext>> ocpp12Map = ocpp12WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp15Map = ocpp15WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp16Map = ocpp16WebSocketEndpoint.getACopy();
+        SessionContextStore.Snapshot ocpp12 = ocpp12WebSocketEndpoint.getSnapshot();
+        SessionContextStore.Snapshot ocpp15 = ocpp15WebSocketEndpoint.getSnapshot();
+        SessionContextStore.Snapshot ocpp16 = ocpp16WebSocketEndpoint.getSnapshot();
 
-        List<String> idList = extractIds(Arrays.asList(ocpp12Map, ocpp15Map, ocpp16Map));
+        List<String> idList = extractIds(Arrays.asList(ocpp12, ocpp15, ocpp16));
         Map<String, Integer> primaryKeyLookup = chargePointRepository.getChargeBoxIdPkPair(idList);
 
         DateTime now = DateTime.now();
         List<OcppJsonStatus> returnList = new ArrayList<>();
 
-        appendList(ocpp12Map, returnList, now, OcppVersion.V_12, primaryKeyLookup);
-        appendList(ocpp15Map, returnList, now, OcppVersion.V_15, primaryKeyLookup);
-        appendList(ocpp16Map, returnList, now, OcppVersion.V_16, primaryKeyLookup);
+        appendList(ocpp12, returnList, now, OcppVersion.V_12, primaryKeyLookup);
+        appendList(ocpp15, returnList, now, OcppVersion.V_15, primaryKeyLookup);
+        appendList(ocpp16, returnList, now, OcppVersion.V_16, primaryKeyLookup);
         return returnList;
     }
 
@@ -225,9 +233,12 @@ public class ChargePointHelperService {
 
         // json stations
         //
+        Set<String> connected = new LinkedHashSet<>(jsonEndpoint.getChargeBoxIdList());
+        connected.addAll(stationDirectory.getChargeBoxIds(protocol.getVersion()));
+
         List<String> chargeBoxIdList = CollectionUtils.isEmpty(chargeBoxIdFilter)
-            ? jsonEndpoint.getChargeBoxIdList()
-            : jsonEndpoint.getChargeBoxIdList().stream().filter(chargeBoxIdFilter::contains).collect(Collectors.toList());
+            ? new ArrayList<>(connected)
+            : connected.stream().filter(chargeBoxIdFilter::contains).collect(Collectors.toList());
 
         for (String chargeBoxId : chargeBoxIdList) {
             returnList.add(new ChargePointSelect(OcppTransport.JSON, chargeBoxId));
@@ -236,34 +247,31 @@ public class ChargePointHelperService {
         return returnList;
     }
 
-    private static List<String> extractIds(List<Map<String, Deque<SessionContext>>> ocppMaps) {
-        return ocppMaps.stream()
-                       .map(Map::keySet)
-                       .flatMap(Collection::stream)
-                       .collect(Collectors.toList());
+    private static List<String> extractIds(List<SessionContextStore.Snapshot> snapshots) {
+        return snapshots.stream()
+                        .map(SessionContextStore.Snapshot::getChargeBoxIds)
+                        .flatMap(Collection::stream)
+                        .collect(Collectors.toList());
     }
 
-    private static void appendList(Map<String, Deque<SessionContext>> map, List<OcppJsonStatus> returnList,
+    private static void appendList(SessionContextStore.Snapshot snapshot, List<OcppJsonStatus> returnList,
                                    DateTime now, OcppVersion version, Map<String, Integer> primaryKeyLookup) {
 
-        for (Map.Entry<String, Deque<SessionContext>> entry : map.entrySet()) {
-            String chargeBoxId = entry.getKey();
-            Deque<SessionContext> endpointDeque = entry.getValue();
-
-            for (SessionContext ctx : endpointDeque) {
-                DateTime openSince = ctx.getOpenSince();
-
-                OcppJsonStatus status = OcppJsonStatus.builder()
-                                                      .chargeBoxPk(primaryKeyLookup.get(chargeBoxId))
-                                                      .chargeBoxId(chargeBoxId)
-                                                      .connectedSinceDT(openSince)
-                                                      .connectedSince(DateTimeUtils.humanize(openSince))
-                                                      .connectionDuration(DateTimeUtils.timeElapsed(openSince, now))
-                                                      .version(version)
-                                                      .build();
-
-                returnList.add(status);
-            }
+        // oldest connections first
+        for (SessionContext ctx : snapshot.getByOpenSince()) {
+            String chargeBoxId = ctx.getChargeBoxId();
+            DateTime openSince = ctx.getOpenSince();
+
+            OcppJsonStatus status = OcppJsonStatus.builder()
+                                                  .chargeBoxPk(primaryKeyLookup.get(chargeBoxId))
+                                                  .chargeBoxId(chargeBoxId)
+                                                  .connectedSinceDT(openSince)
+                                                  .connectedSince(DateTimeUtils.humanize(openSince))
+                                                  .connectionDuration(DateTimeUtils.timeElapsed(openSince, now))
+                                                  .version(version)
+                                                  .build();
+
+            returnList.add(status);
         }
     }
 }
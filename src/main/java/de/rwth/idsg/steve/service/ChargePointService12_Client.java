@@ -45,8 +45,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ScheduledExecutorService;
-
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  */
@@ -55,7 +53,7 @@ import java.util.concurrent.ScheduledExecutorService;
 @Qualifier("ChargePointService12_Client")
 public class ChargePointService12_Client {
 
-    @Autowired protected ScheduledExecutorService executorService;
+    @Autowired protected BackgroundService backgroundService;
     @Autowired protected TaskStore taskStore;
 
     @Autowired private ChargePointService12_InvokerImpl invoker12;
@@ -75,8 +73,7 @@ public class ChargePointService12_Client {
     public int changeAvailability(ChangeAvailabilityParams params) {
         ChangeAvailabilityTask task = new ChangeAvailabilityTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp12Invoker().changeAvailability(c, task));
 
         return taskStore.add(task);
@@ -85,8 +82,7 @@ public class ChargePointService12_Client {
     public int changeConfiguration(ChangeConfigurationParams params) {
         ChangeConfigurationTask task = new ChangeConfigurationTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp12Invoker().changeConfiguration(c, task));
 
         return taskStore.add(task);
@@ -95,8 +91,7 @@ public class ChargePointService12_Client {
     public int clearCache(MultipleChargePointSelect params) {
         ClearCacheTask task = new ClearCacheTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp12Invoker().clearCache(c, task));
 
         return taskStore.add(task);
@@ -105,8 +100,7 @@ public class ChargePointService12_Client {
     public int getDiagnostics(GetDiagnosticsParams params) {
         GetDiagnosticsTask task = new GetDiagnosticsTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp12Invoker().getDiagnostics(c, task));
 
         return taskStore.add(task);
@@ -115,8 +109,7 @@ public class ChargePointService12_Client {
     public int reset(ResetParams params) {
         ResetTask task = new ResetTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp12Invoker().reset(c, task));
 
         return taskStore.add(task);
@@ -125,8 +118,7 @@ public class ChargePointService12_Client {
     public int updateFirmware(UpdateFirmwareParams params) {
         UpdateFirmwareTask task = new UpdateFirmwareTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp12Invoker().updateFirmware(c, task));
 
         return taskStore.add(task);
@@ -139,8 +131,7 @@ public class ChargePointService12_Client {
     public int remoteStartTransaction(RemoteStartTransactionParams params) {
         RemoteStartTransactionTask task = new RemoteStartTransactionTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forFirst(task.getParams().getChargePointSelectList())
+        backgroundService.forFirst(task)
                          .execute(c -> getOcpp12Invoker().remoteStartTransaction(c, task));
 
         return taskStore.add(task);
@@ -149,8 +140,7 @@ public class ChargePointService12_Client {
     public int remoteStopTransaction(RemoteStopTransactionParams params) {
         RemoteStopTransactionTask task = new RemoteStopTransactionTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forFirst(task.getParams().getChargePointSelectList())
+        backgroundService.forFirst(task)
                          .execute(c -> getOcpp12Invoker().remoteStopTransaction(c, task));
 
         return taskStore.add(task);
@@ -159,8 +149,7 @@ public class ChargePointService12_Client {
     public int unlockConnector(UnlockConnectorParams params) {
         UnlockConnectorTask task = new UnlockConnectorTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forFirst(task.getParams().getChargePointSelectList())
+        backgroundService.forFirst(task)
                          .execute(c -> getOcpp12Invoker().unlockConnector(c, task));
 
         return taskStore.add(task);
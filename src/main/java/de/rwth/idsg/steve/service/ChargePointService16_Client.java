@@ -79,8 +79,7 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
     public int triggerMessage(TriggerMessageParams params) {
         TriggerMessageTask task = new TriggerMessageTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp16Invoker().triggerMessage(c, task));
 
         return taskStore.add(task);
@@ -94,8 +93,7 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
         EnhancedSetChargingProfileParams enhancedParams = new EnhancedSetChargingProfileParams(params, details);
         SetChargingProfileTask task = new SetChargingProfileTask(getVersion(), enhancedParams, chargingProfileRepository);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp16Invoker().setChargingProfile(c, task));
 
         return taskStore.add(task);
@@ -104,8 +102,7 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
     public int clearChargingProfile(ClearChargingProfileParams params) {
         ClearChargingProfileTask task = new ClearChargingProfileTask(getVersion(), params, chargingProfileRepository);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp16Invoker().clearChargingProfile(c, task));
 
         return taskStore.add(task);
@@ -114,8 +111,7 @@ public class ChargePointService16_Client extends ChargePointService15_Client {
     public int getCompositeSchedule(GetCompositeScheduleParams params) {
         GetCompositeScheduleTask task = new GetCompositeScheduleTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        backgroundService.forEach(task)
                          .execute(c -> getOcpp16Invoker().getCompositeSchedule(c, task));
 
         return taskStore.add(task);
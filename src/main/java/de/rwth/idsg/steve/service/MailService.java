@@ -24,9 +24,9 @@ import de.rwth.idsg.steve.repository.SettingsRepository;
 import de.rwth.idsg.steve.repository.dto.MailSettings;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
 import jakarta.mail.Authenticator;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
@@ -36,10 +36,7 @@ import jakarta.mail.Transport;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import java.util.Properties;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -49,34 +46,25 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 @Service
 public class MailService {
 
-    @Autowired private SettingsRepository settingsRepository;
-    @Autowired private ScheduledExecutorService executorService;
+    private final SettingsRepository settingsRepository;
+    private final ExecutorService executorService;
 
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final Lock readLock = readWriteLock.readLock();
-    private final Lock writeLock = readWriteLock.writeLock();
-
-    private MailSettings settings;
+    /**
+     * The session that was created for these settings. The repository returns a new instance, when the settings
+     * change.
+     */
+    private MailSettings sessionSettings;
     private Session session;
 
-    @PostConstruct
-    public void loadSettingsFromDB() {
-        writeLock.lock();
-        try {
-            settings = settingsRepository.getMailSettings();
-        } finally {
-            writeLock.unlock();
-        }
-        session = createSession(getSettings());
+    @Autowired
+    public MailService(SettingsRepository settingsRepository,
+                       @Qualifier("mailExecutor") ExecutorService executorService) {
+        this.settingsRepository = settingsRepository;
+        this.executorService = executorService;
     }
 
     public MailSettings getSettings() {
-        readLock.lock();
-        try {
-            return this.settings;
-        } finally {
-            readLock.unlock();
-        }
+        return settingsRepository.getMailSettings();
     }
 
     public void sendTestMail() {
@@ -99,6 +87,7 @@ public class MailService {
 
     public void send(String subject, String body) throws MessagingException {
         MailSettings settings = getSettings();
+        Session session = getSession(settings);
 
         Message mail = new MimeMessage(session);
         mail.setSubject("[SteVe] " + subject);
@@ -115,6 +104,17 @@ public class MailService {
         }
     }
 
+    /**
+     * The session is created again only when the settings changed
+     */
+    synchronized Session getSession(MailSettings settings) {
+        if (settings != sessionSettings) {
+            session = createSession(settings);
+            sessionSettings = settings;
+        }
+        return session;
+    }
+
     // -------------------------------------------------------------------------
     // Private helpers
     // -------------------------------------------------------------------------
@@ -0,0 +1,290 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.Striped;
+import de.rwth.idsg.steve.repository.OcppTagRepository;
+import de.rwth.idsg.steve.service.metrics.LatencyHistogram;
+import de.rwth.idsg.steve.service.metrics.MetricsSource;
+import jooq.steve.db.tables.records.OcppTagActivityRecord;
+import jooq.steve.db.tables.records.OcppTagRecord;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * idTag --> the data that is needed to decide about the authorization of the idTag
+ *
+ * The view ocpp_tag_activity aggregates the transactions of all tags to get the number of active transactions of one
+ * tag. This cache loads a tag together with the ids of its active transactions once, and keeps these ids up-to-date
+ * with the transaction starts and stops that we process. Changes to a tag must be reported with one of the
+ * invalidate methods.
+ *
+ * Unknown tags are not cached, since they can be inserted in many ways (e.g. with an unknown idTag in a
+ * StartTransaction). Changes that are not made by this instance (e.g. by another node of a cluster) are picked up
+ * when the entry expires.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@Component
+public class OcppTagAuthorizationCache implements MetricsSource {
+
+    private final OcppTagRepository ocppTagRepository;
+    private final boolean enabled;
+
+    private final Cache<String, Entry> cache;
+
+    /**
+     * Key (Integer) = transactionId, Value (Entry) = the cached tag that started it
+     */
+    private final Map<Integer, Entry> activeTransactions = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes the loading of a tag with the transaction starts/stops of the same tag. Otherwise, a load could read
+     * the database before a start/stop is committed and overwrite the change. The loaded entry is put into the cache
+     * while holding the lock, so that a start/stop right after the load cannot miss it.
+     */
+    private final Striped<Lock> tagLocks = Striped.lock(16);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final LatencyHistogram hitLatency = new LatencyHistogram();
+    private final LatencyHistogram missLatency = new LatencyHistogram();
+
+    @Autowired
+    public OcppTagAuthorizationCache(OcppTagRepository ocppTagRepository) {
+        this(ocppTagRepository, CONFIG.getOcpp().getAuthCacheSeconds(), CONFIG.getOcpp().getAuthCacheMaxSize());
+    }
+
+    OcppTagAuthorizationCache(OcppTagRepository ocppTagRepository, int expirySeconds, int maxSize) {
+        this.ocppTagRepository = ocppTagRepository;
+        this.enabled = expirySeconds > 0;
+        this.cache = CacheBuilder.newBuilder()
+                                 .expireAfterWrite(Math.max(expirySeconds, 1), TimeUnit.SECONDS)
+                                 .maximumSize(maxSize)
+                                 .removalListener(this::onRemoval)
+                                 .build();
+    }
+
+    /**
+     * @return a new record with the fields that are relevant for the authorization, or null if the tag is unknown
+     */
+    @Nullable
+    public OcppTagActivityRecord getRecord(String idTag) {
+        long start = System.nanoTime();
+
+        if (!enabled) {
+            OcppTagActivityRecord record = ocppTagRepository.getRecord(idTag);
+            missCount.incrementAndGet();
+            missLatency.recordSince(start);
+            return record;
+        }
+
+        Entry entry = cache.getIfPresent(idTag);
+        if (entry != null) {
+            hitCount.incrementAndGet();
+            OcppTagActivityRecord record = entry.toRecord();
+            hitLatency.recordSince(start);
+            return record;
+        }
+
+        missCount.incrementAndGet();
+        try {
+            Entry loaded = load(idTag);
+            return loaded == null ? null : loaded.toRecord();
+        } finally {
+            missLatency.recordSince(start);
+        }
+    }
+
+    public void transactionStarted(String idTag, int transactionId) {
+        Lock l = tagLocks.get(idTag);
+        l.lock();
+        try {
+            Entry entry = cache.getIfPresent(idTag);
+            if (entry != null) {
+                entry.activeTransactionIds.add(transactionId);
+                activeTransactions.put(transactionId, entry);
+            }
+        } finally {
+            l.unlock();
+        }
+    }
+
+    public void transactionStopped(int transactionId) {
+        Entry entry = activeTransactions.get(transactionId);
+        if (entry == null) {
+            return;
+        }
+
+        Lock l = tagLocks.get(entry.idTag);
+        l.lock();
+        try {
+            entry.activeTransactionIds.remove(transactionId);
+            activeTransactions.remove(transactionId, entry);
+        } finally {
+            l.unlock();
+        }
+    }
+
+    public void invalidate(Iterable<String> idTags) {
+        cache.invalidateAll(idTags);
+        invalidationCount.incrementAndGet();
+    }
+
+    public void invalidate(int ocppTagPk) {
+        cache.asMap().values().removeIf(entry -> entry.ocppTagPk == ocppTagPk);
+        invalidationCount.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        invalidationCount.incrementAndGet();
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getMetricsName() {
+        return "authorizationCache";
+    }
+
+    @Override
+    public Stats getMetrics() {
+        return Stats.builder()
+                    .enabled(enabled)
+                    .size(cache.size())
+                    .activeTransactions(activeTransactions.size())
+                    .hits(hitCount.get())
+                    .misses(missCount.get())
+                    .invalidations(invalidationCount.get())
+                    .hitP50Micros(hitLatency.getPercentileMicros(50))
+                    .hitP99Micros(hitLatency.getPercentileMicros(99))
+                    .missP50Micros(missLatency.getPercentileMicros(50))
+                    .missP99Micros(missLatency.getPercentileMicros(99))
+                    .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private final boolean enabled;
+        private final long size;
+        private final int activeTransactions;
+        private final long hits;
+        private final long misses;
+        private final long invalidations;
+        private final long hitP50Micros;
+        private final long hitP99Micros;
+        private final long missP50Micros;
+        private final long missP99Micros;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    @Nullable
+    private Entry load(String idTag) {
+        Lock l = tagLocks.get(idTag);
+        l.lock();
+        try {
+            // Another thread might have loaded the tag, while we were waiting for the lock
+            Entry existing = cache.getIfPresent(idTag);
+            if (existing != null) {
+                return existing;
+            }
+
+            OcppTagRecord tag = ocppTagRepository.getTagRecord(idTag);
+            if (tag == null) {
+                return null;
+            }
+
+            Entry entry = new Entry(tag);
+            for (Integer transactionId : ocppTagRepository.getActiveTransactionIds(idTag)) {
+                entry.activeTransactionIds.add(transactionId);
+                activeTransactions.put(transactionId, entry);
+            }
+            cache.put(idTag, entry);
+            return entry;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    private void onRemoval(RemovalNotification<String, Entry> notification) {
+        Entry entry = notification.getValue();
+        if (entry != null) {
+            entry.activeTransactionIds.forEach(transactionId -> activeTransactions.remove(transactionId, entry));
+        }
+    }
+
+    private static final class Entry {
+        private final int ocppTagPk;
+        private final String idTag;
+        private final String parentIdTag;
+        private final DateTime expiryDate;
+        private final int maxActiveTransactionCount;
+        private final Set<Integer> activeTransactionIds = ConcurrentHashMap.newKeySet();
+
+        private Entry(OcppTagRecord tag) {
+            this.ocppTagPk = tag.getOcppTagPk();
+            this.idTag = tag.getIdTag();
+            this.parentIdTag = tag.getParentIdTag();
+            this.expiryDate = tag.getExpiryDate();
+            this.maxActiveTransactionCount = tag.getMaxActiveTransactionCount();
+        }
+
+        private OcppTagActivityRecord toRecord() {
+            int activeTransactionCount = activeTransactionIds.size();
+
+            OcppTagActivityRecord record = new OcppTagActivityRecord();
+            record.setOcppTagPk(ocppTagPk);
+            record.setIdTag(idTag);
+            record.setParentIdTag(parentIdTag);
+            record.setExpiryDate(expiryDate);
+            record.setMaxActiveTransactionCount(maxActiveTransactionCount);
+            record.setActiveTransactionCount((long) activeTransactionCount);
+            record.setInTransaction(activeTransactionCount > 0);
+            record.setBlocked(maxActiveTransactionCount == 0);
+            return record;
+        }
+    }
+}
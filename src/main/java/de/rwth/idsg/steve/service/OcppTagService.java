@@ -53,6 +53,7 @@ public class OcppTagService {
 
     private final SettingsRepository settingsRepository;
     private final OcppTagRepository ocppTagRepository;
+    private final OcppTagAuthorizationCache authorizationCache;
 
     public List<OcppTag.Overview> getOverview(OcppTagQueryForm form) {
         return ocppTagRepository.getOverview(form);
@@ -102,7 +103,7 @@ public class OcppTagService {
             return null;
         }
 
-        OcppTagActivityRecord record = ocppTagRepository.getRecord(idTag);
+        OcppTagActivityRecord record = authorizationCache.getRecord(idTag);
         AuthorizationStatus status = decideStatus(record, idTag, isStartTransactionReqContext);
 
         switch (status) {
@@ -132,6 +133,17 @@ public class OcppTagService {
         }
     }
 
+    /**
+     * Keeps the number of active transactions of the tag up-to-date for {@link #getIdTagInfo(String, boolean)}
+     */
+    public void transactionStarted(String idTag, int transactionId) {
+        authorizationCache.transactionStarted(idTag, transactionId);
+    }
+
+    public void transactionStopped(int transactionId) {
+        authorizationCache.transactionStopped(transactionId);
+    }
+
     // -------------------------------------------------------------------------
     // Create, Update, Delete operations
     // -------------------------------------------------------------------------
@@ -139,19 +151,26 @@ public class OcppTagService {
     public int addOcppTag(OcppTagForm form) {
         var id = ocppTagRepository.addOcppTag(form);
         removeUnknown(Collections.singletonList(form.getIdTag()));
+        authorizationCache.invalidate(Collections.singletonList(form.getIdTag()));
         return id;
     }
     public void addOcppTagList(List<String> idTagList) {
         ocppTagRepository.addOcppTagList(idTagList);
         removeUnknown(idTagList);
+        authorizationCache.invalidate(idTagList);
     }
 
     public void updateOcppTag(OcppTagForm form) {
         ocppTagRepository.updateOcppTag(form);
+        authorizationCache.invalidate(form.getOcppTagPk());
     }
 
+    /**
+     * Other tags might have this one as parent
+     */
     public void deleteOcppTag(int ocppTagPk) {
         ocppTagRepository.deleteOcppTag(ocppTagPk);
+        authorizationCache.invalidateAll();
     }
 
     // -------------------------------------------------------------------------
@@ -23,6 +23,7 @@ import de.rwth.idsg.steve.repository.OcppServerRepository;
 import de.rwth.idsg.steve.repository.TransactionRepository;
 import de.rwth.idsg.steve.repository.dto.Transaction;
 import de.rwth.idsg.steve.repository.dto.TransactionDetails;
+import de.rwth.idsg.steve.repository.dto.TransactionEnergySummary;
 import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
 import de.rwth.idsg.steve.utils.TransactionStopServiceHelper;
 import jooq.steve.db.enums.TransactionStopEventActor;
@@ -49,6 +50,7 @@ public class TransactionStopService {
 
     @Autowired private TransactionRepository transactionRepository;
     @Autowired private OcppServerRepository ocppServerRepository;
+    @Autowired private OcppTagService ocppTagService;
 
     public void stop(List<Integer> transactionPkList) {
         transactionPkList.stream()
@@ -57,24 +59,44 @@ public class TransactionStopService {
     }
 
     public void stop(Integer transactionPk) {
-        TransactionDetails thisTxDetails = transactionRepository.getDetails(transactionPk, false);
-        Transaction thisTx = thisTxDetails.getTransaction();
+        Transaction thisTx = transactionRepository.getTransaction(transactionPk);
 
         // early exit, if transaction is already stopped
         if (thisTx.getStopValue() != null && thisTx.getStopTimestamp() != null) {
             return;
         }
 
-        TerminationValues values = findNeededValues(thisTxDetails);
+        TerminationValues values = findNeededValues(thisTx);
+
+        boolean stopped = ocppServerRepository.updateTransaction(
+                UpdateTransactionParams.builder()
+                                       .transactionId(thisTx.getId())
+                                       .chargeBoxId(thisTx.getChargeBoxId())
+                                       .stopMeterValue(values.stopValue)
+                                       .stopTimestamp(values.stopTimestamp)
+                                       .eventActor(TransactionStopEventActor.manual)
+                                       .eventTimestamp(DateTime.now())
+                                       .build());
+
+        if (stopped) {
+            ocppTagService.transactionStopped(thisTx.getId());
+        }
+    }
+
+    /**
+     * The energy summary covers the meter values that were sent with the transaction id. Only if there is no energy
+     * value among them, we have to look at all meter values of the connector in the time window of the transaction.
+     */
+    private TerminationValues findNeededValues(Transaction thisTx) {
+        TransactionEnergySummary summary = transactionRepository.getEnergySummary(thisTx.getId());
+        if (summary != null && summary.getLastEnergyValue() != null) {
+            return TerminationValues.builder()
+                                    .stopValue(floatingStringToIntString(summary.getLastEnergyValue().toPlainString()))
+                                    .stopTimestamp(summary.getLastEnergyTimestamp())
+                                    .build();
+        }
 
-        ocppServerRepository.updateTransaction(UpdateTransactionParams.builder()
-                                                                      .transactionId(thisTx.getId())
-                                                                      .chargeBoxId(thisTx.getChargeBoxId())
-                                                                      .stopMeterValue(values.stopValue)
-                                                                      .stopTimestamp(values.stopTimestamp)
-                                                                      .eventActor(TransactionStopEventActor.manual)
-                                                                      .eventTimestamp(DateTime.now())
-                                                                      .build());
+        return findNeededValues(transactionRepository.getDetails(thisTx.getId(), false));
     }
 
     private static TerminationValues findNeededValues(TransactionDetails thisTxDetails) {
@@ -0,0 +1,39 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service.metrics;
+
+/**
+ * Implemented by components that want to expose internal counters and gauges. All beans of this type are collected
+ * and published under {@link #getMetricsName()} by {@link de.rwth.idsg.steve.web.api.MetricsRestController}.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public interface MetricsSource {
+
+    /**
+     * Unique key under which the metrics of this source are published
+     */
+    String getMetricsName();
+
+    /**
+     * Point-in-time snapshot of the metrics. The returned object must be serializable by Jackson.
+     */
+    Object getMetrics();
+}
@@ -24,6 +24,8 @@ import ocpp.cs._2015._10.Measurand;
 import ocpp.cs._2015._10.UnitOfMeasure;
 import ocpp.cs._2015._10.ValueFormat;
 
+import java.math.BigDecimal;
+
 public class TransactionStopServiceHelper {
 
     public static String floatingStringToIntString(String s) {
@@ -84,6 +86,46 @@ public class TransactionStopServiceHelper {
         return true;
     }
 
+    /**
+     * Only the sum over all phases, i.e. a value without phase
+     */
+    public static boolean isPowerValue(TransactionDetails.MeterValues v) {
+        if (Strings.isNullOrEmpty(v.getValue()) || !Strings.isNullOrEmpty(v.getPhase())) {
+            return false;
+        }
+
+        if (ValueFormat.SIGNED_DATA.value().equals(v.getFormat())) {
+            return false;
+        }
+
+        if (!(UnitOfMeasure.W.value().equals(v.getUnit()) || UnitOfMeasure.KW.value().equals(v.getUnit()))) {
+            return false;
+        }
+
+        if (!Measurand.POWER_ACTIVE_IMPORT.value().equals(v.getMeasurand())) {
+            return false;
+        }
+
+        try {
+            Double.parseDouble(v.getValue());
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts an energy or power value to Wh or W. Expects a value that passed {@link #isEnergyValue} or
+     * {@link #isPowerValue}.
+     */
+    public static BigDecimal toBaseUnit(TransactionDetails.MeterValues v) {
+        BigDecimal value = new BigDecimal(v.getValue());
+        if (UnitOfMeasure.K_WH.value().equals(v.getUnit()) || UnitOfMeasure.KW.value().equals(v.getUnit())) {
+            return value.movePointRight(3);
+        }
+        return value;
+    }
+
     private static boolean isWHOrKWH(String str) {
         return UnitOfMeasure.WH.value().equals(str) || UnitOfMeasure.K_WH.value().equals(str);
     }
@@ -0,0 +1,70 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.web.api;
+
+import de.rwth.idsg.steve.repository.ChangeCounterRepository.Counter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Conditional GET and keyset paging for the list endpoints of the API.
+ *
+ * The ETag is built from the change counters of the tables and the query. An unchanged poll is therefore answered
+ * with 304 without running the query at all.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+final class ApiResponseHelper {
+
+    private ApiResponseHelper() { }
+
+    /**
+     * @return true, if the client already has the current response. The caller should return without a body then.
+     */
+    static boolean checkNotModified(ServletWebRequest request, Map<Counter, Long> versions, Object params) {
+        String etag = "\"" + versions.get(Counter.TRANSACTION)
+                + "-" + versions.get(Counter.OCPP_TAG)
+                + "-" + Integer.toHexString(params.toString().hashCode())
+                + "\"";
+
+        return request.checkNotModified(etag);
+    }
+
+    /**
+     * A full page might not be the last one. Point the client to the next one, if so.
+     */
+    static <T> void addNextLink(ServletWebRequest request, Integer limit, List<T> page, ToIntFunction<T> idFunction) {
+        if (limit == null || page.size() < limit) {
+            return;
+        }
+
+        int lastId = idFunction.applyAsInt(page.get(page.size() - 1));
+        String next = ServletUriComponentsBuilder.fromRequest(request.getRequest())
+                                                 .replaceQueryParam("afterId", lastId)
+                                                 .toUriString();
+
+        request.getResponse().addHeader(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    }
+}
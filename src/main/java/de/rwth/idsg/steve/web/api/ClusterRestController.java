@@ -0,0 +1,72 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.web.api;
+
+import de.rwth.idsg.steve.ocpp.ws.cluster.CallForwarder;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCall;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCallHandler;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCallResult;
+import de.rwth.idsg.steve.web.api.ApiControllerAdvice.ApiErrorResponse;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Used by the other nodes of the cluster to send calls to stations that are connected to this node.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/api" + CallForwarder.PATH, produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class ClusterRestController {
+
+    private final ForwardedCallHandler forwardedCallHandler;
+
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 400, message = "Bad Request", response = ApiErrorResponse.class),
+        @ApiResponse(code = 401, message = "Unauthorized", response = ApiErrorResponse.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ApiErrorResponse.class)}
+    )
+    @PostMapping(value = "")
+    @ResponseBody
+    public DeferredResult<ForwardedCallResult> post(@RequestBody ForwardedCall call) {
+        log.debug("Forwarded call: {}", call);
+
+        // The servlet thread is released while waiting for the station. The handler completes the future in any
+        // case (at the latest after the call timeout), therefore no timeout is set here.
+        var result = new DeferredResult<ForwardedCallResult>(0L);
+        forwardedCallHandler.handle(call).thenAccept(response -> {
+            log.debug("Result of forwarded call: {}", response);
+            result.setResult(response);
+        });
+        return result;
+    }
+}
@@ -19,7 +19,9 @@
 package de.rwth.idsg.steve.web.api;
 
 import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.repository.ChangeCounterRepository;
 import de.rwth.idsg.steve.repository.dto.OcppTag;
+import de.rwth.idsg.steve.repository.impl.ReadReplicaRouter;
 import de.rwth.idsg.steve.service.OcppTagService;
 import de.rwth.idsg.steve.web.api.ApiControllerAdvice.ApiErrorResponse;
 import de.rwth.idsg.steve.web.dto.OcppTagForm;
@@ -40,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -55,21 +58,35 @@ import java.util.List;
 public class OcppTagsRestController {
 
     private final OcppTagService ocppTagService;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final ReadReplicaRouter readReplicaRouter;
 
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 304, message = "Not Modified"),
         @ApiResponse(code = 400, message = "Bad Request", response = ApiErrorResponse.class),
         @ApiResponse(code = 401, message = "Unauthorized", response = ApiErrorResponse.class),
         @ApiResponse(code = 500, message = "Internal Server Error", response = ApiErrorResponse.class)}
     )
     @GetMapping(value = "")
     @ResponseBody
-    public List<OcppTag.Overview> get(OcppTagQueryForm.ForApi params) {
+    public List<OcppTag.Overview> get(@Valid OcppTagQueryForm.ForApi params, ServletWebRequest request) {
         log.debug("Read request for query: {}", params);
 
-        var response = ocppTagService.getOverview(params);
-        log.debug("Read response for query: {}", response);
-        return response;
+        // The tags are read from the primary. So must be the versions for the ETag.
+        return readReplicaRouter.withPrimaryReadContext(() -> {
+            if (!params.isResultTimeDependent()
+                    && ApiResponseHelper.checkNotModified(request, changeCounterRepository.getVersions(), params)) {
+                log.debug("Read response for query: Not modified");
+                return null;
+            }
+
+            var response = ocppTagService.getOverview(params);
+            ApiResponseHelper.addNextLink(request, params.getLimit(), response, OcppTag.Overview::getOcppTagPk);
+
+            log.debug("Read response for query: {}", response);
+            return response;
+        });
     }
 
     @ApiResponses(value = {
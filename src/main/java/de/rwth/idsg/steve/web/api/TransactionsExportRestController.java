@@ -0,0 +1,119 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.web.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.rwth.idsg.steve.repository.TransactionRepository;
+import de.rwth.idsg.steve.repository.dto.Transaction;
+import de.rwth.idsg.steve.web.api.ApiControllerAdvice.ApiErrorResponse;
+import de.rwth.idsg.steve.web.api.exception.BadRequestException;
+import de.rwth.idsg.steve.web.dto.TransactionQueryForm;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Exports the transactions of a query without holding them in memory: The rows are streamed from the database and
+ * written to the response one by one. Therefore, the size of the result is not limited by the heap.
+ *
+ * Since the response is committed with the first bytes, an error in the middle of the export cannot be reported with
+ * a proper status code anymore. The client sees a truncated response in this case.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/api/v1/transactions/export")
+@RequiredArgsConstructor
+public class TransactionsExportRestController {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    public enum Format {
+        // One JSON object per line, same fields as in /api/v1/transactions
+        NDJSON,
+        // Same columns as in the CSV export of the web pages
+        CSV
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 400, message = "Bad Request", response = ApiErrorResponse.class),
+        @ApiResponse(code = 401, message = "Unauthorized", response = ApiErrorResponse.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ApiErrorResponse.class)}
+    )
+    @GetMapping(value = "")
+    public void export(@Valid TransactionQueryForm.ForApi params,
+                       @RequestParam(value = "format", defaultValue = "NDJSON") Format format,
+                       HttpServletResponse response) throws IOException {
+        log.debug("Export request for query: {} (format: {})", params, format);
+
+        if (params.isReturnCSV()) {
+            throw new BadRequestException("returnCSV=true is not supported for API calls. Use format=CSV instead");
+        }
+
+        switch (format) {
+            case NDJSON:
+                response.setContentType(NDJSON_VALUE);
+                response.setCharacterEncoding("UTF-8");
+                writeNdjson(params, response.getWriter());
+                break;
+
+            case CSV:
+                response.setContentType(CSV_VALUE);
+                response.setCharacterEncoding("UTF-8");
+                response.setHeader("Content-Disposition", "attachment; filename=\"transactions.csv\"");
+                transactionRepository.writeTransactionsCSV(params, response.getWriter());
+                break;
+
+            default:
+                throw new BadRequestException("Unknown format: " + format);
+        }
+    }
+
+    private void writeNdjson(TransactionQueryForm params, Writer writer) {
+        ObjectWriter rowWriter = objectMapper.writerFor(Transaction.class);
+
+        transactionRepository.forEachTransaction(params, transaction -> {
+            try {
+                writer.write(rowWriter.writeValueAsString(transaction));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
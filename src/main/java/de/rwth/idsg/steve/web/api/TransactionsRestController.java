@@ -18,8 +18,10 @@
  */
 package de.rwth.idsg.steve.web.api;
 
+import de.rwth.idsg.steve.repository.ChangeCounterRepository;
 import de.rwth.idsg.steve.repository.TransactionRepository;
 import de.rwth.idsg.steve.repository.dto.Transaction;
+import de.rwth.idsg.steve.repository.impl.ReadReplicaRouter;
 import de.rwth.idsg.steve.web.api.ApiControllerAdvice.ApiErrorResponse;
 import de.rwth.idsg.steve.web.api.exception.BadRequestException;
 import de.rwth.idsg.steve.web.dto.TransactionQueryForm;
@@ -32,6 +34,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -47,24 +50,38 @@ import java.util.List;
 public class TransactionsRestController {
 
     private final TransactionRepository transactionRepository;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final ReadReplicaRouter readReplicaRouter;
 
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 304, message = "Not Modified"),
         @ApiResponse(code = 400, message = "Bad Request", response = ApiErrorResponse.class),
         @ApiResponse(code = 401, message = "Unauthorized", response = ApiErrorResponse.class),
         @ApiResponse(code = 500, message = "Internal Server Error", response = ApiErrorResponse.class)}
     )
     @GetMapping(value = "")
     @ResponseBody
-    public List<Transaction> get(@Valid TransactionQueryForm.ForApi params) {
+    public List<Transaction> get(@Valid TransactionQueryForm.ForApi params, ServletWebRequest request) {
         log.debug("Read request for query: {}", params);
 
         if (params.isReturnCSV()) {
             throw new BadRequestException("returnCSV=true is not supported for API calls");
         }
 
-        var response = transactionRepository.getTransactions(params);
-        log.debug("Read response for query: {}", response);
-        return response;
+        // The versions for the ETag and the transactions must be read from the same database
+        return readReplicaRouter.withPinnedReadContext(() -> {
+            if (!params.isResultTimeDependent()
+                    && ApiResponseHelper.checkNotModified(request, changeCounterRepository.getVersions(), params)) {
+                log.debug("Read response for query: Not modified");
+                return null;
+            }
+
+            var response = transactionRepository.getTransactions(params);
+            ApiResponseHelper.addNextLink(request, params.getLimit(), response, Transaction::getId);
+
+            log.debug("Read response for query: {}", response);
+            return response;
+        });
     }
 }
@@ -21,6 +21,7 @@ package de.rwth.idsg.steve.web.controller;
 import de.rwth.idsg.steve.NotificationFeature;
 import de.rwth.idsg.steve.repository.GenericRepository;
 import de.rwth.idsg.steve.repository.SettingsRepository;
+import de.rwth.idsg.steve.repository.impl.QueryStatistics;
 import de.rwth.idsg.steve.service.MailService;
 import de.rwth.idsg.steve.service.ReleaseCheckService;
 import de.rwth.idsg.steve.web.dto.EndpointInfo;
@@ -53,6 +54,7 @@ public class AboutSettingsController {
     @Autowired private SettingsRepository settingsRepository;
     @Autowired private MailService mailService;
     @Autowired private ReleaseCheckService releaseCheckService;
+    @Autowired private QueryStatistics queryStatistics;
 
     // -------------------------------------------------------------------------
     // Paths
@@ -74,6 +76,9 @@ public class AboutSettingsController {
         model.addAttribute("systemTimeZone", DateTimeZone.getDefault());
         model.addAttribute("releaseReport", releaseCheckService.check());
         model.addAttribute("endpointInfo", EndpointInfo.INSTANCE);
+        model.addAttribute("slowestQueries", queryStatistics.getSlowest(QueryStatistics.TOP_COUNT));
+        model.addAttribute("slowQueryThresholdMillis", CONFIG.getDb().getSlowQueryThresholdMillis());
+        model.addAttribute("slowQueryLogBindValues", CONFIG.getDb().isSlowQueryLogBindValues());
         return "about";
     }
 
@@ -94,7 +99,6 @@ public class AboutSettingsController {
         }
 
         settingsRepository.update(settingsForm);
-        mailService.loadSettingsFromDB();
         return "redirect:/manager/settings";
     }
 
@@ -107,7 +111,6 @@ public class AboutSettingsController {
         }
 
         settingsRepository.update(settingsForm);
-        mailService.loadSettingsFromDB();
         mailService.sendTestMail();
 
         return "redirect:/manager/settings";
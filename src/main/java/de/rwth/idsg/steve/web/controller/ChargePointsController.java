@@ -19,6 +19,7 @@
 package de.rwth.idsg.steve.web.controller;
 
 import de.rwth.idsg.steve.ocpp.OcppProtocol;
+import de.rwth.idsg.steve.ocpp.ws.HandshakeAdmissionController;
 import de.rwth.idsg.steve.repository.ChargePointRepository;
 import de.rwth.idsg.steve.repository.dto.ChargePoint;
 import de.rwth.idsg.steve.service.ChargePointHelperService;
@@ -54,6 +55,7 @@ public class ChargePointsController {
 
     @Autowired protected ChargePointRepository chargePointRepository;
     @Autowired protected ChargePointHelperService chargePointHelperService;
+    @Autowired protected HandshakeAdmissionController handshakeAdmissionController;
 
     protected static final String PARAMS = "params";
 
@@ -178,12 +180,15 @@ public class ChargePointsController {
         }
 
         chargePointRepository.updateChargePoint(chargePointForm);
+        handshakeAdmissionController.invalidateRegistrationStatus(chargePointForm.getChargeBoxId());
         return toOverview();
     }
 
     @RequestMapping(value = DELETE_PATH, method = RequestMethod.POST)
     public String delete(@PathVariable("chargeBoxPk") int chargeBoxPk) {
         chargePointRepository.deleteChargePoint(chargeBoxPk);
+        // we only know the pk here, and deletes are rare
+        handshakeAdmissionController.invalidateRegistrationStatuses();
         return toOverview();
     }
 
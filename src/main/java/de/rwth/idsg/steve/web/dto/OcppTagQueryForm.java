@@ -24,6 +24,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import java.util.Objects;
 
 /**
@@ -53,6 +55,15 @@ public class OcppTagQueryForm {
     @ApiModelProperty(value = "Return blocked, not blocked, or all Ocpp tags? Defaults to ALL")
     private BooleanType blocked = BooleanType.FALSE;
 
+    @ApiModelProperty(value = "For paging: Return only the OCPP tags after this one in the order of the result, "
+            + "i.e. with a greater database primary key. The 'next' link of the response sets it")
+    private Integer afterId;
+
+    @ApiModelProperty(value = "For paging: Return at most so many OCPP tags. Defaults to all")
+    @Min(value = 1, message = "Limit must be at least {value}")
+    @Max(value = 10000, message = "Limit must be at most {value}")
+    private Integer limit;
+
     @ApiModelProperty(hidden = true)
     public boolean isOcppTagPkSet() {
         return ocppTagPk != null;
@@ -68,6 +79,24 @@ public class OcppTagQueryForm {
         return parentIdTag != null;
     }
 
+    @ApiModelProperty(hidden = true)
+    public boolean isAfterIdSet() {
+        return afterId != null;
+    }
+
+    @ApiModelProperty(hidden = true)
+    public boolean isLimitSet() {
+        return limit != null;
+    }
+
+    /**
+     * Tags expire as time goes by, without any change in the data
+     */
+    @ApiModelProperty(hidden = true)
+    public boolean isResultTimeDependent() {
+        return getExpired() != BooleanType.ALL;
+    }
+
     public BooleanType getExpired() {
         return Objects.requireNonNullElse(expired, BooleanType.ALL);
     }
@@ -25,6 +25,8 @@ import lombok.Setter;
 import lombok.ToString;
 
 import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import java.util.Objects;
 
 /**
@@ -49,6 +51,15 @@ public class TransactionQueryForm extends QueryForm {
     @ApiModelProperty(value = "Return the time period of the transactions. If FROM_TO, 'from' and 'to' must be set. Additionally, 'to' must be after 'from'. Defaults to ALL")
     private QueryPeriodType periodType = QueryPeriodType.ALL;
 
+    @ApiModelProperty(value = "For paging: Return only the transactions after this one in the order of the result, "
+            + "i.e. with a smaller transaction id. The 'next' link of the response sets it")
+    private Integer afterId;
+
+    @ApiModelProperty(value = "For paging: Return at most so many transactions. Defaults to all")
+    @Min(value = 1, message = "Limit must be at least {value}")
+    @Max(value = 10000, message = "Limit must be at most {value}")
+    private Integer limit;
+
     @ApiModelProperty(hidden = true)
     @AssertTrue(message = "The values 'From' and 'To' must be both set")
     public boolean isPeriodFromToCorrect() {
@@ -60,6 +71,24 @@ public class TransactionQueryForm extends QueryForm {
         return transactionPk != null;
     }
 
+    @ApiModelProperty(hidden = true)
+    public boolean isAfterIdSet() {
+        return afterId != null;
+    }
+
+    @ApiModelProperty(hidden = true)
+    public boolean isLimitSet() {
+        return limit != null;
+    }
+
+    /**
+     * The periods relative to today select different transactions as time goes by, without any change in the data
+     */
+    @ApiModelProperty(hidden = true)
+    public boolean isResultTimeDependent() {
+        return getPeriodType() != QueryPeriodType.ALL && getPeriodType() != QueryPeriodType.FROM_TO;
+    }
+
     public QueryType getType() {
         return Objects.requireNonNullElse(type, QueryType.ALL);
     }
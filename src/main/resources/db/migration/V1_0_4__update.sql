@@ -0,0 +1,9 @@
+-- Which node of a cluster holds the WebSocket connection of a station
+CREATE TABLE `station_directory` (
+    `charge_box_id` VARCHAR(255) NOT NULL,
+    `node_id` VARCHAR(255) NOT NULL,
+    `ocpp_version` VARCHAR(8) NOT NULL,
+    `connected_at` TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (`charge_box_id`),
+    INDEX `station_directory_node_id_idx` (`node_id`)
+);
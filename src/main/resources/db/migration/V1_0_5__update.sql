@@ -0,0 +1,22 @@
+-- The latest entry of connector_status per connector, so that reads do not have to scan the whole log
+CREATE TABLE `connector_status_latest` (
+    `connector_pk` INT(11) UNSIGNED NOT NULL,
+    `status_timestamp` TIMESTAMP(6) NOT NULL,
+    `status` VARCHAR(255) NULL DEFAULT NULL,
+    `error_code` VARCHAR(255) NULL DEFAULT NULL,
+    `error_info` VARCHAR(255) NULL DEFAULT NULL,
+    `vendor_id` VARCHAR(255) NULL DEFAULT NULL,
+    `vendor_error_code` VARCHAR(255) NULL DEFAULT NULL,
+    PRIMARY KEY (`connector_pk`),
+    INDEX `connector_status_latest_st_idx` (`status_timestamp`),
+    CONSTRAINT `FK_csl_connector_pk` FOREIGN KEY (`connector_pk`)
+        REFERENCES `connector` (`connector_pk`) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
+-- If there are multiple entries with the latest timestamp, any of them wins (same as before)
+INSERT IGNORE INTO `connector_status_latest`
+    (`connector_pk`, `status_timestamp`, `status`, `error_code`, `error_info`, `vendor_id`, `vendor_error_code`)
+SELECT cs.connector_pk, cs.status_timestamp, cs.status, cs.error_code, cs.error_info, cs.vendor_id, cs.vendor_error_code
+FROM connector_status cs
+    INNER JOIN (SELECT connector_pk, MAX(status_timestamp) AS max_ts FROM connector_status GROUP BY connector_pk) AS t1
+        ON cs.connector_pk = t1.connector_pk AND cs.status_timestamp = t1.max_ts;
@@ -0,0 +1,3 @@
+-- Incremented with each update, so that the nodes of a cluster can detect changes without reading the whole row
+ALTER TABLE `settings`
+    ADD COLUMN `version` INT UNSIGNED NOT NULL DEFAULT 0;
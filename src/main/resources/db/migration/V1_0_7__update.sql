@@ -0,0 +1,30 @@
+-- The transactions without a stop event, so that queries for active transactions do not have to go through the
+-- view `transaction` (i.e. all transaction_start rows joined with transaction_stop)
+CREATE TABLE `active_transaction` (
+    `transaction_pk` INT(10) UNSIGNED NOT NULL,
+    `connector_pk` INT(11) UNSIGNED NOT NULL,
+    `id_tag` VARCHAR(255) NOT NULL,
+    PRIMARY KEY (`transaction_pk`),
+    INDEX `active_transaction_connector_pk_idx` (`connector_pk`),
+    INDEX `active_transaction_id_tag_idx` (`id_tag`),
+    CONSTRAINT `FK_active_transaction_transaction_pk` FOREIGN KEY (`transaction_pk`)
+        REFERENCES `transaction_start` (`transaction_pk`) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
+INSERT INTO `active_transaction` (`transaction_pk`, `connector_pk`, `id_tag`)
+SELECT tx1.transaction_pk, tx1.connector_pk, tx1.id_tag
+FROM transaction_start tx1
+WHERE NOT EXISTS (SELECT 1 FROM transaction_stop tx2 WHERE tx2.transaction_pk = tx1.transaction_pk);
+
+CREATE OR REPLACE VIEW ocpp_tag_activity AS
+    SELECT
+      ocpp_tag.*,
+      COALESCE(tx_activity.active_transaction_count, 0) as 'active_transaction_count',
+      CASE WHEN (active_transaction_count > 0) THEN TRUE ELSE FALSE END AS 'in_transaction',
+      CASE WHEN (ocpp_tag.max_active_transaction_count = 0) THEN TRUE ELSE FALSE END AS 'blocked'
+    FROM ocpp_tag
+    LEFT JOIN
+    (SELECT id_tag, count(id_tag) as 'active_transaction_count'
+      FROM active_transaction
+      GROUP BY id_tag) tx_activity
+    ON ocpp_tag.id_tag = tx_activity.id_tag;
@@ -0,0 +1,79 @@
+-- Aggregates of the meter values of a transaction that are maintained when the meter values are written, so that
+-- the last energy register reading etc. can be read without scanning connector_meter_value.
+-- Energy and power values are normalized to Wh and W.
+CREATE TABLE `transaction_energy_summary` (
+    `transaction_pk` INT(10) UNSIGNED NOT NULL,
+    `first_energy_value` DECIMAL(20,3) NULL DEFAULT NULL,
+    `first_energy_timestamp` TIMESTAMP(6) NULL DEFAULT NULL,
+    `last_energy_value` DECIMAL(20,3) NULL DEFAULT NULL,
+    `last_energy_timestamp` TIMESTAMP(6) NULL DEFAULT NULL,
+    `max_power_value` DECIMAL(20,3) NULL DEFAULT NULL,
+    `sample_count` INT(11) UNSIGNED NOT NULL DEFAULT 0,
+    `last_value_timestamp` TIMESTAMP(6) NULL DEFAULT NULL,
+    PRIMARY KEY (`transaction_pk`),
+    CONSTRAINT `FK_transaction_energy_summary_transaction_pk` FOREIGN KEY (`transaction_pk`)
+        REFERENCES `transaction_start` (`transaction_pk`) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
+--
+-- Backfill from the existing meter values that have a transaction_pk.
+-- Same rules as in the application: a value without any optional fields is an energy register reading in Wh.
+-- Signed and non-numeric values are skipped, and so are the ones that do not fit into DECIMAL(20,3) after the
+-- conversion to Wh or W. The only difference: exponents are limited to two digits here, so that the conversion to
+-- DOUBLE for the range check cannot overflow. Meters do not send such values in practice.
+--
+
+INSERT INTO `transaction_energy_summary` (`transaction_pk`, `sample_count`, `last_value_timestamp`)
+SELECT mv.transaction_pk, COUNT(*), MAX(mv.value_timestamp)
+FROM connector_meter_value mv
+WHERE mv.transaction_pk IS NOT NULL
+GROUP BY mv.transaction_pk;
+
+CREATE TABLE `tmp_summary_value` (
+    `transaction_pk` INT(10) UNSIGNED NOT NULL,
+    `value_timestamp` TIMESTAMP(6) NULL DEFAULT NULL,
+    `is_energy` BOOLEAN NOT NULL,
+    `value` DECIMAL(20,3) NOT NULL,
+    INDEX (`transaction_pk`, `is_energy`, `value_timestamp`)
+);
+
+INSERT INTO `tmp_summary_value` (`transaction_pk`, `value_timestamp`, `is_energy`, `value`)
+SELECT mv.transaction_pk,
+       mv.value_timestamp,
+       mv.measurand IS NULL OR mv.measurand = 'Energy.Active.Import.Register',
+       CAST(mv.value AS DECIMAL(20,3)) * (CASE WHEN mv.unit IN ('kWh', 'kW') THEN 1000 ELSE 1 END)
+FROM connector_meter_value mv
+WHERE mv.transaction_pk IS NOT NULL
+  AND mv.value REGEXP '^[+-]?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)([eE][+-]?[0-9]{1,2})?$'
+  -- Only evaluated for the numeric ones, so that there is no conversion warning (an error in strict mode)
+  AND (CASE WHEN mv.value REGEXP '^[+-]?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)([eE][+-]?[0-9]{1,2})?$'
+            THEN ABS((mv.value + 0E0) * (CASE WHEN mv.unit IN ('kWh', 'kW') THEN 1000 ELSE 1 END)) < 1e17
+            ELSE FALSE END)
+  AND (
+        (mv.reading_context IS NULL AND mv.format IS NULL AND mv.measurand IS NULL
+            AND mv.location IS NULL AND mv.unit IS NULL AND mv.phase IS NULL)
+     OR ((mv.format IS NULL OR mv.format <> 'SignedData')
+            AND mv.measurand = 'Energy.Active.Import.Register' AND mv.unit IN ('Wh', 'kWh'))
+     OR ((mv.format IS NULL OR mv.format <> 'SignedData')
+            AND mv.measurand = 'Power.Active.Import' AND mv.unit IN ('W', 'kW') AND mv.phase IS NULL)
+  );
+
+UPDATE transaction_energy_summary s
+JOIN (SELECT transaction_pk, MIN(value_timestamp) AS first_ts, MAX(value_timestamp) AS last_ts
+      FROM tmp_summary_value
+      WHERE is_energy
+      GROUP BY transaction_pk) b ON b.transaction_pk = s.transaction_pk
+SET s.first_energy_timestamp = b.first_ts,
+    s.last_energy_timestamp = b.last_ts;
+
+UPDATE transaction_energy_summary s
+SET s.first_energy_value = (SELECT MIN(v.value) FROM tmp_summary_value v
+                            WHERE v.transaction_pk = s.transaction_pk AND v.is_energy
+                              AND v.value_timestamp = s.first_energy_timestamp),
+    s.last_energy_value = (SELECT MAX(v.value) FROM tmp_summary_value v
+                           WHERE v.transaction_pk = s.transaction_pk AND v.is_energy
+                             AND v.value_timestamp = s.last_energy_timestamp),
+    s.max_power_value = (SELECT MAX(v.value) FROM tmp_summary_value v
+                         WHERE v.transaction_pk = s.transaction_pk AND NOT v.is_energy);
+
+DROP TABLE `tmp_summary_value`;
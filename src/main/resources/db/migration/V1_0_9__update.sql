@@ -0,0 +1,9 @@
+-- Incremented by the application with every change of the data behind a table, so that API clients can ask whether
+-- anything changed (ETag / If-None-Match) without the server running the actual query
+CREATE TABLE `change_counter` (
+    `table_name` VARCHAR(64) NOT NULL,
+    `version` BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (`table_name`)
+);
+
+INSERT INTO `change_counter` (`table_name`) VALUES ('transaction'), ('ocpp_tag');
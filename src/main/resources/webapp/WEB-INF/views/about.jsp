@@ -19,6 +19,11 @@
 
 --%>
 <%@ include file="00-header.jsp" %>
+<script type="text/javascript">
+    $(document).ready(function() {
+        <%@ include file="snippets/sortable.js" %>
+    });
+</script>
 <div class="content">
 <section><span>About SteVe</span></section>
     <c:if test="${releaseReport.moreRecent}">
@@ -47,5 +52,42 @@
         </tr>
     </tr>
     </table>
+<section><span>
+Slowest Queries
+    <a class="tooltip" href="#"><img src="${ctxPath}/static/images/info.png" style="vertical-align:middle">
+        <span>The SQL statements with the highest mean execution time since the start of SteVe. The percentiles are
+            estimated from a histogram.
+            <c:if test="${slowQueryThresholdMillis > 0}">Statements that take longer than ${slowQueryThresholdMillis} ms
+                are logged<c:if test="${!slowQueryLogBindValues}"> (without their bind values)</c:if>.
+            </c:if></span>
+    </a>
+</span></section>
+    <table class="res">
+        <thead>
+            <tr>
+                <th data-sort="string">Statement</th>
+                <th data-sort="int">Count</th>
+                <th data-sort="float">Mean (ms)</th>
+                <th data-sort="float">p95 (ms)</th>
+                <th data-sort="float">Max (ms)</th>
+                <th data-sort="float">Total (ms)</th>
+                <th data-sort="int">Rows</th>
+                <th data-sort="int">Slow</th>
+            </tr>
+        </thead>
+        <tbody>
+        <c:forEach items="${slowestQueries}" var="q">
+            <tr><td><c:out value="${q.fingerprint}"/></td>
+                <td>${q.count}</td>
+                <td>${q.meanMillis}</td>
+                <td>${q.p95Millis}</td>
+                <td>${q.maxMillis}</td>
+                <td>${q.totalMillis}</td>
+                <td>${q.rows}</td>
+                <td>${q.slowCount}</td>
+            </tr>
+        </c:forEach>
+        </tbody>
+    </table>
 </div>
 <%@ include file="00-footer.jsp" %>
\ No newline at end of file
@@ -38,6 +38,12 @@
             <tr><td>Stop Value</td><td>${details.transaction.stopValue}</td></tr>
             <tr><td>Stop Reason</td><td>${details.transaction.stopReason}</td></tr>
             <tr><td>Stop Event Actor</td><td>${details.transaction.stopEventActor}</td></tr>
+            <c:if test="${not empty details.energySummary}">
+            <tr><td>Last Energy Value (Wh)</td><td>${details.energySummary.lastEnergyValue}</td></tr>
+            <tr><td>Last Energy Date/Time</td><td>${details.energySummary.lastEnergyTimestamp}</td></tr>
+            <tr><td>Max Power (W)</td><td>${details.energySummary.maxPowerValue}</td></tr>
+            <tr><td>Meter Value Count</td><td>${details.energySummary.sampleCount}</td></tr>
+            </c:if>
         </table>
     </center>
     <br>
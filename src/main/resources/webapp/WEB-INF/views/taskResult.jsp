@@ -37,6 +37,7 @@
             <tr><td>Start timestamp</td><td>${task.startTimestamp}</td></tr>
             <tr><td>End timestamp</td><td>${task.endTimestamp}</td></tr>
             <tr><td># of charge point requests</td><td>${task.resultMap.size()}</td></tr>
+            <tr><td># of dispatched requests</td><td>${task.dispatchedCount}</td></tr>
             <tr><td># of responses</td><td>${task.responseCount}</td></tr>
             <tr><td># of errors</td><td>${task.errorCount}</td></tr>
         </table>
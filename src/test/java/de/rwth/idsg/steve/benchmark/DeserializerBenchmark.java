@@ -0,0 +1,132 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16TypeStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the payload binding of incoming CALLs in {@link de.rwth.idsg.steve.ocpp.ws.pipeline.Deserializer}:
+ * the former way of building a JsonNode tree first and converting it to the JAXB class afterwards vs. binding the
+ * payload directly from the stream with a precompiled ObjectReader.
+ *
+ * Run the main method (or "java -jar" with the JMH uber jar) and compare the scores and, with "-prof gc",
+ * the allocation rates of both.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializerBenchmark {
+
+    private static final String METER_VALUES = "[2,\"4f8b1c3e-5b0e-4f0e-9d7a-3c2f1b0a9e8d\",\"MeterValues\",{"
+        + "\"connectorId\":1,\"transactionId\":1234,\"meterValue\":[{\"timestamp\":\"2023-10-18T12:00:00.000Z\","
+        + "\"sampledValue\":["
+        + "{\"value\":\"12345.6\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Energy.Active.Import.Register\",\"location\":\"Outlet\",\"unit\":\"Wh\"},"
+        + "{\"value\":\"11000\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Power.Active.Import\",\"location\":\"Outlet\",\"unit\":\"W\"},"
+        + "{\"value\":\"16.1\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Current.Import\",\"phase\":\"L1\",\"location\":\"Outlet\",\"unit\":\"A\"},"
+        + "{\"value\":\"16.0\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Current.Import\",\"phase\":\"L2\",\"location\":\"Outlet\",\"unit\":\"A\"},"
+        + "{\"value\":\"15.9\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Current.Import\",\"phase\":\"L3\",\"location\":\"Outlet\",\"unit\":\"A\"},"
+        + "{\"value\":\"230.2\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Voltage\",\"phase\":\"L1-N\",\"location\":\"Outlet\",\"unit\":\"V\"},"
+        + "{\"value\":\"54\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"SoC\",\"location\":\"EV\",\"unit\":\"Percent\"}"
+        + "]}]}]";
+
+    private static final String STATUS_NOTIFICATION = "[2,\"7d1e9a2b-3c4d-4e5f-8a9b-0c1d2e3f4a5b\",\"StatusNotification\",{"
+        + "\"connectorId\":2,\"errorCode\":\"NoError\",\"status\":\"Charging\",\"timestamp\":\"2023-10-18T12:00:00.000Z\","
+        + "\"info\":\"\",\"vendorId\":\"vendor\",\"vendorErrorCode\":\"\"}]";
+
+    private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+
+    @Param({"MeterValues", "StatusNotification"})
+    private String action;
+
+    private String frame;
+    private Class<? extends RequestType> requestClass;
+    private ObjectReader reader;
+
+    @Setup
+    public void setup() {
+        frame = "MeterValues".equals(action) ? METER_VALUES : STATUS_NOTIFICATION;
+        requestClass = Ocpp16TypeStore.INSTANCE.findRequestClass(action);
+        reader = Ocpp16TypeStore.INSTANCE.findRequestReader(action);
+    }
+
+    @Benchmark
+    public RequestType treeBased() throws IOException {
+        try (JsonParser parser = moveToPayload()) {
+            JsonNode payload = parser.readValueAsTree();
+            return mapper.treeToValue(payload, requestClass);
+        }
+    }
+
+    @Benchmark
+    public RequestType directBinding() throws IOException {
+        try (JsonParser parser = moveToPayload()) {
+            return reader.readValue(parser);
+        }
+    }
+
+    /**
+     * Same steps as in the Deserializer: '[', messageTypeNr, messageId, action, and then the cursor is at payload
+     */
+    private JsonParser moveToPayload() throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(frame);
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        return parser;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(DeserializerBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(opt).run();
+    }
+}
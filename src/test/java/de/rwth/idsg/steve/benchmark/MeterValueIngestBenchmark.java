@@ -0,0 +1,144 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.benchmark;
+
+import de.rwth.idsg.steve.config.BeanConfiguration;
+import de.rwth.idsg.steve.repository.impl.ConnectorPkCache;
+import de.rwth.idsg.steve.repository.impl.MeterValueIngestQueue;
+import jooq.steve.db.tables.records.ChargeBoxRecord;
+import ocpp.cs._2015._10.Measurand;
+import ocpp.cs._2015._10.MeterValue;
+import ocpp.cs._2015._10.SampledValue;
+import ocpp.cs._2015._10.UnitOfMeasure;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep1;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
+
+/**
+ * Compares the throughput of MeterValues ingestion in {@link MeterValueIngestQueue}: one transaction per message
+ * (DIRECT, which is the former way) vs. group commits, where the caller waits for the commit (COMMIT) or only for
+ * the enqueue (ENQUEUE). Many threads stand in for the mailboxes of many stations.
+ *
+ * Needs the database of the test profile, like the other tests that use __DatabasePreparer__. The stations are
+ * inserted before and deleted after the run.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(32)
+@Fork(1)
+public class MeterValueIngestBenchmark {
+
+    private static final String CHARGE_BOX_ID_PREFIX = "benchmark_meter_values_";
+    private static final int NUMBER_OF_STATIONS = 1000;
+
+    @Param({"DIRECT", "COMMIT", "ENQUEUE"})
+    private MeterValueIngestQueue.Mode mode;
+
+    private DSLContext ctx;
+    private MeterValueIngestQueue queue;
+    private List<MeterValue> meterValues;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = new BeanConfiguration().dslContext();
+
+        InsertValuesStep1<ChargeBoxRecord, String> insert = ctx.insertInto(CHARGE_BOX, CHARGE_BOX.CHARGE_BOX_ID);
+        for (int i = 0; i < NUMBER_OF_STATIONS; i++) {
+            insert = insert.values(CHARGE_BOX_ID_PREFIX + i);
+        }
+        insert.onDuplicateKeyIgnore().execute();
+
+        queue = new MeterValueIngestQueue(ctx, new ConnectorPkCache(ctx), mode, 1000, 20, 10000);
+
+        // A typical periodic sample of an AC station
+        meterValues = Collections.singletonList(
+            new MeterValue().withTimestamp(DateTime.now())
+                            .withSampledValue(
+                                sample("12345.6", Measurand.ENERGY_ACTIVE_IMPORT_REGISTER, UnitOfMeasure.WH),
+                                sample("11000", Measurand.POWER_ACTIVE_IMPORT, UnitOfMeasure.W),
+                                sample("16.1", Measurand.CURRENT_IMPORT, UnitOfMeasure.A),
+                                sample("16.0", Measurand.CURRENT_IMPORT, UnitOfMeasure.A),
+                                sample("15.9", Measurand.CURRENT_IMPORT, UnitOfMeasure.A),
+                                sample("230.2", Measurand.VOLTAGE, UnitOfMeasure.V),
+                                sample("54", Measurand.SO_C, UnitOfMeasure.PERCENT))
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queue.shutDown();
+
+        // Connectors and their meter values are deleted as well (on delete cascade)
+        ctx.deleteFrom(CHARGE_BOX)
+           .where(CHARGE_BOX.CHARGE_BOX_ID.startsWith(CHARGE_BOX_ID_PREFIX))
+           .execute();
+    }
+
+    @Benchmark
+    public void insert() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String chargeBoxId = CHARGE_BOX_ID_PREFIX + random.nextInt(NUMBER_OF_STATIONS);
+
+        queue.insert(chargeBoxId, meterValues, 1 + random.nextInt(2), null);
+    }
+
+    private static SampledValue sample(String value, Measurand measurand, UnitOfMeasure unit) {
+        return new SampledValue().withValue(value)
+                                 .withMeasurand(measurand)
+                                 .withUnit(unit);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(MeterValueIngestBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class BulkheadsTest {
+
+    private final Bulkheads bulkheads = new Bulkheads();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void destroy() {
+        release.countDown();
+        bulkheads.shutDown();
+    }
+
+    @Test
+    public void testAbort() {
+        ExecutorService executor = fill(Bulkheads.Rejection.ABORT);
+
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        Assertions.assertEquals(1, bulkheads.getMetrics().getExecutors().get("test").getRejected());
+    }
+
+    @Test
+    public void testDiscard() {
+        ExecutorService executor = fill(Bulkheads.Rejection.DISCARD);
+
+        AtomicBoolean ran = new AtomicBoolean();
+        executor.execute(() -> ran.set(true));
+
+        Assertions.assertFalse(ran.get());
+        Assertions.assertEquals(1, bulkheads.getMetrics().getExecutors().get("test").getRejected());
+    }
+
+    @Test
+    public void testCallerRuns() {
+        ExecutorService executor = fill(Bulkheads.Rejection.CALLER_RUNS);
+
+        Thread caller = Thread.currentThread();
+        AtomicBoolean ranByCaller = new AtomicBoolean();
+        executor.execute(() -> ranByCaller.set(Thread.currentThread() == caller));
+
+        Assertions.assertTrue(ranByCaller.get());
+    }
+
+    @Test
+    public void testMetrics() {
+        fill(Bulkheads.Rejection.ABORT);
+
+        Bulkheads.ExecutorStats stats = bulkheads.getMetrics().getExecutors().get("test");
+        Assertions.assertEquals(1, stats.getThreads());
+        Assertions.assertEquals(1, stats.getQueued());
+        Assertions.assertEquals(1, stats.getQueueCapacity());
+    }
+
+    /**
+     * One thread that is blocked and a full queue
+     */
+    private ExecutorService fill(Bulkheads.Rejection rejection) {
+        ExecutorService executor = bulkheads.newExecutor("test", 1, 1, rejection);
+
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        awaitQuietly(started);
+        executor.execute(this::awaitRelease);
+        return executor;
+    }
+
+    private void awaitRelease() {
+        awaitQuietly(release);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class WebWorkloadRoutingTest {
+
+    private final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    private final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+    private final Connection ocppConnection = Mockito.mock(Connection.class);
+    private final Connection webConnection = Mockito.mock(Connection.class);
+
+    private final WebWorkloadRouting routing = new WebWorkloadRouting();
+    private final DataSource dataSource;
+
+    public WebWorkloadRoutingTest() throws Exception {
+        DataSource ocppPool = Mockito.mock(DataSource.class);
+        DataSource webPool = Mockito.mock(DataSource.class);
+        Mockito.when(ocppPool.getConnection()).thenReturn(ocppConnection);
+        Mockito.when(webPool.getConnection()).thenReturn(webConnection);
+
+        dataSource = routing.route(ocppPool, webPool);
+    }
+
+    @Test
+    public void testOcppPoolOutsideOfWebRequests() throws Exception {
+        Assertions.assertSame(ocppConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testWebPoolWithinWebRequest() throws Exception {
+        routing.preHandle(request, response, new Object());
+        try {
+            Assertions.assertSame(webConnection, dataSource.getConnection());
+
+            // The work the request passes to other threads is not part of it
+            Connection other = CompletableFuture.supplyAsync(this::getConnection).get();
+            Assertions.assertSame(ocppConnection, other);
+        } finally {
+            routing.afterCompletion(request, response, new Object(), null);
+        }
+
+        Assertions.assertSame(ocppConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testAsyncRequestReleasesThread() throws Exception {
+        routing.preHandle(request, response, new Object());
+        routing.afterConcurrentHandlingStarted(request, response, new Object());
+
+        Assertions.assertFalse(routing.isWebRequest());
+        Assertions.assertSame(ocppConnection, dataSource.getConnection());
+    }
+
+    private Connection getConnection() {
+        try {
+            return dataSource.getConnection();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
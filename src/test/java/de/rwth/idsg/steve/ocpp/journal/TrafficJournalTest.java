@@ -0,0 +1,176 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.journal;
+
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.journal.JournalRecord.Direction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class TrafficJournalTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private final AtomicLong clock = new AtomicLong(START);
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        try (TrafficJournal journal = new TrafficJournal(dir, 1024, clock::get)) {
+            journal.append(Direction.IN, OcppTransport.JSON, "cp1", "s1", "[2,\"1\",\"Heartbeat\",{}]");
+            clock.addAndGet(10);
+            journal.append(Direction.OUT, OcppTransport.JSON, "cp1", "s1", "[3,\"1\",{\"currentTime\":\"ü\"}]");
+        }
+
+        List<JournalRecord> records = readAll(null, Long.MIN_VALUE, Long.MAX_VALUE);
+        Assertions.assertEquals(2, records.size());
+
+        JournalRecord first = records.get(0);
+        Assertions.assertEquals(START, first.getTimestamp());
+        Assertions.assertEquals(Direction.IN, first.getDirection());
+        Assertions.assertEquals(OcppTransport.JSON, first.getTransport());
+        Assertions.assertEquals("cp1", first.getChargeBoxId());
+        Assertions.assertEquals("s1", first.getSessionId());
+        Assertions.assertEquals("[2,\"1\",\"Heartbeat\",{}]", first.getPayload());
+
+        JournalRecord second = records.get(1);
+        Assertions.assertEquals(START + 10, second.getTimestamp());
+        Assertions.assertEquals(Direction.OUT, second.getDirection());
+        Assertions.assertEquals("[3,\"1\",{\"currentTime\":\"ü\"}]", second.getPayload());
+    }
+
+    @Test
+    public void testRotation() throws IOException {
+        try (TrafficJournal journal = new TrafficJournal(dir, 256, clock::get)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(Direction.IN, OcppTransport.JSON, "cp1", "s1", "message-" + i);
+                clock.addAndGet(1);
+            }
+
+            // larger than a segment
+            journal.append(Direction.IN, OcppTransport.JSON, "cp1", "s1", "x".repeat(1000));
+
+            // after the rotation interval
+            clock.addAndGet(TimeUnit.HOURS.toMillis(1));
+            journal.append(Direction.IN, OcppTransport.JSON, "cp1", "s1", "late");
+
+            Assertions.assertTrue(journal.getStats().getSegmentsCreated() > 3);
+            Assertions.assertEquals(22, journal.getStats().getRecordCount());
+        }
+
+        List<JournalRecord> records = readAll(null, Long.MIN_VALUE, Long.MAX_VALUE);
+        Assertions.assertEquals(22, records.size());
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals("message-" + i, records.get(i).getPayload());
+        }
+        Assertions.assertEquals(1000, records.get(20).getPayload().length());
+        Assertions.assertEquals("late", records.get(21).getPayload());
+    }
+
+    @Test
+    public void testFilter() throws IOException {
+        try (TrafficJournal journal = new TrafficJournal(dir, 256, clock::get)) {
+            for (int i = 0; i < 30; i++) {
+                journal.append(Direction.IN, OcppTransport.JSON, "cp" + (i % 3), "s" + (i % 3), "message-" + i);
+                clock.addAndGet(1000);
+            }
+
+            // SOAP response without chargeBoxIdentity, but within the same exchange as a request of cp1
+            journal.append(Direction.IN, OcppTransport.SOAP, "cp1", "exchange-1", "<request/>");
+            journal.append(Direction.OUT, OcppTransport.SOAP, null, "exchange-1", "<response/>");
+            journal.append(Direction.OUT, OcppTransport.SOAP, null, "exchange-2", "<other-response/>");
+        }
+
+        List<String> station = readAll("cp1", Long.MIN_VALUE, Long.MAX_VALUE).stream()
+                                                                           .map(JournalRecord::getPayload)
+                                                                           .collect(Collectors.toList());
+        Assertions.assertEquals(12, station.size());
+        Assertions.assertEquals("message-1", station.get(0));
+        Assertions.assertEquals("<response/>", station.get(11));
+
+        List<JournalRecord> range = readAll(null, START + 10_000, START + 19_000);
+        Assertions.assertEquals(10, range.size());
+        Assertions.assertEquals("message-10", range.get(0).getPayload());
+        Assertions.assertEquals("message-19", range.get(9).getPayload());
+    }
+
+    @Test
+    public void testRetention() throws IOException {
+        try (TrafficJournal journal = new TrafficJournal(dir, 1024, clock::get)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(Direction.IN, OcppTransport.JSON, "cp1", "s1", "message-" + i);
+                clock.addAndGet(TimeUnit.HOURS.toMillis(1));
+            }
+            Assertions.assertEquals(5, TrafficJournal.listSegments(dir).size());
+
+            // the first two segments end before the cutoff
+            journal.deleteExpiredSegments(START + TimeUnit.HOURS.toMillis(2) + 1, Long.MAX_VALUE);
+            Assertions.assertEquals(3, TrafficJournal.listSegments(dir).size());
+
+            // only the current segment fits into the size limit
+            journal.deleteExpiredSegments(0, 1024);
+            Assertions.assertEquals(1, TrafficJournal.listSegments(dir).size());
+
+            journal.append(Direction.IN, OcppTransport.JSON, "cp1", "s1", "after");
+        }
+
+        List<JournalRecord> records = readAll(null, Long.MIN_VALUE, Long.MAX_VALUE);
+        Assertions.assertEquals(2, records.size());
+        Assertions.assertEquals("message-4", records.get(0).getPayload());
+        Assertions.assertEquals("after", records.get(1).getPayload());
+    }
+
+    @Test
+    public void testExportText() throws IOException {
+        try (TrafficJournal journal = new TrafficJournal(dir, 1024, clock::get)) {
+            journal.append(Direction.IN, OcppTransport.JSON, "cp1", "s1", "[2,\"1\",\"Heartbeat\",{}]");
+        }
+
+        StringWriter text = new StringWriter();
+        TrafficJournalExport.export(new TrafficJournalReader(dir), "cp1", Long.MIN_VALUE, Long.MAX_VALUE, false, text);
+        Assertions.assertTrue(text.toString().endsWith(
+            " [chargeBoxId=cp1, sessionId=s1] JSON Received: [2,\"1\",\"Heartbeat\",{}]\n"), text.toString());
+
+        StringWriter json = new StringWriter();
+        TrafficJournalExport.export(new TrafficJournalReader(dir), "cp1", Long.MIN_VALUE, Long.MAX_VALUE, true, json);
+        Assertions.assertTrue(json.toString().contains("\"payload\":\"[2,\\\"1\\\",\\\"Heartbeat\\\",{}]\""), json.toString());
+    }
+
+    private List<JournalRecord> readAll(String chargeBoxId, long from, long to) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        new TrafficJournalReader(dir).read(chargeBoxId, from, to, records::add);
+        return records;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.ocpp.ws.custom.OutboundOverflowStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class BudgetedWebSocketSessionDecoratorTest {
+
+    private static final int KB = 1024;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final CountDownLatch sendStarted = new CountDownLatch(1);
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    @AfterEach
+    public void teardown() {
+        unblock.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLimitGrowsWithinBudgetAndShrinks() throws Exception {
+        OutboundBufferBudget budget = budget(OutboundOverflowStrategy.CLOSE, 1, 8, 1);
+        BudgetedWebSocketSessionDecorator session = blockedSession(budget);
+
+        session.sendMessage(message(KB));
+        Assertions.assertEquals(KB, session.getBufferSizeLimit());
+
+        // needs 2 KB in total: the limit doubles
+        session.sendMessage(message(KB));
+        Assertions.assertEquals(2 * KB, session.getBufferSizeLimit());
+        Assertions.assertEquals(KB, budget.getMetrics().getReservedBytes());
+
+        // needs 5 KB in total: the limit grows to what is needed
+        session.sendMessage(message(3 * KB));
+        Assertions.assertEquals(5 * KB, session.getBufferSizeLimit());
+        Assertions.assertEquals(5 * KB, budget.getMetrics().getBufferedBytes());
+        Assertions.assertEquals(5 * KB, (int) budget.getMetrics().getBufferedBytesByChargeBoxId().get("cb1"));
+
+        session.releaseBudget();
+        Assertions.assertEquals(KB, session.getBufferSizeLimit());
+        Assertions.assertEquals(0, budget.getMetrics().getReservedBytes());
+        Assertions.assertEquals(0, budget.getMetrics().getSessionCount());
+    }
+
+    @Test
+    public void testCloseWhenBudgetIsExhausted() throws Exception {
+        // the session may grow a lot, but the node-wide budget is empty
+        OutboundBufferBudget budget = budget(OutboundOverflowStrategy.CLOSE, 1, 1024 * 1024, 0);
+        BudgetedWebSocketSessionDecorator session = blockedSession(budget);
+
+        session.sendMessage(message(KB));
+        Assertions.assertThrows(SessionLimitExceededException.class, () -> session.sendMessage(message(KB)));
+        Assertions.assertEquals(1, budget.getMetrics().getDeniedCount());
+        Assertions.assertEquals(1, budget.getMetrics().getLimitExceededCount());
+    }
+
+    @Test
+    public void testRejectCalls() throws Exception {
+        OutboundBufferBudget budget = budget(OutboundOverflowStrategy.REJECT_CALLS, 1, 1, 0);
+        BudgetedWebSocketSessionDecorator session = blockedSession(budget);
+
+        Assertions.assertFalse(session.rejectsCall(KB));
+        session.sendMessage(message(KB));
+
+        Assertions.assertTrue(session.rejectsCall(KB));
+        Assertions.assertEquals(1, budget.getMetrics().getRejectedCallCount());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        OutboundBufferBudget budget = budget(OutboundOverflowStrategy.DROP_OLDEST, 1, 1, 0);
+        BudgetedWebSocketSessionDecorator session = blockedSession(budget);
+
+        session.sendMessage(message(KB));
+        session.sendMessage(message(KB));
+
+        Assertions.assertEquals(KB, session.getBufferSize());
+        Assertions.assertFalse(session.rejectsCall(KB));
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private static OutboundBufferBudget budget(OutboundOverflowStrategy strategy, int initialKb, int maxKb,
+                                               int totalMb) {
+        SteveConfiguration.Ocpp config = SteveConfiguration.Ocpp.builder()
+                                                                .wsOutboundBufferInitialKb(initialKb)
+                                                                .wsOutboundBufferMaxKb(maxKb)
+                                                                .wsOutboundBufferTotalMb(totalMb)
+                                                                .wsOutboundOverflowStrategy(strategy)
+                                                                .build();
+        return new OutboundBufferBudget(config);
+    }
+
+    /**
+     * The first message blocks in the delegate, so that the following ones are buffered
+     */
+    private BudgetedWebSocketSessionDecorator blockedSession(OutboundBufferBudget budget) throws Exception {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("session-1");
+        when(delegate.isOpen()).thenReturn(true);
+        when(delegate.getAttributes()).thenReturn(Collections.singletonMap(
+                AbstractWebSocketEndpoint.CHARGEBOX_ID_KEY, "cb1"));
+        doAnswer(invocation -> {
+            sendStarted.countDown();
+            unblock.await();
+            return null;
+        }).when(delegate).sendMessage(any());
+
+        BudgetedWebSocketSessionDecorator session = new BudgetedWebSocketSessionDecorator(delegate, 60_000, budget);
+        executor.submit(() -> {
+            session.sendMessage(message(1));
+            return null;
+        });
+        Assertions.assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+        return session;
+    }
+
+    private static TextMessage message(int length) {
+        return new TextMessage("x".repeat(length));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.ocpp.ws.data.ResponseSink;
+import de.rwth.idsg.steve.ocpp.ws.pipeline.Deserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class FutureResponseContextStoreTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(Runnable::run, 10, TimeUnit.MILLISECONDS, 64);
+
+    private FutureResponseContextStore store;
+    private WebSocketSession session;
+    private ResponseSink sink;
+
+    @BeforeEach
+    public void init() {
+        SteveConfiguration.Ocpp config = SteveConfiguration.Ocpp.builder()
+                                                                .callTimeoutSeconds(1)
+                                                                .callTimeoutOverrides(Map.of("Slow", 60))
+                                                                .maxPendingCallsPerSession(2)
+                                                                .build();
+        store = new FutureResponseContextStore(timer, config);
+
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+
+        sink = mock(ResponseSink.class);
+
+        store.addSession(session);
+    }
+
+    @AfterEach
+    public void teardown() {
+        timer.shutDown();
+    }
+
+    @Test
+    public void testResponseBeforeTimeout() {
+        FutureResponseContext context = new FutureResponseContext(sink, null, "cp1", "Reset");
+        store.add(session, "id-1", context);
+
+        Assertions.assertEquals(1, store.getMetrics().getPendingCount());
+        Assertions.assertSame(context, store.get(session, "id-1"));
+        Assertions.assertNull(store.get(session, "id-1"));
+
+        verify(sink, after(1500).never()).onFailure(eq("cp1"), any());
+        Assertions.assertEquals(0, store.getMetrics().getTimedOutCount());
+    }
+
+    @Test
+    public void testTimeout() {
+        store.add(session, "id-1", new FutureResponseContext(sink, null, "cp1", "Reset"));
+        store.add(session, "id-2", new FutureResponseContext(sink, null, "cp1", "Slow"));
+
+        ArgumentCaptor<Exception> captor = ArgumentCaptor.forClass(Exception.class);
+        verify(sink, timeout(3000)).onFailure(eq("cp1"), captor.capture());
+        Assertions.assertTrue(captor.getValue().getMessage().contains("1 seconds"));
+
+        Assertions.assertNull(store.get(session, "id-1"));
+        Assertions.assertEquals(1, store.getMetrics().getTimedOutCount());
+        Assertions.assertEquals(Collections.singletonMap("Slow", 1), store.getMetrics().getPendingByAction());
+    }
+
+    @Test
+    public void testLateResponseAfterTimeout() throws Exception {
+        store.add(session, "id-1", new FutureResponseContext(sink, null, "cp1", "Reset"));
+        store.add(session, "id-2", new FutureResponseContext(sink, null, "cp1", "Reset"));
+        verify(sink, timeout(3000).times(2)).onFailure(eq("cp1"), any());
+
+        Deserializer deserializer = new Deserializer(store, mock(TypeStore.class));
+
+        CommunicationContext result = new CommunicationContext(session, "cp1");
+        result.setIncomingString("[3,\"id-1\",{\"status\":\"Accepted\"}]");
+        deserializer.accept(result);
+        Assertions.assertNull(result.getIncomingMessage());
+
+        CommunicationContext error = new CommunicationContext(session, "cp1");
+        error.setIncomingString("[4,\"id-2\",\"InternalError\",\"\",{}]");
+        deserializer.accept(error);
+        Assertions.assertNull(error.getIncomingMessage());
+
+        verify(session, never()).close(any());
+        verify(sink, never()).onResult(eq("cp1"), any());
+        verify(sink, never()).onError(eq("cp1"), any());
+        Assertions.assertEquals(2, store.getMetrics().getLateResponseCount());
+
+        // Only once per call. Afterwards, and for calls that were never sent, it is an error as before.
+        CommunicationContext again = new CommunicationContext(session, "cp1");
+        again.setIncomingString("[3,\"id-1\",{\"status\":\"Accepted\"}]");
+        Assertions.assertThrows(SteveException.class, () -> deserializer.accept(again));
+    }
+
+    @Test
+    public void testCapacity() {
+        store.add(session, "id-1", new FutureResponseContext(sink, null, "cp1", "Slow"));
+        store.add(session, "id-2", new FutureResponseContext(sink, null, "cp1", "Slow"));
+
+        FutureResponseContext third = new FutureResponseContext(sink, null, "cp1", "Slow");
+        Assertions.assertThrows(SteveException.class, () -> store.add(session, "id-3", third));
+
+        Assertions.assertEquals(2, store.getMetrics().getPendingCount());
+        Assertions.assertEquals(Collections.singletonMap("cp1", 2), store.getMetrics().getPendingByChargeBoxId());
+        Assertions.assertEquals(1, store.getMetrics().getRejectedCount());
+    }
+
+    @Test
+    public void testRemoveSession() {
+        store.add(session, "id-1", new FutureResponseContext(sink, null, "cp1", "Slow"));
+        store.removeSession(session);
+
+        verify(sink).onFailure(eq("cp1"), any(SteveException.class));
+        Assertions.assertEquals(0, store.getMetrics().getPendingCount());
+        Assertions.assertEquals(1, store.getMetrics().getAbandonedCount());
+        verify(sink, never()).onResult(eq("cp1"), any());
+    }
+}
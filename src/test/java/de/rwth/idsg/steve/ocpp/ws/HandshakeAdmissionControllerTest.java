@@ -0,0 +1,131 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.service.ChargePointHelperService;
+import ocpp.cs._2015._10.RegistrationStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class HandshakeAdmissionControllerTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private ChargePointHelperService chargePointHelperService;
+    private HandshakeAdmissionController controller;
+
+    @BeforeEach
+    public void init() {
+        chargePointHelperService = mock(ChargePointHelperService.class);
+
+        SteveConfiguration.Ocpp config = SteveConfiguration.Ocpp.builder()
+                                                                .wsHandshakeMaxConcurrent(2)
+                                                                .wsHandshakeRatePerSecond(10)
+                                                                .wsHandshakeBurst(3)
+                                                                .wsHandshakeQueueTimeoutMillis(10)
+                                                                .wsHandshakeRetryAfterSeconds(5)
+                                                                .wsHandshakeRegistrationCacheSeconds(60)
+                                                                .build();
+
+        controller = new HandshakeAdmissionController(chargePointHelperService, config, nanos::get);
+    }
+
+    @Test
+    public void testConcurrencyLimit() {
+        HandshakeAdmissionController.Permit p1 = controller.tryAcquire();
+        HandshakeAdmissionController.Permit p2 = controller.tryAcquire();
+        Assertions.assertNotNull(p1);
+        Assertions.assertNotNull(p2);
+
+        // both slots are taken, the third one waits for the queue timeout and is rejected
+        Assertions.assertNull(controller.tryAcquire());
+
+        p1.close();
+        p1.close(); // must not release twice
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertNotNull(controller.tryAcquire());
+        Assertions.assertNull(controller.tryAcquire());
+
+        HandshakeAdmissionController.Stats stats = controller.getMetrics();
+        Assertions.assertEquals(2, stats.getInFlight());
+        Assertions.assertEquals(3, stats.getAdmittedCount());
+        Assertions.assertEquals(2, stats.getQueuedCount());
+        Assertions.assertEquals(2, stats.getRejectedByConcurrencyCount());
+    }
+
+    @Test
+    public void testRateLimit() {
+        for (int i = 0; i < 3; i++) {
+            controller.tryAcquire().close();
+        }
+
+        // the burst is used up
+        Assertions.assertNull(controller.tryAcquire());
+        Assertions.assertEquals(1, controller.getMetrics().getRejectedByRateCount());
+
+        // 10 per second, i.e. one new token after 100 ms
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        controller.tryAcquire().close();
+        Assertions.assertNull(controller.tryAcquire());
+    }
+
+    @Test
+    public void testRetryAfterHasJitter() {
+        for (int i = 0; i < 100; i++) {
+            int retryAfter = controller.getRetryAfterSeconds();
+            Assertions.assertTrue(retryAfter >= 5 && retryAfter <= 10);
+        }
+    }
+
+    @Test
+    public void testRegistrationStatusCache() {
+        when(chargePointHelperService.getRegistrationStatus("cb1"))
+                .thenReturn(Optional.of(RegistrationStatus.ACCEPTED));
+        when(chargePointHelperService.getRegistrationStatus("unknown")).thenReturn(Optional.empty());
+
+        Assertions.assertEquals(Optional.of(RegistrationStatus.ACCEPTED), controller.getRegistrationStatus("cb1"));
+        Assertions.assertEquals(Optional.of(RegistrationStatus.ACCEPTED), controller.getRegistrationStatus("cb1"));
+        verify(chargePointHelperService, times(1)).getRegistrationStatus("cb1");
+
+        // unknown stations are not cached
+        Assertions.assertEquals(Optional.empty(), controller.getRegistrationStatus("unknown"));
+        Assertions.assertEquals(Optional.empty(), controller.getRegistrationStatus("unknown"));
+        verify(chargePointHelperService, times(2)).getRegistrationStatus("unknown");
+
+        controller.invalidateRegistrationStatus("cb1");
+        controller.getRegistrationStatus("cb1");
+        verify(chargePointHelperService, times(2)).getRegistrationStatus("cb1");
+    }
+}
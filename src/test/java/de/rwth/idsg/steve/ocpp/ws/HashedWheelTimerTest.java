@@ -0,0 +1,109 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class HashedWheelTimerTest {
+
+    // 8 slots of 10 ms: delays beyond 80 ms need multiple rounds
+    private final HashedWheelTimer timer = new HashedWheelTimer(Runnable::run, 10, TimeUnit.MILLISECONDS, 8);
+
+    @AfterEach
+    public void teardown() {
+        timer.shutDown();
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timer.schedule(latch::countDown, 250, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assertions.assertTrue(elapsedMillis >= 240, "Fired too early: " + elapsedMillis);
+
+        Assertions.assertEquals(0, timer.getMetrics().getPendingCount());
+        Assertions.assertEquals(1, timer.getMetrics().getFiredCount());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        HashedWheelTimer.Timeout timeout = timer.schedule(counter::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(timeout.cancel());
+        Assertions.assertFalse(timeout.cancel());
+
+        Thread.sleep(150);
+        Assertions.assertEquals(0, counter.get());
+        Assertions.assertEquals(0, timer.getMetrics().getPendingCount());
+        Assertions.assertEquals(1, timer.getMetrics().getCancelledCount());
+    }
+
+    @Test
+    public void testFixedRate() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(5);
+
+        HashedWheelTimer.Timeout timeout = timer.scheduleAtFixedRate(() -> {
+            counter.incrementAndGet();
+            latch.countDown();
+        }, 20, 80, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(timeout.cancel());
+
+        int countAfterCancel = counter.get();
+        Thread.sleep(250);
+        Assertions.assertEquals(countAfterCancel, counter.get());
+        Assertions.assertEquals(0, timer.getMetrics().getPendingCount());
+    }
+
+    @Test
+    public void testManyTimeouts() throws Exception {
+        int count = 10_000;
+        CountDownLatch latch = new CountDownLatch(count / 2);
+
+        for (int i = 0; i < count; i++) {
+            HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, i % 200, TimeUnit.MILLISECONDS);
+            if (i % 2 == 1) {
+                timeout.cancel();
+            }
+        }
+
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        Assertions.assertEquals(count / 2, timer.getMetrics().getFiredCount());
+        Assertions.assertEquals(0, timer.getMetrics().getPendingCount());
+        Assertions.assertTrue(timer.getMetrics().getTickCount() > 0);
+    }
+}
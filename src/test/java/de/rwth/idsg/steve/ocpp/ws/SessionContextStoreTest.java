@@ -0,0 +1,125 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategyEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class SessionContextStoreTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(Runnable::run, 10, TimeUnit.MILLISECONDS, 64);
+
+    private final SessionContextStore store = new SessionContextStore(WsSessionSelectStrategyEnum.ROUND_ROBIN);
+
+    @AfterEach
+    public void teardown() {
+        timer.shutDown();
+    }
+
+    @Test
+    public void testAddAndRemoveReturnSizes() {
+        WebSocketSession s1 = session("s1");
+        WebSocketSession s2 = session("s2");
+
+        Assertions.assertEquals(0, store.add("cb1", s1, ping()));
+        Assertions.assertEquals(1, store.add("cb1", s2, ping()));
+        Assertions.assertEquals(1, store.getNumberOfChargeBoxes());
+
+        Assertions.assertEquals(1, store.remove("cb1", s1));
+        Assertions.assertEquals(1, store.remove("cb1", session("unknown")));
+        Assertions.assertEquals(0, store.remove("cb1", s2));
+        Assertions.assertEquals(0, store.getNumberOfChargeBoxes());
+        Assertions.assertEquals(0, store.remove("cb1", s2));
+    }
+
+    @Test
+    public void testRemoveCancelsPing() {
+        WebSocketSession s1 = session("s1");
+        HashedWheelTimer.Timeout ping = ping();
+
+        store.add("cb1", s1, ping);
+        store.remove("cb1", s1);
+
+        Assertions.assertTrue(ping.isCancelled());
+    }
+
+    @Test
+    public void testRoundRobinDoesNotModifyRegistry() {
+        WebSocketSession s1 = session("s1");
+        WebSocketSession s2 = session("s2");
+        store.add("cb1", s1, ping());
+        store.add("cb1", s2, ping());
+
+        WebSocketSession first = store.getSession("cb1");
+        WebSocketSession second = store.getSession("cb1");
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(first, store.getSession("cb1"));
+
+        Assertions.assertSame(s1, store.getSnapshot().getByChargeBoxId().get("cb1").get(0).getSession());
+    }
+
+    @Test
+    public void testSnapshotIsSharedUntilChanged() throws Exception {
+        WebSocketSession s1 = session("s1");
+        WebSocketSession s2 = session("s2");
+
+        store.add("cb2", s2, ping());
+        Thread.sleep(5);
+        store.add("cb1", s1, ping());
+
+        SessionContextStore.Snapshot snapshot = store.getSnapshot();
+        Assertions.assertSame(snapshot, store.getSnapshot());
+        Assertions.assertEquals(2, snapshot.getChargeBoxIds().size());
+
+        List<String> byOpenSince = List.of(snapshot.getByOpenSince().get(0).getChargeBoxId(),
+                                           snapshot.getByOpenSince().get(1).getChargeBoxId());
+        Assertions.assertEquals(List.of("cb2", "cb1"), byOpenSince);
+
+        store.remove("cb2", s2);
+
+        SessionContextStore.Snapshot updated = store.getSnapshot();
+        Assertions.assertNotSame(snapshot, updated);
+        Assertions.assertEquals(List.of("cb1"), updated.getChargeBoxIds());
+        // the old snapshot is not affected
+        Assertions.assertEquals(2, snapshot.getChargeBoxIds().size());
+    }
+
+    private HashedWheelTimer.Timeout ping() {
+        return timer.schedule(() -> { }, 1, TimeUnit.HOURS);
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class StationMailboxExecutorTest {
+
+    private static final int STATIONS = 20;
+    private static final int MESSAGES = 500;
+
+    private final StationMailboxExecutor executor = new StationMailboxExecutor(true, 8);
+
+    @AfterEach
+    public void shutDown() {
+        executor.shutDown();
+    }
+
+    @Test
+    public void testOrderPerStation() throws Exception {
+        List<List<Integer>> processed = new ArrayList<>();
+        for (int i = 0; i < STATIONS; i++) {
+            processed.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        CountDownLatch latch = new CountDownLatch(STATIONS * MESSAGES);
+
+        for (int msg = 0; msg < MESSAGES; msg++) {
+            for (int station = 0; station < STATIONS; station++) {
+                int msgNr = msg;
+                List<Integer> list = processed.get(station);
+                executor.execute("station-" + station, () -> {
+                    list.add(msgNr);
+                    latch.countDown();
+                });
+            }
+        }
+
+        Assertions.assertTrue(latch.await(30, TimeUnit.SECONDS));
+
+        for (List<Integer> list : processed) {
+            Assertions.assertEquals(MESSAGES, list.size());
+            for (int i = 0; i < MESSAGES; i++) {
+                Assertions.assertEquals(i, list.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testNoConcurrencyPerStation() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(MESSAGES);
+
+        for (int i = 0; i < MESSAGES; i++) {
+            executor.execute("station", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                latch.countDown();
+            });
+        }
+
+        Assertions.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void testRemoveIfIdleDuringExecute() throws Exception {
+        int messages = 20_000;
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(messages);
+        AtomicBoolean done = new AtomicBoolean();
+
+        // As if the station disconnects and reconnects all the time
+        Thread remover = new Thread(() -> {
+            while (!done.get()) {
+                executor.removeIfIdle("station");
+            }
+        });
+        remover.start();
+
+        try {
+            for (int i = 0; i < messages; i++) {
+                int msgNr = i;
+                executor.execute("station", () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    processed.add(msgNr);
+                    running.decrementAndGet();
+                    latch.countDown();
+                });
+            }
+            Assertions.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } finally {
+            done.set(true);
+            remover.join();
+        }
+
+        Assertions.assertEquals(1, maxRunning.get());
+        for (int i = 0; i < messages; i++) {
+            Assertions.assertEquals(i, processed.get(i));
+        }
+    }
+
+    @Test
+    public void testExceptionDoesNotBlockMailbox() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        executor.execute("station", () -> {
+            throw new RuntimeException("expected");
+        });
+        executor.execute("station", latch::countDown);
+
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        CountDownLatch latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            executor.execute("station", latch::countDown);
+        }
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        StationMailboxExecutor.Stats stats = executor.getMetrics();
+        Assertions.assertTrue(stats.isEnabled());
+        Assertions.assertEquals(1, stats.getMailboxes().size());
+        Assertions.assertEquals("station", stats.getMailboxes().get(0).getChargeBoxId());
+        Assertions.assertEquals(0, stats.getMailboxes().get(0).getQueueDepth());
+    }
+}
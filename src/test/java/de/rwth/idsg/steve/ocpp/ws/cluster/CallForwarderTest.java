@@ -0,0 +1,105 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import com.sun.net.httpserver.HttpServer;
+import de.rwth.idsg.steve.SteveConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class CallForwarderTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(40);
+
+    private HttpServer node;
+    private CallForwarder forwarder;
+
+    @BeforeEach
+    public void init() throws IOException {
+        node = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        node.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        node.start();
+
+        SteveConfiguration.WebApi webApiConfig = Mockito.mock(SteveConfiguration.WebApi.class);
+        Mockito.when(webApiConfig.getHeaderKey()).thenReturn("STEVE-API-KEY");
+        Mockito.when(webApiConfig.getHeaderValue()).thenReturn("secret");
+
+        forwarder = new CallForwarder(Mockito.mock(SteveConfiguration.Ocpp.class), webApiConfig);
+    }
+
+    @AfterEach
+    public void destroy() {
+        node.stop(0);
+    }
+
+    @Test
+    public void testNodeAnswersWithError() throws Exception {
+        String nodeId = "http://127.0.0.1:" + node.getAddress().getPort();
+
+        ForwardedCallResult result = forwarder.forward(nodeId, new ForwardedCall()).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals("Node '" + nodeId + "' answered 503", result.getFailure());
+    }
+
+    @Test
+    public void testNodeNotReachable() throws Exception {
+        String nodeId = "http://127.0.0.1:" + node.getAddress().getPort();
+        node.stop(0);
+
+        ForwardedCallResult result = forwarder.forward(nodeId, new ForwardedCall()).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals("Node '" + nodeId + "' is not reachable", result.getFailure());
+    }
+
+    @Test
+    public void testFailures() {
+        Assertions.assertEquals("Node 'n' is not reachable",
+                CallForwarder.toFailure("n", TIMEOUT, new CompletionException(new ConnectException())));
+        Assertions.assertEquals("Node 'n' is not reachable",
+                CallForwarder.toFailure("n", TIMEOUT, new HttpConnectTimeoutException("timeout")));
+
+        // The request might have been sent already
+        Assertions.assertEquals("Node 'n' did not answer within 40 seconds. The call may have been delivered to "
+                        + "the station",
+                CallForwarder.toFailure("n", TIMEOUT, new CompletionException(new HttpTimeoutException("timeout"))));
+        Assertions.assertEquals("Forwarding to node 'n' failed (reset). The call may have been delivered to the "
+                        + "station",
+                CallForwarder.toFailure("n", TIMEOUT, new IOException("reset")));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class InMemoryStationDirectoryTest {
+
+    @Test
+    public void testRegisterAndFind() {
+        ConcurrentMap<String, InMemoryStationDirectory.Entry> shared = new ConcurrentHashMap<>();
+        StationDirectory node1 = directory("http://node1", shared);
+        StationDirectory node2 = directory("http://node2", shared);
+
+        node1.register("cb1", OcppVersion.V_16);
+        node2.register("cb2", OcppVersion.V_15);
+
+        Assertions.assertEquals(Optional.of("http://node1"), node2.findNodeId("cb1"));
+        Assertions.assertTrue(node2.isRemote(node2.findNodeId("cb1").get()));
+        Assertions.assertFalse(node1.isRemote(node1.findNodeId("cb1").get()));
+        Assertions.assertEquals(List.of("cb1"), node2.getChargeBoxIds(OcppVersion.V_16));
+        Assertions.assertEquals(Optional.empty(), node1.findNodeId("unknown"));
+    }
+
+    @Test
+    public void testUnregisterOnlyOwnEntries() {
+        ConcurrentMap<String, InMemoryStationDirectory.Entry> shared = new ConcurrentHashMap<>();
+        StationDirectory node1 = directory("http://node1", shared);
+        StationDirectory node2 = directory("http://node2", shared);
+
+        // the station reconnects to node2 before node1 notices the close of the old session
+        node1.register("cb1", OcppVersion.V_16);
+        node2.register("cb1", OcppVersion.V_16);
+        node1.unregister("cb1");
+
+        Assertions.assertEquals(Optional.of("http://node2"), node1.findNodeId("cb1"));
+
+        node2.unregister("cb1");
+        Assertions.assertEquals(Optional.empty(), node1.findNodeId("cb1"));
+    }
+
+    private static StationDirectory directory(String nodeId,
+                                              ConcurrentMap<String, InMemoryStationDirectory.Entry> shared) {
+        return new InMemoryStationDirectory(nodeId, shared);
+    }
+}
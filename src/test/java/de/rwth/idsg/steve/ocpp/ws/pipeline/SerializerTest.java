@@ -0,0 +1,139 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.pipeline;
+
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.ws.ErrorFactory;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
+import lombok.Data;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class SerializerTest {
+
+    private final Serializer serializer = Serializer.INSTANCE;
+
+    @Test
+    public void testCall() {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId("id-1");
+        call.setAction("Simple");
+        call.setPayload(new SimpleRequest("text", 5));
+
+        Assertions.assertEquals("[2,\"id-1\",\"Simple\",{\"someText\":\"text\",\"someNumber\":5}]", serialize(call));
+    }
+
+    @Test
+    public void testCallWithSharedPayload() {
+        SimpleRequest payload = new SimpleRequest("text", 5);
+        String serializedPayload = serializer.serializePayload(payload);
+
+        for (String messageId : new String[]{"id-1", "id-2"}) {
+            OcppJsonCall call = new OcppJsonCall();
+            call.setMessageId(messageId);
+            call.setAction("Simple");
+            call.setPayload(payload);
+
+            Assertions.assertEquals(serialize(call), serializer.serializeCall(call, serializedPayload));
+        }
+    }
+
+    @Test
+    public void testResult() {
+        OcppJsonResult result = new OcppJsonResult();
+        result.setMessageId("id-2");
+        result.setPayload(new SimpleResponse(null));
+
+        Assertions.assertEquals("[3,\"id-2\",{}]", serialize(result));
+    }
+
+    @Test
+    public void testError() {
+        Assertions.assertEquals(
+            "[4,\"id-3\",\"NotImplemented\",\"The action 'Foo' you are looking for is not found\",{}]",
+            serialize(ErrorFactory.actionNotFound("id-3", "Foo"))
+        );
+
+        Assertions.assertEquals(
+            "[4,\"id-4\",\"InternalError\",\"Internal services failed while processing of the payload\",{\"errorMsg\":\"oops\"}]",
+            serialize(ErrorFactory.payloadProcessingError("id-4", "oops"))
+        );
+    }
+
+    @Test
+    public void testResultWithFailingPayload() {
+        OcppJsonResult result = new OcppJsonResult();
+        result.setMessageId("id-5");
+        result.setPayload(new FailingResponse());
+
+        String str = serialize(result);
+        Assertions.assertTrue(str.startsWith("[4,\"id-5\",\"InternalError\",\"The payload for action could not be serialized\""), str);
+
+        // the partial output of the failed attempt must not leak into the next message
+        testResult();
+    }
+
+    @Test
+    public void testCallWithFailingPayload() {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId("id-6");
+        call.setAction("Failing");
+        call.setPayload(new FailingRequest());
+
+        Assertions.assertThrows(SteveException.class, () -> serialize(call));
+    }
+
+    private String serialize(de.rwth.idsg.steve.ocpp.ws.data.OcppJsonMessage message) {
+        CommunicationContext context = new CommunicationContext(null, "chargeBoxId");
+        context.setOutgoingMessage(message);
+        serializer.accept(context);
+        return context.getOutgoingString();
+    }
+
+    @Data
+    private static class SimpleRequest implements RequestType {
+        private final String someText;
+        private final int someNumber;
+    }
+
+    @Data
+    private static class SimpleResponse implements ResponseType {
+        private final String someText;
+    }
+
+    private static class FailingRequest implements RequestType {
+        public String getValue() {
+            throw new IllegalStateException("expected");
+        }
+    }
+
+    private static class FailingResponse implements ResponseType {
+        public String getValue() {
+            throw new IllegalStateException("expected");
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.service.OcppTagAuthorizationCache;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Record3;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockExecuteContext;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static jooq.steve.db.tables.ActiveTransaction.ACTIVE_TRANSACTION;
+import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
+import static jooq.steve.db.tables.TransactionStop.TRANSACTION_STOP;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class ActiveTransactionCheckerTest {
+
+    private static final DSLContext CREATE = DSL.using(SQLDialect.MYSQL);
+
+    private final List<MockExecuteContext> executed = new ArrayList<>();
+
+    // The answers of the database
+    private List<Integer> stoppedButActive;
+    private List<Integer> missing;
+    private List<Integer> stoppedWhenLocked;
+
+    private OcppTagAuthorizationCache authorizationCache;
+    private ActiveTransactionChecker checker;
+
+    @BeforeEach
+    public void init() {
+        executed.clear();
+        stoppedButActive = List.of();
+        missing = List.of();
+        stoppedWhenLocked = List.of();
+
+        DSLContext ctx = DSL.using(new MockConnection(this::execute), SQLDialect.MYSQL);
+        authorizationCache = Mockito.mock(OcppTagAuthorizationCache.class);
+        ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+        checker = new ActiveTransactionChecker(ctx, authorizationCache, executor, 0);
+    }
+
+    @Test
+    public void testInitialDelay() {
+        ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+        new ActiveTransactionChecker(CREATE, authorizationCache, executor, 24);
+
+        Mockito.verify(executor).scheduleWithFixedDelay(ArgumentMatchers.any(), ArgumentMatchers.eq(10L),
+                                                        ArgumentMatchers.eq(24 * 60L),
+                                                        ArgumentMatchers.eq(TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void testInSync() {
+        Assertions.assertEquals(0, checker.check());
+
+        // Only the two lookups without locks
+        Assertions.assertEquals(2, executed.size());
+        Mockito.verifyNoInteractions(authorizationCache);
+        Assertions.assertEquals(1, checker.getMetrics().getChecks());
+    }
+
+    @Test
+    public void testRepair() {
+        stoppedButActive = List.of(1);
+        missing = List.of(2, 3);
+
+        Assertions.assertEquals(3, checker.check());
+
+        Assertions.assertEquals(List.of(1), bindings("delete from"));
+        Assertions.assertEquals(Arrays.asList(2, 20, "tag-2", 3, 30, "tag-3"), bindings("insert ignore into"));
+        Assertions.assertEquals(1, count("update `stevedb`.`change_counter`"));
+        Mockito.verify(authorizationCache).invalidate(Set.of("tag-1", "tag-2", "tag-3"));
+
+        Assertions.assertEquals(1, checker.getMetrics().getDeleted());
+        Assertions.assertEquals(2, checker.getMetrics().getInserted());
+    }
+
+    @Test
+    public void testStoppedDuringCheck() {
+        missing = List.of(2);
+        // The stop was committed between the lookup and the lock
+        stoppedWhenLocked = List.of(2);
+
+        Assertions.assertEquals(0, checker.check());
+
+        Assertions.assertEquals(0, count("insert ignore into"));
+        Assertions.assertEquals(0, count("update `stevedb`.`change_counter`"));
+        Mockito.verifyNoInteractions(authorizationCache);
+
+        // The candidates are locked before they are read again
+        Assertions.assertTrue(statement("from `stevedb`.`transaction_start`", "for update").contains("in (?)"));
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private MockResult[] execute(MockExecuteContext c) throws SQLException {
+        executed.add(c);
+        String sql = c.sql();
+
+        if (sql.endsWith("for update") && sql.contains("from `stevedb`.`transaction_stop`")) {
+            Result<Record1<Integer>> result = CREATE.newResult(TRANSACTION_STOP.TRANSACTION_PK);
+            for (Object pk : c.bindings()) {
+                if (stoppedButActive.contains(pk) || stoppedWhenLocked.contains(pk)) {
+                    result.add(CREATE.newRecord(TRANSACTION_STOP.TRANSACTION_PK).values((Integer) pk));
+                }
+            }
+            return new MockResult[]{new MockResult(result.size(), result)};
+
+        } else if (sql.endsWith("for update") && sql.contains("from `stevedb`.`transaction_start`")) {
+            Result<Record3<Integer, Integer, String>> result = CREATE.newResult(TRANSACTION_START.TRANSACTION_PK,
+                    TRANSACTION_START.CONNECTOR_PK, TRANSACTION_START.ID_TAG);
+            for (Object pk : c.bindings()) {
+                int transactionPk = (Integer) pk;
+                result.add(CREATE.newRecord(TRANSACTION_START.TRANSACTION_PK, TRANSACTION_START.CONNECTOR_PK,
+                                            TRANSACTION_START.ID_TAG)
+                                 .values(transactionPk, transactionPk * 10, "tag-" + transactionPk));
+            }
+            return new MockResult[]{new MockResult(result.size(), result)};
+
+        } else if (sql.startsWith("select `stevedb`.`active_transaction`.`transaction_pk`")) {
+            return pks(ACTIVE_TRANSACTION.TRANSACTION_PK.getName(), stoppedButActive);
+
+        } else if (sql.startsWith("select `stevedb`.`transaction_start`.`transaction_pk`")) {
+            return pks(TRANSACTION_START.TRANSACTION_PK.getName(), missing);
+
+        } else if (sql.startsWith("delete from")) {
+            long rows = Arrays.stream(c.bindings()).filter(stoppedButActive::contains).count();
+            return new MockResult[]{new MockResult((int) rows)};
+
+        } else if (sql.startsWith("insert ignore into")) {
+            return new MockResult[]{new MockResult(c.bindings().length / 3)};
+
+        } else if (sql.startsWith("update `stevedb`.`change_counter`")) {
+            return new MockResult[]{new MockResult(1)};
+        }
+
+        throw new SQLException("Unexpected statement: " + sql);
+    }
+
+    private static MockResult[] pks(String name, List<Integer> pks) {
+        Result<Record1<Integer>> result = CREATE.newResult(TRANSACTION_START.TRANSACTION_PK.as(name));
+        pks.forEach(pk -> result.add(CREATE.newRecord(TRANSACTION_START.TRANSACTION_PK.as(name)).values(pk)));
+        return new MockResult[]{new MockResult(result.size(), result)};
+    }
+
+    private long count(String prefix) {
+        return executed.stream().filter(c -> c.sql().startsWith(prefix)).count();
+    }
+
+    private List<Object> bindings(String prefix) {
+        Assertions.assertEquals(1, count(prefix), prefix);
+        return executed.stream()
+                       .filter(c -> c.sql().startsWith(prefix))
+                       .findFirst()
+                       .map(c -> Arrays.asList(c.bindings()))
+                       .orElseThrow();
+    }
+
+    private String statement(String part, String suffix) {
+        return executed.stream()
+                       .map(MockExecuteContext::sql)
+                       .filter(sql -> sql.contains(part) && sql.endsWith(suffix))
+                       .findFirst()
+                       .orElseThrow();
+    }
+}
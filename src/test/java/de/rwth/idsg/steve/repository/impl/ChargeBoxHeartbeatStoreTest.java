@@ -0,0 +1,183 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockExecuteContext;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class ChargeBoxHeartbeatStoreTest {
+
+    private static final DateTime T1 = new DateTime(2026, 10, 18, 10, 0);
+    private static final DateTime T2 = T1.plusMinutes(1);
+    private static final DateTime T3 = T1.plusMinutes(2);
+
+    private final List<MockExecuteContext> executed = new ArrayList<>();
+    private Runnable onExecute;
+    private ChargeBoxHeartbeatStore store;
+
+    @BeforeEach
+    public void init() {
+        executed.clear();
+        onExecute = () -> { };
+
+        DSLContext ctx = DSL.using(new MockConnection(c -> {
+            executed.add(c);
+            onExecute.run();
+            return new MockResult[]{new MockResult(1)};
+        }), SQLDialect.MYSQL);
+
+        ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+        Mockito.doReturn(Mockito.mock(ScheduledFuture.class))
+               .when(executor)
+               .scheduleWithFixedDelay(ArgumentMatchers.any(), ArgumentMatchers.eq(10L), ArgumentMatchers.eq(10L),
+                                       ArgumentMatchers.eq(TimeUnit.SECONDS));
+
+        store = new ChargeBoxHeartbeatStore(ctx, executor, 10);
+    }
+
+    @Test
+    public void testFlush() {
+        store.update("a", T1);
+        store.update("a", T3);
+        store.update("a", T2);
+        store.update("b", T1);
+
+        Assertions.assertTrue(executed.isEmpty());
+        Assertions.assertEquals(2, store.getMetrics().getPending());
+
+        store.flush();
+
+        Assertions.assertEquals(1, executed.size());
+        assertWritten(executed.get(0), "a", T3, "b", T1);
+
+        ChargeBoxHeartbeatStore.Stats stats = store.getMetrics();
+        Assertions.assertEquals(0, stats.getPending());
+        Assertions.assertEquals(4, stats.getUpdates());
+        Assertions.assertEquals(2, stats.getWritten());
+        Assertions.assertEquals(1, stats.getStatements());
+
+        // Nothing is pending, so there is nothing to write
+        store.flush();
+        Assertions.assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void testUpdateDuringFlush() {
+        store.update("a", T1);
+        store.update("b", T1);
+
+        // Simulates a heartbeat that arrives while the statement is executed
+        onExecute = () -> {
+            onExecute = () -> { };
+            store.update("a", T2);
+        };
+        store.flush();
+
+        assertWritten(executed.get(0), "a", T1, "b", T1);
+        Assertions.assertEquals(1, store.getMetrics().getPending());
+        Assertions.assertEquals(T2, store.getLatest("a", T1));
+
+        store.flush();
+
+        Assertions.assertEquals(2, executed.size());
+        assertWritten(executed.get(1), "a", T2);
+        Assertions.assertEquals(0, store.getMetrics().getPending());
+    }
+
+    @Test
+    public void testFailedFlush() {
+        store.update("a", T1);
+
+        onExecute = () -> {
+            throw new DataAccessException("test");
+        };
+        Assertions.assertThrows(DataAccessException.class, () -> store.flush());
+
+        // Stays pending for the next flush
+        Assertions.assertEquals(T1, store.getLatest("a", null));
+
+        onExecute = () -> { };
+        store.flush();
+
+        Assertions.assertEquals(2, executed.size());
+        assertWritten(executed.get(1), "a", T1);
+        Assertions.assertNull(store.getLatest("a", null));
+    }
+
+    @Test
+    public void testGetLatest() {
+        store.update("a", T2);
+
+        Assertions.assertEquals(T2, store.getLatest("a", null));
+        Assertions.assertEquals(T2, store.getLatest("a", T1));
+        Assertions.assertEquals(T3, store.getLatest("a", T3));
+
+        Assertions.assertNull(store.getLatest("b", null));
+        Assertions.assertEquals(T1, store.getLatest("b", T1));
+
+        store.flush();
+
+        // Once written, the database value is the only one
+        Assertions.assertEquals(T1, store.getLatest("a", T1));
+    }
+
+    /**
+     * The bind values are the pairs of the case expression followed by the ids of the where clause
+     */
+    private static void assertWritten(MockExecuteContext c, Object... idAndTimestamps) {
+        List<Object> bindings = Arrays.asList(c.bindings());
+        int count = idAndTimestamps.length / 2;
+
+        Assertions.assertEquals(count * 3, bindings.size());
+        List<Object> ids = bindings.subList(count * 2, count * 3);
+
+        for (int i = 0; i < count; i++) {
+            String chargeBoxId = (String) idAndTimestamps[2 * i];
+            DateTime timestamp = (DateTime) idAndTimestamps[2 * i + 1];
+
+            int position = bindings.indexOf(chargeBoxId);
+            Assertions.assertTrue(position >= 0 && position < count * 2, chargeBoxId);
+            Assertions.assertEquals(new Timestamp(timestamp.getMillis()), bindings.get(position + 1), chargeBoxId);
+            Assertions.assertTrue(ids.contains(chargeBoxId), chargeBoxId);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.repository.AddressRepository;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Record3;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockExecuteContext;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
+import static jooq.steve.db.tables.Connector.CONNECTOR;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class ConnectorPkCacheTest {
+
+    private static final DSLContext CREATE = DSL.using(SQLDialect.MYSQL);
+
+    private final List<MockExecuteContext> executed = new ArrayList<>();
+
+    // The connector table: "chargeBoxId/connectorId" --> connectorPk
+    private final Map<String, Integer> connectors = new TreeMap<>();
+    private int nextConnectorPk;
+
+    private DSLContext ctx;
+    private ConnectorPkCache cache;
+
+    @BeforeEach
+    public void init() {
+        executed.clear();
+        connectors.clear();
+        connectors.put("cb-1/1", 10);
+        connectors.put("cb-1/2", 11);
+        connectors.put("cb-2/1", 20);
+        nextConnectorPk = 100;
+
+        ctx = DSL.using(new MockConnection(this::execute), SQLDialect.MYSQL);
+        cache = new ConnectorPkCache(ctx);
+        cache.warmUp();
+        executed.clear();
+    }
+
+    @Test
+    public void testWarmUp() {
+        Assertions.assertEquals(10, cache.getIfPresent("cb-1", 1));
+        Assertions.assertEquals(11, cache.getIfPresent("cb-1", 2));
+        Assertions.assertEquals(20, cache.getIfPresent("cb-2", 1));
+        Assertions.assertNull(cache.getIfPresent("cb-2", 2));
+
+        ConnectorPkCache.Stats stats = cache.getMetrics();
+        Assertions.assertEquals(2, stats.getChargeBoxes());
+        Assertions.assertEquals(3, stats.getConnectors());
+        Assertions.assertEquals(3, stats.getHits());
+        Assertions.assertEquals(1, stats.getMisses());
+
+        // A known connector does not touch the database
+        Assertions.assertEquals(10, (int) cache.withConnectorPk(ctx, "cb-1", 1, pk -> pk));
+        Assertions.assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    public void testMissInsertsConnector() {
+        Assertions.assertEquals(100, (int) cache.withConnectorPk(ctx, "cb-2", 2, pk -> pk));
+
+        Assertions.assertEquals(100, connectors.get("cb-2/2"));
+        Assertions.assertEquals(1, count("insert ignore into `stevedb`.`connector`"));
+
+        // Not cached, since its insert might still be rolled back
+        Assertions.assertNull(cache.getIfPresent("cb-2", 2));
+
+        // Once it is read from the database, it is
+        executed.clear();
+        Assertions.assertEquals(100, (int) cache.withConnectorPk(ctx, "cb-2", 2, pk -> pk));
+        Assertions.assertEquals(0, count("insert ignore into `stevedb`.`connector`"));
+        Assertions.assertEquals(100, cache.getIfPresent("cb-2", 2));
+    }
+
+    @Test
+    public void testInvalidateAfterDeleteChargePoint() {
+        ChargePointRepositoryImpl repository = new ChargePointRepositoryImpl(ctx,
+                Mockito.mock(AddressRepository.class), Mockito.mock(ChargeBoxHeartbeatStore.class), cache,
+                new ReadReplicaRouter(ctx));
+
+        repository.deleteChargePoint(1);
+
+        Assertions.assertNull(cache.getIfPresent("cb-1", 1));
+        Assertions.assertNull(cache.getIfPresent("cb-1", 2));
+        Assertions.assertEquals(20, cache.getIfPresent("cb-2", 1));
+        Assertions.assertEquals(1, cache.getMetrics().getInvalidations());
+
+        // Added again, the connector gets a new connectorPk
+        Assertions.assertEquals(100, (int) cache.withConnectorPk(ctx, "cb-1", 1, pk -> pk));
+    }
+
+    @Test
+    public void testRetryWithStaleConnectorPk() {
+        // Another node deleted the charge point and added it again
+        connectors.remove("cb-1/1");
+        connectors.remove("cb-1/2");
+        connectors.put("cb-1/1", 12);
+
+        List<Integer> written = new ArrayList<>();
+        int result = cache.withConnectorPk(ctx, "cb-1", 1, pk -> {
+            written.add(pk);
+            return write(pk);
+        });
+
+        Assertions.assertEquals(12, result);
+        Assertions.assertEquals(List.of(10, 12), written);
+        Assertions.assertEquals(12, cache.getIfPresent("cb-1", 1));
+        Assertions.assertNull(cache.getIfPresent("cb-1", 2));
+        Assertions.assertEquals(1, cache.getMetrics().getInvalidations());
+    }
+
+    @Test
+    public void testRetryOnlyOnce() {
+        List<Integer> written = new ArrayList<>();
+        Assertions.assertThrows(DataAccessException.class, () -> cache.withConnectorPk(ctx, "cb-1", 1, pk -> {
+            written.add(pk);
+            throw integrityViolation();
+        }));
+
+        // The second attempt with the connectorPk from the database fails as well, and is not retried again
+        Assertions.assertEquals(List.of(10, 10), written);
+    }
+
+    @Test
+    public void testNoRetryForOtherErrors() {
+        List<Integer> written = new ArrayList<>();
+        Assertions.assertThrows(DataAccessException.class, () -> cache.withConnectorPk(ctx, "cb-1", 1, pk -> {
+            written.add(pk);
+            throw new DataAccessException("test");
+        }));
+
+        Assertions.assertEquals(List.of(10), written);
+        Assertions.assertEquals(0, cache.getMetrics().getInvalidations());
+        Assertions.assertEquals(10, cache.getIfPresent("cb-1", 1));
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * A write that references the connector, as the foreign key does
+     */
+    private int write(int connectorPk) {
+        if (!connectors.containsValue(connectorPk)) {
+            throw integrityViolation();
+        }
+        return connectorPk;
+    }
+
+    private static DataAccessException integrityViolation() {
+        return new DataAccessException("test", new SQLIntegrityConstraintViolationException("foreign key"));
+    }
+
+    private MockResult[] execute(MockExecuteContext c) throws SQLException {
+        executed.add(c);
+        String sql = c.sql();
+        Object[] bindings = c.bindings();
+
+        if (sql.startsWith("select `stevedb`.`connector`.`charge_box_id`")) {
+            Result<Record3<String, Integer, Integer>> result =
+                    CREATE.newResult(CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID, CONNECTOR.CONNECTOR_PK);
+            connectors.forEach((key, pk) -> {
+                String[] parts = key.split("/");
+                result.add(CREATE.newRecord(CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID, CONNECTOR.CONNECTOR_PK)
+                                 .values(parts[0], Integer.valueOf(parts[1]), pk));
+            });
+            return new MockResult[]{new MockResult(result.size(), result)};
+
+        } else if (sql.startsWith("select `stevedb`.`connector`.`connector_pk`")) {
+            Result<Record1<Integer>> result = CREATE.newResult(CONNECTOR.CONNECTOR_PK);
+            Integer pk = connectors.get(bindings[0] + "/" + bindings[1]);
+            if (pk != null) {
+                result.add(CREATE.newRecord(CONNECTOR.CONNECTOR_PK).values(pk));
+            }
+            return new MockResult[]{new MockResult(result.size(), result)};
+
+        } else if (sql.startsWith("insert ignore into `stevedb`.`connector`")) {
+            String key = bindings[0] + "/" + bindings[1];
+            if (connectors.containsKey(key)) {
+                return new MockResult[]{new MockResult(0)};
+            }
+            connectors.put(key, nextConnectorPk++);
+            return new MockResult[]{new MockResult(1)};
+
+        } else if (sql.startsWith("select `stevedb`.`charge_box`.`charge_box_id`")) {
+            Result<Record1<String>> result = CREATE.newResult(CHARGE_BOX.CHARGE_BOX_ID);
+            result.add(CREATE.newRecord(CHARGE_BOX.CHARGE_BOX_ID).values("cb-" + bindings[0]));
+            return new MockResult[]{new MockResult(1, result)};
+
+        } else if (sql.startsWith("delete from `stevedb`.`charge_box`")) {
+            // The connectors are deleted as well (on delete cascade)
+            connectors.keySet().removeIf(key -> key.startsWith("cb-" + bindings[0] + "/"));
+            return new MockResult[]{new MockResult(1)};
+
+        } else if (sql.startsWith("update `stevedb`.`change_counter`")) {
+            return new MockResult[]{new MockResult(1)};
+        }
+
+        throw new SQLException("Unexpected statement: " + sql);
+    }
+
+    private long count(String prefix) {
+        return executed.stream().filter(c -> c.sql().startsWith(prefix)).count();
+    }
+}
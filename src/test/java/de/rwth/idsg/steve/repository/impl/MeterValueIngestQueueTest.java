@@ -0,0 +1,265 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import ocpp.cs._2015._10.MeterValue;
+import ocpp.cs._2015._10.SampledValue;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockExecuteContext;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class MeterValueIngestQueueTest {
+
+    private static final String CHARGE_BOX_ID = "cb";
+    private static final int CONNECTOR_ID = 1;
+
+    private final List<List<String>> inserted = Collections.synchronizedList(new ArrayList<>());
+    private volatile Statement onInsert;
+
+    private DSLContext ctx;
+    private ConnectorPkCache connectorPkCache;
+    private MeterValueIngestQueue queue;
+
+    @FunctionalInterface
+    private interface Statement {
+        void execute(List<String> values) throws Exception;
+    }
+
+    @BeforeEach
+    public void init() {
+        inserted.clear();
+        onInsert = values -> { };
+
+        ctx = DSL.using(new MockConnection(this::execute), SQLDialect.MYSQL);
+
+        // The connector is known, so that the insert of the meter values is the only statement
+        connectorPkCache = new ConnectorPkCache(ctx);
+        connectorPkCache.put(CHARGE_BOX_ID, CONNECTOR_ID, 10);
+    }
+
+    @AfterEach
+    public void destroy() {
+        if (queue != null) {
+            queue.shutDown();
+        }
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        queue = new MeterValueIngestQueue(ctx, connectorPkCache, MeterValueIngestQueue.Mode.COMMIT, 3, 10_000, 10);
+
+        // The group is full with the third value. Without it, it would wait for the delay of 10 seconds.
+        List<CompletableFuture<Void>> callers = Arrays.asList(insertAsync("1"), insertAsync("2"), insertAsync("3"));
+        CompletableFuture.allOf(callers.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(1, inserted.size());
+        Assertions.assertEquals(List.of("1", "2", "3"), sorted(inserted.get(0)));
+
+        MeterValueIngestQueue.Stats stats = queue.getMetrics();
+        Assertions.assertEquals(1, stats.getGroups());
+        Assertions.assertEquals(3, stats.getMessages());
+        Assertions.assertEquals(3, stats.getRows());
+    }
+
+    @Test
+    public void testGroupSizeIsNotExceeded() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        onInsert = values -> {
+            writing.countDown();
+            release.await();
+        };
+        queue = new MeterValueIngestQueue(ctx, connectorPkCache, MeterValueIngestQueue.Mode.ENQUEUE, 3, 10_000, 10);
+
+        // Fills a group on its own. The writer is stuck with it, while the others are queued.
+        insert("a", "b", "c");
+        Assertions.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        insert("1", "2");
+        insert("3", "4");
+        insert("5");
+
+        release.countDown();
+        queue.shutDown();
+
+        // The second message does not fit into the group of the first one anymore, and starts the next group
+        Assertions.assertEquals(List.of(List.of("a", "b", "c"), List.of("1", "2"), List.of("3", "4", "5")),
+                                inserted.stream().map(MeterValueIngestQueueTest::sorted).collect(Collectors.toList()));
+        Assertions.assertEquals(3, queue.getMetrics().getGroups());
+    }
+
+    @Test
+    public void testLargeMessageIsInsertedInChunks() {
+        queue = new MeterValueIngestQueue(ctx, connectorPkCache, MeterValueIngestQueue.Mode.COMMIT, 2, 10_000, 10);
+
+        insert("1", "2", "3", "4", "5");
+
+        Assertions.assertEquals(List.of(List.of("1", "2"), List.of("3", "4"), List.of("5")),
+                                inserted.stream().map(MeterValueIngestQueueTest::sorted).collect(Collectors.toList()));
+
+        MeterValueIngestQueue.Stats stats = queue.getMetrics();
+        Assertions.assertEquals(1, stats.getGroups());
+        Assertions.assertEquals(1, stats.getMessages());
+        Assertions.assertEquals(5, stats.getRows());
+    }
+
+    @Test
+    public void testFailedGroupIsWrittenOneByOne() throws Exception {
+        onInsert = values -> {
+            if (values.contains("bad")) {
+                throw new SQLException("test");
+            }
+        };
+        queue = new MeterValueIngestQueue(ctx, connectorPkCache, MeterValueIngestQueue.Mode.COMMIT, 3, 10_000, 10);
+
+        List<CompletableFuture<Void>> callers = Arrays.asList(insertAsync("1"), insertAsync("bad"), insertAsync("2"));
+
+        // The failing message is logged, but not reported to the caller
+        CompletableFuture.allOf(callers.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        // The attempt with the whole group was rolled back, and is not counted
+        List<List<String>> singles = inserted.stream()
+                                             .filter(values -> values.size() == 1)
+                                             .collect(Collectors.toList());
+        Assertions.assertEquals(3, singles.size());
+        Assertions.assertEquals(List.of("1", "2", "bad"), sorted(singles.stream()
+                                                                         .map(values -> values.get(0))
+                                                                         .collect(Collectors.toList())));
+
+        MeterValueIngestQueue.Stats stats = queue.getMetrics();
+        Assertions.assertEquals(1, stats.getSplitGroups());
+        Assertions.assertEquals(1, stats.getFailedMessages());
+        Assertions.assertEquals(2, stats.getGroups());
+        Assertions.assertEquals(2, stats.getMessages());
+    }
+
+    @Test
+    public void testErrorDoesNotBlockCallers() throws Exception {
+        onInsert = values -> {
+            if (values.contains("error")) {
+                throw new AssertionError("test");
+            }
+        };
+        queue = new MeterValueIngestQueue(ctx, connectorPkCache, MeterValueIngestQueue.Mode.COMMIT, 1, 10_000, 10);
+
+        insertAsync("error").get(5, TimeUnit.SECONDS);
+
+        // The writer is still running
+        insertAsync("1").get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of("1"), inserted.get(inserted.size() - 1));
+        Assertions.assertEquals(1, queue.getMetrics().getMessages());
+    }
+
+    @Test
+    public void testShutDownDrainsQueue() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        onInsert = values -> {
+            writing.countDown();
+            release.await();
+        };
+        queue = new MeterValueIngestQueue(ctx, connectorPkCache, MeterValueIngestQueue.Mode.ENQUEUE, 1, 10_000, 10);
+
+        // The writer is stuck with the first one, the others wait in the queue
+        for (int i = 1; i <= 5; i++) {
+            insert(String.valueOf(i));
+        }
+        Assertions.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(4, queue.getMetrics().getQueued());
+
+        CompletableFuture<Void> shutDown = CompletableFuture.runAsync(queue::shutDown);
+        Thread.sleep(200);
+        Assertions.assertFalse(shutDown.isDone());
+
+        release.countDown();
+        shutDown.get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(List.of("1", "2", "3", "4", "5"),
+                                inserted.stream().map(values -> values.get(0)).collect(Collectors.toList()));
+        Assertions.assertEquals(0, queue.getMetrics().getQueued());
+        Assertions.assertEquals(5, queue.getMetrics().getMessages());
+
+        // After shutdown, the callers write themselves
+        insert("6");
+        Assertions.assertEquals(List.of("6"), inserted.get(inserted.size() - 1));
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private MockResult[] execute(MockExecuteContext c) throws SQLException {
+        if (!c.sql().startsWith("insert into `stevedb`.`connector_meter_value`")) {
+            throw new SQLException("Unexpected statement: " + c.sql());
+        }
+
+        // The value is the only string column that we set
+        List<String> values = Arrays.stream(c.bindings())
+                                    .filter(String.class::isInstance)
+                                    .map(String.class::cast)
+                                    .collect(Collectors.toList());
+        inserted.add(values);
+
+        try {
+            onInsert.execute(values);
+        } catch (SQLException | Error e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e);
+        }
+        return new MockResult[]{new MockResult(values.size())};
+    }
+
+    private void insert(String... values) {
+        MeterValue meterValue = new MeterValue().withTimestamp(DateTime.now());
+        for (String value : values) {
+            meterValue.getSampledValue().add(new SampledValue().withValue(value));
+        }
+        queue.insert(CHARGE_BOX_ID, List.of(meterValue), CONNECTOR_ID, null);
+    }
+
+    private CompletableFuture<Void> insertAsync(String value) {
+        return CompletableFuture.runAsync(() -> insert(value));
+    }
+
+    private static List<String> sorted(List<String> values) {
+        return values.stream().sorted().collect(Collectors.toList());
+    }
+}
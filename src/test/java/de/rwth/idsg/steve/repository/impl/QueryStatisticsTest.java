@@ -0,0 +1,153 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import org.jooq.DSLContext;
+import org.jooq.ExecuteContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListener;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class QueryStatisticsTest {
+
+    @Test
+    public void testFingerprint() {
+        Assertions.assertEquals(
+                "select `id` from `t1` where `id` in (?) and `name` = ? limit ?",
+                QueryStatistics.fingerprint(
+                        "select `id`  from `t1`\n where `id` in (?, ?, ?) and `name` = 'a''b' limit 10")
+        );
+
+        Assertions.assertEquals(
+                "insert into `t` (`a`, `b`) values (?)",
+                QueryStatistics.fingerprint("insert into `t` (`a`, `b`) values (?, ?), (?, ?), (1, 'x')")
+        );
+
+        // The fingerprint is what we log. Inlined values must not show up.
+        Assertions.assertEquals(
+                "update `settings` set `mail_password` = ? where `app_id` = ?",
+                QueryStatistics.fingerprint("update `settings` set `mail_password` = 'p@ss' where `app_id` = 'x'")
+        );
+    }
+
+    @Test
+    public void testSlowestAndPercentiles() {
+        QueryStatistics statistics = new QueryStatistics(0, false);
+
+        for (int i = 0; i < 99; i++) {
+            statistics.record("fast", TimeUnit.MICROSECONDS.toNanos(500), 1, false);
+        }
+        statistics.record("fast", TimeUnit.MILLISECONDS.toNanos(300), 1, false);
+        statistics.record("slow", TimeUnit.MILLISECONDS.toNanos(40), 2, false);
+
+        List<QueryStatistics.StatementStats> slowest = statistics.getSlowest(10);
+        Assertions.assertEquals(2, slowest.size());
+        Assertions.assertEquals("slow", slowest.get(0).getFingerprint());
+
+        QueryStatistics.StatementStats fast = slowest.get(1);
+        Assertions.assertEquals(100, fast.getCount());
+        Assertions.assertEquals(100, fast.getRows());
+        Assertions.assertEquals(1.0, fast.getP50Millis());
+        Assertions.assertEquals(1.0, fast.getP95Millis());
+        Assertions.assertEquals(1.0, fast.getP99Millis());
+        Assertions.assertEquals(300.0, fast.getMaxMillis());
+
+        // The estimation must not exceed the max
+        Assertions.assertEquals(40.0, slowest.get(0).getP50Millis());
+    }
+
+    @Test
+    public void testListener() {
+        QueryStatistics statistics = new QueryStatistics(0, false);
+        Field<Integer> id = DSL.field("id", Integer.class);
+
+        DSLContext ctx = DSL.using(new DefaultConfiguration()
+                .set(SQLDialect.MYSQL)
+                .set(new MockConnection(c -> {
+                    Result<Record1<Integer>> result = DSL.using(SQLDialect.MYSQL).newResult(id);
+                    for (int i = 0; i < 3; i++) {
+                        result.add(DSL.using(SQLDialect.MYSQL).newRecord(id).values(i));
+                    }
+                    return new MockResult[]{new MockResult(3, result)};
+                }))
+                .set(new DefaultExecuteListenerProvider(statistics)));
+
+        ctx.select(id).from(DSL.table("t")).where(id.in(1, 2, 3)).fetch();
+        ctx.select(id).from(DSL.table("t")).where(id.in(4, 5)).fetch();
+
+        QueryStatistics.Stats stats = statistics.getMetrics();
+        Assertions.assertEquals(2, stats.getExecutions());
+        Assertions.assertEquals(1, stats.getFingerprints());
+
+        QueryStatistics.StatementStats statement = stats.getSlowest().get(0);
+        Assertions.assertEquals("select id from t where id in (?)", statement.getFingerprint());
+        Assertions.assertEquals(2, statement.getCount());
+        Assertions.assertEquals(6, statement.getRows());
+    }
+
+    @Test
+    public void testLoggedSql() {
+        Assertions.assertEquals(List.of("select id from t where (id in (?) and name = ?)",
+                                        "update `settings` set `mail_password` = ?"),
+                                loggedSql(new QueryStatistics(0, false)));
+
+        // The settings are never logged with their values
+        Assertions.assertEquals(List.of("select id from t where (id in (1, 2) and name = 'x')",
+                                        "update `settings` set `mail_password` = ?"),
+                                loggedSql(new QueryStatistics(0, true)));
+    }
+
+    private static List<String> loggedSql(QueryStatistics statistics) {
+        Field<Integer> id = DSL.field("id", Integer.class);
+        List<String> logged = new ArrayList<>();
+
+        DefaultExecuteListener capture = new DefaultExecuteListener() {
+            @Override
+            public void end(ExecuteContext ctx) {
+                logged.add(statistics.toLoggedSql(ctx, ctx.sql(), QueryStatistics.fingerprint(ctx.sql())));
+            }
+        };
+
+        DSLContext ctx = DSL.using(new DefaultConfiguration()
+                .set(SQLDialect.MYSQL)
+                .set(new MockConnection(c -> new MockResult[]{new MockResult(0)}))
+                .set(new DefaultExecuteListenerProvider(capture)));
+
+        ctx.select(id).from(DSL.table("t")).where(id.in(1, 2)).and(DSL.field("name").eq("x")).fetch();
+        ctx.update(DSL.table(DSL.name("settings"))).set(DSL.field(DSL.name("mail_password")), "p@ss").execute();
+        return logged;
+    }
+}
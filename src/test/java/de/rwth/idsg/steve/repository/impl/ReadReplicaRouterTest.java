@@ -0,0 +1,102 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class ReadReplicaRouterTest {
+
+    private DSLContext primary;
+    private DSLContext replica;
+    private ReadReplicaRouter router;
+
+    @BeforeEach
+    public void init() {
+        primary = Mockito.mock(DSLContext.class);
+        replica = Mockito.mock(DSLContext.class);
+        router = new ReadReplicaRouter(primary, replica, 30, Mockito.mock(ScheduledExecutorService.class));
+    }
+
+    @Test
+    public void testPrimaryUntilFirstLagCheck() {
+        Assertions.assertSame(primary, router.getReadContext());
+    }
+
+    @Test
+    public void testFallbackOnLag() {
+        router.updateLag(5L);
+        Assertions.assertSame(replica, router.getReadContext());
+
+        router.updateLag(31L);
+        Assertions.assertSame(primary, router.getReadContext());
+
+        // Replication stopped or the lag could not be read
+        router.updateLag(null);
+        Assertions.assertSame(primary, router.getReadContext());
+
+        router.updateLag(30L);
+        Assertions.assertSame(replica, router.getReadContext());
+
+        Assertions.assertEquals(2, router.getMetrics().getReplicaReads());
+        Assertions.assertEquals(2, router.getMetrics().getPrimaryReads());
+    }
+
+    @Test
+    public void testPinnedReadContext() {
+        router.updateLag(5L);
+
+        DSLContext pinned = router.withPinnedReadContext(() -> {
+            DSLContext first = router.getReadContext();
+            router.updateLag(31L);
+            Assertions.assertSame(first, router.getReadContext());
+            return first;
+        });
+
+        Assertions.assertSame(replica, pinned);
+        Assertions.assertSame(primary, router.getReadContext());
+        Assertions.assertEquals(1, router.getMetrics().getReplicaReads());
+
+        router.updateLag(5L);
+        Assertions.assertSame(primary, router.withPrimaryReadContext(router::getReadContext));
+    }
+
+    @Test
+    public void testWithoutReplica() {
+        router = new ReadReplicaRouter(primary);
+        router.updateLag(0L);
+        Assertions.assertSame(primary, router.getReadContext());
+        Assertions.assertFalse(router.getMetrics().isReplicaEnabled());
+    }
+
+    @Test
+    public void testWithoutLagCheck() {
+        router = new ReadReplicaRouter(primary, replica, 0, null);
+        Assertions.assertSame(replica, router.getReadContext());
+    }
+}
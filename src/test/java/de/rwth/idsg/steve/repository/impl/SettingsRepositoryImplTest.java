@@ -0,0 +1,207 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.NotificationFeature;
+import de.rwth.idsg.steve.repository.dto.MailSettings;
+import de.rwth.idsg.steve.web.dto.SettingsForm;
+import jooq.steve.db.tables.records.SettingsRecord;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockExecuteContext;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static jooq.steve.db.tables.Settings.SETTINGS;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class SettingsRepositoryImplTest {
+
+    private static final DSLContext CREATE = DSL.using(SQLDialect.MYSQL);
+
+    private final List<MockExecuteContext> executed = new ArrayList<>();
+
+    // The settings row
+    private int version;
+    private String mailHost;
+    private int heartbeatSeconds;
+    private boolean failing;
+
+    private SettingsRepositoryImpl repository;
+
+    @BeforeEach
+    public void init() {
+        executed.clear();
+        version = 1;
+        mailHost = "host-a";
+        heartbeatSeconds = 14400;
+        failing = false;
+
+        DSLContext ctx = DSL.using(new MockConnection(this::execute), SQLDialect.MYSQL);
+        repository = new SettingsRepositoryImpl(ctx, Mockito.mock(ScheduledExecutorService.class));
+    }
+
+    @Test
+    public void testGetFormReadsSnapshot() {
+        SettingsForm form = repository.getForm();
+
+        Assertions.assertEquals("host-a", form.getHost());
+        Assertions.assertEquals(240, form.getHeartbeat());
+        Assertions.assertEquals(List.of("a@example.com", "b@example.com"), form.getRecipients());
+        Assertions.assertEquals(1, countRowReads());
+
+        // Unchanged version, so only the version is read
+        repository.getForm();
+        repository.getForm();
+
+        Assertions.assertEquals(1, countRowReads());
+        Assertions.assertEquals(3, countVersionReads());
+    }
+
+    @Test
+    public void testGetFormReloadsChangedSettings() {
+        repository.getForm();
+
+        // Updated by another node
+        version = 2;
+        mailHost = "host-b";
+
+        Assertions.assertEquals("host-b", repository.getForm().getHost());
+        Assertions.assertEquals(2, countRowReads());
+    }
+
+    @Test
+    public void testPoll() {
+        MailSettings before = repository.getMailSettings();
+
+        repository.poll();
+        Assertions.assertSame(before, repository.getMailSettings());
+        Assertions.assertEquals(1, countRowReads());
+
+        // Updated by another node
+        version = 2;
+        mailHost = "host-b";
+        heartbeatSeconds = 600;
+        repository.poll();
+
+        MailSettings after = repository.getMailSettings();
+        Assertions.assertNotSame(before, after);
+        Assertions.assertEquals("host-b", after.getHost());
+        Assertions.assertEquals(600, repository.getHeartbeatIntervalInSeconds());
+        Assertions.assertEquals(2, countRowReads());
+    }
+
+    @Test
+    public void testFailedPollKeepsSettings() {
+        MailSettings before = repository.getMailSettings();
+
+        failing = true;
+        repository.poll();
+
+        Assertions.assertSame(before, repository.getMailSettings());
+        Assertions.assertEquals(14400, repository.getHeartbeatIntervalInSeconds());
+    }
+
+    @Test
+    public void testUpdateReloads() {
+        MailSettings before = repository.getMailSettings();
+
+        SettingsForm form = repository.getForm();
+        form.setHost("host-b");
+        repository.update(form);
+
+        MailSettings after = repository.getMailSettings();
+        Assertions.assertNotSame(before, after);
+        Assertions.assertEquals("host-b", after.getHost());
+    }
+
+    @Test
+    public void testSnapshotIsNotChangedByForm() {
+        SettingsForm form = repository.getForm();
+        form.getRecipients().add("c@example.com");
+
+        MailSettings settings = repository.getMailSettings();
+        Assertions.assertEquals(List.of("a@example.com", "b@example.com"), settings.getRecipients());
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> settings.getRecipients().add("c@example.com"));
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private MockResult[] execute(MockExecuteContext c) throws SQLException {
+        executed.add(c);
+        String sql = c.sql();
+
+        if (failing) {
+            throw new SQLException("test");
+
+        } else if (sql.startsWith("select `stevedb`.`settings`.`version`")) {
+            Result<Record1<Integer>> result = CREATE.newResult(SETTINGS.VERSION);
+            result.add(CREATE.newRecord(SETTINGS.VERSION).values(version));
+            return new MockResult[]{new MockResult(1, result)};
+
+        } else if (sql.startsWith("select `stevedb`.`settings`.`app_id`")) {
+            Result<SettingsRecord> result = CREATE.newResult(SETTINGS);
+            result.add(new SettingsRecord().setAppId("app")
+                                           .setHeartbeatIntervalInSeconds(heartbeatSeconds)
+                                           .setHoursToExpire(1)
+                                           .setMailEnabled(true)
+                                           .setMailHost(mailHost)
+                                           .setMailFrom("steve@example.com")
+                                           .setMailProtocol("smtp")
+                                           .setMailPort(25)
+                                           .setMailRecipients("a@example.com,b@example.com")
+                                           .setNotificationFeatures(NotificationFeature.values()[0].name())
+                                           .setVersion(version));
+            return new MockResult[]{new MockResult(1, result)};
+
+        } else if (sql.startsWith("update `stevedb`.`settings`")) {
+            version++;
+            mailHost = (String) c.bindings()[3];
+            return new MockResult[]{new MockResult(1)};
+        }
+
+        throw new SQLException("Unexpected statement: " + sql);
+    }
+
+    private long countRowReads() {
+        return executed.stream().filter(c -> c.sql().startsWith("select `stevedb`.`settings`.`app_id`")).count();
+    }
+
+    private long countVersionReads() {
+        return executed.stream().filter(c -> c.sql().startsWith("select `stevedb`.`settings`.`version`")).count();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockExecuteContext;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Without a database, the merge with an existing row is checked on the level of the rendered statement.
+ *
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class TransactionEnergySummaryUpdaterTest {
+
+    private static final DateTime T1 = new DateTime(2026, 10, 18, 10, 0);
+    private static final DateTime T2 = T1.plusMinutes(1);
+    private static final DateTime T3 = T1.plusMinutes(2);
+
+    private final List<MockExecuteContext> executed = new ArrayList<>();
+    private DSLContext ctx;
+
+    @BeforeEach
+    public void init() {
+        executed.clear();
+        ctx = DSL.using(new MockConnection(c -> {
+            executed.add(c);
+            return new MockResult[]{new MockResult(1)};
+        }), SQLDialect.MYSQL);
+    }
+
+    @Test
+    public void testOutOfOrder() {
+        update(energy(1, T2, "20", "Wh"), energy(1, T1, "10", "Wh"), energy(1, T3, "30", "Wh"));
+
+        assertSummary(insertedValues(), "10", T1, "30", T3, null, 3, T3);
+    }
+
+    @Test
+    public void testEqualTimestamps() {
+        update(energy(1, T1, "10", "Wh"), energy(1, T1, "11", "Wh"));
+
+        // The first one stays the first, the one that arrived later becomes the last
+        assertSummary(insertedValues(), "10", T1, "11", T1, null, 2, T1);
+    }
+
+    @Test
+    public void testMixedUnits() {
+        update(energy(1, T1, "1.5", "kWh"), energy(1, T2, "2000", "Wh"));
+
+        assertSummary(insertedValues(), "1500", T1, "2000", T2, null, 2, T2);
+    }
+
+    @Test
+    public void testPowerOnly() {
+        update(power(1, T1, "7", "kW"), power(1, T2, "3000", "W"));
+
+        assertSummary(insertedValues(), null, null, null, null, "7000", 2, T2);
+
+        // The energy values of an existing row must not be touched
+        String sql = executed.get(0).sql();
+        Assertions.assertFalse(sql.contains("`first_energy_value` = case"), sql);
+        Assertions.assertFalse(sql.contains("`last_energy_value` = case"), sql);
+    }
+
+    @Test
+    public void testExistingRow() {
+        update(energy(1, T1, "10", "Wh"), power(1, T2, "3", "kW"));
+
+        String sql = executed.get(0).sql().replaceAll("(`\\w+`\\.)?`transaction_energy_summary`\\.", "");
+
+        // The energy values are compared with the stored timestamps, so they must be assigned before the timestamps
+        Assertions.assertEquals("on duplicate key update "
+                + "`sample_count` = (`sample_count` + ?), "
+                + "`last_value_timestamp` = greatest(coalesce(`last_value_timestamp`, ?), ?), "
+                + "`max_power_value` = greatest(coalesce(`max_power_value`, ?), ?), "
+                + "`first_energy_value` = case when (`first_energy_timestamp` is null "
+                + "or `first_energy_timestamp` > ?) then ? else `first_energy_value` end, "
+                + "`first_energy_timestamp` = case when (`first_energy_timestamp` is null "
+                + "or `first_energy_timestamp` > ?) then ? else `first_energy_timestamp` end, "
+                + "`last_energy_value` = case when (`last_energy_timestamp` is null "
+                + "or `last_energy_timestamp` <= ?) then ? else `last_energy_value` end, "
+                + "`last_energy_timestamp` = case when (`last_energy_timestamp` is null "
+                + "or `last_energy_timestamp` <= ?) then ? else `last_energy_timestamp` end",
+                sql.substring(sql.indexOf("on duplicate key update")));
+
+        Object[] bindings = executed.get(0).bindings();
+        Assertions.assertEquals(8 + 13, bindings.length);
+        Assertions.assertEquals(2, bindings[8]);
+        assertTimestamp(T2, bindings[9]);
+        assertTimestamp(T2, bindings[10]);
+        assertDecimal("3000", bindings[11]);
+        assertDecimal("3000", bindings[12]);
+        for (int k = 13; k < bindings.length; k += 2) {
+            assertTimestamp(T1, bindings[k]);
+        }
+        assertDecimal("10", bindings[14]);
+        assertTimestamp(T1, bindings[16]);
+        assertDecimal("10", bindings[18]);
+        assertTimestamp(T1, bindings[20]);
+    }
+
+    @Test
+    public void testOutOfColumnRange() {
+        update(energy(1, T1, "10", "Wh"), energy(1, T2, "1e30", "Wh"), energy(1, T3, "100000000000000", "kWh"),
+                power(1, T2, "-1e17", "W"), power(1, T3, "99999999999999999.999", "W"));
+
+        // Only counted, so that the upsert cannot fail and take the raw meter values down with it
+        assertSummary(insertedValues(), "10", T1, "10", T1, "99999999999999999.999", 5, T3);
+    }
+
+    @Test
+    public void testOnePerTransaction() {
+        update(energy(1, T1, "10", "Wh"), energy(2, T1, "20", "Wh"), energy(null, T1, "30", "Wh"),
+                energy(1, T2, "15", "Wh"));
+
+        Assertions.assertEquals(2, executed.size());
+        Assertions.assertEquals(1, insertedValues(0)[0]);
+        Assertions.assertEquals(2, insertedValues(1)[0]);
+        assertSummary(insertedValues(0), "10", T1, "15", T2, null, 2, T2);
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private void update(ConnectorMeterValueRecord... records) {
+        TransactionEnergySummaryUpdater.update(ctx, List.of(records));
+    }
+
+    private Object[] insertedValues() {
+        Assertions.assertEquals(1, executed.size());
+        return insertedValues(0);
+    }
+
+    /**
+     * The values of the INSERT part, in the order they are set
+     */
+    private Object[] insertedValues(int index) {
+        Object[] bindings = executed.get(index).bindings();
+        Object[] values = new Object[8];
+        System.arraycopy(bindings, 0, values, 0, values.length);
+        return values;
+    }
+
+    private static void assertSummary(Object[] values, String firstEnergy, DateTime firstTimestamp,
+                                      String lastEnergy, DateTime lastTimestamp, String maxPower,
+                                      int count, DateTime lastValueTimestamp) {
+        assertDecimal(firstEnergy, values[1]);
+        assertTimestamp(firstTimestamp, values[2]);
+        assertDecimal(lastEnergy, values[3]);
+        assertTimestamp(lastTimestamp, values[4]);
+        assertDecimal(maxPower, values[5]);
+        Assertions.assertEquals(count, values[6]);
+        assertTimestamp(lastValueTimestamp, values[7]);
+    }
+
+    private static void assertDecimal(String expected, Object actual) {
+        if (expected == null) {
+            Assertions.assertNull(actual);
+        } else {
+            Assertions.assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), String.valueOf(actual));
+        }
+    }
+
+    private static void assertTimestamp(DateTime expected, Object actual) {
+        Assertions.assertEquals(expected == null ? null : new Timestamp(expected.getMillis()), actual);
+    }
+
+    private static ConnectorMeterValueRecord energy(Integer transactionPk, DateTime timestamp, String value,
+                                                    String unit) {
+        return new ConnectorMeterValueRecord().setTransactionPk(transactionPk)
+                                              .setValueTimestamp(timestamp)
+                                              .setValue(value)
+                                              .setMeasurand("Energy.Active.Import.Register")
+                                              .setUnit(unit);
+    }
+
+    private static ConnectorMeterValueRecord power(Integer transactionPk, DateTime timestamp, String value,
+                                                   String unit) {
+        return new ConnectorMeterValueRecord().setTransactionPk(transactionPk)
+                                              .setValueTimestamp(timestamp)
+                                              .setValue(value)
+                                              .setMeasurand("Power.Active.Import")
+                                              .setUnit(unit);
+    }
+}
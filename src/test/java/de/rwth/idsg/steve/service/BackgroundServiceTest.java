@@ -0,0 +1,245 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.ocpp.OcppCallback;
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.web.dto.ocpp.ChargePointSelection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.ws.AsyncHandler;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class BackgroundServiceTest {
+
+    private ExecutorService executor;
+    private ExecutorService singleExecutor;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    public void init() {
+        executor = Executors.newFixedThreadPool(4);
+        singleExecutor = Executors.newSingleThreadExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    public void destroy() {
+        executor.shutdownNow();
+        singleExecutor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testBoundedParallelism() throws Exception {
+        TestTask task = new TestTask(20);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        new BackgroundService(executor, singleExecutor, scheduler, 3, 0)
+                .forEach(task)
+                .execute(c -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(20);
+                    running.decrementAndGet();
+                    task.addNewResponse(c.getChargeBoxId(), "OK");
+                });
+
+        awaitFinished(task);
+        Assertions.assertEquals(20, task.getResponseCount().get());
+        Assertions.assertEquals(20, task.getDispatchedCount().get());
+        Assertions.assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testStuckStationDoesNotHoldUpTheRest() throws Exception {
+        TestTask task = new TestTask(5);
+
+        new BackgroundService(executor, singleExecutor, scheduler, 1, 1)
+                .forEach(task)
+                .execute(c -> {
+                    if ("cp1".equals(c.getChargeBoxId())) {
+                        sleep(60_000);
+                    }
+                    task.addNewResponse(c.getChargeBoxId(), "OK");
+                });
+
+        awaitFinished(task);
+        Assertions.assertEquals(4, task.getResponseCount().get());
+        Assertions.assertEquals(1, task.getErrorCount().get());
+        Assertions.assertNotNull(task.getResultMap().get("cp1").getErrorMessage());
+        Assertions.assertNull(task.getResultMap().get("cp1").getResponse());
+    }
+
+    @Test
+    public void testFailedDispatch() throws Exception {
+        TestTask task = new TestTask(3);
+
+        new BackgroundService(executor, singleExecutor, scheduler, 1, 0)
+                .forEach(task)
+                .execute(c -> {
+                    if ("cp0".equals(c.getChargeBoxId())) {
+                        throw new IllegalStateException("No connection");
+                    }
+                    task.addNewResponse(c.getChargeBoxId(), "OK");
+                });
+
+        awaitFinished(task);
+        Assertions.assertEquals("No connection", task.getResultMap().get("cp0").getErrorMessage());
+        Assertions.assertEquals(2, task.getResponseCount().get());
+        Assertions.assertEquals(3, task.getDispatchedCount().get());
+    }
+
+    @Test
+    public void testTasksRunAtTheSameTime() throws Exception {
+        BackgroundService service = new BackgroundService(executor, singleExecutor, scheduler, 2, 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Keeps its workers busy until the second one is done
+        TestTask first = new TestTask(10);
+        service.forEach(first).execute(c -> {
+            await(release);
+            first.addNewResponse(c.getChargeBoxId(), "OK");
+        });
+
+        TestTask second = new TestTask(10);
+        service.forEach(second).execute(c -> second.addNewResponse(c.getChargeBoxId(), "OK"));
+
+        awaitFinished(second);
+        Assertions.assertFalse(first.isFinished());
+
+        release.countDown();
+        awaitFinished(first);
+        Assertions.assertEquals(10, first.getResponseCount().get());
+    }
+
+    @Test
+    public void testSingleTaskDoesNotWaitForFanout() throws Exception {
+        BackgroundService service = new BackgroundService(executor, singleExecutor, scheduler, 4, 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Takes all threads of the fanout executor
+        TestTask many = new TestTask(10);
+        service.forEach(many).execute(c -> {
+            await(release);
+            many.addNewResponse(c.getChargeBoxId(), "OK");
+        });
+
+        TestTask single = new TestTask(1);
+        service.forFirst(single).execute(c -> single.addNewResponse(c.getChargeBoxId(), "OK"));
+
+        awaitFinished(single);
+        Assertions.assertFalse(many.isFinished());
+
+        release.countDown();
+        awaitFinished(many);
+    }
+
+    private static void awaitFinished(TestTask task) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!task.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(task.isFinished());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestTask extends CommunicationTask<ChargePointSelection, String> {
+
+        private TestTask(int size) {
+            super(OcppVersion.V_16, selection(size));
+        }
+
+        private static ChargePointSelection selection(int size) {
+            List<ChargePointSelect> list = IntStream.range(0, size)
+                                                    .mapToObj(i -> new ChargePointSelect(OcppTransport.JSON, "cp" + i))
+                                                    .collect(Collectors.toList());
+            return () -> list;
+        }
+
+        @Override
+        public OcppCallback<String> defaultCallback() {
+            return new StringOcppCallback();
+        }
+
+        @Override
+        public <T extends RequestType> T getOcpp12Request() {
+            return null;
+        }
+
+        @Override
+        public <T extends RequestType> T getOcpp15Request() {
+            return null;
+        }
+
+        @Override
+        public <T extends RequestType> T getOcpp16Request() {
+            return null;
+        }
+
+        @Override
+        public <T extends ResponseType> AsyncHandler<T> getOcpp12Handler(String chargeBoxId) {
+            return null;
+        }
+
+        @Override
+        public <T extends ResponseType> AsyncHandler<T> getOcpp15Handler(String chargeBoxId) {
+            return null;
+        }
+
+        @Override
+        public <T extends ResponseType> AsyncHandler<T> getOcpp16Handler(String chargeBoxId) {
+            return null;
+        }
+    }
+}
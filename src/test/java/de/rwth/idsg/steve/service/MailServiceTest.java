@@ -0,0 +1,88 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.SettingsRepository;
+import de.rwth.idsg.steve.repository.dto.MailSettings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import jakarta.mail.Session;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class MailServiceTest {
+
+    private SettingsRepository repository;
+    private MailService mailService;
+
+    @BeforeEach
+    public void init() {
+        repository = Mockito.mock(SettingsRepository.class);
+        mailService = new MailService(repository, Mockito.mock(ExecutorService.class));
+    }
+
+    @Test
+    public void testSessionIsRebuiltWhenSettingsChange() {
+        // The repository returns a new instance, when the settings change
+        when(repository.getMailSettings()).thenReturn(settings("host-a", 25), settings("host-b", 25));
+
+        MailSettings first = mailService.getSettings();
+        Session session = mailService.getSession(first);
+        Assertions.assertSame(session, mailService.getSession(first));
+        Assertions.assertEquals("host-a", session.getProperty("mail.host"));
+
+        Session changed = mailService.getSession(mailService.getSettings());
+        Assertions.assertNotSame(session, changed);
+        Assertions.assertEquals("host-b", changed.getProperty("mail.host"));
+    }
+
+    @Test
+    public void testSessionProperties() {
+        Session ssl = mailService.getSession(settings("host-a", 465));
+        Assertions.assertEquals("true", ssl.getProperty("mail.smtp.ssl.enable"));
+        Assertions.assertEquals("true", ssl.getProperty("mail.smtp.auth"));
+
+        Session startTls = mailService.getSession(settings("host-a", 587));
+        Assertions.assertEquals("true", startTls.getProperty("mail.smtp.starttls.enable"));
+        Assertions.assertEquals("587", startTls.getProperty("mail.smtp.port"));
+    }
+
+    private static MailSettings settings(String host, int port) {
+        return MailSettings.builder()
+                           .enabled(true)
+                           .host(host)
+                           .username("user")
+                           .password("secret")
+                           .from("steve@example.com")
+                           .protocol("smtp")
+                           .port(port)
+                           .recipients(List.of("a@example.com"))
+                           .enabledFeatures(List.of())
+                           .build();
+    }
+}
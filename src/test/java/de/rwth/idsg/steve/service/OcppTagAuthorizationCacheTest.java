@@ -0,0 +1,149 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.OcppTagRepository;
+import jooq.steve.db.tables.records.OcppTagActivityRecord;
+import jooq.steve.db.tables.records.OcppTagRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+public class OcppTagAuthorizationCacheTest {
+
+    private OcppTagRepository repository;
+    private OcppTagAuthorizationCache cache;
+
+    @BeforeEach
+    public void init() {
+        repository = Mockito.mock(OcppTagRepository.class);
+        cache = new OcppTagAuthorizationCache(repository, 60, 100);
+
+        when(repository.getTagRecord("tag1")).thenReturn(new OcppTagRecord().setOcppTagPk(1)
+                                                                             .setIdTag("tag1")
+                                                                             .setMaxActiveTransactionCount(2));
+        when(repository.getActiveTransactionIds("tag1")).thenReturn(List.of(10));
+    }
+
+    @Test
+    public void testLoadOnce() {
+        Assertions.assertEquals(1L, cache.getRecord("tag1").getActiveTransactionCount());
+        Assertions.assertEquals(1L, cache.getRecord("tag1").getActiveTransactionCount());
+
+        verify(repository, times(1)).getTagRecord("tag1");
+        Assertions.assertEquals(1, cache.getMetrics().getHits());
+        Assertions.assertEquals(1, cache.getMetrics().getMisses());
+    }
+
+    @Test
+    public void testUnknownTagIsNotCached() {
+        Assertions.assertNull(cache.getRecord("unknown"));
+        Assertions.assertNull(cache.getRecord("unknown"));
+
+        verify(repository, times(2)).getTagRecord("unknown");
+    }
+
+    @Test
+    public void testTransactionCounting() {
+        cache.getRecord("tag1");
+
+        cache.transactionStarted("tag1", 11);
+        cache.transactionStarted("tag1", 11); // StartTransaction is sent again
+        Assertions.assertEquals(2L, cache.getRecord("tag1").getActiveTransactionCount());
+
+        cache.transactionStopped(10);
+        cache.transactionStopped(10);
+        cache.transactionStopped(99); // of a tag that is not cached
+        OcppTagActivityRecord record = cache.getRecord("tag1");
+        Assertions.assertEquals(1L, record.getActiveTransactionCount());
+        Assertions.assertTrue(record.getInTransaction());
+
+        verify(repository, times(1)).getActiveTransactionIds("tag1");
+    }
+
+    @Test
+    public void testTransactionStartedDuringLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.getActiveTransactionIds("tag1")).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return List.of(10);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<OcppTagActivityRecord> load = executor.submit(() -> cache.getRecord("tag1"));
+            Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // the transaction is committed after the load read the database, i.e. it is not in the loaded ids
+            Future<?> started = executor.submit(() -> cache.transactionStarted("tag1", 11));
+            Assertions.assertThrows(TimeoutException.class, () -> started.get(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            Assertions.assertNotNull(load.get(5, TimeUnit.SECONDS));
+            started.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(2L, cache.getRecord("tag1").getActiveTransactionCount());
+        verify(repository, times(1)).getTagRecord("tag1");
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.getRecord("tag1");
+        cache.invalidate(1);
+        cache.getRecord("tag1");
+
+        verify(repository, times(2)).getTagRecord("tag1");
+
+        // the transactions of the old entry must not be tracked anymore
+        cache.invalidateAll();
+        Assertions.assertEquals(0, cache.getMetrics().getActiveTransactions());
+    }
+
+    @Test
+    public void testDisabled() {
+        cache = new OcppTagAuthorizationCache(repository, 0, 100);
+        cache.getRecord("tag1");
+        cache.getRecord("tag1");
+
+        verify(repository, times(2)).getRecord("tag1");
+        Assertions.assertEquals(0, cache.getMetrics().getHits());
+    }
+}
@@ -152,4 +152,44 @@ public class TransactionStopServiceHelperTest {
 
         Assertions.assertFalse(TransactionStopServiceHelper.isEnergyValue(value));
     }
+
+    @Test
+    public void testIsPower() {
+        var value = TransactionDetails.MeterValues.builder()
+            .value("7.4")
+            .unit("kW")
+            .measurand("Power.Active.Import")
+            .build();
+
+        Assertions.assertTrue(TransactionStopServiceHelper.isPowerValue(value));
+        Assertions.assertFalse(TransactionStopServiceHelper.isEnergyValue(value));
+    }
+
+    @Test
+    public void testIsPower_singlePhase() {
+        var value = TransactionDetails.MeterValues.builder()
+            .value("2300")
+            .unit("W")
+            .measurand("Power.Active.Import")
+            .phase("L1")
+            .build();
+
+        Assertions.assertFalse(TransactionStopServiceHelper.isPowerValue(value));
+    }
+
+    @Test
+    public void testToBaseUnit() {
+        var kWh = TransactionDetails.MeterValues.builder()
+            .value("12.3456")
+            .unit("kWh")
+            .measurand("Energy.Active.Import.Register")
+            .build();
+
+        var wh = TransactionDetails.MeterValues.builder()
+            .value("22")
+            .build();
+
+        Assertions.assertEquals("12345.6", TransactionStopServiceHelper.toBaseUnit(kWh).toPlainString());
+        Assertions.assertEquals("22", TransactionStopServiceHelper.toBaseUnit(wh).toPlainString());
+    }
 }
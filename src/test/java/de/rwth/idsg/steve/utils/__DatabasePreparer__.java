@@ -27,8 +27,11 @@ import de.rwth.idsg.steve.repository.dto.Reservation;
 import de.rwth.idsg.steve.repository.dto.Transaction;
 import de.rwth.idsg.steve.repository.dto.TransactionDetails;
 import de.rwth.idsg.steve.repository.impl.AddressRepositoryImpl;
+import de.rwth.idsg.steve.repository.impl.ChargeBoxHeartbeatStore;
 import de.rwth.idsg.steve.repository.impl.ChargePointRepositoryImpl;
+import de.rwth.idsg.steve.repository.impl.ConnectorPkCache;
 import de.rwth.idsg.steve.repository.impl.OcppTagRepositoryImpl;
+import de.rwth.idsg.steve.repository.impl.ReadReplicaRouter;
 import de.rwth.idsg.steve.repository.impl.ReservationRepositoryImpl;
 import de.rwth.idsg.steve.repository.impl.TransactionRepositoryImpl;
 import de.rwth.idsg.steve.web.dto.ReservationQueryForm;
@@ -112,7 +115,7 @@ public class __DatabasePreparer__ {
     }
 
     public static List<Transaction> getTransactions() {
-        TransactionRepositoryImpl impl = new TransactionRepositoryImpl(dslContext);
+        TransactionRepositoryImpl impl = new TransactionRepositoryImpl(dslContext, new ReadReplicaRouter(dslContext));
         return impl.getTransactions(new TransactionQueryForm());
     }
     public static List<TransactionRecord> getTransactionRecords() {
@@ -125,12 +128,15 @@ public class __DatabasePreparer__ {
     }
 
     public static List<ConnectorStatus> getChargePointConnectorStatus() {
-        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl());
+        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl(),
+                                                                       new ChargeBoxHeartbeatStore(dslContext, null, 0),
+                                                                       new ConnectorPkCache(dslContext),
+                                                                       new ReadReplicaRouter(dslContext));
         return impl.getChargePointConnectorStatus();
     }
 
     public static TransactionDetails getDetails(int transactionPk) {
-        TransactionRepositoryImpl impl = new TransactionRepositoryImpl(dslContext);
+        TransactionRepositoryImpl impl = new TransactionRepositoryImpl(dslContext, new ReadReplicaRouter(dslContext));
         return impl.getDetails(transactionPk);
     }
 
@@ -140,7 +146,10 @@ public class __DatabasePreparer__ {
     }
 
     public static ChargePoint.Details getCBDetails(String chargeboxID) {
-        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl());
+        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl(),
+                                                                       new ChargeBoxHeartbeatStore(dslContext, null, 0),
+                                                                       new ConnectorPkCache(dslContext),
+                                                                       new ReadReplicaRouter(dslContext));
         Map<String, Integer> pkMap = impl.getChargeBoxIdPkPair(Arrays.asList(chargeboxID));
         int pk = pkMap.get(chargeboxID);
         return impl.getDetails(pk);
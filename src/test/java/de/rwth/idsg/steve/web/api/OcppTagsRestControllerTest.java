@@ -19,19 +19,23 @@
 package de.rwth.idsg.steve.web.api;
 
 import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.repository.ChangeCounterRepository;
 import de.rwth.idsg.steve.repository.dto.OcppTag;
+import de.rwth.idsg.steve.repository.impl.ReadReplicaRouter;
 import de.rwth.idsg.steve.service.OcppTagService;
 import de.rwth.idsg.steve.utils.DateTimeUtils;
 import de.rwth.idsg.steve.web.dto.OcppTagForm;
 import de.rwth.idsg.steve.web.dto.OcppTagQueryForm;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDateTime;
+import org.jooq.DSLContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
@@ -72,11 +76,18 @@ public class OcppTagsRestControllerTest extends AbstractControllerTest {
     @Mock
     private OcppTagService ocppTagService;
 
+    @Mock
+    private ChangeCounterRepository changeCounterRepository;
+
+    // The repositories are mocked. The router only pins the context.
+    private final ReadReplicaRouter readReplicaRouter = new ReadReplicaRouter(Mockito.mock(DSLContext.class));
+
     private MockMvc mockMvc;
 
     @BeforeEach
     public void setup() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new OcppTagsRestController(ocppTagService))
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new OcppTagsRestController(ocppTagService, changeCounterRepository, readReplicaRouter))
             .setControllerAdvice(new ApiControllerAdvice())
             .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
             .alwaysExpect(content().contentType(CONTENT_TYPE))
@@ -18,16 +18,21 @@
  */
 package de.rwth.idsg.steve.web.api;
 
+import de.rwth.idsg.steve.repository.ChangeCounterRepository;
+import de.rwth.idsg.steve.repository.ChangeCounterRepository.Counter;
 import de.rwth.idsg.steve.repository.TransactionRepository;
 import de.rwth.idsg.steve.repository.dto.Transaction;
+import de.rwth.idsg.steve.repository.impl.ReadReplicaRouter;
 import de.rwth.idsg.steve.web.dto.TransactionQueryForm;
 import org.joda.time.DateTime;
+import org.jooq.DSLContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
@@ -36,14 +41,17 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -57,11 +65,19 @@ public class TransactionRestControllerTest extends AbstractControllerTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private ChangeCounterRepository changeCounterRepository;
+
+    // The repositories are mocked. The router only pins the context.
+    private final ReadReplicaRouter readReplicaRouter = new ReadReplicaRouter(Mockito.mock(DSLContext.class));
+
     private MockMvc mockMvc;
 
     @BeforeEach
     public void setup() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionsRestController(transactionRepository))
+        mockMvc = MockMvcBuilders
+            .standaloneSetup(
+                new TransactionsRestController(transactionRepository, changeCounterRepository, readReplicaRouter))
             .setControllerAdvice(new ApiControllerAdvice())
             .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
             .alwaysExpect(content().contentType("application/json"))
@@ -251,6 +267,75 @@ public class TransactionRestControllerTest extends AbstractControllerTest {
         assertEquals(capturedForm.getPeriodType(), TransactionQueryForm.QueryPeriodType.LAST_30);
     }
 
+    @Test
+    @DisplayName("Nothing changed since the last poll, expected 304 without querying")
+    public void test12() throws Exception {
+        // given
+        MockMvc plainMockMvc = MockMvcBuilders
+            .standaloneSetup(
+                new TransactionsRestController(transactionRepository, changeCounterRepository, readReplicaRouter))
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+            .build();
+
+        // when
+        when(changeCounterRepository.getVersions()).thenReturn(Map.of(Counter.TRANSACTION, 7L, Counter.OCPP_TAG, 3L));
+        when(transactionRepository.getTransactions(any())).thenReturn(Collections.emptyList());
+
+        // then
+        String etag = plainMockMvc.perform(get("/api/v1/transactions"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+        plainMockMvc.perform(get("/api/v1/transactions")
+                .header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+
+        verify(transactionRepository).getTransactions(any());
+    }
+
+    @Test
+    @DisplayName("Query relative to today is not cached, expected 200 without ETag")
+    public void test13() throws Exception {
+        // when
+        when(transactionRepository.getTransactions(any())).thenReturn(Collections.emptyList());
+
+        // then
+        mockMvc.perform(get("/api/v1/transactions")
+                .param("periodType", "TODAY"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("ETag"));
+
+        verify(changeCounterRepository, never()).getVersions();
+    }
+
+    @Test
+    @DisplayName("Full page, expected a link to the next one")
+    public void test14() throws Exception {
+        // given
+        List<Transaction> results = List.of(Transaction.builder().id(9).build(), Transaction.builder().id(5).build());
+
+        // when
+        when(transactionRepository.getTransactions(any())).thenReturn(results);
+
+        // then
+        mockMvc.perform(get("/api/v1/transactions?limit=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(header().string("Link",
+                "<http://localhost/api/v1/transactions?limit=2&afterId=5>; rel=\"next\""));
+    }
+
+    @Test
+    @DisplayName("Limit out of range, expected 400")
+    public void test15() throws Exception {
+        mockMvc.perform(get("/api/v1/transactions")
+                .param("limit", "0"))
+            .andExpect(status().isBadRequest())
+            .andExpectAll(errorJsonMatchers());
+    }
+
     private static ResultMatcher[] errorJsonMatchers() {
         return new ResultMatcher[] {
             jsonPath("$.timestamp").exists(),
@@ -0,0 +1,124 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.web.api;
+
+import de.rwth.idsg.steve.repository.TransactionRepository;
+import de.rwth.idsg.steve.repository.dto.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.Writer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author Sevket Goekay <sevketgokay@gmail.com>
+ * @since 18.10.2026
+ */
+@ExtendWith(MockitoExtension.class)
+public class TransactionsExportRestControllerTest extends AbstractControllerTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionsExportRestController(transactionRepository, objectMapper))
+            .setControllerAdvice(new ApiControllerAdvice())
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+            .build();
+    }
+
+    @Test
+    @DisplayName("NDJSON by default, one transaction per line")
+    @SuppressWarnings("unchecked")
+    public void testNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Transaction> consumer = invocation.getArgument(1);
+            consumer.accept(Transaction.builder().id(1).build());
+            consumer.accept(Transaction.builder().id(2).build());
+            return null;
+        }).when(transactionRepository).forEachTransaction(any(), any(Consumer.class));
+
+        String body = mockMvc.perform(get("/api/v1/transactions/export"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(TransactionsExportRestController.NDJSON_VALUE))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1, objectMapper.readTree(lines[0]).get("id").asInt());
+        assertEquals(2, objectMapper.readTree(lines[1]).get("id").asInt());
+    }
+
+    @Test
+    @DisplayName("CSV is written by the repository")
+    public void testCsv() throws Exception {
+        doAnswer(invocation -> {
+            Writer writer = invocation.getArgument(1);
+            writer.write("transaction_pk\n1\n");
+            return null;
+        }).when(transactionRepository).writeTransactionsCSV(any(), any(Writer.class));
+
+        mockMvc.perform(get("/api/v1/transactions/export").param("format", "CSV"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(TransactionsExportRestController.CSV_VALUE))
+            .andExpect(content().string("transaction_pk\n1\n"));
+
+        verify(transactionRepository).writeTransactionsCSV(any(), any(Writer.class));
+    }
+
+    @Test
+    @DisplayName("Unknown format, expected 400")
+    public void testUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/transactions/export").param("format", "XML"))
+            .andExpect(status().isBadRequest())
+            .andExpectAll(errorJsonMatchers());
+    }
+
+    private static ResultMatcher[] errorJsonMatchers() {
+        return new ResultMatcher[] {
+            jsonPath("$.timestamp").exists(),
+            jsonPath("$.status").exists(),
+            jsonPath("$.error").exists(),
+            jsonPath("$.message").exists(),
+            jsonPath("$.path").exists()
+        };
+    }
+}